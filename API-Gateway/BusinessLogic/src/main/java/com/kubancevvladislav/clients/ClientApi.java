@@ -28,6 +28,10 @@ public interface ClientApi {
 
     UserDTO getUserInfoByLogin(String login);
 
+    List<UserDTO> getUsersByLogins(List<String> logins);
+
+    List<AccountDTO> getAccountsByLogins(List<String> logins);
+
     List<AccountDTO> getUserAccountsByLogin(Authentication auth);
 
     AccountDTO getAccountById(BigInteger accountId);
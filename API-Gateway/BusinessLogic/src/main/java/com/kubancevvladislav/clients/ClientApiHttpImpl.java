@@ -21,8 +21,6 @@ import org.springframework.stereotype.Component;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Component
 public class ClientApiHttpImpl implements ClientApi {
@@ -116,15 +114,12 @@ public class ClientApiHttpImpl implements ClientApi {
     @Override
     public List<AccountDTO> getUserAccountsByLogin(String userLogin) {
         var getRequest = GetRequest.builder()
-                .resource(externalApiBaseUrl + "/accounts")
+                .resource(String.format("%s/accounts?userLogin=%s", externalApiBaseUrl, userLogin))
                 .build();
 
-        AccountDTO[] allAccounts = externalApiClient.get(getRequest, AccountDTO[].class)
+        return externalApiClient.get(getRequest, AccountDTO[].class)
+                .map(List::of)
                 .orElseThrow(() -> new ExternalApiException("Ошибка при получении списка счетов"));
-
-        return Stream.of(allAccounts)
-                .filter(account -> userLogin.equals(account.userLogin()))
-                .collect(Collectors.toList());
     }
 
     @Override
@@ -148,6 +143,30 @@ public class ClientApiHttpImpl implements ClientApi {
         return new LoginResponse(token);
     }
 
+    @Override
+    public List<UserDTO> getUsersByLogins(List<String> logins) {
+        PostRequest request = PostRequest.builder()
+                .resource(String.format("%s/users/by-logins", externalApiBaseUrl))
+                .payload(logins)
+                .build();
+
+        return externalApiClient.post(request, UserDTO[].class)
+                .map(List::of)
+                .orElseThrow(() -> new ExternalApiException("Ошибка при получении информации о пользователях"));
+    }
+
+    @Override
+    public List<AccountDTO> getAccountsByLogins(List<String> logins) {
+        PostRequest request = PostRequest.builder()
+                .resource(String.format("%s/accounts/by-owners", externalApiBaseUrl))
+                .payload(logins)
+                .build();
+
+        return externalApiClient.post(request, AccountDTO[].class)
+                .map(List::of)
+                .orElseThrow(() -> new ExternalApiException("Ошибка при получении списка счетов"));
+    }
+
     @Override
     public UserDTO getUserInfoByLogin(String login) {
         String url = String.format("%s/users/%s", externalApiBaseUrl, login);
@@ -162,20 +181,7 @@ public class ClientApiHttpImpl implements ClientApi {
 
     @Override
     public List<AccountDTO> getUserAccountsByLogin(Authentication auth) {
-        String url = String.format("%s/accounts", externalApiBaseUrl);
-
-        GetRequest getRequest = GetRequest.builder()
-                .resource(url)
-                .build();
-
-        AccountDTO[] allAccounts = externalApiClient.get(getRequest, AccountDTO[].class)
-                .orElseThrow(() -> new ExternalApiException("Ошибка при получении списка счетов"));
-
-        String userLogin = auth.getName();
-
-        return Stream.of(allAccounts)
-                .filter(account -> userLogin.equals(account.userLogin()))
-                .toList();
+        return getUserAccountsByLogin(auth.getName());
     }
 
     @Override
@@ -0,0 +1,18 @@
+package com.kubancevvladislav.domain;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Утверждения токена, подпись которого уже проверена.
+ * @param id идентификатор токена ({@code jti}), у токенов, выданных до его появления, - {@code null}
+ * @param username владелец токена ({@code sub})
+ * @param roles роли из утверждения {@code roles}
+ * @param issuedAt момент выдачи ({@code iat})
+ * @param expiresAt момент истечения ({@code exp})
+ */
+public record VerifiedToken(String id, String username, List<String> roles, Instant issuedAt, Instant expiresAt) {
+    public boolean isExpired() {
+        return !expiresAt.isAfter(Instant.now());
+    }
+}
@@ -2,24 +2,51 @@ package com.kubancevvladislav.services;
 
 import com.kubancevvladislav.clients.ClientApi;
 import com.kubancevvladislav.domain.dto.*;
-import lombok.AllArgsConstructor;
-import org.apache.catalina.User;
+import com.kubancevvladislav.exceptions.ExternalApiException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 
 
 import javax.security.auth.login.AccountNotFoundException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
-@AllArgsConstructor
 public class ExternalApiService{
     private final ClientApi clientApi;
+    /** Сколько ждать сведения о друзьях при запросах по одному */
+    private final Duration friendsDeadline;
+    /** Сколько запросов о друзьях выполнять одновременно при запросах по одному */
+    private final int friendsParallelism;
+    /** Сколько логинов передавать в одном пакетном запросе; основной сервис принимает не больше 1000 */
+    private final int friendsBatchSize;
+
+    public ExternalApiService(
+            ClientApi clientApi,
+            @Value("${gateway.friends.deadline-ms:2000}") long friendsDeadlineMs,
+            @Value("${gateway.friends.parallelism:32}") int friendsParallelism,
+            @Value("${gateway.friends.batch-size:500}") int friendsBatchSize
+    ) {
+        this.clientApi = clientApi;
+        this.friendsDeadline = Duration.ofMillis(friendsDeadlineMs);
+        this.friendsParallelism = Math.max(1, friendsParallelism);
+        this.friendsBatchSize = Math.max(1, friendsBatchSize);
+    }
 
     public String createClientAccount(CreateClientRequest request) {
         return clientApi.createClientAccount(request);
@@ -77,6 +104,13 @@ public class ExternalApiService{
         return clientApi.addFriend(friendLogin, auth);
     }
 
+    /**
+     * Возвращает имена и счета друзей пользователя в порядке списка друзей.
+     * Пользователи и их счета запрашиваются у основного сервиса пакетными запросами
+     * по {@code gateway.friends.batch-size} логинов. Если основной сервис не поддерживает пакетные запросы, сведения о каждом друге запрашиваются
+     * отдельно на виртуальных потоках, не более {@code gateway.friends.parallelism} одновременно,
+     * с общим сроком {@code gateway.friends.deadline-ms}.
+     */
     public List<FriendInfoDTO> checkMyFriends(Authentication auth) {
         UserDTO user = getMyInfo(auth);
 
@@ -84,22 +118,100 @@ public class ExternalApiService{
             return List.of();
         }
 
-        List<FriendInfoDTO> friendInfos = new ArrayList<>();
+        try {
+            return batchFriendInfos(user.friends());
+        } catch (HttpClientErrorException.NotFound | HttpClientErrorException.MethodNotAllowed e) {
+            return concurrentFriendInfos(user.friends());
+        }
+    }
 
-        for (String friendLogin : user.friends()) {
-            UserDTO friend = clientApi.getUserInfoByLogin(friendLogin);
+    private List<FriendInfoDTO> batchFriendInfos(List<String> friendLogins) {
+        List<UserDTO> users = new ArrayList<>();
+        List<AccountDTO> accounts = new ArrayList<>();
+        for (int from = 0; from < friendLogins.size(); from += friendsBatchSize) {
+            List<String> batch = friendLogins.subList(from, Math.min(from + friendsBatchSize, friendLogins.size()));
+            users.addAll(clientApi.getUsersByLogins(batch));
+            accounts.addAll(clientApi.getAccountsByLogins(batch));
+        }
+        Map<String, UserDTO> friends = users.stream()
+                .collect(Collectors.toMap(UserDTO::login, Function.identity(), (first, second) -> first));
+        Map<String, List<BigInteger>> accountIds = accounts.stream()
+                .collect(Collectors.groupingBy(
+                        AccountDTO::userLogin,
+                        Collectors.mapping(AccountDTO::id, Collectors.toList())));
+
+        List<FriendInfoDTO> friendInfos = new ArrayList<>();
+        for (String friendLogin : friendLogins) {
+            UserDTO friend = friends.get(friendLogin);
             if (friend != null) {
-                List<AccountDTO> accounts = clientApi.getUserAccountsByLogin(friendLogin);
-                List<BigInteger> accountIds = accounts.stream()
-                        .map(AccountDTO::id)
-                        .toList();
-                friendInfos.add(new FriendInfoDTO(friend.name(), accountIds));
+                friendInfos.add(new FriendInfoDTO(friend.name(), accountIds.getOrDefault(friendLogin, List.of())));
             }
         }
+        return friendInfos;
+    }
+
+    private List<FriendInfoDTO> concurrentFriendInfos(List<String> friendLogins) {
+        Semaphore permits = new Semaphore(friendsParallelism);
+        List<Callable<FriendInfoDTO>> tasks = friendLogins.stream()
+                .<Callable<FriendInfoDTO>>map(friendLogin -> () -> {
+                    permits.acquire();
+                    try {
+                        return friendInfo(friendLogin);
+                    } finally {
+                        permits.release();
+                    }
+                })
+                .toList();
+
+        List<Future<FriendInfoDTO>> futures;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            futures = executor.invokeAll(tasks, friendsDeadline.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExternalApiException("Получение сведений о друзьях прервано");
+        }
 
+        List<FriendInfoDTO> friendInfos = new ArrayList<>();
+        for (Future<FriendInfoDTO> future : futures) {
+            switch (future.state()) {
+                case CANCELLED -> throw new ExternalApiException(
+                        "Сведения о друзьях не получены за " + friendsDeadline.toMillis() + " мс");
+                case FAILED -> {
+                    if (future.exceptionNow() instanceof RuntimeException e) {
+                        throw e;
+                    }
+                    throw new ExternalApiException("Ошибка при получении сведений о друзьях");
+                }
+                default -> {
+                    FriendInfoDTO friendInfo = future.resultNow();
+                    if (friendInfo != null) {
+                        friendInfos.add(friendInfo);
+                    }
+                }
+            }
+        }
         return friendInfos;
     }
 
+    /**
+     * @return сведения о друге или {@code null}, если друга уже нет в основном сервисе,
+     * как и в пакетном запросе, где отсутствующие логины пропускаются
+     */
+    private FriendInfoDTO friendInfo(String friendLogin) {
+        try {
+            UserDTO friend = clientApi.getUserInfoByLogin(friendLogin);
+            if (friend == null) {
+                return null;
+            }
+            List<BigInteger> accountIds = clientApi.getUserAccountsByLogin(friendLogin).stream()
+                    .map(AccountDTO::id)
+                    .toList();
+            return new FriendInfoDTO(friend.name(), accountIds);
+        } catch (HttpClientErrorException.NotFound e) {
+            return null;
+        }
+    }
+
     public OperationResponseDTO depositToAccount(BigInteger id, BigDecimal amount, Authentication auth) throws AccountNotFoundException {
         doesAccountBelongToUser(id, auth.getName());
         return clientApi.depositToAccount(id, amount);
@@ -1,8 +1,12 @@
 package com.kubancevvladislav.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.kubancevvladislav.domain.Role;
+import com.kubancevvladislav.domain.VerifiedToken;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.JwtParserBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
@@ -12,30 +16,44 @@ import io.jsonwebtoken.Jwts;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
-import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
-    private String secret;
-    private int expiresIn;
+    private final SecretKey key;
+    private final JwtParser parser;
+    private final int expiresIn;
+    /** Проверенные токены по SHA-256 токена; запись живёт до {@code exp} токена */
+    private final Cache<String, VerifiedToken> verifiedTokens;
 
     public JwtService (
             @Value("${secret}") String secret,
-            @Value("${expirationMS}") int expiresIn
+            @Value("${expirationMS}") int expiresIn,
+            @Value("${jwt.cache.maximum-size:100000}") long cacheMaximumSize
     ) {
-        this.secret = secret;
+        this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parser().verifyWith(key).build();
         this.expiresIn = expiresIn;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfter(new UntilTokenExpires())
+                .build();
     }
 
     public String generateToken(String username, Collection<? extends GrantedAuthority> role) {
-        Key key = Keys.hmacShaKeyFor(secret.getBytes());
         List<String> roles = role.stream().map(GrantedAuthority::getAuthority).toList();
 
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
                 .claim("roles", roles)
                 .issuedAt(new Date())
@@ -44,12 +62,17 @@ public class JwtService {
                 .compact();
     }
 
-    private Claims extractAllClaims(String token) {
-        JwtParserBuilder parser = Jwts.parser();
-        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes());
-        parser.verifyWith(key);
+    /**
+     * Проверяет подпись и срок токена. Повторные проверки того же токена берутся из кэша
+     * без разбора и вычисления HMAC.
+     * @throws io.jsonwebtoken.JwtException если токен подделан, повреждён или истёк
+     */
+    public VerifiedToken verify(String token) {
+        return verifiedTokens.get(tokenHash(token), hash -> toVerifiedToken(extractAllClaims(token)));
+    }
 
-        return parser.build().parseSignedClaims(token).getPayload();
+    private Claims extractAllClaims(String token) {
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> resolver) {
@@ -59,7 +82,7 @@ public class JwtService {
     }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).username();
     }
 
     public Role extractRole(String token) {
@@ -67,16 +90,53 @@ public class JwtService {
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return Date.from(verify(token).expiresAt());
     }
 
-    private boolean isAccessTokenNotExpired(String token) {
-        return !extractExpiration(token).before(new Date());
+    public boolean isValid(String token, UserDetails user) {
+        return isValid(verify(token), user);
     }
 
-    public boolean isValid(String token, UserDetails user) {
-        String username = extractUsername(token);
+    public boolean isValid(VerifiedToken token, UserDetails user) {
+        return token.username().equals(user.getUsername()) && !token.isExpired();
+    }
+
+    private VerifiedToken toVerifiedToken(Claims claims) {
+        List<?> roles = claims.get("roles", List.class);
+        Instant expiresAt = claims.getExpiration() == null
+                ? Instant.now().plusMillis(expiresIn)
+                : claims.getExpiration().toInstant();
+        return new VerifiedToken(
+                claims.getId(),
+                claims.getSubject(),
+                roles == null ? List.of() : roles.stream().map(String::valueOf).toList(),
+                claims.getIssuedAt() == null ? expiresAt.minusMillis(expiresIn) : claims.getIssuedAt().toInstant(),
+                expiresAt);
+    }
+
+    private static String tokenHash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
 
-        return username.equals(user.getUsername()) && isAccessTokenNotExpired(token);
+    private static final class UntilTokenExpires implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String hash, VerifiedToken token, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), token.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String hash, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String hash, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
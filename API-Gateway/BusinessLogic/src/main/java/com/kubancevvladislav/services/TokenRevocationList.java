@@ -0,0 +1,67 @@
+package com.kubancevvladislav.services;
+
+import com.kubancevvladislav.domain.VerifiedToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Отозванные токены, хранящиеся в памяти шлюза.
+ * Отдельный токен отзывается по {@code jti} до своего истечения, все токены пользователя - по моменту выдачи:
+ * токены, выданные не позже момента отзыва, больше не принимаются. Записи удаляются, когда отозванные
+ * ими токены истекли бы сами, поэтому размер списка ограничен числом отзывов за время жизни токена.
+ * <p>Список ведётся каждым экземпляром шлюза отдельно; без общего хранилища основной защитой остаётся
+ * короткое время жизни токена ({@code expirationMS}).</p>
+ */
+@Service
+public class TokenRevocationList {
+    private final long expiresIn;
+    /** {@code jti} отозванного токена и момент его истечения */
+    private final ConcurrentMap<String, Instant> revokedTokens = new ConcurrentHashMap<>();
+    /** Логин и момент, не позже которого выданные ему токены отозваны */
+    private final ConcurrentMap<String, Instant> revokedUsers = new ConcurrentHashMap<>();
+
+    public TokenRevocationList(@Value("${expirationMS}") long expiresIn) {
+        this.expiresIn = expiresIn;
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        if (token.id() != null && revokedTokens.containsKey(token.id())) {
+            return true;
+        }
+        Instant revokedBefore = revokedUsers.get(token.username());
+        return revokedBefore != null && !token.issuedAt().isAfter(revokedBefore);
+    }
+
+    /**
+     * Отзывает один токен. Токены без {@code jti} можно отозвать только вместе со всеми токенами пользователя.
+     */
+    public void revoke(VerifiedToken token) {
+        purgeExpired();
+        if (token.id() == null) {
+            revokeAll(token.username());
+            return;
+        }
+        revokedTokens.put(token.id(), token.expiresAt());
+    }
+
+    /**
+     * Отзывает все уже выданные токены пользователя. Утверждение {@code iat} хранится с точностью до секунды,
+     * поэтому токен, выданный в ту же секунду после отзыва, тоже считается отозванным.
+     */
+    public void revokeAll(String username) {
+        purgeExpired();
+        revokedUsers.put(username, Instant.now().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    private void purgeExpired() {
+        Instant now = Instant.now();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+        Instant oldestLiveIssue = now.minusMillis(expiresIn);
+        revokedUsers.values().removeIf(revokedBefore -> revokedBefore.isBefore(oldestLiveIssue));
+    }
+}
@@ -0,0 +1,98 @@
+package com.kubancevvladislav.services;
+
+import com.kubancevvladislav.clients.ClientApi;
+import com.kubancevvladislav.domain.dto.AccountDTO;
+import com.kubancevvladislav.domain.dto.FriendInfoDTO;
+import com.kubancevvladislav.domain.dto.UserDTO;
+import com.kubancevvladislav.exceptions.ExternalApiException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExternalApiServiceTest {
+    private final ClientApi clientApi = mock(ClientApi.class);
+    private final Authentication auth = mock(Authentication.class);
+
+    @Test
+    void requestsFriendsInBatchesInFriendListOrder() {
+        givenFriends("bob", "carl", "dave");
+        when(clientApi.getUsersByLogins(List.of("bob", "carl"))).thenReturn(List.of(user("carl"), user("bob")));
+        when(clientApi.getUsersByLogins(List.of("dave"))).thenReturn(List.of(user("dave")));
+        when(clientApi.getAccountsByLogins(List.of("bob", "carl"))).thenReturn(List.of(account(1, "bob")));
+        when(clientApi.getAccountsByLogins(List.of("dave"))).thenReturn(List.of(account(2, "dave")));
+
+        List<FriendInfoDTO> friends = service(2000).checkMyFriends(auth);
+
+        assertEquals(List.of(
+                new FriendInfoDTO("bob", List.of(BigInteger.ONE)),
+                new FriendInfoDTO("carl", List.of()),
+                new FriendInfoDTO("dave", List.of(BigInteger.TWO))), friends);
+        verify(clientApi).getUsersByLogins(List.of("bob", "carl"));
+        verify(clientApi).getUsersByLogins(List.of("dave"));
+    }
+
+    @Test
+    void fallsBackToSingleRequestsAndSkipsMissingFriend() {
+        givenFriends("bob", "gone");
+        when(clientApi.getUsersByLogins(anyList())).thenThrow(notFound());
+        when(clientApi.getUserInfoByLogin("bob")).thenReturn(user("bob"));
+        when(clientApi.getUserAccountsByLogin("bob")).thenReturn(List.of(account(1, "bob")));
+        when(clientApi.getUserInfoByLogin("gone")).thenThrow(notFound());
+
+        List<FriendInfoDTO> friends = service(2000).checkMyFriends(auth);
+
+        assertEquals(List.of(new FriendInfoDTO("bob", List.of(BigInteger.ONE))), friends);
+    }
+
+    @Test
+    void failsWhenSingleRequestsMissDeadline() {
+        givenFriends("bob");
+        when(clientApi.getUsersByLogins(anyList())).thenThrow(notFound());
+        when(clientApi.getUserInfoByLogin("bob")).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return user("bob");
+        });
+
+        ExternalApiService service = service(100);
+
+        long started = System.nanoTime();
+        assertThrows(ExternalApiException.class, () -> service.checkMyFriends(auth));
+        assertTrue(System.nanoTime() - started < 2_000_000_000L);
+    }
+
+    private ExternalApiService service(long deadlineMs) {
+        return new ExternalApiService(clientApi, deadlineMs, 4, 2);
+    }
+
+    private void givenFriends(String... friends) {
+        when(auth.getName()).thenReturn("alice");
+        when(clientApi.getUserInfoByLogin("alice"))
+                .thenReturn(new UserDTO("alice", "alice", (short) 30, null, null, List.of(friends)));
+    }
+
+    private static UserDTO user(String login) {
+        return new UserDTO(login, login, (short) 30, null, null, List.of());
+    }
+
+    private static AccountDTO account(long id, String login) {
+        return new AccountDTO(BigInteger.valueOf(id), login, BigDecimal.ZERO);
+    }
+
+    private static HttpClientErrorException notFound() {
+        return HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", HttpHeaders.EMPTY, null, null);
+    }
+}
@@ -0,0 +1,52 @@
+package com.kubancevvladislav.services;
+
+import com.kubancevvladislav.domain.VerifiedToken;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtServiceTest {
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+    private static final String OTHER_SECRET = "fedcba9876543210fedcba9876543210";
+
+    @Test
+    void verifiesTokenOnceAndServesRepeatsFromCache() {
+        JwtService jwtService = new JwtService(SECRET, 60_000, 100);
+        String token = jwtService.generateToken("alice", List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+
+        VerifiedToken verified = jwtService.verify(token);
+
+        assertEquals("alice", verified.username());
+        assertEquals(List.of("ROLE_ADMIN"), verified.roles());
+        assertSame(verified, jwtService.verify(token));
+        assertNotSame(verified, jwtService.verify(
+                jwtService.generateToken("alice", List.of(new SimpleGrantedAuthority("ROLE_ADMIN")))));
+    }
+
+    @Test
+    void dropsCachedTokenWhenItExpires() throws InterruptedException {
+        // exp хранится в секундах, поэтому токен истекает через 1-2 секунды после выдачи
+        JwtService jwtService = new JwtService(SECRET, 2000, 100);
+        String token = jwtService.generateToken("alice", List.of());
+        jwtService.verify(token);
+
+        Thread.sleep(2100);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.verify(token));
+    }
+
+    @Test
+    void rejectsTokenSignedWithAnotherKey() {
+        String forged = new JwtService(OTHER_SECRET, 60_000, 100).generateToken("alice", List.of());
+
+        assertThrows(JwtException.class, () -> new JwtService(SECRET, 60_000, 100).verify(forged));
+    }
+}
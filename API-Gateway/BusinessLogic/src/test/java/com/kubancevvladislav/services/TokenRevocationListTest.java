@@ -0,0 +1,66 @@
+package com.kubancevvladislav.services;
+
+import com.kubancevvladislav.domain.VerifiedToken;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenRevocationListTest {
+    private static final long EXPIRES_IN = 60_000;
+
+    private final TokenRevocationList revocationList = new TokenRevocationList(EXPIRES_IN);
+
+    @Test
+    void revokesOnlyTokenWithSameId() {
+        VerifiedToken revoked = token("a", "alice", Instant.now().minusSeconds(5));
+        VerifiedToken other = token("b", "alice", Instant.now().minusSeconds(5));
+
+        revocationList.revoke(revoked);
+
+        assertTrue(revocationList.isRevoked(revoked));
+        assertFalse(revocationList.isRevoked(other));
+    }
+
+    @Test
+    void revokesAllTokensIssuedBeforeLogout() {
+        VerifiedToken issuedBefore = token("a", "alice", Instant.now().minusSeconds(5));
+        VerifiedToken issuedAfter = token("b", "alice", Instant.now().plusSeconds(5));
+        VerifiedToken otherUser = token("c", "bob", Instant.now().minusSeconds(5));
+
+        revocationList.revokeAll("alice");
+
+        assertTrue(revocationList.isRevoked(issuedBefore));
+        assertFalse(revocationList.isRevoked(issuedAfter));
+        assertFalse(revocationList.isRevoked(otherUser));
+    }
+
+    @Test
+    void revokesAllUserTokensWhenTokenHasNoId() {
+        VerifiedToken legacy = token(null, "alice", Instant.now().minusSeconds(5));
+        VerifiedToken sibling = token("b", "alice", Instant.now().minusSeconds(5));
+
+        revocationList.revoke(legacy);
+
+        assertTrue(revocationList.isRevoked(legacy));
+        assertTrue(revocationList.isRevoked(sibling));
+    }
+
+    @Test
+    void forgetsRevocationsOfExpiredTokens() {
+        Instant issuedAt = Instant.now().minusMillis(2 * EXPIRES_IN);
+        VerifiedToken expired = new VerifiedToken("a", "alice", List.of(), issuedAt, issuedAt.plusMillis(EXPIRES_IN));
+        revocationList.revoke(expired);
+
+        revocationList.revoke(token("b", "bob", Instant.now()));
+
+        assertFalse(revocationList.isRevoked(expired));
+    }
+
+    private static VerifiedToken token(String id, String username, Instant issuedAt) {
+        return new VerifiedToken(id, username, List.of("USER"), issuedAt, issuedAt.plusMillis(EXPIRES_IN));
+    }
+}
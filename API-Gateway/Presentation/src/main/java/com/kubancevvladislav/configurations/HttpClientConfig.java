@@ -0,0 +1,115 @@
+package com.kubancevvladislav.configurations;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * HTTP-клиент для обращений шлюза к основному сервису ({@code url-of-api}).
+ * <p>По умолчанию ({@code gateway.http.client=pooled}) используется Apache HttpClient с пулом соединений:
+ * соединения переиспользуются между запросами, число соединений ограничено в целом и на каждый адрес,
+ * у подключения, ожидания соединения из пула и ответа есть таймауты. Состояние пула публикуется
+ * метриками {@code httpcomponents.httpclient.pool.*} с тегом {@code httpclient=core-api}.</p>
+ * <p>При {@code gateway.http.client=http2} используется {@link HttpClient} JDK с HTTP/2: все запросы
+ * к адресу мультиплексируются в одном соединении. Основной сервис должен принимать HTTP/2
+ * ({@code server.http2.enabled=true}), иначе клиент остаётся на HTTP/1.1.</p>
+ */
+@Configuration
+public class HttpClientConfig {
+    private static final String POOL_NAME = "core-api";
+
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder builder, ClientHttpRequestFactory requestFactory) {
+        return builder.requestFactory(() -> requestFactory).build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.http.client", havingValue = "pooled", matchIfMissing = true)
+    public PoolingHttpClientConnectionManager coreApiConnectionManager(
+            @Value("${url-of-api}") String apiUrl,
+            @Value("${gateway.http.max-connections:200}") int maxConnections,
+            @Value("${gateway.http.max-connections-per-route:20}") int maxConnectionsPerRoute,
+            @Value("${gateway.http.api-max-connections:100}") int apiMaxConnections,
+            @Value("${gateway.http.connect-timeout-ms:1000}") long connectTimeoutMs,
+            @Value("${gateway.http.read-timeout-ms:5000}") long readTimeoutMs,
+            @Value("${gateway.http.connection-ttl-ms:300000}") long connectionTtlMs) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setTimeToLive(TimeValue.ofMilliseconds(connectionTtlMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        connectionManager.setMaxPerRoute(new HttpRoute(HttpHost.create(URI.create(apiUrl))), apiMaxConnections);
+        return connectionManager;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.http.client", havingValue = "pooled", matchIfMissing = true)
+    public CloseableHttpClient coreApiHttpClient(
+            PoolingHttpClientConnectionManager coreApiConnectionManager,
+            @Value("${gateway.http.pool-timeout-ms:1000}") long poolTimeoutMs,
+            @Value("${gateway.http.read-timeout-ms:5000}") long readTimeoutMs,
+            @Value("${gateway.http.idle-timeout-ms:30000}") long idleTimeoutMs) {
+        return HttpClients.custom()
+                .setConnectionManager(coreApiConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleTimeoutMs))
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.http.client", havingValue = "pooled", matchIfMissing = true)
+    public ClientHttpRequestFactory pooledRequestFactory(CloseableHttpClient coreApiHttpClient) {
+        return new HttpComponentsClientHttpRequestFactory(coreApiHttpClient);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.http.client", havingValue = "pooled", matchIfMissing = true)
+    public MeterBinder coreApiConnectionPoolMetrics(PoolingHttpClientConnectionManager coreApiConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(coreApiConnectionManager, POOL_NAME);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.http.client", havingValue = "http2")
+    public ClientHttpRequestFactory http2RequestFactory(
+            @Value("${gateway.http.connect-timeout-ms:1000}") long connectTimeoutMs,
+            @Value("${gateway.http.read-timeout-ms:5000}") long readTimeoutMs) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        return requestFactory;
+    }
+}
@@ -2,6 +2,7 @@ package com.kubancevvladislav.controllers;
 
 import com.kubancevvladislav.domain.dto.*;
 import com.kubancevvladislav.services.ExternalApiService;
+import com.kubancevvladislav.services.TokenRevocationList;
 import lombok.AllArgsConstructor;
 import org.springframework.http.*;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -14,6 +15,7 @@ import java.util.List;
 @AllArgsConstructor
 public class AdminController {
     private final ExternalApiService externalApiService;
+    private final TokenRevocationList revocationList;
 
     @PostMapping("/users")
     @PreAuthorize("hasRole('ADMIN')")
@@ -21,6 +23,13 @@ public class AdminController {
         return ResponseEntity.ok(externalApiService.createClientAccount(request));
     }
 
+    @PostMapping("/users/{userLogin}/revoke-tokens")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> revokeUserTokens(@PathVariable String userLogin) {
+        revocationList.revokeAll(userLogin);
+        return ResponseEntity.noContent().build();
+    }
+
     @PostMapping("/admins")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<String> createAdminAccount(@RequestBody CreateAdminRequest request) {
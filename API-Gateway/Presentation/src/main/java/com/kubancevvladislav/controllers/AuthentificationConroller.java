@@ -2,10 +2,14 @@ package com.kubancevvladislav.controllers;
 
 import com.kubancevvladislav.domain.dto.LoginRequest;
 import com.kubancevvladislav.services.ExternalApiService;
+import com.kubancevvladislav.services.JwtService;
+import com.kubancevvladislav.services.TokenRevocationList;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -13,10 +17,28 @@ import org.springframework.web.bind.annotation.RestController;
 @AllArgsConstructor
 @RequestMapping
 public class AuthentificationConroller {
+    private static final String BEARER_PREFIX = "Bearer ";
+
     ExternalApiService externalApiService;
 
+    JwtService jwtService;
+
+    TokenRevocationList revocationList;
+
     @PostMapping("/login")
     public ResponseEntity<?> authenticate(@RequestBody LoginRequest loginRequest) {
         return ResponseEntity.ok(externalApiService.authenticate(loginRequest));
     }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (authorization == null
+                || !authorization.startsWith(BEARER_PREFIX)
+                || authorization.length() == BEARER_PREFIX.length()) {
+            return ResponseEntity.badRequest().build();
+        }
+        revocationList.revoke(jwtService.verify(authorization.substring(BEARER_PREFIX.length())));
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -32,6 +32,7 @@ public class SpringSecurityConfig {
         return http
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(AbstractHttpConfigurer::disable)
+                .logout(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(customizer -> {
                     customizer.requestMatchers("/login").permitAll();
                     customizer.requestMatchers("/admin/**").hasAuthority("ROLE_ADMIN");
@@ -1,10 +1,14 @@
 package com.kubancevvladislav.filter;
 
+import com.kubancevvladislav.domain.VerifiedToken;
+import com.kubancevvladislav.services.TokenRevocationList;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.web.filter.OncePerRequestFilter;
 import com.kubancevvladislav.services.JwtService;
 import com.kubancevvladislav.services.UserService;
 import jakarta.servlet.ServletException;
-import lombok.AllArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,13 +18,35 @@ import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.FilterChain;
 import java.io.IOException;
+import java.util.List;
 
+/**
+ * Аутентификация по JWT.
+ * В режиме {@code jwt.auth-mode=claims} пользователь и его роли берутся из проверенных утверждений токена,
+ * и запрос не обращается к базе пользователей. В режиме {@code database} пользователь, как раньше,
+ * загружается из базы на каждый запрос, так что изменение роли действует сразу.
+ * В обоих режимах отозванные токены ({@link TokenRevocationList}) не принимаются.
+ */
 @Component
-@AllArgsConstructor
 public class JwtFilter extends OncePerRequestFilter {
-    UserService userService;
+    private static final String CLAIMS_MODE = "claims";
 
-    JwtService jwtService;
+    private final UserService userService;
+    private final JwtService jwtService;
+    private final TokenRevocationList revocationList;
+    private final boolean claimsMode;
+
+    public JwtFilter(
+            UserService userService,
+            JwtService jwtService,
+            TokenRevocationList revocationList,
+            @Value("${jwt.auth-mode:database}") String authMode
+    ) {
+        this.userService = userService;
+        this.jwtService = jwtService;
+        this.revocationList = revocationList;
+        this.claimsMode = CLAIMS_MODE.equalsIgnoreCase(authMode);
+    }
 
     @Override
     protected void doFilterInternal(
@@ -34,25 +60,44 @@ public class JwtFilter extends OncePerRequestFilter {
             return;
         }
 
-        String token = authHeader.substring(7);
-        String username = jwtService.extractUsername(token);
-
-        if(username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userService.loadUserByUsername(username);
+        VerifiedToken token = jwtService.verify(authHeader.substring(7));
+        String username = token.username();
 
-            if(jwtService.isValid(token, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                );
+        if(username != null
+                && SecurityContextHolder.getContext().getAuthentication() == null
+                && !revocationList.isRevoked(token)) {
+            UsernamePasswordAuthenticationToken authToken = claimsMode
+                    ? fromClaims(token)
+                    : fromDatabase(token);
 
+            if (authToken != null) {
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
-                System.out.println("AUTHENTICATION: " + SecurityContextHolder.getContext().getAuthentication());
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private UsernamePasswordAuthenticationToken fromClaims(VerifiedToken token) {
+        if (token.isExpired()) {
+            return null;
+        }
+        List<GrantedAuthority> authorities = token.roles().stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+        return new UsernamePasswordAuthenticationToken(token.username(), null, authorities);
+    }
+
+    private UsernamePasswordAuthenticationToken fromDatabase(VerifiedToken token) {
+        UserDetails userDetails = userService.loadUserByUsername(token.username());
+        if (!jwtService.isValid(token, userDetails)) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(
+                userDetails,
+                null,
+                userDetails.getAuthorities()
+        );
+    }
 }
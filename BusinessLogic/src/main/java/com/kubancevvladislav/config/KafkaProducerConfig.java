@@ -1,6 +1,8 @@
 package com.kubancevvladislav.config;
 
+import com.kubancevvladislav.events.DomainEventSerializer;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -8,7 +10,6 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -18,18 +19,41 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${outbox.producer.linger-ms:5}")
+    private int lingerMs;
+
+    @Value("${outbox.producer.batch-size-bytes:131072}")
+    private int batchSizeBytes;
+
+    /**
+     * Фабрика продюсера для ретранслятора {@code outbox}.
+     * Тела сообщений уже сериализованы при записи в {@code outbox}, поэтому передаются как есть.
+     * Идемпотентность сохраняет порядок сообщений одного ключа при повторных отправках.
+     */
     @Bean
-    public ProducerFactory<String, Object> producerFactory() {
+    public ProducerFactory<String, byte[]> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSizeBytes);
         return new DefaultKafkaProducerFactory<>(configProps);
     }
 
+    /**
+     * Сериализатор событий. Применяется при записи в {@code outbox},
+     * поэтому тела сообщений хранятся уже в формате {@link com.kubancevvladislav.events.DomainEventCodec}.
+     */
+    @Bean
+    public DomainEventSerializer domainEventSerializer() {
+        return new DomainEventSerializer();
+    }
+
     @Bean
-    public KafkaTemplate<String, Object> kafkaTemplate() {
+    public KafkaTemplate<String, byte[]> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
 }
-
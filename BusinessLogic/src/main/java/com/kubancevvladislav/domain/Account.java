@@ -36,6 +36,10 @@ public class Account {
      * Баланс учетной записи пользователя.
      */
     private BigDecimal balance;
+    /**
+     * Версия счёта, используется для обнаружения параллельных изменений.
+     */
+    private Long version;
     /**
      * Проверка перед вставкой или обновлением.
      */
@@ -0,0 +1,23 @@
+package com.kubancevvladislav.domain;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+
+/**
+ * Условия отбора транзакций для выгрузки. Любое из полей может быть {@code null},
+ * тогда соответствующее условие не применяется.
+ * @param accountId номер счёта, затронутого транзакцией
+ * @param transactionType тип транзакции
+ * @param from начало интервала времени включительно
+ * @param to конец интервала времени не включительно
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+public record TransactionExportFilter(
+        BigInteger accountId,
+        TransactionType transactionType,
+        LocalDateTime from,
+        LocalDateTime to) {
+}
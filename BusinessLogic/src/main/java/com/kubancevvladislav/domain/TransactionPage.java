@@ -0,0 +1,17 @@
+package com.kubancevvladislav.domain;
+
+import com.kubancevvladislav.domain.transactions.Transaction;
+
+import java.util.List;
+
+/**
+ * Страница транзакций при постраничном чтении.
+ * @param transactions транзакции страницы в порядке {@code (timestamp, transactionId)}
+ * @param nextCursor непрозрачный токен следующей страницы или {@code null}, если страница последняя
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+public record TransactionPage(List<Transaction> transactions, String nextCursor) {
+}
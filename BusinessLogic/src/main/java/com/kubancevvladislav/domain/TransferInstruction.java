@@ -0,0 +1,17 @@
+package com.kubancevvladislav.domain;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Поручение на перевод средств в составе пакета.
+ * @param fromAccountId номер счёта отправителя
+ * @param toAccountId номер счёта получателя
+ * @param amount сумма перевода
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+public record TransferInstruction(BigInteger fromAccountId, BigInteger toAccountId, BigDecimal amount) {
+}
@@ -1,6 +1,7 @@
 package com.kubancevvladislav.domainServices;
 
 import com.kubancevvladislav.domain.Account;
+import com.kubancevvladislav.domain.TransferInstruction;
 import com.kubancevvladislav.services.result.types.AccountDepositResultType;
 import com.kubancevvladislav.services.result.types.AccountTransferResultType;
 import com.kubancevvladislav.services.result.types.AccountWithdrawResultType;
@@ -10,6 +11,7 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -51,6 +53,15 @@ public interface AccountServiceInterface
      */
     List<Account> getAccountsByUserLogin(String login);
 
+    /**
+     * Получает счета нескольких пользователей одним обращением к хранилищу.
+     * @param logins логины пользователей, не больше {@link UserServiceInterface#MAX_LOGINS_PER_REQUEST}
+     * @return счета пользователей, упорядоченные по номеру
+     * @throws IllegalArgumentException если логинов больше {@link UserServiceInterface#MAX_LOGINS_PER_REQUEST}
+     * @see Account
+     */
+    List<Account> getAccountsByUserLogins(Collection<String> logins);
+
     /**
      * Выполняет пополнение счета на указанную сумму.
      * @param accountId номер счёта, на которую будет зачислена сумма
@@ -58,7 +69,6 @@ public interface AccountServiceInterface
      * @return результат операции пополнения счета {@link AccountDepositResultType}
      * @see AccountDepositResultType
      */
-    @Transactional
     AccountDepositResultType deposit(BigInteger accountId, BigDecimal amount);
 
     /**
@@ -68,7 +78,6 @@ public interface AccountServiceInterface
      * @return результат операции снятия средств с счета {@link AccountWithdrawResultType}
      * @see AccountWithdrawResultType
      */
-    @Transactional
     AccountWithdrawResultType withdraw(BigInteger accountId, BigDecimal amount);
 
     /**
@@ -79,6 +88,33 @@ public interface AccountServiceInterface
      * @return результат операции перевода средств между счетами {@link AccountTransferResultType}
      * @see AccountTransferResultType
      */
-    @Transactional
     AccountTransferResultType transfer(BigInteger fromAccountId, BigInteger toAccountId, BigDecimal amount);
+
+    /**
+     * Наибольшее число переводов в одном пакете: пакет обрабатывается в рамках одного HTTP-запроса,
+     * а каждая его часть держит блокировки своих счетов до конца транзакции.
+     */
+    int MAX_TRANSFERS_PER_REQUEST = 10000;
+
+    /**
+     * Проверяет размер пакета переводов.
+     * @param instructions поручения на перевод
+     * @throws IllegalArgumentException если поручений больше {@value #MAX_TRANSFERS_PER_REQUEST}
+     */
+    static void requireTransferBatchSize(List<TransferInstruction> instructions) {
+        if (instructions.size() > MAX_TRANSFERS_PER_REQUEST) {
+            throw new IllegalArgumentException(
+                    "За один запрос можно передать не больше " + MAX_TRANSFERS_PER_REQUEST + " переводов");
+        }
+    }
+
+    /**
+     * Выполняет пакет переводов.
+     * Переводы применяются по порядку, результат каждого не зависит от неудачи остальных.
+     * @param instructions поручения на перевод, не больше {@value #MAX_TRANSFERS_PER_REQUEST}
+     * @return результаты переводов в том же порядке, что и поручения
+     * @throws IllegalArgumentException если поручений больше {@value #MAX_TRANSFERS_PER_REQUEST}
+     * @see AccountTransferResultType
+     */
+    List<AccountTransferResultType> transferBatch(List<TransferInstruction> instructions);
 }
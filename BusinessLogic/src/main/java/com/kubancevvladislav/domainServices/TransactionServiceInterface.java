@@ -1,31 +1,61 @@
 package com.kubancevvladislav.domainServices;
 
+import com.kubancevvladislav.domain.TransactionExportFilter;
+import com.kubancevvladislav.domain.TransactionPage;
 import com.kubancevvladislav.domain.TransactionType;
 import com.kubancevvladislav.domain.transactions.Transaction;
-import com.kubancevvladislav.entities.transactions.TransactionEntity;
 import org.springframework.stereotype.Service;
 
 import java.math.BigInteger;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Интерфейс для сервиса управления транзакциями.
  * Определяет методы для получения информации о транзакциях в системе.
  * @author Кубанцев Владислав
  * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
- * @version 1.2
+ * @version 1.3
  * @since 1.0
  */
 @Service
 public interface TransactionServiceInterface {
     /**
-     * Возвращает список всех транзакций в системе.
-     * @return список всех транзакций
+     * Возвращает страницу всех транзакций в системе.
+     * @param cursor токен страницы из {@link TransactionPage#nextCursor()} или {@code null} для первой страницы
+     * @param pageSize желаемый размер страницы
+     * @return страница транзакций
      * @see Transaction
      */
-    List<Transaction> getAllTransactions();
+    TransactionPage getTransactions(String cursor, int pageSize);
 
-    List<Transaction> getAccountTransactionsByType(
+    /**
+     * Возвращает все транзакции указанного типа, затронувшие счёт, в хронологическом порядке.
+     * @param accountId номер счёта
+     * @param transactionType тип транзакций
+     * @return список транзакций
+     */
+    List<Transaction> getAccountTransactionsByType(BigInteger accountId, TransactionType transactionType);
+
+    /**
+     * Возвращает страницу транзакций указанного типа, затронувших счёт.
+     * @param accountId номер счёта
+     * @param transactionType тип транзакций
+     * @param cursor токен страницы из {@link TransactionPage#nextCursor()} или {@code null} для первой страницы
+     * @param pageSize желаемый размер страницы
+     * @return страница транзакций
+     */
+    TransactionPage getAccountTransactionsByType(
             BigInteger accountId,
-            TransactionType transactionType);
+            TransactionType transactionType,
+            String cursor,
+            int pageSize);
+
+    /**
+     * Передаёт все транзакции, удовлетворяющие фильтру, получателю по одной
+     * в порядке {@code (timestamp, transactionId)}, не собирая их в список.
+     * @param filter условия отбора
+     * @param sink получатель транзакций
+     */
+    void exportTransactions(TransactionExportFilter filter, Consumer<Transaction> sink);
 }
@@ -11,7 +11,9 @@ import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
 
 import java.math.BigInteger;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -19,7 +21,7 @@ import java.util.Optional;
  * Определяет методы для создания пользователей, получения информации о них и управления дружескими связями.
  * @author Кубанцев Владислав
  * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
- * @version 1.2
+ * @version 1.3
  * @since 1.0
  */
 @Service
@@ -64,4 +66,38 @@ public interface UserServiceInterface
      * @return список друзей пользователя
      */
     List<String> getUserFriendsByLogin(String login);
+
+    /**
+     * Наибольшее число логинов в одном пакетном запросе: каждый логин - параметр запроса к базе,
+     * а PostgreSQL принимает не больше 32767 параметров.
+     */
+    int MAX_LOGINS_PER_REQUEST = 1000;
+
+    /**
+     * Проверяет размер пакетного запроса по логинам.
+     * @param logins логины пользователей
+     * @throws IllegalArgumentException если логинов больше {@value #MAX_LOGINS_PER_REQUEST}
+     */
+    static void requireLookupSize(Collection<String> logins) {
+        if (logins.size() > MAX_LOGINS_PER_REQUEST) {
+            throw new IllegalArgumentException(
+                    "За один запрос можно передать не больше " + MAX_LOGINS_PER_REQUEST + " логинов");
+        }
+    }
+
+    /**
+     * Возвращает пользователей с указанными логинами одним обращением к хранилищу.
+     * @param logins логины пользователей, не больше {@value #MAX_LOGINS_PER_REQUEST}
+     * @return найденные пользователи; отсутствующие логины пропускаются
+     * @throws IllegalArgumentException если логинов больше {@value #MAX_LOGINS_PER_REQUEST}
+     */
+    List<User> getUsersByLogins(Collection<String> logins);
+
+    /**
+     * Возвращает друзей нескольких пользователей одним обращением к хранилищу.
+     * @param logins логины пользователей, не больше {@value #MAX_LOGINS_PER_REQUEST}
+     * @return списки друзей по логину пользователя; у пользователей без друзей записи нет
+     * @throws IllegalArgumentException если логинов больше {@value #MAX_LOGINS_PER_REQUEST}
+     */
+    Map<String, List<String>> getUserFriendsByLogins(Collection<String> logins);
 }
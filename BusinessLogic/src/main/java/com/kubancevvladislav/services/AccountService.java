@@ -1,18 +1,23 @@
 package com.kubancevvladislav.services;
 
 import com.kubancevvladislav.domain.Account;
-import com.kubancevvladislav.domain.Event;
+import com.kubancevvladislav.domain.TransferInstruction;
 import com.kubancevvladislav.domain.transactions.DepositTransaction;
 import com.kubancevvladislav.domain.transactions.Transaction;
 import com.kubancevvladislav.domain.transactions.TransferTransaction;
 import com.kubancevvladislav.domain.transactions.WithdrawTransaction;
 import com.kubancevvladislav.domainServices.AccountServiceInterface;
+import com.kubancevvladislav.domainServices.UserServiceInterface;
 import com.kubancevvladislav.entities.AccountEntity;
 import com.kubancevvladislav.entities.UserEntity;
+import com.kubancevvladislav.entities.transactions.TransactionEntity;
+import com.kubancevvladislav.events.AccountCreated;
 import com.kubancevvladislav.repositories.AccountRepositoryInterface;
-import com.kubancevvladislav.repositories.FriendsRepositoryInterface;
 import com.kubancevvladislav.repositories.TransactionsRepositoryInterface;
 import com.kubancevvladislav.repositories.UserRepositoryInterface;
+import com.kubancevvladislav.services.concurrency.AccountLockManager;
+import com.kubancevvladislav.services.concurrency.ConcurrencyMode;
+import com.kubancevvladislav.services.concurrency.OptimisticRetryExecutor;
 import com.kubancevvladislav.services.mapper.TransactionMapperInterface;
 import com.kubancevvladislav.services.result.types.*;
 import com.kubancevvladislav.services.mapper.AccountMapperInterface;
@@ -20,10 +25,12 @@ import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.time.Instant;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -35,7 +42,7 @@ import java.util.stream.Collectors;
  * Взаимодействует с репозиториями пользователей, счетов и транзакций.
  * ({@link UserRepositoryInterface}, {@link AccountRepositoryInterface}, {@link TransactionsRepositoryInterface})
  * @author Кубанцев Владислав
- * @version 1.2
+ * @version 1.3
  * @since 1.0
  * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
  */
@@ -48,8 +55,8 @@ public class AccountService implements AccountServiceInterface {
     private final AccountRepositoryInterface accountRepository;
     /** Репозиторий, в котором хранится информация о транзакциях */
     private final TransactionsRepositoryInterface transactionsRepository;
-    /** Репозиторий, в котором хранится информация о друзьях пользователей */
-    private final FriendsRepositoryInterface friendsRepository;
+    /** Правила начисления комиссии за перевод */
+    private final CommissionPolicy commissionPolicy;
     /** Маппер для перевода domain в entity и наоборот */
     @Qualifier("accountMapperInterfaceImpl")
     private final AccountMapperInterface accountMapper;
@@ -57,6 +64,16 @@ public class AccountService implements AccountServiceInterface {
     private final TransactionMapperInterface transactionMapper;
     /** инстанс публишера кафки */
     private final PublisherService kafkaPublisher;
+    /** Шаблон транзакций для операций, изменяющих баланс */
+    private final TransactionTemplate transactionTemplate;
+    /** Исполнитель повторов для оптимистичного режима */
+    private final OptimisticRetryExecutor retryExecutor;
+    /** Исполнитель пакетных переводов */
+    private final TransferBatchProcessor transferBatchProcessor;
+    /** Журнал проводок по счетам */
+    private final PostingRecorder postingRecorder;
+    /** Блокировки счетов внутри узла перед блокировкой строки в базе данных */
+    private final AccountLockManager lockManager;
 
 
     /**
@@ -77,12 +94,9 @@ public class AccountService implements AccountServiceInterface {
                 .balance(BigDecimal.ZERO)
                 .build();
         AccountEntity savedEntity = accountRepository.save(accountMapper.toEntity(account));
-        Event event = Event.builder()
-                .eventName("Создание счёта")
-                .eventDescription("Время события: " + Instant.now().toString())
-                .eventData(List.of(savedEntity))
-                .build();
-        kafkaPublisher.sendAccountEvent(savedEntity.getId(), event);
+        kafkaPublisher.sendAccountEvent(
+                savedEntity.getId(),
+                new AccountCreated(System.currentTimeMillis(), savedEntity.getId(), userLogin));
         return CreateAccountResultType.success(accountMapper.toDomain(savedEntity));
     }
 
@@ -127,87 +141,153 @@ public class AccountService implements AccountServiceInterface {
         return accounts;
     }
 
+    /**
+     * Возвращает счета нескольких пользователей одним запросом.
+     *
+     * @param logins логины пользователей, не больше {@link UserServiceInterface#MAX_LOGINS_PER_REQUEST}
+     * @return список {@link Account}, упорядоченный по номеру счёта
+     */
+    @Override
+    public List<Account> getAccountsByUserLogins(Collection<String> logins) {
+        UserServiceInterface.requireLookupSize(logins);
+        if (logins.isEmpty()) {
+            return List.of();
+        }
+        return accountRepository.findByUserLoginInOrderById(logins).stream()
+                .map(accountMapper::toDomain)
+                .toList();
+    }
+
 
     /**
      * Выполняет депозит на указанный счёт.
      * Проверяет, чтобы сумма депозита была положительной и счёт существовал.
+     * <p>В режиме {@link ConcurrencyMode#ATOMIC} баланс изменяется одним атомарным запросом,
+     * в режиме {@link ConcurrencyMode#OPTIMISTIC} - с проверкой версии и повтором при конфликте.
+     * В обоих режимах счёт удерживается блокировкой {@link AccountLockManager} до завершения транзакции.</p>
      *
      * @param accountId номер счёта
      * @param amount сумма депозита
      * @return результат операции депозита
      */
-    @Transactional
     @Override
     public AccountDepositResultType deposit(BigInteger accountId, BigDecimal amount) {
         if (amount.compareTo(BigDecimal.ZERO) < 0) {
             return AccountDepositResultType.negativeBalance();
         }
 
-        Account account = getAccountById(accountId).orElse(null);
+        try (AccountLockManager.Lease ignored = lockManager.lock(accountId)) {
+            if (retryExecutor.isOptimistic()) {
+                return retryExecutor.execute(
+                        "deposit",
+                        status -> depositOptimistic(accountId, amount),
+                        AccountDepositResultType::concurrentModification);
+            }
+            return transactionTemplate.execute(status -> depositAtomic(accountId, amount));
+        }
+    }
+
+    private AccountDepositResultType depositAtomic(BigInteger accountId, BigDecimal amount) {
+        if (accountRepository.credit(accountId, amount) == 0) {
+            return AccountDepositResultType.accountDoesNotExists(accountId);
+        }
+
+        recordDeposit(accountId, amount);
+        return AccountDepositResultType.success();
+    }
+
+    private AccountDepositResultType depositOptimistic(BigInteger accountId, BigDecimal amount) {
+        AccountEntity account = accountRepository.findById(accountId).orElse(null);
         if (account == null) {
             return AccountDepositResultType.accountDoesNotExists(accountId);
         }
 
-        BigDecimal new_balance = account.getBalance().add(amount);
-        account.setBalance(new_balance);
-        this.accountRepository.save(accountMapper.toEntity(account));
+        account.setBalance(account.getBalance().add(amount));
+        accountRepository.flush();
 
+        recordDeposit(accountId, amount);
+        return AccountDepositResultType.success();
+    }
+
+    private void recordDeposit(BigInteger accountId, BigDecimal amount) {
         Transaction depositTransaction = DepositTransaction.builder()
                 .accountId(accountId)
                 .amount(amount)
                 .build();
-        this.transactionsRepository.save(transactionMapper.toEntity(depositTransaction));
-
-        Event event = Event.builder()
-                .eventName("Пополнение счёта")
-                .eventDescription("Время события: " + Instant.now().toString())
-                .eventData(List.of(account, depositTransaction))
-                .build();
-        kafkaPublisher.sendAccountEvent(account.getId(), event);
-        return AccountDepositResultType.success();
+        TransactionEntity saved = this.transactionsRepository.save(transactionMapper.toEntity(depositTransaction));
+        Transaction recorded = transactionMapper.toDomain(saved);
+        postingRecorder.record(recorded);
+        kafkaPublisher.sendTransactionEvent(recorded);
     }
 
 
     /**
      * Выполняет операцию снятия средств со счёта.
      * Проверяет, чтобы сумма снятия была положительной, а также чтобы на счете было достаточно средств.
+     * <p>В режиме {@link ConcurrencyMode#ATOMIC} проверка и списание выполняются одним условным запросом,
+     * счёт читается только при неудаче, чтобы сообщить причину.
+     * В режиме {@link ConcurrencyMode#OPTIMISTIC} счёт сохраняется с проверкой версии.
+     * В обоих режимах счёт удерживается блокировкой {@link AccountLockManager} до завершения транзакции.</p>
      *
      * @param accountId номер счёта
      * @param amount сумма снятия
      * @return результат операции снятия
      */
-    @Transactional
     @Override
     public AccountWithdrawResultType withdraw(BigInteger accountId, BigDecimal amount) {
         if(amount.compareTo(BigDecimal.ZERO) < 0) {
             return AccountWithdrawResultType.negativeBalance();
         }
 
-        Account account = getAccountById(accountId).orElse(null);
+        try (AccountLockManager.Lease ignored = lockManager.lock(accountId)) {
+            if (retryExecutor.isOptimistic()) {
+                return retryExecutor.execute(
+                        "withdraw",
+                        status -> withdrawOptimistic(accountId, amount),
+                        AccountWithdrawResultType::concurrentModification);
+            }
+            return transactionTemplate.execute(status -> withdrawAtomic(accountId, amount));
+        }
+    }
+
+    private AccountWithdrawResultType withdrawAtomic(BigInteger accountId, BigDecimal amount) {
+        if (accountRepository.debitIfSufficient(accountId, amount) == 0) {
+            AccountEntity account = accountRepository.findById(accountId).orElse(null);
+            if (account == null) {
+                return AccountWithdrawResultType.accountDoesNotExists(accountId);
+            }
+            return AccountWithdrawResultType.insufficientFunds(account.getBalance(), amount);
+        }
+
+        recordWithdraw(accountId, amount);
+        return AccountWithdrawResultType.success();
+    }
+
+    private AccountWithdrawResultType withdrawOptimistic(BigInteger accountId, BigDecimal amount) {
+        AccountEntity account = accountRepository.findById(accountId).orElse(null);
         if (account == null) {
             return AccountWithdrawResultType.accountDoesNotExists(accountId);
         }
-
-        if (validateWithdrawBalance(account, amount)) {
-            account.setBalance(account.getBalance().subtract(amount));
-            this.accountRepository.save(accountMapper.toEntity(account));
-
-            Transaction withdrawTransaction = WithdrawTransaction.builder()
-                    .accountId(accountId)
-                    .amount(amount)
-                    .build();
-            this.transactionsRepository.save(transactionMapper.toEntity(withdrawTransaction));
-            Event event = Event.builder()
-                    .eventName("Снятие со счёта")
-                    .eventDescription("Время события: " + Instant.now().toString())
-                    .eventData(List.of(account, withdrawTransaction))
-                    .build();
-            kafkaPublisher.sendAccountEvent(account.getId(), event);
-            return AccountWithdrawResultType.success();
-        } else {
+        if (account.getBalance().compareTo(amount) < 0) {
             return AccountWithdrawResultType.insufficientFunds(account.getBalance(), amount);
         }
 
+        account.setBalance(account.getBalance().subtract(amount));
+        accountRepository.flush();
+
+        recordWithdraw(accountId, amount);
+        return AccountWithdrawResultType.success();
+    }
+
+    private void recordWithdraw(BigInteger accountId, BigDecimal amount) {
+        Transaction withdrawTransaction = WithdrawTransaction.builder()
+                .accountId(accountId)
+                .amount(amount)
+                .build();
+        TransactionEntity saved = this.transactionsRepository.save(transactionMapper.toEntity(withdrawTransaction));
+        Transaction recorded = transactionMapper.toDomain(saved);
+        postingRecorder.record(recorded);
+        kafkaPublisher.sendTransactionEvent(recorded);
     }
 
 
@@ -216,100 +296,161 @@ public class AccountService implements AccountServiceInterface {
      * Проверяет наличие обоих счетов и достаточно ли средств на счете отправителя.
      * Проверяет, чтобы сумма перевода была положительной.
      * Вычисляет комиссию в зависимости от типа пользователей (друзья или нет).
+     * <p>Счета изменяются в порядке возрастания номеров,
+     * чтобы встречные переводы не приводили к взаимной блокировке строк в базе данных.
+     * Оба счёта до завершения транзакции удерживаются блокировками {@link AccountLockManager}.
+     * В режиме {@link ConcurrencyMode#OPTIMISTIC} конфликт версий повторяется с задержкой.</p>
      *
      * @param fromAccountId номер счета отправителя
      * @param toAccountId номер счета получателя
      * @param amount сумма перевода
      * @return результат операции перевода
      */
-    @Transactional
     @Override
     public AccountTransferResultType transfer(BigInteger fromAccountId, BigInteger toAccountId, BigDecimal amount) {
         if(amount.compareTo(BigDecimal.ZERO) < 0) {
             return AccountTransferResultType.negativeBalance();
         }
 
-        Account fromAccount = getAccountById(fromAccountId).orElse(null);
-        Account toAccount = getAccountById(toAccountId).orElse(null);
+        try (AccountLockManager.Lease ignored = lockManager.lock(fromAccountId, toAccountId)) {
+            if (retryExecutor.isOptimistic()) {
+                return retryExecutor.execute(
+                        "transfer",
+                        status -> transferOptimistic(fromAccountId, toAccountId, amount),
+                        AccountTransferResultType::concurrentModification);
+            }
+            return transactionTemplate.execute(status -> transferAtomic(status, fromAccountId, toAccountId, amount));
+        }
+    }
+
+    private AccountTransferResultType transferAtomic(
+            TransactionStatus status,
+            BigInteger fromAccountId,
+            BigInteger toAccountId,
+            BigDecimal amount) {
+        String fromLogin = accountRepository.findUserLoginById(fromAccountId).orElse(null);
+        String toLogin = accountRepository.findUserLoginById(toAccountId).orElse(null);
+        if (fromLogin == null) { return AccountTransferResultType.accountDoesNotExists(fromAccountId); }
+        if (toLogin == null) { return AccountTransferResultType.accountDoesNotExists(toAccountId); }
+
+        AccountCalculateComissionResultType calculateComissionResultType =
+                calculateComission(fromAccountId, fromLogin, toAccountId, toLogin, amount);
+
+        if (calculateComissionResultType instanceof AccountCalculateComissionResultType.CanNotFindAccountOwner fail) {
+            return AccountTransferResultType.canNotFindAccountOwner(fail.getAccountId());
+        }
+        BigDecimal commission = ((AccountCalculateComissionResultType.Success) calculateComissionResultType).getComission();
+
+        boolean debited;
+        if (fromAccountId.compareTo(toAccountId) <= 0) {
+            debited = accountRepository.debitIfSufficient(fromAccountId, amount.add(commission)) == 1;
+            if (debited) {
+                accountRepository.credit(toAccountId, amount);
+            }
+        } else {
+            accountRepository.credit(toAccountId, amount);
+            debited = accountRepository.debitIfSufficient(fromAccountId, amount.add(commission)) == 1;
+            if (!debited) {
+                status.setRollbackOnly();
+            }
+        }
+
+        if (!debited) {
+            BigDecimal balance = accountRepository.findById(fromAccountId)
+                    .map(AccountEntity::getBalance)
+                    .orElse(BigDecimal.ZERO);
+            return AccountTransferResultType.insufficientFunds(balance, amount);
+        }
+
+        recordTransfer(fromAccountId, toAccountId, amount, commission);
+        return AccountTransferResultType.success();
+    }
+
+    private AccountTransferResultType transferOptimistic(BigInteger fromAccountId, BigInteger toAccountId, BigDecimal amount) {
+        boolean ascending = fromAccountId.compareTo(toAccountId) <= 0;
+        AccountEntity first = accountRepository.findById(ascending ? fromAccountId : toAccountId).orElse(null);
+        AccountEntity second = accountRepository.findById(ascending ? toAccountId : fromAccountId).orElse(null);
+        AccountEntity fromAccount = ascending ? first : second;
+        AccountEntity toAccount = ascending ? second : first;
+
         if (fromAccount == null) { return AccountTransferResultType.accountDoesNotExists(fromAccountId); }
         if (toAccount == null) { return AccountTransferResultType.accountDoesNotExists(toAccountId); }
 
-        AccountCalculateComissionResultType calculateComissionResultType = calculateComission(fromAccount, toAccount, amount);
-
-        if(calculateComissionResultType instanceof AccountCalculateComissionResultType.Success success) {
-            if(validateWithdrawBalance(fromAccount, amount.add(success.getComission()))) {
-                fromAccount.setBalance(fromAccount.getBalance().subtract(amount.add(success.getComission())));
-                toAccount.setBalance(toAccount.getBalance().add(amount));
-
-                this.accountRepository.save(accountMapper.toEntity(fromAccount));
-                this.accountRepository.save(accountMapper.toEntity(toAccount));
-
-                TransferTransaction transferTransaction = TransferTransaction.builder()
-                        .amount(amount)
-                        .commission(success.getComission())
-                        .senderAccountId(fromAccountId)
-                        .receiverAccountId(toAccountId)
-                        .build();
-
-                this.transactionsRepository.save(transactionMapper.toEntity(transferTransaction));
-                Event event = Event.builder()
-                        .eventName("Перевод денег")
-                        .eventDescription("Время события: " + Instant.now().toString())
-                        .eventData(List.of(fromAccount, toAccount, transferTransaction))
-                        .build();
-                kafkaPublisher.sendAccountEvent(fromAccount.getId(), event);
-                kafkaPublisher.sendAccountEvent(toAccount.getId(), event);
-            } else {
-                return AccountTransferResultType.insufficientFunds(fromAccount.getBalance(), amount);
-            }
-        } else if(calculateComissionResultType instanceof AccountCalculateComissionResultType.CanNotFindAccountOwner fail) {
+        AccountCalculateComissionResultType calculateComissionResultType = calculateComission(
+                fromAccountId, fromAccount.getUserLogin(), toAccountId, toAccount.getUserLogin(), amount);
+
+        if (calculateComissionResultType instanceof AccountCalculateComissionResultType.CanNotFindAccountOwner fail) {
             return AccountTransferResultType.canNotFindAccountOwner(fail.getAccountId());
         }
+        BigDecimal commission = ((AccountCalculateComissionResultType.Success) calculateComissionResultType).getComission();
+
+        if (fromAccount.getBalance().compareTo(amount.add(commission)) < 0) {
+            return AccountTransferResultType.insufficientFunds(fromAccount.getBalance(), amount);
+        }
 
+        fromAccount.setBalance(fromAccount.getBalance().subtract(amount.add(commission)));
+        toAccount.setBalance(toAccount.getBalance().add(amount));
+        accountRepository.flush();
+
+        recordTransfer(fromAccountId, toAccountId, amount, commission);
         return AccountTransferResultType.success();
     }
 
+    private void recordTransfer(BigInteger fromAccountId, BigInteger toAccountId, BigDecimal amount, BigDecimal commission) {
+        TransferTransaction transferTransaction = TransferTransaction.builder()
+                .amount(amount)
+                .commission(commission)
+                .senderAccountId(fromAccountId)
+                .receiverAccountId(toAccountId)
+                .build();
+
+        TransactionEntity saved = this.transactionsRepository.save(transactionMapper.toEntity(transferTransaction));
+        Transaction recorded = transactionMapper.toDomain(saved);
+        postingRecorder.record(recorded);
+        kafkaPublisher.sendTransactionEvent(recorded);
+    }
+
 
     /**
-     * Проверяет, достаточно ли средств на счете для проведения операции снятия.
+     * Выполняет пакет переводов частями, каждая часть - одна транзакция с пакетной записью через JDBC.
+     * Используется независимо от режима согласования: счета части блокируются на время транзакции.
      *
-     * @param account счёт, с которого производится снятие
-     * @param amount сумма снятия
-     * @return {@code true}, если средств достаточно, иначе {@code false}
+     * @param instructions поручения на перевод
+     * @return результаты переводов в порядке поручений
+     * @see TransferBatchProcessor
      */
-    private boolean validateWithdrawBalance(Account account, BigDecimal amount) {
-        return account.getBalance().compareTo(amount) >= 0;
+    @Override
+    public List<AccountTransferResultType> transferBatch(List<TransferInstruction> instructions) {
+        AccountServiceInterface.requireTransferBatchSize(instructions);
+        return transferBatchProcessor.process(instructions);
     }
 
 
     /**
      * Вычисляет комиссию за перевод между пользователями в зависимости от их статуса (друзья или нет).
-     * @param fromAccount счёт отправителя
-     * @param toAccount счёт получателя
+     * @param fromAccountId номер счёта отправителя
+     * @param fromLogin логин владельца счёта отправителя
+     * @param toAccountId номер счёта получателя
+     * @param toLogin логин владельца счёта получателя
      * @param amount сумма перевода
      * @return результат вычисления комиссии
      */
-    private AccountCalculateComissionResultType calculateComission(Account fromAccount, Account toAccount, BigDecimal amount) {
-        UserEntity sender = userRepository.findByLogin(fromAccount.getUserLogin()).orElse(null);
-        UserEntity receiver = userRepository.findByLogin(toAccount.getUserLogin()).orElse(null);
+    private AccountCalculateComissionResultType calculateComission(
+            BigInteger fromAccountId,
+            String fromLogin,
+            BigInteger toAccountId,
+            String toLogin,
+            BigDecimal amount) {
+        UserEntity sender = userRepository.findByLogin(fromLogin).orElse(null);
+        UserEntity receiver = userRepository.findByLogin(toLogin).orElse(null);
         if (sender == null) {
-            return AccountCalculateComissionResultType.canNotFindOwner(fromAccount.getId());
+            return AccountCalculateComissionResultType.canNotFindOwner(fromAccountId);
         }
         if (receiver == null) {
-            return AccountCalculateComissionResultType.canNotFindOwner(toAccount.getId());
-        }
-
-        BigDecimal commissionRate;
-
-        if (sender.getLogin().equals(receiver.getLogin())) {
-            commissionRate = BigDecimal.ZERO;
-        } else if (friendsRepository.existsByUser_LoginAndFriend_Login(sender.getLogin(), receiver.getLogin())) {
-            commissionRate = BigDecimal.valueOf(0.03);
-        } else {
-            commissionRate = BigDecimal.valueOf(0.10);
+            return AccountCalculateComissionResultType.canNotFindOwner(toAccountId);
         }
 
-        BigDecimal commission = amount.multiply(commissionRate);
+        BigDecimal commission = commissionPolicy.commission(sender.getLogin(), receiver.getLogin(), amount);
         return AccountCalculateComissionResultType.success(commission);
     }
 }
@@ -0,0 +1,56 @@
+package com.kubancevvladislav.services;
+
+import com.kubancevvladislav.repositories.FriendsRepositoryInterface;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Определяет ставку комиссии за перевод между владельцами счетов.
+ * <ul>
+ *     <li> Перевод между своими счетами - без комиссии.
+ *     <li> Перевод другу - 3%.
+ *     <li> Остальные переводы - 10%.
+ * </ul>
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+@Component
+@RequiredArgsConstructor
+public class CommissionPolicy {
+    private static final BigDecimal FRIEND_RATE = BigDecimal.valueOf(0.03);
+    private static final BigDecimal DEFAULT_RATE = BigDecimal.valueOf(0.10);
+
+    /** Репозиторий, в котором хранится информация о друзьях пользователей */
+    private final FriendsRepositoryInterface friendsRepository;
+
+    /**
+     * Вычисляет комиссию за перевод.
+     * @param senderLogin логин владельца счёта отправителя
+     * @param receiverLogin логин владельца счёта получателя
+     * @param amount сумма перевода
+     * @return сумма комиссии
+     */
+    public BigDecimal commission(String senderLogin, String receiverLogin, BigDecimal amount) {
+        return amount.multiply(rate(senderLogin, receiverLogin));
+    }
+
+    /**
+     * Определяет ставку комиссии для пары владельцев.
+     * @param senderLogin логин владельца счёта отправителя
+     * @param receiverLogin логин владельца счёта получателя
+     * @return доля суммы перевода, удерживаемая как комиссия
+     */
+    public BigDecimal rate(String senderLogin, String receiverLogin) {
+        if (senderLogin.equals(receiverLogin)) {
+            return BigDecimal.ZERO;
+        }
+        if (friendsRepository.existsByUser_LoginAndFriend_Login(senderLogin, receiverLogin)) {
+            return FRIEND_RATE;
+        }
+        return DEFAULT_RATE;
+    }
+}
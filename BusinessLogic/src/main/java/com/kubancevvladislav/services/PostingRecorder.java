@@ -0,0 +1,97 @@
+package com.kubancevvladislav.services;
+
+import com.kubancevvladislav.domain.transactions.DepositTransaction;
+import com.kubancevvladislav.domain.transactions.Transaction;
+import com.kubancevvladislav.domain.transactions.TransferTransaction;
+import com.kubancevvladislav.domain.transactions.WithdrawTransaction;
+import com.kubancevvladislav.entities.PostingEntity;
+import com.kubancevvladislav.entities.PostingLegEntity;
+import com.kubancevvladislav.entities.transactions.DepositTransactionEntity;
+import com.kubancevvladislav.entities.transactions.TransferTransactionEntity;
+import com.kubancevvladislav.entities.transactions.WithdrawTransactionEntity;
+import com.kubancevvladislav.repositories.PostingRepositoryInterface;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Записывает проводки по сохранённым транзакциям.
+ * Вызывается в той же транзакции базы данных, что и сохранение самих транзакций,
+ * поэтому журнал проводок всегда согласован с таблицей {@code transactions}.
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see PostingEntity
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+@Component
+@RequiredArgsConstructor
+public class PostingRecorder {
+    /** Репозиторий, в котором хранятся проводки */
+    private final PostingRepositoryInterface postingRepository;
+
+    /**
+     * Записывает проводки одной транзакции.
+     * @param transaction сохранённая транзакция с заполненными номером и временем
+     */
+    public void record(Transaction transaction) {
+        record(List.of(transaction));
+    }
+
+    /**
+     * Записывает проводки нескольких транзакций одним пакетом.
+     * @param transactions сохранённые транзакции с заполненными номерами и временем
+     */
+    public void record(Collection<? extends Transaction> transactions) {
+        List<PostingEntity> postings = new ArrayList<>(transactions.size() * 3);
+        for (Transaction transaction : transactions) {
+            addPostings(postings, transaction);
+        }
+        postingRepository.saveAll(postings);
+    }
+
+    private static void addPostings(List<PostingEntity> postings, Transaction transaction) {
+        switch (transaction) {
+            case DepositTransaction deposit -> postings.add(posting(
+                    deposit, deposit.getAccountId(), PostingLegEntity.CREDIT,
+                    DepositTransactionEntity.TYPE, deposit.getAmount()));
+            case WithdrawTransaction withdraw -> postings.add(posting(
+                    withdraw, withdraw.getAccountId(), PostingLegEntity.DEBIT,
+                    WithdrawTransactionEntity.TYPE, withdraw.getAmount()));
+            case TransferTransaction transfer -> {
+                postings.add(posting(
+                        transfer, transfer.getSenderAccountId(), PostingLegEntity.DEBIT,
+                        TransferTransactionEntity.TYPE, transfer.getAmount()));
+                postings.add(posting(
+                        transfer, transfer.getReceiverAccountId(), PostingLegEntity.CREDIT,
+                        TransferTransactionEntity.TYPE, transfer.getAmount()));
+                postings.add(posting(
+                        transfer, transfer.getSenderAccountId(), PostingLegEntity.COMMISSION,
+                        TransferTransactionEntity.TYPE, transfer.getCommission()));
+            }
+            case null, default ->
+                    throw new IllegalArgumentException("Unknown transaction type: " + transaction);
+        }
+    }
+
+    private static PostingEntity posting(
+            Transaction transaction,
+            BigInteger accountId,
+            PostingLegEntity leg,
+            String transactionType,
+            BigDecimal amount) {
+        return PostingEntity.builder()
+                .transactionId(transaction.getTransactionId())
+                .accountId(accountId)
+                .leg(leg)
+                .transactionType(transactionType)
+                .amount(amount)
+                .timestamp(transaction.getTimestamp())
+                .build();
+    }
+}
@@ -1,23 +1,83 @@
 package com.kubancevvladislav.services;
 
-import com.kubancevvladislav.domain.Event;
+import com.kubancevvladislav.domain.transactions.DepositTransaction;
+import com.kubancevvladislav.domain.transactions.Transaction;
+import com.kubancevvladislav.domain.transactions.TransferTransaction;
+import com.kubancevvladislav.domain.transactions.WithdrawTransaction;
+import com.kubancevvladislav.entities.OutboxEventEntity;
+import com.kubancevvladislav.events.Deposited;
+import com.kubancevvladislav.events.DomainEvent;
+import com.kubancevvladislav.events.DomainEventSerializer;
+import com.kubancevvladislav.events.Transferred;
+import com.kubancevvladislav.events.Withdrawn;
+import com.kubancevvladislav.repositories.OutboxRepositoryInterface;
 import lombok.RequiredArgsConstructor;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 import java.math.BigInteger;
 
+/**
+ * Публикует события через таблицу {@code outbox}.
+ * Событие записывается в текущую транзакцию базы данных и попадает в Kafka только после её фиксации,
+ * отправку выполняет {@link com.kubancevvladislav.services.outbox.OutboxRelay}.
+ * Вызов вне транзакции сохраняет событие сразу.
+ * @author Кубанцев Владислав
+ * @version 1.1
+ * @since 1.0
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
 @Service
 @RequiredArgsConstructor
 public class PublisherService {
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    /** Топик событий пользователей */
+    public static final String CLIENT_TOPIC = "client-topic";
+    /** Топик событий счетов */
+    public static final String ACCOUNT_TOPIC = "account-topic";
 
-    public void sendUserEvent(String userLogin, Event eventData) {
-        kafkaTemplate.send("client-topic", userLogin, eventData);
+    private final OutboxRepositoryInterface outboxRepository;
+    private final DomainEventSerializer eventSerializer;
+
+    public void sendUserEvent(String userLogin, DomainEvent event) {
+        append(CLIENT_TOPIC, userLogin, event);
     }
 
-    public void sendAccountEvent(BigInteger accountId, Event eventData) {
-        kafkaTemplate.send("account-topic", accountId.toString(), eventData);
+    public void sendAccountEvent(BigInteger accountId, DomainEvent event) {
+        append(ACCOUNT_TOPIC, accountId.toString(), event);
+    }
+
+    /**
+     * Публикует событие о сохранённой транзакции в топики всех затронутых счетов.
+     * @param transaction транзакция с присвоенным номером
+     */
+    public void sendTransactionEvent(Transaction transaction) {
+        long timestamp = System.currentTimeMillis();
+        switch (transaction) {
+            case DepositTransaction deposit -> sendAccountEvent(
+                    deposit.getAccountId(),
+                    new Deposited(timestamp, deposit.getTransactionId(), deposit.getAccountId(), deposit.getAmount()));
+            case WithdrawTransaction withdraw -> sendAccountEvent(
+                    withdraw.getAccountId(),
+                    new Withdrawn(timestamp, withdraw.getTransactionId(), withdraw.getAccountId(), withdraw.getAmount()));
+            case TransferTransaction transfer -> {
+                Transferred event = new Transferred(
+                        timestamp,
+                        transfer.getTransactionId(),
+                        transfer.getSenderAccountId(),
+                        transfer.getReceiverAccountId(),
+                        transfer.getAmount(),
+                        transfer.getCommission());
+                sendAccountEvent(transfer.getSenderAccountId(), event);
+                sendAccountEvent(transfer.getReceiverAccountId(), event);
+            }
+            default -> throw new IllegalArgumentException("Unknown type: " + transaction.getClass());
+        }
     }
-}
 
+    private void append(String topic, String key, DomainEvent event) {
+        outboxRepository.save(OutboxEventEntity.builder()
+                .topic(topic)
+                .messageKey(key)
+                .payload(eventSerializer.serialize(topic, event))
+                .build());
+    }
+}
@@ -0,0 +1,47 @@
+package com.kubancevvladislav.services;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Позиция в упорядоченном по {@code (timestamp, transactionId)} списке транзакций.
+ * Клиенту передаётся в виде непрозрачного токена Base64.
+ * @param timestamp время последней транзакции предыдущей страницы
+ * @param transactionId номер последней транзакции предыдущей страницы
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+record TransactionCursor(LocalDateTime timestamp, BigInteger transactionId) {
+    private static final char SEPARATOR = '|';
+
+    /**
+     * @return токен для передачи клиенту
+     */
+    String encode() {
+        String raw = timestamp.toString() + SEPARATOR + transactionId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает токен, полученный от клиента.
+     * @param token токен
+     * @return позиция в списке
+     * @throws IllegalArgumentException если токен повреждён
+     */
+    static TransactionCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return new TransactionCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    new BigInteger(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректный курсор страницы: " + token);
+        }
+    }
+}
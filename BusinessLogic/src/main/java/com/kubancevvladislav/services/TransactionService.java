@@ -1,20 +1,35 @@
 package com.kubancevvladislav.services;
 
+import com.kubancevvladislav.domain.TransactionExportFilter;
+import com.kubancevvladislav.domain.TransactionPage;
 import com.kubancevvladislav.domain.TransactionType;
 import com.kubancevvladislav.domain.transactions.Transaction;
 import com.kubancevvladislav.domainServices.TransactionServiceInterface;
+import com.kubancevvladislav.entities.transactions.DepositTransactionEntity;
 import com.kubancevvladislav.entities.transactions.TransactionEntity;
+import com.kubancevvladislav.entities.transactions.TransferTransactionEntity;
+import com.kubancevvladislav.entities.transactions.WithdrawTransactionEntity;
 import com.kubancevvladislav.repositories.AccountRepositoryInterface;
+import com.kubancevvladislav.repositories.PostingRepositoryInterface;
 import com.kubancevvladislav.repositories.TransactionsRepositoryInterface;
 import com.kubancevvladislav.services.mapper.AccountMapperInterface;
 import com.kubancevvladislav.services.mapper.TransactionMapperInterface;
+import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Сервис для работы с транзакциями, реализующий {@link TransactionServiceInterface}.
@@ -28,8 +43,15 @@ import java.util.stream.Collectors;
 @Service
 @AllArgsConstructor
 public class TransactionService implements TransactionServiceInterface {
+    /** Размер страницы, если клиент его не указал */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    /** Максимальный размер страницы */
+    public static final int MAX_PAGE_SIZE = 500;
+
     /** Репозиторий, в котором хранится информация о транзакциях */
     private final TransactionsRepositoryInterface transactionsRepository;
+    /** Репозиторий, в котором хранятся проводки по счетам */
+    private final PostingRepositoryInterface postingRepository;
     /** Репозиторий, в котором хранится информация о счетах */
     private final AccountRepositoryInterface accountRepository;
     /** Маппер для перевода из домена в entity и наоборот */
@@ -38,32 +60,150 @@ public class TransactionService implements TransactionServiceInterface {
     /** Маппер для перевода из домена в entity и наоборот */
     @Qualifier("transactionMapperInterfaceImpl")
     private final TransactionMapperInterface transactionMapper;
+    /** Контекст персистентности, из которого отсоединяются сущности при выгрузке */
+    private final EntityManager entityManager;
+
+    /**
+     * Возвращает страницу всех транзакций в системе.
+     * Страница читается по курсору {@code (timestamp, transactionId)}, поэтому память на запрос
+     * не зависит от размера таблицы.
+     * @param cursor токен страницы или {@code null} для первой страницы
+     * @param pageSize желаемый размер страницы, ограничивается {@link #MAX_PAGE_SIZE}
+     * @return страница транзакций
+     */
+    @Override
+    public TransactionPage getTransactions(String cursor, int pageSize) {
+        int size = pageSize(pageSize);
+        Limit limit = Limit.of(size + 1);
+        List<TransactionEntity> entities;
+        if (cursor == null || cursor.isBlank()) {
+            entities = transactionsRepository.findFirstPage(limit);
+        } else {
+            TransactionCursor position = TransactionCursor.decode(cursor);
+            entities = transactionsRepository.findPageAfter(position.timestamp(), position.transactionId(), limit);
+        }
+        return toPage(entities, size);
+    }
 
     /**
-     * Возвращает все транзакции в системе.
-     * @return список всех транзакций
+     * Возвращает все транзакции указанного типа, затронувшие счёт, читая их страницами по {@link #MAX_PAGE_SIZE},
+     * так что каждый запрос к базе остаётся ограниченным по размеру.
+     * @param accountId номер счёта
+     * @param transactionType тип транзакций
+     * @return транзакции в хронологическом порядке
      */
     @Override
-    public List<Transaction> getAllTransactions() {
-        List<TransactionEntity> transactionEntities = transactionsRepository.getAllTransactions();
-        List<Transaction> transactions = transactionEntities.stream()
-                .map(transactionMapper::toDomain)
-                .collect(Collectors.toList());
+    public List<Transaction> getAccountTransactionsByType(BigInteger accountId, TransactionType transactionType) {
+        List<Transaction> transactions = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionPage page = getAccountTransactionsByType(accountId, transactionType, cursor, MAX_PAGE_SIZE);
+            transactions.addAll(page.transactions());
+            cursor = page.nextCursor();
+        } while (cursor != null);
         return transactions;
     }
 
+    /**
+     * Возвращает страницу транзакций указанного типа, затронувших счёт, в хронологическом порядке.
+     * Номера транзакций берутся из журнала проводок диапазонным сканированием по счёту,
+     * после чего транзакции загружаются по первичному ключу.
+     * @param accountId номер счёта
+     * @param transactionType тип транзакций
+     * @param cursor токен страницы или {@code null} для первой страницы
+     * @param pageSize желаемый размер страницы, ограничивается {@link #MAX_PAGE_SIZE}
+     * @return страница транзакций
+     */
     @Override
-    public List<Transaction> getAccountTransactionsByType(
+    public TransactionPage getAccountTransactionsByType(
             BigInteger accountId,
-            TransactionType transactionType) {
-        List<TransactionEntity> entities = transactionsRepository
-                .findByAccountIdAndTransactionType(
-                        accountId,
-                        transactionType.name()
-                );
+            TransactionType transactionType,
+            String cursor,
+            int pageSize) {
+        int size = pageSize(pageSize);
+        Limit limit = Limit.of(size + 1);
+        List<BigInteger> transactionIds;
+        if (cursor == null || cursor.isBlank()) {
+            transactionIds = postingRepository.findFirstTransactionIds(
+                    accountId,
+                    storedType(transactionType),
+                    limit);
+        } else {
+            TransactionCursor position = TransactionCursor.decode(cursor);
+            transactionIds = postingRepository.findTransactionIdsAfter(
+                    accountId,
+                    storedType(transactionType),
+                    position.timestamp(),
+                    position.transactionId(),
+                    limit);
+        }
+
+        Map<BigInteger, TransactionEntity> entities = transactionsRepository.findAllById(transactionIds).stream()
+                .collect(Collectors.toMap(TransactionEntity::getTransactionId, Function.identity()));
+
+        return toPage(
+                transactionIds.stream()
+                        .map(entities::get)
+                        .filter(Objects::nonNull)
+                        .toList(),
+                size);
+    }
+
+    /**
+     * Выгружает транзакции через серверный курсор базы данных.
+     * Каждая прочитанная сущность сразу преобразуется, передаётся получателю и отсоединяется
+     * от контекста персистентности, так что потребление памяти не зависит от объёма выгрузки.
+     * @param filter условия отбора
+     * @param sink получатель транзакций
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportTransactions(TransactionExportFilter filter, Consumer<Transaction> sink) {
+        String transactionType = filter.transactionType() == null ? null : storedType(filter.transactionType());
+        try (Stream<TransactionEntity> entities = transactionsRepository.streamForExport(
+                filter.accountId(),
+                transactionType,
+                filter.from(),
+                filter.to())) {
+            entities.forEach(entity -> {
+                sink.accept(transactionMapper.toDomain(entity));
+                entityManager.detach(entity);
+            });
+        }
+    }
+
+    /**
+     * Собирает страницу из {@code size + 1} прочитанных записей:
+     * лишняя запись означает, что следующая страница существует.
+     */
+    private TransactionPage toPage(List<TransactionEntity> entities, int size) {
+        boolean hasNext = entities.size() > size;
+        List<TransactionEntity> page = hasNext ? entities.subList(0, size) : entities;
+        String nextCursor = null;
+        if (hasNext) {
+            TransactionEntity last = page.get(page.size() - 1);
+            nextCursor = new TransactionCursor(last.getTimestamp(), last.getTransactionId()).encode();
+        }
+        return new TransactionPage(
+                page.stream().map(transactionMapper::toDomain).toList(),
+                nextCursor);
+    }
+
+    private static int pageSize(int requested) {
+        if (requested <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
+    }
 
-        return entities.stream()
-                .map(transactionMapper::toDomain)
-                .toList();
+    /**
+     * Переводит тип транзакции в значение столбца {@code transaction_type}.
+     */
+    private static String storedType(TransactionType transactionType) {
+        return switch (transactionType) {
+            case DEPOSIT -> DepositTransactionEntity.TYPE;
+            case WITHDRAWAL -> WithdrawTransactionEntity.TYPE;
+            case TRANSFER -> TransferTransactionEntity.TYPE;
+        };
     }
 }
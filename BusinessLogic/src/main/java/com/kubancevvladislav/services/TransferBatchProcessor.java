@@ -0,0 +1,205 @@
+package com.kubancevvladislav.services;
+
+import com.kubancevvladislav.domain.TransferInstruction;
+import com.kubancevvladislav.domain.transactions.TransferTransaction;
+import com.kubancevvladislav.entities.AccountEntity;
+import com.kubancevvladislav.entities.transactions.TransferTransactionEntity;
+import com.kubancevvladislav.repositories.AccountRepositoryInterface;
+import com.kubancevvladislav.repositories.TransactionsRepositoryInterface;
+import com.kubancevvladislav.services.mapper.TransactionMapperInterface;
+import com.kubancevvladislav.services.result.types.AccountTransferResultType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Выполняет пакеты переводов для {@link AccountService#transferBatch(List)}.
+ * <p>Пакет делится на части по {@code account.batch.chunk-size} переводов, каждая часть - одна транзакция:</p>
+ * <ol>
+ *     <li> Все счета части загружаются одним запросом и блокируются в порядке возрастания номеров.
+ *     <li> Переводы применяются к балансам в памяти по порядку, каждый получает свой результат.
+ *     <li> Изменённые балансы записываются пакетом JDBC, транзакции переводов сохраняются через JPA:
+ *     идентификаторы выдаёт генератор Hibernate, а вставки уходят пакетами {@code hibernate.jdbc.batch_size}.
+ * </ol>
+ * <p>Успешный перевод получает результат с номером своей транзакции.
+ * Перевод без суммы или с отрицательной суммой получает {@link AccountTransferResultType.InvalidAmount}.</p>
+ * <p>Если транзакция части завершилась ошибкой, часть откатывается целиком, а каждый её перевод получает
+ * результат {@link AccountTransferResultType.RolledBack}. Остальные части обрабатываются как обычно,
+ * поэтому по ответу всегда видно, какие переводы применены.</p>
+ * @author Кубанцев Владислав
+ * @version 1.2
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+@Component
+public class TransferBatchProcessor {
+    private static final Logger log = LoggerFactory.getLogger(TransferBatchProcessor.class);
+
+    private static final String UPDATE_BALANCE_SQL =
+            "UPDATE accounts SET balance = ?, version = version + 1 WHERE id = ?";
+
+    /** Количество переводов в одной транзакции */
+    private final int chunkSize;
+    private final AccountRepositoryInterface accountRepository;
+    private final TransactionsRepositoryInterface transactionsRepository;
+    private final TransactionMapperInterface transactionMapper;
+    private final CommissionPolicy commissionPolicy;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PublisherService kafkaPublisher;
+    private final PostingRecorder postingRecorder;
+
+    public TransferBatchProcessor(
+            @Value("${account.batch.chunk-size:500}") int chunkSize,
+            AccountRepositoryInterface accountRepository,
+            TransactionsRepositoryInterface transactionsRepository,
+            @Qualifier("transactionMapperInterfaceImpl") TransactionMapperInterface transactionMapper,
+            CommissionPolicy commissionPolicy,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            PublisherService kafkaPublisher,
+            PostingRecorder postingRecorder) {
+        this.chunkSize = Math.max(1, chunkSize);
+        this.accountRepository = accountRepository;
+        this.transactionsRepository = transactionsRepository;
+        this.transactionMapper = transactionMapper;
+        this.commissionPolicy = commissionPolicy;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.kafkaPublisher = kafkaPublisher;
+        this.postingRecorder = postingRecorder;
+    }
+
+    /**
+     * Выполняет пакет переводов.
+     * @param instructions поручения на перевод
+     * @return результаты переводов в порядке поручений
+     */
+    public List<AccountTransferResultType> process(List<TransferInstruction> instructions) {
+        List<AccountTransferResultType> results = new ArrayList<>(instructions.size());
+        for (int from = 0; from < instructions.size(); from += chunkSize) {
+            List<TransferInstruction> chunk = instructions.subList(from, Math.min(from + chunkSize, instructions.size()));
+            try {
+                results.addAll(transactionTemplate.execute(status -> processChunk(chunk)));
+            } catch (RuntimeException e) {
+                log.error("Часть пакета переводов [{}, {}) откатилась: {}",
+                        from, from + chunk.size(), e.getMessage(), e);
+                AccountTransferResultType rolledBack = AccountTransferResultType.rolledBack(String.valueOf(e.getMessage()));
+                for (int i = 0; i < chunk.size(); i++) {
+                    results.add(rolledBack);
+                }
+            }
+        }
+        return results;
+    }
+
+    private List<AccountTransferResultType> processChunk(List<TransferInstruction> chunk) {
+        Set<BigInteger> ids = new TreeSet<>();
+        for (TransferInstruction instruction : chunk) {
+            if (instruction.fromAccountId() != null) { ids.add(instruction.fromAccountId()); }
+            if (instruction.toAccountId() != null) { ids.add(instruction.toAccountId()); }
+        }
+
+        Map<BigInteger, AccountEntity> accounts = ids.isEmpty()
+                ? new HashMap<>()
+                : accountRepository.findAllByIdForUpdate(ids).stream()
+                        .collect(Collectors.toMap(AccountEntity::getId, Function.identity()));
+        Map<BigInteger, BigDecimal> balances = new HashMap<>();
+        accounts.forEach((id, account) -> balances.put(id, account.getBalance()));
+        Map<String, BigDecimal> rates = new HashMap<>();
+
+        List<AccountTransferResultType> results = new ArrayList<>(chunk.size());
+        List<TransferTransaction> transfers = new ArrayList<>();
+        // позиции успешных переводов в results
+        List<Integer> transferPositions = new ArrayList<>();
+        for (TransferInstruction instruction : chunk) {
+            BigDecimal amount = instruction.amount();
+            if (amount == null || amount.compareTo(BigDecimal.ZERO) < 0) {
+                results.add(AccountTransferResultType.invalidAmount(amount));
+                continue;
+            }
+
+            AccountEntity from = accounts.get(instruction.fromAccountId());
+            AccountEntity to = accounts.get(instruction.toAccountId());
+            if (from == null) {
+                results.add(AccountTransferResultType.accountDoesNotExists(instruction.fromAccountId()));
+                continue;
+            }
+            if (to == null) {
+                results.add(AccountTransferResultType.accountDoesNotExists(instruction.toAccountId()));
+                continue;
+            }
+
+            BigDecimal rate = rates.computeIfAbsent(
+                    from.getUserLogin() + '\n' + to.getUserLogin(),
+                    key -> commissionPolicy.rate(from.getUserLogin(), to.getUserLogin()));
+            BigDecimal commission = amount.multiply(rate);
+            BigDecimal debit = amount.add(commission);
+
+            BigDecimal balance = balances.get(from.getId());
+            if (balance.compareTo(debit) < 0) {
+                results.add(AccountTransferResultType.insufficientFunds(balance, amount));
+                continue;
+            }
+
+            balances.put(from.getId(), balance.subtract(debit));
+            balances.merge(to.getId(), amount, BigDecimal::add);
+            transfers.add(TransferTransaction.builder()
+                    .amount(amount)
+                    .commission(commission)
+                    .senderAccountId(from.getId())
+                    .receiverAccountId(to.getId())
+                    .build());
+            transferPositions.add(results.size());
+            results.add(AccountTransferResultType.success());
+        }
+
+        if (!transfers.isEmpty()) {
+            writeBalances(accounts, balances);
+            List<TransferTransaction> recorded = saveTransfers(transfers);
+            postingRecorder.record(recorded);
+            recorded.forEach(kafkaPublisher::sendTransactionEvent);
+            for (int i = 0; i < recorded.size(); i++) {
+                results.set(transferPositions.get(i), AccountTransferResultType.success(recorded.get(i).getTransactionId()));
+            }
+        }
+        return results;
+    }
+
+    private void writeBalances(Map<BigInteger, AccountEntity> accounts, Map<BigInteger, BigDecimal> balances) {
+        List<Object[]> updates = new ArrayList<>();
+        balances.forEach((id, balance) -> {
+            if (balance.compareTo(accounts.get(id).getBalance()) != 0) {
+                updates.add(new Object[]{balance, new BigDecimal(id)});
+            }
+        });
+        jdbcTemplate.batchUpdate(UPDATE_BALANCE_SQL, updates);
+    }
+
+    /**
+     * @return сохранённые переводы с номерами транзакций, в том же порядке
+     */
+    private List<TransferTransaction> saveTransfers(List<TransferTransaction> transfers) {
+        List<TransferTransactionEntity> entities = transfers.stream()
+                .map(transactionMapper::toEntity)
+                .toList();
+        return transactionsRepository.saveAll(entities).stream()
+                .map(transactionMapper::toDomain)
+                .toList();
+    }
+}
@@ -1,11 +1,13 @@
 package com.kubancevvladislav.services;
 
 import com.kubancevvladislav.domain.DTO.UserDTO;
-import com.kubancevvladislav.domain.Event;
 import com.kubancevvladislav.domain.Gender;
 import com.kubancevvladislav.domain.HairColor;
 import com.kubancevvladislav.domain.User;
 import com.kubancevvladislav.entities.*;
+import com.kubancevvladislav.events.FriendAdded;
+import com.kubancevvladislav.events.UserCreated;
+import com.kubancevvladislav.repositories.FriendLink;
 import com.kubancevvladislav.repositories.FriendsRepositoryInterface;
 import com.kubancevvladislav.repositories.UserRepositoryInterface;
 import com.kubancevvladislav.domainServices.UserServiceInterface;
@@ -19,10 +21,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigInteger;
-import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * Сервис для работы с пользователями, реализующий {@link UserServiceInterface}.
@@ -86,13 +90,13 @@ public class UserService implements UserServiceInterface {
 
         userDTO.friends().forEach(friend -> addUserFriendByLogin(friend, userDTO.login()));
 
-        Event event = Event.builder()
-                .eventName("Пользователь создан")
-                .eventDescription("Время события: " + Instant.now().toString())
-                .eventData(List.of(entity))
-                .build();
-
-        kafkaPublisher.sendUserEvent(entity.getLogin(), event);
+        kafkaPublisher.sendUserEvent(entity.getLogin(), new UserCreated(
+                System.currentTimeMillis(),
+                user.getLogin(),
+                user.getName(),
+                user.getAge(),
+                user.getGender() == null ? null : user.getGender().name(),
+                user.getHairColor() == null ? null : user.getHairColor().name()));
         return CreateUserResultType.success(userMapper.toDomain(savedEntity));
     }
 
@@ -154,12 +158,7 @@ public class UserService implements UserServiceInterface {
             friendsRepository.save(new UserFriendsEntity(user1, user2));
             friendsRepository.save(new UserFriendsEntity(user2, user1));
 
-            Event event = Event.builder()
-                    .eventName("Пользователи добавлены в друзья")
-                    .eventDescription("Время события: " + Instant.now().toString())
-                    .eventData(List.of(userMapper.toDomain(user1), userMapper.toDomain(user2)))
-                    .build();
-
+            FriendAdded event = new FriendAdded(System.currentTimeMillis(), user1.getLogin(), user2.getLogin());
             kafkaPublisher.sendUserEvent(user1.getLogin(), event);
             kafkaPublisher.sendUserEvent(user2.getLogin(), event);
 
@@ -192,5 +191,36 @@ public class UserService implements UserServiceInterface {
         return friendsRepository.getFriends(userEntity.get().getLogin());
     }
 
+    /**
+     * Возвращает пользователей с указанными логинами одним запросом.
+     * @param logins логины пользователей
+     * @return найденные пользователи
+     */
+    @Override
+    public List<User> getUsersByLogins(Collection<String> logins) {
+        UserServiceInterface.requireLookupSize(logins);
+        if (logins.isEmpty()) {
+            return List.of();
+        }
+        return userRepository.findByLoginIn(logins).stream()
+                .map(userMapper::toDomain)
+                .toList();
+    }
 
+    /**
+     * Возвращает друзей нескольких пользователей одним запросом.
+     * @param logins логины пользователей
+     * @return списки друзей по логину пользователя
+     */
+    @Override
+    public Map<String, List<String>> getUserFriendsByLogins(Collection<String> logins) {
+        UserServiceInterface.requireLookupSize(logins);
+        if (logins.isEmpty()) {
+            return Map.of();
+        }
+        return friendsRepository.getFriends(logins).stream()
+                .collect(Collectors.groupingBy(
+                        FriendLink::userLogin,
+                        Collectors.mapping(FriendLink::friendLogin, Collectors.toList())));
+    }
 }
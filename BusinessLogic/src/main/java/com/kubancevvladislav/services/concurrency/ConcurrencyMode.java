@@ -0,0 +1,18 @@
+package com.kubancevvladislav.services.concurrency;
+
+/**
+ * Режим согласования конкурентных изменений баланса счетов.
+ * <ul>
+ *     <li> {@link #ATOMIC} - баланс изменяется одним условным UPDATE, строка блокируется базой данных.
+ *     <li> {@link #OPTIMISTIC} - счёт читается, изменяется и сохраняется с проверкой версии,
+ *     конфликт повторяется с задержкой.
+ * </ul>
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+public enum ConcurrencyMode {
+    ATOMIC,
+    OPTIMISTIC
+}
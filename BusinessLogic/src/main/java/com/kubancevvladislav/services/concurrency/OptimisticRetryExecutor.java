@@ -0,0 +1,106 @@
+package com.kubancevvladislav.services.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Выполняет операцию над счетами в отдельной транзакции и повторяет её при конфликте версий.
+ * Между попытками выдерживается экспоненциальная задержка со случайным разбросом,
+ * чтобы конкурирующие запросы не повторялись синхронно.
+ * <p>Экспортирует метрики {@code account.optimistic.attempts}, {@code account.optimistic.conflicts}
+ * и {@code account.optimistic.exhausted} с тегом {@code operation}.</p>
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+@Component
+public class OptimisticRetryExecutor {
+    /** Выбранный режим согласования изменений */
+    private final ConcurrencyMode mode;
+    /** Максимальное число попыток, включая первую */
+    private final int maxAttempts;
+    /** Задержка перед первым повтором в миллисекундах */
+    private final long baseBackoffMillis;
+    /** Верхняя граница задержки в миллисекундах */
+    private final long maxBackoffMillis;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    public OptimisticRetryExecutor(
+            @Value("${account.concurrency.mode:ATOMIC}") ConcurrencyMode mode,
+            @Value("${account.concurrency.optimistic.max-attempts:5}") int maxAttempts,
+            @Value("${account.concurrency.optimistic.base-backoff-ms:5}") long baseBackoffMillis,
+            @Value("${account.concurrency.optimistic.max-backoff-ms:100}") long maxBackoffMillis,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry) {
+        this.mode = mode;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffMillis = Math.max(0, baseBackoffMillis);
+        this.maxBackoffMillis = Math.max(this.baseBackoffMillis, maxBackoffMillis);
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return {@code true}, если сервис счетов работает в оптимистичном режиме
+     */
+    public boolean isOptimistic() {
+        return mode == ConcurrencyMode.OPTIMISTIC;
+    }
+
+    /**
+     * Выполняет операцию, повторяя её при {@link OptimisticLockingFailureException}.
+     * @param operation имя операции для метрик
+     * @param attempt тело операции, выполняется в новой транзакции на каждой попытке
+     * @param onExhausted результат, возвращаемый после исчерпания попыток
+     * @return результат последней успешной попытки или {@code onExhausted}
+     */
+    public <T> T execute(String operation, TransactionCallback<T> attempt, Supplier<T> onExhausted) {
+        Counter attempts = meterRegistry.counter("account.optimistic.attempts", "operation", operation);
+        Counter conflicts = meterRegistry.counter("account.optimistic.conflicts", "operation", operation);
+
+        for (int i = 1; i <= maxAttempts; i++) {
+            attempts.increment();
+            try {
+                return transactionTemplate.execute(attempt);
+            } catch (OptimisticLockingFailureException e) {
+                conflicts.increment();
+                if (i == maxAttempts || !backoff(i)) {
+                    break;
+                }
+            }
+        }
+
+        meterRegistry.counter("account.optimistic.exhausted", "operation", operation).increment();
+        return onExhausted.get();
+    }
+
+    /**
+     * Ожидает перед следующей попыткой.
+     * @param attempt номер неудавшейся попытки
+     * @return {@code false}, если поток был прерван
+     */
+    private boolean backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 20));
+        if (ceiling == 0) {
+            return true;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.kubancevvladislav.services.ledger;
+
+import com.kubancevvladislav.domain.Account;
+import com.kubancevvladislav.domain.TransferInstruction;
+import com.kubancevvladislav.domain.transactions.DepositTransaction;
+import com.kubancevvladislav.domain.transactions.TransferTransaction;
+import com.kubancevvladislav.domain.transactions.WithdrawTransaction;
+import com.kubancevvladislav.domainServices.AccountServiceInterface;
+import com.kubancevvladislav.entities.AccountEntity;
+import com.kubancevvladislav.repositories.AccountRepositoryInterface;
+import com.kubancevvladislav.services.AccountService;
+import com.kubancevvladislav.services.CommissionPolicy;
+import com.kubancevvladislav.services.result.types.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Реализация {@link AccountServiceInterface}, хранящая балансы счетов в памяти.
+ * Включается свойством {@code account.ledger.mode=in-memory} и заменяет {@link AccountService}.
+ * <p>Счета распределены по {@code account.ledger.shards} шардам ({@link LedgerShard}),
+ * у каждого шарда единственный поток-писатель, поэтому пополнение, снятие и перевод внутри шарда
+ * выполняются без блокировок и без обращения к базе данных. База данных обновляется асинхронно
+ * пакетами через {@link LedgerPersistenceSink}.</p>
+ * <p>Перевод между шардами выполняется в два шага:</p>
+ * <ol>
+ *     <li> Шард отправителя списывает сумму с комиссией, если средств достаточно.
+ *     <li> Шард получателя зачисляет сумму. Если зачисление невозможно,
+ *     шард отправителя возвращает списанное компенсирующей командой.
+ * </ol>
+ * <p>Каждый шаг сразу попадает в журнал как приращение баланса, а транзакция перевода
+ * сохраняется вместе со вторым шагом.</p>
+ * <p>Балансы загружаются из базы при старте, поэтому режим рассчитан на один экземпляр приложения,
+ * владеющий счетами: изменения балансов в обход этого сервиса не будут видны.</p>
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "account.ledger.mode", havingValue = "in-memory")
+public class InMemoryLedgerAccountService implements AccountServiceInterface {
+    /** Сервис счетов, выполняющий операции, не связанные с изменением баланса */
+    private final AccountService accountService;
+    private final AccountRepositoryInterface accountRepository;
+    private final CommissionPolicy commissionPolicy;
+    private final LedgerPersistenceSink sink;
+    private final LedgerShard[] shards;
+    /** Логины владельцев счетов, нужны для расчёта комиссии без обращения к базе */
+    private final Map<BigInteger, String> owners = new ConcurrentHashMap<>();
+
+    public InMemoryLedgerAccountService(
+            @Value("${account.ledger.shards:8}") int shardCount,
+            @Value("${account.ledger.ring-capacity:65536}") int ringCapacity,
+            AccountService accountService,
+            AccountRepositoryInterface accountRepository,
+            CommissionPolicy commissionPolicy,
+            LedgerPersistenceSink sink) {
+        this.accountService = accountService;
+        this.accountRepository = accountRepository;
+        this.commissionPolicy = commissionPolicy;
+        this.sink = sink;
+        this.shards = new LedgerShard[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new LedgerShard(i, ringCapacity);
+        }
+    }
+
+    /**
+     * Загружает балансы всех счетов и запускает писателей шардов и сохранение журнала.
+     */
+    @PostConstruct
+    void start() {
+        for (AccountEntity account : accountRepository.findAll()) {
+            owners.put(account.getId(), account.getUserLogin());
+            shardFor(account.getId()).load(account.getId(), account.getBalance());
+        }
+        for (LedgerShard shard : shards) {
+            shard.start();
+        }
+        sink.start();
+    }
+
+    /**
+     * Применяет все принятые команды и дожидается сохранения журнала.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        for (LedgerShard shard : shards) {
+            shard.stop();
+        }
+        sink.stop();
+    }
+
+    /**
+     * Создаёт счёт в базе данных и регистрирует его в шарде с нулевым балансом.
+     * @param userLogin логин пользователя
+     * @return результат создания счёта
+     */
+    @Override
+    public CreateAccountResultType createAccount(String userLogin) {
+        CreateAccountResultType result = accountService.createAccount(userLogin);
+        if (result instanceof CreateAccountResultType.Success success) {
+            Account account = success.getAccount();
+            owners.put(account.getId(), account.getUserLogin());
+            shardFor(account.getId())
+                    .submit(balances -> balances.putIfAbsent(account.getId(), account.getBalance()))
+                    .join();
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает счёт из базы данных с актуальным балансом из памяти.
+     * @param id номер счёта
+     * @return найденный счёт или пустое значение
+     */
+    @Override
+    public Optional<Account> getAccountById(BigInteger id) {
+        return accountService.getAccountById(id).map(this::withLedgerBalance);
+    }
+
+    /**
+     * @return все счета с актуальными балансами из памяти
+     */
+    @Override
+    public List<Account> getAllAccounts() {
+        return accountService.getAllAccounts().stream().map(this::withLedgerBalance).toList();
+    }
+
+    /**
+     * @param login логин пользователя
+     * @return счета пользователя с актуальными балансами из памяти
+     */
+    @Override
+    public List<Account> getAccountsByUserLogin(String login) {
+        return accountService.getAccountsByUserLogin(login).stream().map(this::withLedgerBalance).toList();
+    }
+
+    /**
+     * @param logins логины пользователей
+     * @return счета пользователей с актуальными балансами из памяти
+     */
+    @Override
+    public List<Account> getAccountsByUserLogins(Collection<String> logins) {
+        return accountService.getAccountsByUserLogins(logins).stream().map(this::withLedgerBalance).toList();
+    }
+
+    /**
+     * Пополняет счёт в шарде, которому он принадлежит.
+     * @param accountId номер счёта
+     * @param amount сумма депозита
+     * @return результат операции депозита
+     */
+    @Override
+    public AccountDepositResultType deposit(BigInteger accountId, BigDecimal amount) {
+        if (amount.compareTo(BigDecimal.ZERO) < 0) {
+            return AccountDepositResultType.negativeBalance();
+        }
+
+        return shardFor(accountId).<AccountDepositResultType>submit(balances -> {
+            BigDecimal balance = balances.get(accountId);
+            if (balance == null) {
+                return AccountDepositResultType.accountDoesNotExists(accountId);
+            }
+            balances.put(accountId, balance.add(amount));
+            sink.append(new LedgerJournalEntry(
+                    Map.of(accountId, amount),
+                    DepositTransaction.builder().accountId(accountId).amount(amount).build()));
+            return AccountDepositResultType.success();
+        }).join();
+    }
+
+    /**
+     * Снимает средства со счёта в шарде, которому он принадлежит.
+     * @param accountId номер счёта
+     * @param amount сумма снятия
+     * @return результат операции снятия
+     */
+    @Override
+    public AccountWithdrawResultType withdraw(BigInteger accountId, BigDecimal amount) {
+        if (amount.compareTo(BigDecimal.ZERO) < 0) {
+            return AccountWithdrawResultType.negativeBalance();
+        }
+
+        return shardFor(accountId).<AccountWithdrawResultType>submit(balances -> {
+            BigDecimal balance = balances.get(accountId);
+            if (balance == null) {
+                return AccountWithdrawResultType.accountDoesNotExists(accountId);
+            }
+            if (balance.compareTo(amount) < 0) {
+                return AccountWithdrawResultType.insufficientFunds(balance, amount);
+            }
+            balances.put(accountId, balance.subtract(amount));
+            sink.append(new LedgerJournalEntry(
+                    Map.of(accountId, amount.negate()),
+                    WithdrawTransaction.builder().accountId(accountId).amount(amount).build()));
+            return AccountWithdrawResultType.success();
+        }).join();
+    }
+
+    /**
+     * Переводит средства между счетами.
+     * Если оба счёта в одном шарде, перевод выполняется одной командой,
+     * иначе - двухшаговым протоколом, описанным в документации класса.
+     * @param fromAccountId номер счета отправителя
+     * @param toAccountId номер счета получателя
+     * @param amount сумма перевода
+     * @return результат операции перевода
+     */
+    @Override
+    public AccountTransferResultType transfer(BigInteger fromAccountId, BigInteger toAccountId, BigDecimal amount) {
+        if (amount.compareTo(BigDecimal.ZERO) < 0) {
+            return AccountTransferResultType.negativeBalance();
+        }
+
+        String fromLogin = owners.get(fromAccountId);
+        String toLogin = owners.get(toAccountId);
+        if (fromLogin == null) { return AccountTransferResultType.accountDoesNotExists(fromAccountId); }
+        if (toLogin == null) { return AccountTransferResultType.accountDoesNotExists(toAccountId); }
+
+        BigDecimal commission = commissionPolicy.commission(fromLogin, toLogin, amount);
+        TransferTransaction transferTransaction = TransferTransaction.builder()
+                .amount(amount)
+                .commission(commission)
+                .senderAccountId(fromAccountId)
+                .receiverAccountId(toAccountId)
+                .build();
+
+        LedgerShard fromShard = shardFor(fromAccountId);
+        LedgerShard toShard = shardFor(toAccountId);
+        if (fromShard == toShard) {
+            return fromShard.submit(balances -> transferWithinShard(balances, transferTransaction)).join();
+        }
+        return transferAcrossShards(fromShard, toShard, transferTransaction);
+    }
+
+    /**
+     * Выполняет пакет переводов по одному: каждый перевод и так обходится без обращения к базе данных.
+     * Номера транзакций назначаются при сохранении журнала, поэтому в результатах их нет.
+     * @param instructions поручения на перевод, не больше {@value #MAX_TRANSFERS_PER_REQUEST}
+     * @return результаты переводов в порядке поручений
+     */
+    @Override
+    public List<AccountTransferResultType> transferBatch(List<TransferInstruction> instructions) {
+        AccountServiceInterface.requireTransferBatchSize(instructions);
+        List<AccountTransferResultType> results = new ArrayList<>(instructions.size());
+        for (TransferInstruction instruction : instructions) {
+            if (instruction.amount() == null || instruction.amount().compareTo(BigDecimal.ZERO) < 0) {
+                results.add(AccountTransferResultType.invalidAmount(instruction.amount()));
+            } else if (instruction.fromAccountId() == null) {
+                results.add(AccountTransferResultType.accountDoesNotExists(null));
+            } else if (instruction.toAccountId() == null) {
+                results.add(AccountTransferResultType.accountDoesNotExists(null));
+            } else {
+                results.add(transfer(instruction.fromAccountId(), instruction.toAccountId(), instruction.amount()));
+            }
+        }
+        return results;
+    }
+
+    private AccountTransferResultType transferWithinShard(
+            Map<BigInteger, BigDecimal> balances,
+            TransferTransaction transfer) {
+        BigInteger fromAccountId = transfer.getSenderAccountId();
+        BigInteger toAccountId = transfer.getReceiverAccountId();
+        BigDecimal debit = transfer.getAmount().add(transfer.getCommission());
+
+        BigDecimal fromBalance = balances.get(fromAccountId);
+        if (fromBalance == null) { return AccountTransferResultType.accountDoesNotExists(fromAccountId); }
+        if (!balances.containsKey(toAccountId)) { return AccountTransferResultType.accountDoesNotExists(toAccountId); }
+        if (fromBalance.compareTo(debit) < 0) {
+            return AccountTransferResultType.insufficientFunds(fromBalance, transfer.getAmount());
+        }
+
+        balances.put(fromAccountId, fromBalance.subtract(debit));
+        balances.merge(toAccountId, transfer.getAmount(), BigDecimal::add);
+
+        Map<BigInteger, BigDecimal> deltas = new HashMap<>();
+        deltas.merge(fromAccountId, debit.negate(), BigDecimal::add);
+        deltas.merge(toAccountId, transfer.getAmount(), BigDecimal::add);
+        sink.append(new LedgerJournalEntry(deltas, transfer));
+        return AccountTransferResultType.success();
+    }
+
+    private AccountTransferResultType transferAcrossShards(
+            LedgerShard fromShard,
+            LedgerShard toShard,
+            TransferTransaction transfer) {
+        BigInteger fromAccountId = transfer.getSenderAccountId();
+        BigInteger toAccountId = transfer.getReceiverAccountId();
+        BigDecimal debit = transfer.getAmount().add(transfer.getCommission());
+
+        AccountTransferResultType debited = fromShard.<AccountTransferResultType>submit(balances -> {
+            BigDecimal balance = balances.get(fromAccountId);
+            if (balance == null) {
+                return AccountTransferResultType.accountDoesNotExists(fromAccountId);
+            }
+            if (balance.compareTo(debit) < 0) {
+                return AccountTransferResultType.insufficientFunds(balance, transfer.getAmount());
+            }
+            balances.put(fromAccountId, balance.subtract(debit));
+            sink.append(new LedgerJournalEntry(Map.of(fromAccountId, debit.negate()), null));
+            return AccountTransferResultType.success();
+        }).join();
+        if (!(debited instanceof AccountTransferResultType.Success)) {
+            return debited;
+        }
+
+        boolean credited = toShard.submit(balances -> {
+            if (!balances.containsKey(toAccountId)) {
+                return false;
+            }
+            balances.merge(toAccountId, transfer.getAmount(), BigDecimal::add);
+            sink.append(new LedgerJournalEntry(Map.of(toAccountId, transfer.getAmount()), transfer));
+            return true;
+        }).join();
+        if (credited) {
+            return AccountTransferResultType.success();
+        }
+
+        fromShard.submit(balances -> {
+            balances.merge(fromAccountId, debit, BigDecimal::add);
+            sink.append(new LedgerJournalEntry(Map.of(fromAccountId, debit), null));
+            return true;
+        }).join();
+        return AccountTransferResultType.accountDoesNotExists(toAccountId);
+    }
+
+    private Account withLedgerBalance(Account account) {
+        BigDecimal balance = shardFor(account.getId()).balance(account.getId());
+        if (balance != null) {
+            account.setBalance(balance);
+        }
+        return account;
+    }
+
+    private LedgerShard shardFor(BigInteger accountId) {
+        return shards[Math.floorMod(accountId.hashCode(), shards.length)];
+    }
+}
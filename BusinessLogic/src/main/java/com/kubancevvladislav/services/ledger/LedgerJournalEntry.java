@@ -0,0 +1,21 @@
+package com.kubancevvladislav.services.ledger;
+
+import com.kubancevvladislav.domain.transactions.Transaction;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+
+/**
+ * Запись журнала in-memory ledger, ожидающая сохранения в базу данных.
+ * Хранит изменения балансов в виде приращений, поэтому записи разных шардов
+ * можно объединять в пакет в любом порядке.
+ * @param deltas приращения балансов по номерам счетов
+ * @param transaction транзакция для сохранения или {@code null} для промежуточного шага перевода
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+record LedgerJournalEntry(Map<BigInteger, BigDecimal> deltas, Transaction transaction) {
+}
@@ -0,0 +1,39 @@
+package com.kubancevvladislav.services.ledger;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Состояние сохранения журнала in-memory ledger для {@code /actuator/health}.
+ * <p>{@code DOWN}, если хотя бы одна запись перенесена в {@code ledger_failed_journal} или потеряна:
+ * балансы в памяти и в базе данных разошлись и требуют сверки.
+ * В подробностях публикуются размер очереди и число подряд неудавшихся попыток сохранения.</p>
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+@Component("ledgerPersistence")
+@ConditionalOnProperty(name = "account.ledger.mode", havingValue = "in-memory")
+public class LedgerPersistenceHealthIndicator implements HealthIndicator {
+    private final LedgerPersistenceSink sink;
+
+    public LedgerPersistenceHealthIndicator(LedgerPersistenceSink sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public Health health() {
+        long failed = sink.failedEntries();
+        long lost = sink.lostEntries();
+        Health.Builder builder = failed > 0 || lost > 0 ? Health.down() : Health.up();
+        return builder
+                .withDetail("pending", sink.pending())
+                .withDetail("consecutiveFailures", sink.consecutiveFailures())
+                .withDetail("failedEntries", failed)
+                .withDetail("lostEntries", lost)
+                .build();
+    }
+}
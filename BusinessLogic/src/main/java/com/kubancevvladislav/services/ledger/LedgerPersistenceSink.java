@@ -0,0 +1,323 @@
+package com.kubancevvladislav.services.ledger;
+
+import com.kubancevvladislav.domain.transactions.Transaction;
+import com.kubancevvladislav.entities.transactions.TransactionEntity;
+import com.kubancevvladislav.repositories.TransactionsRepositoryInterface;
+import com.kubancevvladislav.services.PostingRecorder;
+import com.kubancevvladislav.services.PublisherService;
+import com.kubancevvladislav.services.mapper.TransactionMapperInterface;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Асинхронно сохраняет журнал in-memory ledger в базу данных.
+ * Записи копятся до {@code account.ledger.persistence.batch-size} штук
+ * или {@code account.ledger.persistence.linger-ms} миллисекунд и сохраняются одной транзакцией:
+ * приращения балансов объединяются по счетам и применяются пакетным {@code UPDATE},
+ * транзакции, их проводки и события для Kafka записываются через репозитории в той же транзакции.
+ * <p>Если сохранение не удалось, пакет повторяется до {@code account.ledger.persistence.max-attempts} раз
+ * с экспоненциальной задержкой. Затем пакет делится пополам, пока не останется запись, которую
+ * сохранить нельзя (например, из-за нарушения ограничения). Такая запись переносится в таблицу
+ * {@code ledger_failed_journal} для ручной сверки, остальные записи сохраняются,
+ * и одна ошибочная запись не останавливает сохранение всего журнала.</p>
+ * <p>Метрики: {@code account.ledger.journal.pending} - записи в очереди,
+ * {@code account.ledger.journal.retries} - повторы пакетов,
+ * {@code account.ledger.journal.failed} - записи, перенесённые в {@code ledger_failed_journal}.
+ * Состояние публикуется через {@link LedgerPersistenceHealthIndicator}.</p>
+ * @author Кубанцев Владислав
+ * @version 1.1
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+@Component
+@ConditionalOnProperty(name = "account.ledger.mode", havingValue = "in-memory")
+public class LedgerPersistenceSink {
+    private static final Logger log = LoggerFactory.getLogger(LedgerPersistenceSink.class);
+
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE accounts SET balance = balance + ?, version = version + 1 WHERE id = ?";
+    private static final String INSERT_FAILED_SQL =
+            "INSERT INTO ledger_failed_journal (deltas, transaction, error) VALUES (?, ?, ?)";
+
+    /** Очередь записей, ожидающих сохранения */
+    private final BlockingQueue<LedgerJournalEntry> journal;
+    private final int batchSize;
+    private final long lingerMillis;
+    /** Количество попыток сохранить пакет целиком, прежде чем искать в нём ошибочную запись */
+    private final int maxAttempts;
+    /** Верхняя граница задержки между попытками в миллисекундах */
+    private final long maxBackoffMillis;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionsRepositoryInterface transactionsRepository;
+    private final TransactionMapperInterface transactionMapper;
+    private final PublisherService kafkaPublisher;
+    private final PostingRecorder postingRecorder;
+    private final Counter retriesCounter;
+    private final Counter failedCounter;
+    /** Записи, перенесённые в {@code ledger_failed_journal} с момента запуска */
+    private final AtomicLong failedEntries = new AtomicLong();
+    /** Записи, которые не удалось ни сохранить, ни перенести и которые остались только в логе */
+    private final AtomicLong lostEntries = new AtomicLong();
+    /** Подряд неудавшиеся попытки сохранения */
+    private final AtomicLong consecutiveFailures = new AtomicLong();
+    /** Текст последней ошибки сохранения, записывается вместе с перенесённой записью */
+    private volatile String lastError;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public LedgerPersistenceSink(
+            @Value("${account.ledger.persistence.batch-size:1000}") int batchSize,
+            @Value("${account.ledger.persistence.linger-ms:20}") long lingerMillis,
+            @Value("${account.ledger.persistence.queue-capacity:100000}") int queueCapacity,
+            @Value("${account.ledger.persistence.max-attempts:5}") int maxAttempts,
+            @Value("${account.ledger.persistence.max-backoff-ms:5000}") long maxBackoffMillis,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            TransactionsRepositoryInterface transactionsRepository,
+            @Qualifier("transactionMapperInterfaceImpl") TransactionMapperInterface transactionMapper,
+            PublisherService kafkaPublisher,
+            PostingRecorder postingRecorder,
+            MeterRegistry meterRegistry) {
+        this.journal = new LinkedBlockingQueue<>(queueCapacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerMillis = Math.max(1, lingerMillis);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.maxBackoffMillis = Math.max(this.lingerMillis, maxBackoffMillis);
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.transactionsRepository = transactionsRepository;
+        this.transactionMapper = transactionMapper;
+        this.kafkaPublisher = kafkaPublisher;
+        this.postingRecorder = postingRecorder;
+        Gauge.builder("account.ledger.journal.pending", journal, BlockingQueue::size)
+                .description("Записи журнала ledger, ожидающие сохранения")
+                .register(meterRegistry);
+        this.retriesCounter = Counter.builder("account.ledger.journal.retries")
+                .description("Повторные попытки сохранить пакет журнала ledger")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("account.ledger.journal.failed")
+                .description("Записи журнала ledger, перенесённые в ledger_failed_journal")
+                .register(meterRegistry);
+        this.flusher = Thread.ofPlatform()
+                .name("ledger-persistence")
+                .daemon(true)
+                .unstarted(this::flushLoop);
+    }
+
+    void start() {
+        flusher.start();
+    }
+
+    /**
+     * Останавливает сохранение, предварительно записав все накопленные записи.
+     */
+    void stop() throws InterruptedException {
+        running = false;
+        flusher.join();
+    }
+
+    /**
+     * @return количество записей, ожидающих сохранения
+     */
+    int pending() {
+        return journal.size();
+    }
+
+    /**
+     * @return количество записей, перенесённых в {@code ledger_failed_journal}
+     */
+    long failedEntries() {
+        return failedEntries.get();
+    }
+
+    /**
+     * @return количество записей, которые не удалось ни сохранить, ни перенести
+     */
+    long lostEntries() {
+        return lostEntries.get();
+    }
+
+    /**
+     * @return количество подряд неудавшихся попыток сохранения
+     */
+    long consecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    /**
+     * Добавляет запись в журнал. Вызывается потоками-писателями шардов;
+     * если очередь заполнена, писатель ждёт, что ограничивает скорость приёма команд скоростью базы.
+     */
+    void append(LedgerJournalEntry entry) {
+        try {
+            journal.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while appending to ledger journal", e);
+        }
+    }
+
+    private void flushLoop() {
+        List<LedgerJournalEntry> batch = new ArrayList<>(batchSize);
+        while (running || !journal.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    LedgerJournalEntry first = journal.poll(lingerMillis, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                }
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < batchSize) {
+                    journal.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    LedgerJournalEntry next = journal.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                running = false;
+            }
+        }
+    }
+
+    /**
+     * Сохраняет пакет с ограниченным числом повторов, затем ищет и переносит ошибочные записи.
+     */
+    private void flush(List<LedgerJournalEntry> batch) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            if (persist(batch)) {
+                return;
+            }
+            if (attempt < maxAttempts) {
+                retriesCounter.increment();
+                pause(attempt);
+            }
+        }
+        isolate(batch);
+    }
+
+    /**
+     * Делит пакет пополам, пока каждая часть не сохранится или не останется одна запись.
+     */
+    private void isolate(List<LedgerJournalEntry> batch) {
+        if (batch.size() == 1) {
+            persistOrPark(batch.get(0));
+            return;
+        }
+        int middle = batch.size() / 2;
+        for (List<LedgerJournalEntry> half : List.of(batch.subList(0, middle), batch.subList(middle, batch.size()))) {
+            if (!persist(half)) {
+                isolate(half);
+            }
+        }
+    }
+
+    /**
+     * Сохраняет одиночную запись, а если это не удаётся {@code max-attempts} раз подряд,
+     * переносит её в {@code ledger_failed_journal}. Пока база недоступна, не удаётся и перенос,
+     * поэтому попытки продолжаются: после восстановления исправная запись сохранится как обычно.
+     * Запись остаётся только в логе, если приложение останавливается, а база так и не ответила.
+     */
+    private void persistOrPark(LedgerJournalEntry entry) {
+        String deltas = entry.deltas().toString();
+        String transaction = entry.transaction() == null ? null : entry.transaction().toString();
+        for (int attempt = 1; running || attempt <= maxAttempts; attempt++) {
+            if (persist(List.of(entry))) {
+                return;
+            }
+            if (attempt >= maxAttempts) {
+                try {
+                    jdbcTemplate.update(INSERT_FAILED_SQL, deltas, transaction, lastError);
+                    failedEntries.incrementAndGet();
+                    failedCounter.increment();
+                    log.error("Запись журнала ledger перенесена в ledger_failed_journal: {} {}", deltas, transaction);
+                    return;
+                } catch (RuntimeException e) {
+                    log.error("Не удалось перенести запись журнала ledger в ledger_failed_journal: {}", e.getMessage(), e);
+                }
+            }
+            retriesCounter.increment();
+            pause(attempt);
+        }
+        lostEntries.incrementAndGet();
+        log.error("Запись журнала ledger не сохранена и требует ручной сверки: {} {}", deltas, transaction);
+    }
+
+    private void pause(int attempt) {
+        long backoff = Math.min(maxBackoffMillis, lingerMillis << Math.min(attempt - 1, 20));
+        try {
+            TimeUnit.MILLISECONDS.sleep(backoff);
+        } catch (InterruptedException e) {
+            running = false;
+        }
+    }
+
+    private boolean persist(List<LedgerJournalEntry> batch) {
+        Map<BigInteger, BigDecimal> deltas = new TreeMap<>();
+        List<Transaction> transactions = new ArrayList<>(batch.size());
+        for (LedgerJournalEntry entry : batch) {
+            entry.deltas().forEach((accountId, delta) -> deltas.merge(accountId, delta, BigDecimal::add));
+            if (entry.transaction() != null) {
+                transactions.add(entry.transaction());
+            }
+        }
+
+        List<Object[]> updates = new ArrayList<>(deltas.size());
+        deltas.forEach((accountId, delta) -> {
+            if (delta.signum() != 0) {
+                updates.add(new Object[]{delta, new BigDecimal(accountId)});
+            }
+        });
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, updates);
+                List<TransactionEntity> saved = transactionsRepository.saveAll(
+                        transactions.stream().map(transactionMapper::toEntity).toList());
+                List<Transaction> recorded = saved.stream().map(transactionMapper::toDomain).toList();
+                postingRecorder.record(recorded);
+                recorded.forEach(kafkaPublisher::sendTransactionEvent);
+            });
+        } catch (RuntimeException e) {
+            consecutiveFailures.incrementAndGet();
+            lastError = String.valueOf(e.getMessage());
+            log.error("Не удалось сохранить пакет журнала ledger из {} записей: {}", batch.size(), e.getMessage(), e);
+            return false;
+        }
+
+        consecutiveFailures.set(0);
+        return true;
+    }
+}
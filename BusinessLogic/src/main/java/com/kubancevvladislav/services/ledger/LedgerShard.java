@@ -0,0 +1,181 @@
+package com.kubancevvladislav.services.ledger;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Шард in-memory журнала: часть счетов, балансы которых изменяет единственный поток-писатель.
+ * Команды поступают в ограниченный кольцевой буфер и применяются строго по очереди,
+ * поэтому изменения балансов внутри шарда не требуют блокировок.
+ * <p>Читать балансы можно из любого потока: писатель публикует их через {@link ConcurrentHashMap}.</p>
+ * <p>Постановка команды и остановка шарда разделены блокировкой чтения-записи: команда, принятая в буфер,
+ * обязательно будет применена писателем или завершена ошибкой, если писатель уже остановился.</p>
+ * @author Кубанцев Владислав
+ * @version 1.1
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+class LedgerShard {
+    /** Количество команд, забираемых из буфера за один проход писателя */
+    private static final int DRAIN_LIMIT = 256;
+
+    /** Балансы счетов шарда, изменяются только потоком-писателем */
+    private final Map<BigInteger, BigDecimal> balances = new ConcurrentHashMap<>();
+    /** Кольцевой буфер команд */
+    private final BlockingQueue<Command<?>> ring;
+    /** Постановка команд берёт блокировку чтения, остановка - блокировку записи */
+    private final ReadWriteLock lifecycle = new ReentrantReadWriteLock();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    LedgerShard(int index, int ringCapacity) {
+        this.ring = new ArrayBlockingQueue<>(ringCapacity);
+        this.writer = Thread.ofPlatform()
+                .name("ledger-shard-" + index)
+                .daemon(true)
+                .unstarted(this::drainLoop);
+    }
+
+    /**
+     * Загружает начальный баланс счёта. Вызывается до {@link #start()}.
+     */
+    void load(BigInteger accountId, BigDecimal balance) {
+        balances.put(accountId, balance);
+    }
+
+    void start() {
+        writer.start();
+    }
+
+    /**
+     * Ставит команду в очередь писателя. Если буфер заполнен, вызывающий поток ждёт освобождения места.
+     * @param command команда, получающая изменяемую карту балансов шарда
+     * @return результат команды после её применения писателем
+     */
+    <T> CompletableFuture<T> submit(Function<Map<BigInteger, BigDecimal>, T> command) {
+        Command<T> queued = new Command<>(command);
+        lifecycle.readLock().lock();
+        try {
+            if (!running) {
+                queued.fail(new IllegalStateException("Ledger shard is stopped"));
+            } else {
+                ring.put(queued);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued.fail(e);
+        } finally {
+            lifecycle.readLock().unlock();
+        }
+        return queued.result;
+    }
+
+    /**
+     * @return текущий баланс счёта или {@code null}, если счёт не принадлежит шарду
+     */
+    BigDecimal balance(BigInteger accountId) {
+        return balances.get(accountId);
+    }
+
+    /**
+     * Останавливает писателя, предварительно применив все уже принятые команды.
+     */
+    void stop() throws InterruptedException {
+        lifecycle.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            lifecycle.writeLock().unlock();
+        }
+        writer.join();
+    }
+
+    private void drainLoop() {
+        List<Command<?>> batch = new ArrayList<>(DRAIN_LIMIT);
+        try {
+            while (running || !ring.isEmpty()) {
+                try {
+                    Command<?> first = ring.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    first.run(balances);
+                    ring.drainTo(batch, DRAIN_LIMIT);
+                    for (Command<?> command : batch) {
+                        command.run(balances);
+                    }
+                    batch.clear();
+                } catch (InterruptedException e) {
+                    running = false;
+                }
+            }
+        } finally {
+            failRemaining(batch);
+        }
+    }
+
+    /**
+     * Завершает ошибкой команды, которые писатель уже не применит.
+     * Буфер освобождается до захвата блокировки записи, чтобы потоки, ждущие места в {@link #submit},
+     * могли завершить постановку и отпустить блокировку чтения.
+     */
+    private void failRemaining(List<Command<?>> batch) {
+        running = false;
+        IllegalStateException stopped = new IllegalStateException("Ledger shard is stopped");
+        batch.forEach(command -> command.fail(stopped));
+        batch.clear();
+
+        boolean locked = false;
+        while (!locked) {
+            ring.drainTo(batch);
+            batch.forEach(command -> command.fail(stopped));
+            batch.clear();
+            locked = lifecycle.writeLock().tryLock();
+            if (!locked) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+        try {
+            ring.drainTo(batch);
+            batch.forEach(command -> command.fail(stopped));
+        } finally {
+            lifecycle.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Команда в буфере вместе с результатом для вызывающего потока.
+     */
+    private static final class Command<T> {
+        private final Function<Map<BigInteger, BigDecimal>, T> action;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Command(Function<Map<BigInteger, BigDecimal>, T> action) {
+            this.action = action;
+        }
+
+        private void run(Map<BigInteger, BigDecimal> balances) {
+            try {
+                result.complete(action.apply(balances));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        private void fail(Throwable cause) {
+            result.completeExceptionally(cause);
+        }
+    }
+}
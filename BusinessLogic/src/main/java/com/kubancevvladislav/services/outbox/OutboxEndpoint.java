@@ -0,0 +1,41 @@
+package com.kubancevvladislav.services.outbox;
+
+import com.kubancevvladislav.repositories.OutboxRepositoryInterface;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Служебная точка Actuator {@code /actuator/outbox} для событий outbox,
+ * отложенных {@link OutboxRelay} после исчерпания попыток.
+ * {@code POST /actuator/outbox} возвращает все отложенные события в очередь отправки,
+ * например после исправления настроек топика.
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+@Component
+@Endpoint(id = "outbox")
+@RequiredArgsConstructor
+public class OutboxEndpoint {
+    private static final Logger log = LoggerFactory.getLogger(OutboxEndpoint.class);
+
+    private final OutboxRepositoryInterface outboxRepository;
+
+    /**
+     * Возвращает отложенные события в очередь отправки со сброшенным счётчиком попыток.
+     * @return количество возвращённых событий
+     */
+    @WriteOperation
+    @Transactional
+    public int redrive() {
+        int redriven = outboxRepository.redriveParked();
+        log.info("В очередь outbox возвращено {} отложенных событий", redriven);
+        return redriven;
+    }
+}
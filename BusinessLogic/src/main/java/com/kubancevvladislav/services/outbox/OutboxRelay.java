@@ -0,0 +1,252 @@
+package com.kubancevvladislav.services.outbox;
+
+import com.kubancevvladislav.entities.OutboxEventEntity;
+import com.kubancevvladislav.repositories.OutboxRepositoryInterface;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.common.errors.RetriableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Переносит события из таблицы {@code outbox} в Kafka.
+ * Фоновый поток блокирует до {@code outbox.relay.batch-size} самых старых событий
+ * через {@code FOR UPDATE SKIP LOCKED}, отправляет их одной пачкой, дожидается подтверждения брокера
+ * и удаляет отправленные строки в той же транзакции. Если пачка оказалась неполной, поток ждёт
+ * {@code outbox.relay.linger-ms} перед следующим опросом. Доставка выполняется как минимум один раз.
+ * <p>Ошибки отправки обрабатываются по событиям:</p>
+ * <ul>
+ *     <li> Если не отправилось ни одно событие пачки и все ошибки временные (брокер недоступен, таймаут),
+ *     транзакция откатывается и пачка повторяется целиком, счётчики попыток не меняются.
+ *     <li> Иначе отправленные события удаляются. События, не отправленные из-за временной ошибки,
+ *     остаются без изменений: блокировка снимается при фиксации, и следующий опрос отправляет их снова.
+ *     <li> Попыткой считается только ошибка самого события (превышен размер, нет прав на топик и т.п.):
+ *     у такого события увеличивается {@code attempts} и запоминается {@code last_error}.
+ *     После {@code outbox.relay.max-attempts} попыток событие откладывается ({@code parked_at})
+ *     и больше не задерживает следующие события. Отложенные события возвращаются в очередь
+ *     через {@link OutboxEndpoint}.
+ * </ul>
+ * <p>Внутри одного экземпляра события одного ключа отправляются в порядке записи,
+ * пока отправка не завершается ошибкой: повтор события уходит после уже отправленных следующих.</p>
+ * <p>Экспортирует метрики {@code outbox.relay.sent}, {@code outbox.relay.failures},
+ * {@code outbox.relay.parked}, {@code outbox.relay.batch} и {@code outbox.relay.lag} - возраст самого старого
+ * неотправленного события в миллисекундах на момент последнего опроса.</p>
+ * @author Кубанцев Владислав
+ * @version 1.2
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final int batchSize;
+    private final long lingerMillis;
+    private final long sendTimeoutMillis;
+    /** Количество попыток отправки события, после которого оно откладывается */
+    private final int maxAttempts;
+    private final OutboxRepositoryInterface outboxRepository;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter sent;
+    private final Counter failures;
+    private final Counter parked;
+    private final Timer batchTimer;
+    /** Возраст самого старого неотправленного события в миллисекундах */
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final Thread relay;
+    private volatile boolean running = true;
+
+    public OutboxRelay(
+            @Value("${outbox.relay.batch-size:500}") int batchSize,
+            @Value("${outbox.relay.linger-ms:50}") long lingerMillis,
+            @Value("${outbox.relay.send-timeout-ms:30000}") long sendTimeoutMillis,
+            @Value("${outbox.relay.max-attempts:10}") int maxAttempts,
+            OutboxRepositoryInterface outboxRepository,
+            KafkaTemplate<String, byte[]> kafkaTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry) {
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerMillis = Math.max(1, lingerMillis);
+        this.sendTimeoutMillis = Math.max(1, sendTimeoutMillis);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.sent = meterRegistry.counter("outbox.relay.sent");
+        this.failures = meterRegistry.counter("outbox.relay.failures");
+        this.parked = meterRegistry.counter("outbox.relay.parked");
+        this.batchTimer = meterRegistry.timer("outbox.relay.batch");
+        meterRegistry.gauge("outbox.relay.lag", lagMillis);
+        this.relay = Thread.ofPlatform()
+                .name("outbox-relay")
+                .daemon(true)
+                .unstarted(this::relayLoop);
+    }
+
+    @PostConstruct
+    void start() {
+        relay.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        relay.join();
+    }
+
+    private void relayLoop() {
+        while (running) {
+            int relayed;
+            try {
+                relayed = batchTimer.record(() -> transactionTemplate.execute(status -> relayBatch()));
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.warn("Не удалось отправить пачку событий outbox: {}", e.getMessage(), e);
+                relayed = 0;
+            }
+
+            if (relayed < batchSize) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(lingerMillis);
+                } catch (InterruptedException e) {
+                    running = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Отправляет одну пачку событий. Выполняется внутри транзакции,
+     * удерживающей блокировки отправляемых строк до их удаления.
+     * @return количество обработанных событий, отправленных и неотправленных
+     */
+    int relayBatch() {
+        List<OutboxEventEntity> events = outboxRepository.lockNextBatch(batchSize);
+        if (events.isEmpty()) {
+            lagMillis.set(0);
+            return 0;
+        }
+        lagMillis.set(Math.max(0, Duration.between(events.getFirst().getCreatedAt(), LocalDateTime.now()).toMillis()));
+
+        List<CompletableFuture<?>> acks = new ArrayList<>(events.size());
+        for (OutboxEventEntity event : events) {
+            acks.add(send(event));
+        }
+        kafkaTemplate.flush();
+        awaitAcks(acks);
+
+        List<BigInteger> sentIds = new ArrayList<>(events.size());
+        List<OutboxEventEntity> failed = new ArrayList<>();
+        List<Throwable> causes = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            CompletableFuture<?> ack = acks.get(i);
+            if (ack.state() == Future.State.SUCCESS) {
+                sentIds.add(events.get(i).getId());
+            } else {
+                failed.add(events.get(i));
+                causes.add(ack.state() == Future.State.FAILED
+                        ? ack.exceptionNow()
+                        : new TimeoutException("Kafka acknowledgement timed out after " + sendTimeoutMillis + " ms"));
+            }
+        }
+
+        if (sentIds.isEmpty() && causes.stream().allMatch(OutboxRelay::isTransient)) {
+            throw new IllegalStateException("Kafka send failed", causes.getFirst());
+        }
+
+        if (!sentIds.isEmpty()) {
+            outboxRepository.deleteAllByIdInBatch(sentIds);
+            sent.increment(sentIds.size());
+        }
+        for (int i = 0; i < failed.size(); i++) {
+            failures.increment();
+            if (isTransient(causes.get(i))) {
+                log.warn("Событие outbox {} не отправлено из-за временной ошибки и будет повторено: {}",
+                        failed.get(i).getId(), String.valueOf(rootCause(causes.get(i))));
+            } else {
+                recordFailure(failed.get(i), causes.get(i));
+            }
+        }
+        return events.size();
+    }
+
+    private CompletableFuture<?> send(OutboxEventEntity event) {
+        try {
+            return kafkaTemplate.send(event.getTopic(), event.getMessageKey(), event.getPayload());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Дожидается подтверждений, не дольше {@code outbox.relay.send-timeout-ms}.
+     * Ошибки отдельных отправок разбираются по их future.
+     */
+    private void awaitAcks(List<CompletableFuture<?>> acks) {
+        try {
+            CompletableFuture.allOf(acks.toArray(CompletableFuture[]::new))
+                    .get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for Kafka acknowledgements", e);
+        } catch (ExecutionException | TimeoutException e) {
+            // результат каждой отправки проверяется отдельно
+        }
+    }
+
+    private void recordFailure(OutboxEventEntity event, Throwable cause) {
+        event.setAttempts(event.getAttempts() + 1);
+        event.setLastError(String.valueOf(rootCause(cause)));
+        if (event.getAttempts() >= maxAttempts) {
+            event.setParkedAt(LocalDateTime.now());
+            parked.increment();
+            log.error("Событие outbox {} ({}, ключ {}) отложено после {} попыток: {}",
+                    event.getId(), event.getTopic(), event.getMessageKey(), event.getAttempts(), event.getLastError());
+        } else {
+            log.warn("Не удалось отправить событие outbox {} (попытка {}): {}",
+                    event.getId(), event.getAttempts(), event.getLastError());
+        }
+    }
+
+    /**
+     * @return {@code true}, если ошибка связана с доступностью брокера, а не с самим событием
+     */
+    private static boolean isTransient(Throwable cause) {
+        for (Throwable current = cause; current != null; current = current.getCause()) {
+            if (current instanceof RetriableException || current instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Throwable rootCause(Throwable cause) {
+        Throwable current = cause;
+        while (current.getCause() != null && current.getCause() != current) {
+            current = current.getCause();
+        }
+        return current;
+    }
+}
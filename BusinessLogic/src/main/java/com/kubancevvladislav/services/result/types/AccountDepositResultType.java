@@ -16,6 +16,7 @@ import java.math.BigInteger;
  * <ul>
  *     <li> Счёт не существует - {@link AccountDoesNotExists}.
  *     <li> Отрицательный баланс - {@link NegativeBalance}
+ *     <li> Счёт изменён параллельно - {@link ConcurrentModification}
  * </ul>
  * @author Кубанцев Владислав
  * @version 1.2
@@ -41,6 +42,10 @@ public abstract class AccountDepositResultType
         return new NegativeBalance();
     }
 
+    public static ConcurrentModification concurrentModification() {
+        return new ConcurrentModification();
+    }
+
     /**
      * Класс, обозначающий успешный результат операции депозита.
      */
@@ -64,4 +69,10 @@ public abstract class AccountDepositResultType
     @Getter
     @NoArgsConstructor
     public final static class NegativeBalance extends AccountDepositResultType {}
+
+    /**
+     * Результат, если счёт изменялся параллельно и операция не уложилась в допустимое число повторов.
+     */
+    @NoArgsConstructor
+    public final static class ConcurrentModification extends AccountDepositResultType {}
 }
@@ -20,7 +20,10 @@ import java.math.BigInteger;
  *     <li> Не хватает денег для совершения перевода - {@link InsufficientFunds}
  *     <li> Не Возвращается найти владельца счёта - {@link CanNotFindAccountOwner}
  *     <li> Отрицательный баланс - {@link NegativeBalance}
+ *     <li> Сумма перевода не указана или отрицательна - {@link InvalidAmount}
  *     <li> Другие причины - {@link CanNotFindAccountOwner}
+ *     <li> Счёт изменён параллельно - {@link ConcurrentModification}
+ *     <li> Часть пакета откатилась из-за ошибки - {@link RolledBack}
  * </ul>
  * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
  */
@@ -31,7 +34,11 @@ public abstract class AccountTransferResultType {
     private AccountTransferResultType() {}
 
     public static Success success() {
-        return new Success();
+        return new Success(null);
+    }
+
+    public static Success success(BigInteger transactionId) {
+        return new Success(transactionId);
     }
 
     public static AccountDoesNotExists accountDoesNotExists(BigInteger id) {
@@ -53,11 +60,27 @@ public abstract class AccountTransferResultType {
     public static NegativeBalance negativeBalance() {
         return new NegativeBalance();
     }
+
+    public static InvalidAmount invalidAmount(BigDecimal amount) {
+        return new InvalidAmount(amount);
+    }
+
+    public static ConcurrentModification concurrentModification() {
+        return new ConcurrentModification();
+    }
+
+    public static RolledBack rolledBack(String reason) {
+        return new RolledBack(reason);
+    }
     /**
      * Успешный результат перевода.
      */
-    @NoArgsConstructor
-    public final static class Success extends AccountTransferResultType {}
+    @Getter
+    @AllArgsConstructor
+    public final static class Success extends AccountTransferResultType {
+        /** Номер транзакции перевода или {@code null}, если он не возвращается */
+        private final BigInteger transactionId;
+    }
 
     /**
      * Результат, если счёт, на который осуществляется перевод, не существует.
@@ -100,4 +123,31 @@ public abstract class AccountTransferResultType {
      */
     @NoArgsConstructor
     public final static class NegativeBalance extends AccountTransferResultType {}
+
+    /**
+     * Результат, если сумма перевода не указана или отрицательна.
+     */
+    @Getter
+    @AllArgsConstructor
+    public final static class InvalidAmount extends AccountTransferResultType {
+        /** Переданная сумма, может быть {@code null} */
+        private final BigDecimal amount;
+    }
+
+    /**
+     * Результат, если счёт изменялся параллельно и операция не уложилась в допустимое число повторов.
+     */
+    @NoArgsConstructor
+    public final static class ConcurrentModification extends AccountTransferResultType {}
+
+    /**
+     * Результат пакетного перевода, если транзакция его части откатилась из-за ошибки.
+     * Перевод не применён, его можно повторить.
+     */
+    @Getter
+    @AllArgsConstructor
+    public final static class RolledBack extends AccountTransferResultType {
+        /** Причина отката */
+        private final String reason;
+    }
 }
@@ -20,6 +20,7 @@ import java.math.BigInteger;
  *     <li> Счёт не существует - {@link AccountDoesNotExists}.
  *     <li> Не хватает денег для снятия - {@link InsufficientFunds}
  *     <li> На вход подаётся отрицательный баланс - {@link NegativeBalance}
+ *     <li> Счёт изменён параллельно - {@link ConcurrentModification}
  * </ul>
  * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
  */
@@ -45,6 +46,10 @@ public abstract class AccountWithdrawResultType
     public static NegativeBalance negativeBalance() {
         return new NegativeBalance();
     }
+
+    public static ConcurrentModification concurrentModification() {
+        return new ConcurrentModification();
+    }
     /**
      * Успешный результат снятия средств.
      */
@@ -75,4 +80,10 @@ public abstract class AccountWithdrawResultType
      */
     @NoArgsConstructor
     public static class NegativeBalance extends AccountWithdrawResultType {}
+
+    /**
+     * Результат, если счёт изменялся параллельно и операция не уложилась в допустимое число повторов.
+     */
+    @NoArgsConstructor
+    public final static class ConcurrentModification extends AccountWithdrawResultType {}
 }
@@ -0,0 +1,51 @@
+package com.kubancevvladislav.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransactionCursorTest {
+    @Test
+    void decodesWhatItEncodes() {
+        TransactionCursor cursor = new TransactionCursor(
+                LocalDateTime.of(2025, 3, 14, 15, 9, 26, 535_897_000), new BigInteger("9007199254740993"));
+
+        assertEquals(cursor, TransactionCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void producesUrlSafeToken() {
+        // Токен передаётся в query-параметре, поэтому в нём не должно быть '+', '/' и '='
+        for (int id = 0; id < 64; id++) {
+            String token = new TransactionCursor(LocalDateTime.of(2025, 1, 1, 0, 0, id % 60), BigInteger.valueOf(id))
+                    .encode();
+
+            assertFalse(token.contains("+") || token.contains("/") || token.contains("="), token);
+        }
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        for (String token : new String[] {
+                "не base64",
+                encode("2025-01-01T00:00"),
+                encode("вчера|1"),
+                encode("2025-01-01T00:00|первый")}) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> TransactionCursor.decode(token));
+
+            assertEquals("Некорректный курсор страницы: " + token, e.getMessage());
+        }
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,112 @@
+package com.kubancevvladislav.services;
+
+import com.kubancevvladislav.domain.TransferInstruction;
+import com.kubancevvladislav.entities.AccountEntity;
+import com.kubancevvladislav.entities.transactions.TransactionEntity;
+import com.kubancevvladislav.repositories.AccountRepositoryInterface;
+import com.kubancevvladislav.repositories.TransactionsRepositoryInterface;
+import com.kubancevvladislav.services.mapper.TransactionMapperInterfaceImpl;
+import com.kubancevvladislav.services.result.types.AccountTransferResultType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransferBatchProcessorTest {
+    private final AccountRepositoryInterface accountRepository = mock(AccountRepositoryInterface.class);
+    private final TransactionsRepositoryInterface transactionsRepository = mock(TransactionsRepositoryInterface.class);
+    private final CommissionPolicy commissionPolicy = mock(CommissionPolicy.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final PublisherService publisher = mock(PublisherService.class);
+    private final PostingRecorder postingRecorder = mock(PostingRecorder.class);
+    private final AtomicLong nextTransactionId = new AtomicLong(100);
+
+    private final TransferBatchProcessor processor = new TransferBatchProcessor(2, accountRepository,
+            transactionsRepository, new TransactionMapperInterfaceImpl(), commissionPolicy, jdbcTemplate,
+            transactionTemplate, publisher, postingRecorder);
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(commissionPolicy.rate(anyString(), anyString())).thenReturn(BigDecimal.ZERO);
+        when(transactionsRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<TransactionEntity> entities = invocation.getArgument(0);
+            entities.forEach(entity -> entity.setTransactionId(BigInteger.valueOf(nextTransactionId.getAndIncrement())));
+            return entities;
+        });
+    }
+
+    @Test
+    void rollsBackOnlyFailedChunk() {
+        when(accountRepository.findAllByIdForUpdate(Set.of(id(1), id(2))))
+                .thenReturn(List.of(account(1, "100"), account(2, "0")));
+        when(accountRepository.findAllByIdForUpdate(Set.of(id(3), id(4))))
+                .thenThrow(new CannotAcquireLockException("deadlock detected"));
+
+        List<AccountTransferResultType> results = processor.process(List.of(
+                transfer(1, 2, "10"),
+                transfer(1, 2, "-1"),
+                transfer(3, 4, "5"),
+                transfer(4, 3, "5")));
+
+        assertEquals(4, results.size());
+        assertEquals(id(100), assertInstanceOf(AccountTransferResultType.Success.class, results.get(0)).getTransactionId());
+        assertEquals(new BigDecimal("-1"),
+                assertInstanceOf(AccountTransferResultType.InvalidAmount.class, results.get(1)).getAmount());
+        assertInstanceOf(AccountTransferResultType.RolledBack.class, results.get(2));
+        assertInstanceOf(AccountTransferResultType.RolledBack.class, results.get(3));
+        verify(transactionsRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void reportsMissingAmountAsInvalid() {
+        when(accountRepository.findAllByIdForUpdate(Set.of(id(1), id(2))))
+                .thenReturn(List.of(account(1, "100"), account(2, "0")));
+
+        List<AccountTransferResultType> results = processor.process(List.of(
+                new TransferInstruction(id(1), id(2), null),
+                transfer(1, 2, "150")));
+
+        assertNull(assertInstanceOf(AccountTransferResultType.InvalidAmount.class, results.get(0)).getAmount());
+        assertInstanceOf(AccountTransferResultType.InsufficientFunds.class, results.get(1));
+        verify(transactionsRepository, times(0)).saveAll(anyList());
+    }
+
+    private static TransferInstruction transfer(long from, long to, String amount) {
+        return new TransferInstruction(id(from), id(to), new BigDecimal(amount));
+    }
+
+    private static AccountEntity account(long id, String balance) {
+        return AccountEntity.builder()
+                .id(id(id))
+                .userLogin("user" + id)
+                .balance(new BigDecimal(balance))
+                .version(0L)
+                .build();
+    }
+
+    private static BigInteger id(long id) {
+        return BigInteger.valueOf(id);
+    }
+}
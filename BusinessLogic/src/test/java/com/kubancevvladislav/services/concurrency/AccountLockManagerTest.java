@@ -0,0 +1,117 @@
+package com.kubancevvladislav.services.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountLockManagerTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void serializesOperationsOnSameAccount() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(16, meterRegistry);
+        int[] balance = {0};
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        try (AccountLockManager.Lease ignored = lockManager.lock(BigInteger.ONE)) {
+                            balance[0]++;
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(80_000, balance[0]);
+    }
+
+    @Test
+    void counterTransfersDoNotDeadlock() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(256, meterRegistry);
+        BigInteger first = BigInteger.valueOf(1);
+        BigInteger second = BigInteger.valueOf(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> forward = executor.submit(() -> transferLoop(lockManager, first, second));
+            Future<?> backward = executor.submit(() -> transferLoop(lockManager, second, first));
+
+            forward.get(30, TimeUnit.SECONDS);
+            backward.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void countsContendedAcquisition() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(16, meterRegistry);
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try (AccountLockManager.Lease ignored = lockManager.lock(BigInteger.TEN)) {
+                acquired.countDown();
+            }
+        });
+
+        try (AccountLockManager.Lease ignored = lockManager.lock(BigInteger.TEN)) {
+            waiter.start();
+            assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+        }
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        waiter.join();
+
+        assertEquals(1.0, meterRegistry.counter("account.lock.contended").count());
+    }
+
+    @Test
+    void releasesLeaseOnlyOnce() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(16, meterRegistry);
+        AccountLockManager.Lease lease = lockManager.lock(BigInteger.ONE, BigInteger.TWO, null);
+        lease.close();
+        lease.close();
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread other = new Thread(() -> {
+            try (AccountLockManager.Lease ignored = lockManager.lock(BigInteger.TWO, BigInteger.ONE)) {
+                acquired.countDown();
+            }
+        });
+        other.start();
+
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        other.join();
+    }
+
+    @Test
+    void rejectsNonPositiveStripeCount() {
+        assertThrows(IllegalArgumentException.class, () -> new AccountLockManager(0, meterRegistry));
+    }
+
+    private static void transferLoop(AccountLockManager lockManager, BigInteger from, BigInteger to) {
+        for (int i = 0; i < 10_000; i++) {
+            try (AccountLockManager.Lease ignored = lockManager.lock(from, to)) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
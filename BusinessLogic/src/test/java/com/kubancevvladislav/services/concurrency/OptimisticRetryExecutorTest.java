@@ -0,0 +1,84 @@
+package com.kubancevvladislav.services.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OptimisticRetryExecutorTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    /** Выполняет попытку в вызывающем потоке без настоящей транзакции */
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate() {
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            return action.doInTransaction(null);
+        }
+    };
+
+    @Test
+    void retriesConflictsUntilAttemptSucceeds() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = executor(5, 0).execute("deposit", status -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("version changed");
+            }
+            return "ok";
+        }, () -> "exhausted");
+
+        assertEquals("ok", result);
+        assertEquals(3.0, count("account.optimistic.attempts"));
+        assertEquals(2.0, count("account.optimistic.conflicts"));
+        assertEquals(0.0, count("account.optimistic.exhausted"));
+    }
+
+    @Test
+    void returnsFallbackWhenAttemptsAreExhausted() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = executor(3, 1).execute("deposit", status -> {
+            calls.incrementAndGet();
+            throw new OptimisticLockingFailureException("version changed");
+        }, () -> "exhausted");
+
+        assertEquals("exhausted", result);
+        assertEquals(3, calls.get());
+        assertEquals(1.0, count("account.optimistic.exhausted"));
+    }
+
+    @Test
+    void doesNotRetryOtherFailures() {
+        AtomicInteger calls = new AtomicInteger();
+        OptimisticRetryExecutor executor = executor(5, 0);
+
+        assertThrows(IllegalStateException.class, () -> executor.execute("deposit", status -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("database is down");
+        }, () -> "exhausted"));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void reportsSelectedMode() {
+        assertTrue(executor(5, 0).isOptimistic());
+        assertFalse(new OptimisticRetryExecutor(ConcurrencyMode.ATOMIC, 5, 0, 0, transactionTemplate, meterRegistry)
+                .isOptimistic());
+    }
+
+    private OptimisticRetryExecutor executor(int maxAttempts, long baseBackoffMillis) {
+        return new OptimisticRetryExecutor(ConcurrencyMode.OPTIMISTIC, maxAttempts, baseBackoffMillis, 100,
+                transactionTemplate, meterRegistry);
+    }
+
+    private double count(String name) {
+        return meterRegistry.counter(name, "operation", "deposit").count();
+    }
+}
@@ -0,0 +1,123 @@
+package com.kubancevvladislav.services.ledger;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LedgerShardTest {
+    private static final BigInteger ACCOUNT = BigInteger.ONE;
+
+    @Test
+    void appliesConcurrentCommandsOneByOne() throws Exception {
+        LedgerShard shard = startedShard(64);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> submitters = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                submitters.add(executor.submit(() -> {
+                    CompletableFuture<?> last = null;
+                    for (int i = 0; i < 5_000; i++) {
+                        last = shard.submit(balances -> balances.merge(ACCOUNT, BigDecimal.ONE, BigDecimal::add));
+                    }
+                    last.join();
+                }));
+            }
+            for (Future<?> submitter : submitters) {
+                submitter.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            shard.stop();
+        }
+
+        assertEquals(new BigDecimal(20_010), shard.balance(ACCOUNT));
+    }
+
+    @Test
+    void keepsSubmissionOrderOfOneThread() throws Exception {
+        LedgerShard shard = startedShard(16);
+        List<Integer> applied = new ArrayList<>();
+        try {
+            CompletableFuture<?> last = null;
+            for (int i = 0; i < 1_000; i++) {
+                int step = i;
+                last = shard.submit(balances -> applied.add(step));
+            }
+            last.get(10, TimeUnit.SECONDS);
+        } finally {
+            shard.stop();
+        }
+
+        assertEquals(IntStream.range(0, 1_000).boxed().toList(), applied);
+    }
+
+    @Test
+    void failedCommandDoesNotStopWriter() throws Exception {
+        LedgerShard shard = startedShard(16);
+        IllegalArgumentException failure = new IllegalArgumentException("bad command");
+        try {
+            CompletableFuture<Object> failed = shard.submit(balances -> {
+                throw failure;
+            });
+            CompletableFuture<BigDecimal> next = shard.submit(balances -> balances.get(ACCOUNT));
+
+            ExecutionException thrown = assertThrows(ExecutionException.class, () -> failed.get(10, TimeUnit.SECONDS));
+            assertSame(failure, thrown.getCause());
+            assertEquals(BigDecimal.TEN, next.get(10, TimeUnit.SECONDS));
+        } finally {
+            shard.stop();
+        }
+    }
+
+    @Test
+    void stopAppliesAcceptedCommandsAndRejectsNewOnes() throws Exception {
+        LedgerShard shard = startedShard(4);
+        AtomicBoolean stopping = new AtomicBoolean();
+        List<CompletableFuture<?>> accepted = new ArrayList<>();
+        Thread submitter = new Thread(() -> {
+            while (!stopping.get()) {
+                accepted.add(shard.submit(balances -> balances.merge(ACCOUNT, BigDecimal.ONE, BigDecimal::add)));
+            }
+        });
+        submitter.start();
+        TimeUnit.MILLISECONDS.sleep(50);
+
+        shard.stop();
+        stopping.set(true);
+        submitter.join(10_000);
+
+        for (CompletableFuture<?> future : accepted) {
+            assertTrue(future.isDone());
+        }
+        long applied = accepted.stream().filter(future -> !future.isCompletedExceptionally()).count();
+        assertEquals(BigDecimal.TEN.add(BigDecimal.valueOf(applied)), shard.balance(ACCOUNT));
+
+        ExecutionException rejected = assertThrows(ExecutionException.class,
+                () -> shard.submit(balances -> null).get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, rejected.getCause());
+    }
+
+    private static LedgerShard startedShard(int ringCapacity) {
+        LedgerShard shard = new LedgerShard(0, ringCapacity);
+        shard.load(ACCOUNT, BigDecimal.TEN);
+        shard.start();
+        return shard;
+    }
+}
@@ -0,0 +1,118 @@
+package com.kubancevvladislav.services.outbox;
+
+import com.kubancevvladislav.entities.OutboxEventEntity;
+import com.kubancevvladislav.repositories.OutboxRepositoryInterface;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.errors.NetworkException;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+    private final OutboxRepositoryInterface outboxRepository = mock(OutboxRepositoryInterface.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, byte[]> kafkaTemplate = mock(KafkaTemplate.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    @Test
+    void deletesSentEventsAndLeavesTransientFailureUnchanged() {
+        OutboxEventEntity sent = event(1, "1");
+        OutboxEventEntity unavailable = event(2, "2");
+        when(outboxRepository.lockNextBatch(10)).thenReturn(List.of(sent, unavailable));
+        givenSend("1", CompletableFuture.completedFuture(null));
+        givenSend("2", CompletableFuture.failedFuture(new NetworkException("Брокер недоступен")));
+
+        assertEquals(2, relay(3).relayBatch());
+
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(BigInteger.ONE));
+        assertEquals(0, unavailable.getAttempts());
+        assertNull(unavailable.getLastError());
+        assertNull(unavailable.getParkedAt());
+    }
+
+    @Test
+    void rollsBackBatchWhenNothingWasSentForTransientReasons() {
+        OutboxEventEntity event = event(1, "1");
+        when(outboxRepository.lockNextBatch(10)).thenReturn(List.of(event));
+        givenSend("1", CompletableFuture.failedFuture(new NetworkException("Брокер недоступен")));
+
+        assertThrows(IllegalStateException.class, () -> relay(3).relayBatch());
+
+        verify(outboxRepository, never()).deleteAllByIdInBatch(anyList());
+        assertEquals(0, event.getAttempts());
+    }
+
+    @Test
+    void countsPermanentFailureAndParksEventAtLimit() {
+        OutboxEventEntity tooLarge = event(1, "1");
+        tooLarge.setAttempts(1);
+        OutboxEventEntity sent = event(2, "2");
+        when(outboxRepository.lockNextBatch(10)).thenReturn(List.of(tooLarge, sent));
+        givenSend("1", CompletableFuture.failedFuture(new RecordTooLargeException("Слишком большое сообщение")));
+        givenSend("2", CompletableFuture.completedFuture(null));
+
+        relay(2).relayBatch();
+
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(BigInteger.TWO));
+        assertEquals(2, tooLarge.getAttempts());
+        assertTrue(tooLarge.getLastError().contains("RecordTooLargeException"));
+        assertNotNull(tooLarge.getParkedAt());
+    }
+
+    @Test
+    void relayLoopSendsEventsUntilStopped() throws InterruptedException {
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(outboxRepository.lockNextBatch(10)).thenReturn(List.of(event(1, "1")), List.of());
+        givenSend("1", CompletableFuture.completedFuture(null));
+        OutboxRelay relay = relay(3);
+
+        relay.start();
+        try {
+            verify(outboxRepository, timeout(5000)).deleteAllByIdInBatch(List.of(BigInteger.ONE));
+        } finally {
+            relay.stop();
+        }
+    }
+
+    private OutboxRelay relay(int maxAttempts) {
+        return new OutboxRelay(10, 1, 1000, maxAttempts,
+                outboxRepository, kafkaTemplate, transactionTemplate, new SimpleMeterRegistry());
+    }
+
+    private void givenSend(String key, CompletableFuture<SendResult<String, byte[]>> result) {
+        when(kafkaTemplate.send(eq("account-topic"), eq(key), any())).thenReturn(result);
+    }
+
+    private static OutboxEventEntity event(long id, String key) {
+        return OutboxEventEntity.builder()
+                .id(BigInteger.valueOf(id))
+                .topic("account-topic")
+                .messageKey(key)
+                .payload(new byte[] {1})
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
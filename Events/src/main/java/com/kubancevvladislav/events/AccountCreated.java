@@ -0,0 +1,16 @@
+package com.kubancevvladislav.events;
+
+import java.math.BigInteger;
+
+/**
+ * Создан счёт.
+ * @param timestamp время события в миллисекундах от начала эпохи Unix
+ * @param accountId номер счёта
+ * @param userLogin логин владельца
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+public record AccountCreated(long timestamp, BigInteger accountId, String userLogin) implements DomainEvent {
+}
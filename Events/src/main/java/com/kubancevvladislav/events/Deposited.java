@@ -0,0 +1,19 @@
+package com.kubancevvladislav.events;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Счёт пополнен.
+ * @param timestamp время события в миллисекундах от начала эпохи Unix
+ * @param transactionId номер транзакции
+ * @param accountId номер счёта
+ * @param amount сумма пополнения
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+public record Deposited(long timestamp, BigInteger transactionId, BigInteger accountId, BigDecimal amount)
+        implements DomainEvent {
+}
@@ -0,0 +1,34 @@
+package com.kubancevvladislav.events;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * Событие предметной области, публикуемое в Kafka.
+ * Набор событий закрыт: каждому типу соответствует собственный тег в {@link DomainEventCodec}.
+ * В JSON тип события записывается в поле {@value #TYPE_PROPERTY}, иначе пополнение и списание
+ * с одинаковыми полями после чтения не различить.
+ * @author Кубанцев Владислав
+ * @version 1.1
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = DomainEvent.TYPE_PROPERTY)
+@JsonSubTypes({
+        @JsonSubTypes.Type(AccountCreated.class),
+        @JsonSubTypes.Type(Deposited.class),
+        @JsonSubTypes.Type(Withdrawn.class),
+        @JsonSubTypes.Type(Transferred.class),
+        @JsonSubTypes.Type(UserCreated.class),
+        @JsonSubTypes.Type(FriendAdded.class)
+})
+public sealed interface DomainEvent
+        permits AccountCreated, Deposited, Withdrawn, Transferred, UserCreated, FriendAdded {
+    /** Поле JSON с именем типа события, совпадающим с простым именем класса */
+    String TYPE_PROPERTY = "eventType";
+
+    /**
+     * @return время события в миллисекундах от начала эпохи Unix
+     */
+    long timestamp();
+}
@@ -0,0 +1,310 @@
+package com.kubancevvladislav.events;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Компактный двоичный формат событий {@link DomainEvent}.
+ * <p>Сообщение начинается с заголовка: байт {@link #MAGIC}, версия схемы {@link #VERSION},
+ * тег типа события и время события - 8 байт в порядке big-endian. Далее поля события по порядку:</p>
+ * <ul>
+ *     <li>строка - длина UTF-8 представления плюс один в формате varint и сами байты, {@code 0} означает {@code null};</li>
+ *     <li>{@link BigInteger} - длина дополнительного кода плюс один в формате varint и его байты, {@code 0} означает {@code null};</li>
+ *     <li>{@link BigDecimal} - масштаб в формате zigzag varint и немасштабированное значение как {@link BigInteger};
+ *     {@code null} кодируется масштабом {@code 0} и отсутствующим значением;</li>
+ *     <li>{@code short} - 2 байта big-endian.</li>
+ * </ul>
+ * <p>Первый байт JSON-сообщения не может совпасть с {@link #MAGIC}, поэтому получатель
+ * различает форматы по {@link #isBinary(byte[])}.</p>
+ * <p>Новые поля добавляются только в конец записи с увеличением {@link #VERSION};
+ * декодер читает все версии, не превышающие текущую.</p>
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+public final class DomainEventCodec {
+    /** Первый байт каждого двоичного сообщения */
+    public static final byte MAGIC = (byte) 0xE5;
+    /** Текущая версия схемы */
+    public static final byte VERSION = 1;
+
+    private static final byte ACCOUNT_CREATED = 1;
+    private static final byte DEPOSITED = 2;
+    private static final byte WITHDRAWN = 3;
+    private static final byte TRANSFERRED = 4;
+    private static final byte USER_CREATED = 5;
+    private static final byte FRIEND_ADDED = 6;
+
+    private static final int HEADER_SIZE = 3 + Long.BYTES;
+
+    private DomainEventCodec() {
+    }
+
+    /**
+     * @param data тело сообщения
+     * @return {@code true}, если сообщение записано в двоичном формате
+     */
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= HEADER_SIZE && data[0] == MAGIC;
+    }
+
+    /**
+     * Кодирует событие.
+     * @param event событие
+     * @return двоичное представление события
+     */
+    public static byte[] encode(DomainEvent event) {
+        Output out = new Output(64);
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        switch (event) {
+            case AccountCreated e -> {
+                out.writeByte(ACCOUNT_CREATED);
+                out.writeLong(e.timestamp());
+                out.writeBigInteger(e.accountId());
+                out.writeString(e.userLogin());
+            }
+            case Deposited e -> {
+                out.writeByte(DEPOSITED);
+                out.writeLong(e.timestamp());
+                out.writeBigInteger(e.transactionId());
+                out.writeBigInteger(e.accountId());
+                out.writeBigDecimal(e.amount());
+            }
+            case Withdrawn e -> {
+                out.writeByte(WITHDRAWN);
+                out.writeLong(e.timestamp());
+                out.writeBigInteger(e.transactionId());
+                out.writeBigInteger(e.accountId());
+                out.writeBigDecimal(e.amount());
+            }
+            case Transferred e -> {
+                out.writeByte(TRANSFERRED);
+                out.writeLong(e.timestamp());
+                out.writeBigInteger(e.transactionId());
+                out.writeBigInteger(e.senderAccountId());
+                out.writeBigInteger(e.receiverAccountId());
+                out.writeBigDecimal(e.amount());
+                out.writeBigDecimal(e.commission());
+            }
+            case UserCreated e -> {
+                out.writeByte(USER_CREATED);
+                out.writeLong(e.timestamp());
+                out.writeString(e.login());
+                out.writeString(e.name());
+                out.writeShort(e.age());
+                out.writeString(e.gender());
+                out.writeString(e.hairColor());
+            }
+            case FriendAdded e -> {
+                out.writeByte(FRIEND_ADDED);
+                out.writeLong(e.timestamp());
+                out.writeString(e.userLogin());
+                out.writeString(e.friendLogin());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Декодирует событие.
+     * @param data двоичное представление события
+     * @return событие
+     * @throws IllegalArgumentException если данные повреждены или записаны более новой версией схемы
+     */
+    public static DomainEvent decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new IllegalArgumentException("Not a binary domain event");
+        }
+        Input in = new Input(data);
+        in.readByte();
+        byte version = in.readByte();
+        if (version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("Unsupported event schema version " + version);
+        }
+        byte type = in.readByte();
+        long timestamp = in.readLong();
+        return switch (type) {
+            case ACCOUNT_CREATED -> new AccountCreated(timestamp, in.readBigInteger(), in.readString());
+            case DEPOSITED -> new Deposited(timestamp, in.readBigInteger(), in.readBigInteger(), in.readBigDecimal());
+            case WITHDRAWN -> new Withdrawn(timestamp, in.readBigInteger(), in.readBigInteger(), in.readBigDecimal());
+            case TRANSFERRED -> new Transferred(
+                    timestamp,
+                    in.readBigInteger(),
+                    in.readBigInteger(),
+                    in.readBigInteger(),
+                    in.readBigDecimal(),
+                    in.readBigDecimal());
+            case USER_CREATED -> new UserCreated(
+                    timestamp,
+                    in.readString(),
+                    in.readString(),
+                    in.readShort(),
+                    in.readString(),
+                    in.readString());
+            case FRIEND_ADDED -> new FriendAdded(timestamp, in.readString(), in.readString());
+            default -> throw new IllegalArgumentException("Unknown event type tag " + type);
+        };
+    }
+
+    /**
+     * Растущий буфер записи.
+     */
+    private static final class Output {
+        private byte[] buffer;
+        private int size;
+
+        Output(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeShort(short value) {
+            ensure(2);
+            buffer[size++] = (byte) (value >>> 8);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensure(Long.BYTES);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        void writeBytes(byte[] bytes) {
+            if (bytes == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(bytes.length + 1);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void writeString(String value) {
+            writeBytes(value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void writeBigInteger(BigInteger value) {
+            writeBytes(value == null ? null : value.toByteArray());
+        }
+
+        void writeBigDecimal(BigDecimal value) {
+            int scale = value == null ? 0 : value.scale();
+            writeVarInt((scale << 1) ^ (scale >> 31));
+            writeBigInteger(value == null ? null : value.unscaledValue());
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+
+    /**
+     * Курсор чтения.
+     */
+    private static final class Input {
+        private final byte[] buffer;
+        private int position;
+
+        Input(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        byte readByte() {
+            require(1);
+            return buffer[position++];
+        }
+
+        short readShort() {
+            require(2);
+            int value = ((buffer[position] & 0xFF) << 8) | (buffer[position + 1] & 0xFF);
+            position += 2;
+            return (short) value;
+        }
+
+        long readLong() {
+            require(Long.BYTES);
+            long value = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                value = (value << 8) | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        byte[] readBytes() {
+            int length = readVarInt() - 1;
+            if (length < 0) {
+                return null;
+            }
+            require(length);
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        String readString() {
+            int length = readVarInt() - 1;
+            if (length < 0) {
+                return null;
+            }
+            require(length);
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        BigInteger readBigInteger() {
+            byte[] bytes = readBytes();
+            return bytes == null ? null : new BigInteger(bytes);
+        }
+
+        BigDecimal readBigDecimal() {
+            int zigzag = readVarInt();
+            int scale = (zigzag >>> 1) ^ -(zigzag & 1);
+            BigInteger unscaled = readBigInteger();
+            return unscaled == null ? null : new BigDecimal(unscaled, scale);
+        }
+
+        private void require(int length) {
+            if (length < 0 || position + length > buffer.length) {
+                throw new IllegalArgumentException("Truncated event at offset " + position);
+            }
+        }
+    }
+}
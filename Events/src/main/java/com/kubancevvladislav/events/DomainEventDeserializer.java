@@ -0,0 +1,25 @@
+package com.kubancevvladislav.events;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Десериализатор Kafka для {@link DomainEvent} в формате {@link DomainEventCodec}.
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+public class DomainEventDeserializer implements Deserializer<DomainEvent> {
+    @Override
+    public DomainEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return DomainEventCodec.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Failed to decode event from topic " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.kubancevvladislav.events;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Сериализатор Kafka для {@link DomainEvent} в формате {@link DomainEventCodec}.
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+public class DomainEventSerializer implements Serializer<DomainEvent> {
+    @Override
+    public byte[] serialize(String topic, DomainEvent data) {
+        return data == null ? null : DomainEventCodec.encode(data);
+    }
+}
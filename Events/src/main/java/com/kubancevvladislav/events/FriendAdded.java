@@ -0,0 +1,14 @@
+package com.kubancevvladislav.events;
+
+/**
+ * Пользователи добавлены в друзья друг к другу.
+ * @param timestamp время события в миллисекундах от начала эпохи Unix
+ * @param userLogin логин первого пользователя
+ * @param friendLogin логин второго пользователя
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+public record FriendAdded(long timestamp, String userLogin, String friendLogin) implements DomainEvent {
+}
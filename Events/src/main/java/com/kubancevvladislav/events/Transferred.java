@@ -0,0 +1,26 @@
+package com.kubancevvladislav.events;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Выполнен перевод между счетами.
+ * @param timestamp время события в миллисекундах от начала эпохи Unix
+ * @param transactionId номер транзакции
+ * @param senderAccountId номер счёта отправителя
+ * @param receiverAccountId номер счёта получателя
+ * @param amount сумма, зачисленная получателю
+ * @param commission комиссия, списанная с отправителя
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+public record Transferred(
+        long timestamp,
+        BigInteger transactionId,
+        BigInteger senderAccountId,
+        BigInteger receiverAccountId,
+        BigDecimal amount,
+        BigDecimal commission) implements DomainEvent {
+}
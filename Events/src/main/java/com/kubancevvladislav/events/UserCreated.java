@@ -0,0 +1,18 @@
+package com.kubancevvladislav.events;
+
+/**
+ * Зарегистрирован пользователь.
+ * @param timestamp время события в миллисекундах от начала эпохи Unix
+ * @param login логин пользователя
+ * @param name имя пользователя
+ * @param age возраст пользователя
+ * @param gender пол, имя значения перечисления
+ * @param hairColor цвет волос, имя значения перечисления
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+public record UserCreated(long timestamp, String login, String name, short age, String gender, String hairColor)
+        implements DomainEvent {
+}
@@ -0,0 +1,116 @@
+package com.kubancevvladislav.events;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DomainEventCodecTest {
+    private static final long TIMESTAMP = 1_742_000_000_123L;
+
+    private static List<DomainEvent> samples() {
+        return List.of(
+                new AccountCreated(TIMESTAMP, BigInteger.valueOf(42), "ivan"),
+                new Deposited(TIMESTAMP, BigInteger.ONE, BigInteger.valueOf(42), new BigDecimal("100.50")),
+                new Withdrawn(TIMESTAMP, BigInteger.TWO, BigInteger.valueOf(42), new BigDecimal("0.01")),
+                new Transferred(
+                        TIMESTAMP,
+                        new BigInteger("123456789012345678901234567890"),
+                        BigInteger.valueOf(42),
+                        BigInteger.valueOf(43),
+                        new BigDecimal("-12.345"),
+                        new BigDecimal("1E+3")),
+                new UserCreated(TIMESTAMP, "пользователь", "Имя 😀", (short) 300, "MALE", "Black"),
+                new FriendAdded(TIMESTAMP, "ivan", "petr"));
+    }
+
+    @Test
+    void roundTripsEveryEventType() {
+        for (DomainEvent event : samples()) {
+            byte[] encoded = DomainEventCodec.encode(event);
+
+            assertTrue(DomainEventCodec.isBinary(encoded));
+            assertEquals(event, DomainEventCodec.decode(encoded));
+        }
+    }
+
+    @Test
+    void roundTripsNullFields() {
+        List<DomainEvent> events = List.of(
+                new AccountCreated(0, null, null),
+                new Transferred(-1, null, BigInteger.ZERO, BigInteger.valueOf(-7), null, BigDecimal.ZERO),
+                new UserCreated(Long.MAX_VALUE, "", null, Short.MIN_VALUE, null, ""));
+
+        for (DomainEvent event : events) {
+            assertEquals(event, DomainEventCodec.decode(DomainEventCodec.encode(event)));
+        }
+    }
+
+    @Test
+    void keepsBigDecimalScale() {
+        Deposited event = new Deposited(TIMESTAMP, BigInteger.ONE, BigInteger.ONE, new BigDecimal("10.00"));
+
+        Deposited decoded = (Deposited) DomainEventCodec.decode(DomainEventCodec.encode(event));
+
+        assertEquals(2, decoded.amount().scale());
+    }
+
+    @Test
+    void rejectsEveryTruncatedPrefix() {
+        for (DomainEvent event : samples()) {
+            byte[] encoded = DomainEventCodec.encode(event);
+            for (int length = 0; length < encoded.length; length++) {
+                byte[] torn = Arrays.copyOf(encoded, length);
+                assertThrows(IllegalArgumentException.class, () -> DomainEventCodec.decode(torn),
+                        event.getClass().getSimpleName() + " truncated to " + length + " bytes");
+            }
+        }
+    }
+
+    @Test
+    void rejectsNewerSchemaVersion() {
+        byte[] encoded = DomainEventCodec.encode(samples().getFirst());
+        encoded[1] = (byte) (DomainEventCodec.VERSION + 1);
+
+        assertThrows(IllegalArgumentException.class, () -> DomainEventCodec.decode(encoded));
+    }
+
+    @Test
+    void rejectsUnknownTypeTag() {
+        byte[] encoded = DomainEventCodec.encode(samples().getFirst());
+        encoded[2] = 99;
+
+        assertThrows(IllegalArgumentException.class, () -> DomainEventCodec.decode(encoded));
+    }
+
+    @Test
+    void doesNotTreatJsonAsBinary() {
+        byte[] json = "{\"timestamp\":1742000000123,\"accountId\":42}".getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(DomainEventCodec.isBinary(json));
+        assertFalse(DomainEventCodec.isBinary(null));
+        assertThrows(IllegalArgumentException.class, () -> DomainEventCodec.decode(json));
+    }
+
+    @Test
+    void deserializerWrapsCorruptedData() {
+        byte[] encoded = DomainEventCodec.encode(samples().getFirst());
+        byte[] torn = Arrays.copyOf(encoded, encoded.length - 1);
+
+        try (DomainEventDeserializer deserializer = new DomainEventDeserializer();
+             DomainEventSerializer serializer = new DomainEventSerializer()) {
+            byte[] serialized = serializer.serialize("account-topic", samples().getFirst());
+            assertEquals(samples().getFirst(), deserializer.deserialize("account-topic", serialized));
+            assertThrows(SerializationException.class, () -> deserializer.deserialize("account-topic", torn));
+        }
+    }
+}
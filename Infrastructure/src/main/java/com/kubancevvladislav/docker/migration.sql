@@ -19,23 +19,28 @@ CREATE TYPE hair_color_entity AS ENUM (
 
 CREATE SEQUENCE users_id_seq
     START WITH 1
-    INCREMENT BY 1
+    INCREMENT BY 50
     NO MINVALUE
     NO MAXVALUE
     CACHE 1;
 
 CREATE SEQUENCE accounts_id_seq
     START WITH 1
-    INCREMENT BY 1
+    INCREMENT BY 50
     CACHE 1;
 
 CREATE SEQUENCE transactions_id_seq
     START WITH 1
-    INCREMENT BY 1
+    INCREMENT BY 50
+    CACHE 1;
+
+CREATE SEQUENCE postings_id_seq
+    START WITH 1
+    INCREMENT BY 50
     CACHE 1;
 
 CREATE TABLE users (
-    id NUMERIC(38, 0) PRIMARY KEY DEFAULT nextval('users_id_seq'),
+    id NUMERIC(38, 0) PRIMARY KEY,
     login VARCHAR(255) NOT NULL UNIQUE,
     name VARCHAR(255) NOT NULL,
     age SMALLINT NOT NULL,
@@ -46,42 +51,83 @@ CREATE TABLE users (
 );
 
 CREATE TABLE accounts (
-    id NUMERIC(38, 0) PRIMARY KEY DEFAULT nextval('accounts_id_seq'),
+    id NUMERIC(38, 0) PRIMARY KEY,
     user_login VARCHAR(255) NOT NULL,
     balance DECIMAL(19, 2) NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT balance_non_negative CHECK (balance >= 0),
     CONSTRAINT fk_user_login FOREIGN KEY (user_login) REFERENCES users(login) ON DELETE CASCADE
 );
 
+CREATE INDEX idx_accounts_user_login ON accounts (user_login);
+
 CREATE TABLE transactions (
-    transaction_id NUMERIC(38, 0) PRIMARY KEY DEFAULT nextval('transactions_id_seq'),
+    transaction_id NUMERIC(38, 0) PRIMARY KEY,
+    transaction_type VARCHAR(16) NOT NULL,
     amount DECIMAL(19, 2) NOT NULL,
-    timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+    timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    account_id NUMERIC(38, 0),
+    sender_account_id NUMERIC(38, 0),
+    receiver_account_id NUMERIC(38, 0),
+    commission DECIMAL(19, 2),
+    CONSTRAINT transaction_type_columns CHECK (
+        (transaction_type IN ('DEPOSIT', 'WITHDRAW') AND account_id IS NOT NULL)
+        OR
+        (transaction_type = 'TRANSFER'
+            AND sender_account_id IS NOT NULL
+            AND receiver_account_id IS NOT NULL
+            AND commission IS NOT NULL)
+    ),
+    CONSTRAINT fk_transaction_account FOREIGN KEY (account_id) REFERENCES accounts(id) ON DELETE CASCADE,
+    CONSTRAINT fk_sender_account FOREIGN KEY (sender_account_id) REFERENCES accounts(id) ON DELETE CASCADE,
+    CONSTRAINT fk_receiver_account FOREIGN KEY (receiver_account_id) REFERENCES accounts(id) ON DELETE CASCADE
 );
 
-CREATE TABLE deposit_transactions (
-    transaction_id NUMERIC(38, 0) PRIMARY KEY,
+CREATE INDEX idx_transactions_account_timestamp ON transactions (account_id, timestamp);
+CREATE INDEX idx_transactions_sender_timestamp ON transactions (sender_account_id, timestamp);
+CREATE INDEX idx_transactions_receiver_timestamp ON transactions (receiver_account_id, timestamp);
+CREATE INDEX idx_transactions_timestamp_id ON transactions (timestamp, transaction_id);
+
+CREATE TABLE postings (
+    id NUMERIC(38, 0) PRIMARY KEY,
+    transaction_id NUMERIC(38, 0) NOT NULL,
     account_id NUMERIC(38, 0) NOT NULL,
-    CONSTRAINT fk_deposit_transaction FOREIGN KEY (transaction_id) REFERENCES transactions(transaction_id) ON DELETE CASCADE,
-    CONSTRAINT fk_deposit_account FOREIGN KEY (account_id) REFERENCES accounts(id) ON DELETE CASCADE
+    leg VARCHAR(16) NOT NULL,
+    transaction_type VARCHAR(16) NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    timestamp TIMESTAMP NOT NULL,
+    CONSTRAINT posting_leg_unique UNIQUE (transaction_id, leg),
+    CONSTRAINT posting_amount_non_negative CHECK (amount >= 0),
+    CONSTRAINT fk_posting_transaction FOREIGN KEY (transaction_id) REFERENCES transactions(transaction_id) ON DELETE CASCADE,
+    CONSTRAINT fk_posting_account FOREIGN KEY (account_id) REFERENCES accounts(id) ON DELETE CASCADE
 );
 
-CREATE TABLE withdraw_transactions (
-    transaction_id NUMERIC(38, 0) PRIMARY KEY,
-    account_id NUMERIC(38, 0) NOT NULL,
-    CONSTRAINT fk_withdraw_transaction FOREIGN KEY (transaction_id) REFERENCES transactions(transaction_id) ON DELETE CASCADE,
-    CONSTRAINT fk_withdraw_account FOREIGN KEY (account_id) REFERENCES accounts(id) ON DELETE CASCADE
+CREATE INDEX idx_postings_account_timestamp ON postings (account_id, timestamp);
+
+CREATE SEQUENCE outbox_id_seq
+    START WITH 1
+    INCREMENT BY 50
+    CACHE 1;
+
+CREATE TABLE outbox (
+    id NUMERIC(38, 0) PRIMARY KEY,
+    topic VARCHAR(255) NOT NULL,
+    message_key VARCHAR(255) NOT NULL,
+    payload BYTEA NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    attempts INT NOT NULL DEFAULT 0,
+    last_error TEXT,
+    parked_at TIMESTAMP
 );
 
+CREATE INDEX idx_outbox_pending ON outbox (id) WHERE parked_at IS NULL;
 
-CREATE TABLE transfer_transactions (
-    transaction_id NUMERIC(38, 0) PRIMARY KEY,
-    sender_account_id NUMERIC(38, 0) NOT NULL,
-    receiver_account_id NUMERIC(38, 0) NOT NULL,
-    commission DECIMAL(19, 2) NOT NULL,
-    CONSTRAINT fk_transfer_transaction FOREIGN KEY (transaction_id) REFERENCES transactions(transaction_id) ON DELETE CASCADE,
-    CONSTRAINT fk_sender_account FOREIGN KEY (sender_account_id) REFERENCES accounts(id) ON DELETE CASCADE,
-    CONSTRAINT fk_receiver_account FOREIGN KEY (receiver_account_id) REFERENCES accounts(id) ON DELETE CASCADE
+CREATE TABLE ledger_failed_journal (
+    id BIGSERIAL PRIMARY KEY,
+    deltas TEXT NOT NULL,
+    transaction TEXT,
+    error TEXT,
+    failed_at TIMESTAMP NOT NULL DEFAULT now()
 );
 
 CREATE TABLE user_friends (
@@ -1,7 +1,7 @@
 DROP TABLE IF EXISTS user_friends CASCADE;
-DROP TABLE IF EXISTS transfer_transactions CASCADE;
-DROP TABLE IF EXISTS withdraw_transactions CASCADE;
-DROP TABLE IF EXISTS deposit_transactions CASCADE;
+DROP TABLE IF EXISTS postings CASCADE;
+DROP TABLE IF EXISTS outbox CASCADE;
+DROP TABLE IF EXISTS ledger_failed_journal CASCADE;
 DROP TABLE IF EXISTS transactions CASCADE;
 DROP TABLE IF EXISTS accounts CASCADE;
 DROP TABLE IF EXISTS users CASCADE;
@@ -12,3 +12,5 @@ DROP TYPE IF EXISTS gender_entity CASCADE;
 DROP SEQUENCE IF EXISTS users_id_seq;
 DROP SEQUENCE IF EXISTS accounts_id_seq;
 DROP SEQUENCE IF EXISTS transactions_id_seq;
+DROP SEQUENCE IF EXISTS postings_id_seq;
+DROP SEQUENCE IF EXISTS outbox_id_seq;
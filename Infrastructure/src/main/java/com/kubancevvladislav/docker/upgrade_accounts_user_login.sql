@@ -0,0 +1,3 @@
+-- Индекс для поиска счетов владельца (GET /accounts?userLogin=).
+
+CREATE INDEX IF NOT EXISTS idx_accounts_user_login ON accounts (user_login);
@@ -0,0 +1,4 @@
+-- Столбец версии счёта для режима account.concurrency.mode=OPTIMISTIC.
+-- Существующие счета получают версию 0.
+
+ALTER TABLE accounts ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
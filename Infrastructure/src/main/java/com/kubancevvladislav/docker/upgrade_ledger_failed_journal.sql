@@ -0,0 +1,10 @@
+-- Записи журнала in-memory ledger, которые не удалось сохранить (account.ledger.mode=in-memory).
+-- Балансы этих записей уже применены в памяти, но не в таблице accounts, их нужно сверить вручную.
+
+CREATE TABLE IF NOT EXISTS ledger_failed_journal (
+    id BIGSERIAL PRIMARY KEY,
+    deltas TEXT NOT NULL,
+    transaction TEXT,
+    error TEXT,
+    failed_at TIMESTAMP NOT NULL DEFAULT now()
+);
@@ -0,0 +1,18 @@
+-- Таблица исходящих событий для ретрансляции в Kafka.
+
+BEGIN;
+
+CREATE SEQUENCE outbox_id_seq
+    START WITH 1
+    INCREMENT BY 50
+    CACHE 1;
+
+CREATE TABLE outbox (
+    id NUMERIC(38, 0) PRIMARY KEY,
+    topic VARCHAR(255) NOT NULL,
+    message_key VARCHAR(255) NOT NULL,
+    payload BYTEA NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+COMMIT;
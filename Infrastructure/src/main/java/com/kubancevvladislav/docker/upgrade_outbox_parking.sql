@@ -0,0 +1,11 @@
+-- Счётчик попыток и откладывание событий outbox, которые не удаётся отправить.
+
+BEGIN;
+
+ALTER TABLE outbox ADD COLUMN IF NOT EXISTS attempts INT NOT NULL DEFAULT 0;
+ALTER TABLE outbox ADD COLUMN IF NOT EXISTS last_error TEXT;
+ALTER TABLE outbox ADD COLUMN IF NOT EXISTS parked_at TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_outbox_pending ON outbox (id) WHERE parked_at IS NULL;
+
+COMMIT;
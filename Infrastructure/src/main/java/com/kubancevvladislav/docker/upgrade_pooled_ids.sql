@@ -0,0 +1,11 @@
+-- Переход существующей базы на пулы идентификаторов по 50 значений.
+-- Hibernate резервирует диапазон (nextval - 49, nextval], поэтому значения по умолчанию
+-- из последовательностей больше не используются.
+
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
+ALTER SEQUENCE accounts_id_seq INCREMENT BY 50;
+ALTER SEQUENCE transactions_id_seq INCREMENT BY 50;
+
+ALTER TABLE users ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE accounts ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE transactions ALTER COLUMN transaction_id DROP DEFAULT;
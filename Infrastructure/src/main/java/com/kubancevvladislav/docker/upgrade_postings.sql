@@ -0,0 +1,47 @@
+-- Таблица проводок и её заполнение по уже существующим транзакциям.
+
+BEGIN;
+
+CREATE SEQUENCE postings_id_seq
+    START WITH 1
+    INCREMENT BY 50
+    CACHE 1;
+
+CREATE TABLE postings (
+    id NUMERIC(38, 0) PRIMARY KEY,
+    transaction_id NUMERIC(38, 0) NOT NULL,
+    account_id NUMERIC(38, 0) NOT NULL,
+    leg VARCHAR(16) NOT NULL,
+    transaction_type VARCHAR(16) NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    timestamp TIMESTAMP NOT NULL,
+    CONSTRAINT posting_leg_unique UNIQUE (transaction_id, leg),
+    CONSTRAINT posting_amount_non_negative CHECK (amount >= 0),
+    CONSTRAINT fk_posting_transaction FOREIGN KEY (transaction_id) REFERENCES transactions(transaction_id) ON DELETE CASCADE,
+    CONSTRAINT fk_posting_account FOREIGN KEY (account_id) REFERENCES accounts(id) ON DELETE CASCADE
+);
+
+-- Каждое значение nextval используется как идентификатор целиком,
+-- поэтому не пересекается с диапазонами, которые позже зарезервирует Hibernate.
+INSERT INTO postings (id, transaction_id, account_id, leg, transaction_type, amount, timestamp)
+SELECT nextval('postings_id_seq'), legs.*
+FROM (
+    SELECT transaction_id, account_id, 'CREDIT', transaction_type, amount, timestamp
+    FROM transactions WHERE transaction_type = 'DEPOSIT'
+    UNION ALL
+    SELECT transaction_id, account_id, 'DEBIT', transaction_type, amount, timestamp
+    FROM transactions WHERE transaction_type = 'WITHDRAW'
+    UNION ALL
+    SELECT transaction_id, sender_account_id, 'DEBIT', transaction_type, amount, timestamp
+    FROM transactions WHERE transaction_type = 'TRANSFER'
+    UNION ALL
+    SELECT transaction_id, receiver_account_id, 'CREDIT', transaction_type, amount, timestamp
+    FROM transactions WHERE transaction_type = 'TRANSFER'
+    UNION ALL
+    SELECT transaction_id, sender_account_id, 'COMMISSION', transaction_type, commission, timestamp
+    FROM transactions WHERE transaction_type = 'TRANSFER'
+) AS legs (transaction_id, account_id, leg, transaction_type, amount, timestamp);
+
+CREATE INDEX idx_postings_account_timestamp ON postings (account_id, timestamp);
+
+COMMIT;
@@ -0,0 +1,55 @@
+-- Перенос транзакций из иерархии JOINED (transactions + deposit/withdraw/transfer_transactions)
+-- в одну таблицу transactions с дискриминатором transaction_type.
+
+BEGIN;
+
+ALTER TABLE transactions
+    ADD COLUMN transaction_type VARCHAR(16),
+    ADD COLUMN account_id NUMERIC(38, 0),
+    ADD COLUMN sender_account_id NUMERIC(38, 0),
+    ADD COLUMN receiver_account_id NUMERIC(38, 0),
+    ADD COLUMN commission DECIMAL(19, 2);
+
+UPDATE transactions t
+SET transaction_type = 'DEPOSIT', account_id = d.account_id
+FROM deposit_transactions d
+WHERE d.transaction_id = t.transaction_id;
+
+UPDATE transactions t
+SET transaction_type = 'WITHDRAW', account_id = w.account_id
+FROM withdraw_transactions w
+WHERE w.transaction_id = t.transaction_id;
+
+UPDATE transactions t
+SET transaction_type = 'TRANSFER',
+    sender_account_id = tr.sender_account_id,
+    receiver_account_id = tr.receiver_account_id,
+    commission = tr.commission
+FROM transfer_transactions tr
+WHERE tr.transaction_id = t.transaction_id;
+
+ALTER TABLE transactions
+    ALTER COLUMN transaction_type SET NOT NULL,
+    ADD CONSTRAINT transaction_type_columns CHECK (
+        (transaction_type IN ('DEPOSIT', 'WITHDRAW') AND account_id IS NOT NULL)
+        OR
+        (transaction_type = 'TRANSFER'
+            AND sender_account_id IS NOT NULL
+            AND receiver_account_id IS NOT NULL
+            AND commission IS NOT NULL)
+    );
+
+DROP TABLE deposit_transactions;
+DROP TABLE withdraw_transactions;
+DROP TABLE transfer_transactions;
+
+ALTER TABLE transactions
+    ADD CONSTRAINT fk_transaction_account FOREIGN KEY (account_id) REFERENCES accounts(id) ON DELETE CASCADE,
+    ADD CONSTRAINT fk_sender_account FOREIGN KEY (sender_account_id) REFERENCES accounts(id) ON DELETE CASCADE,
+    ADD CONSTRAINT fk_receiver_account FOREIGN KEY (receiver_account_id) REFERENCES accounts(id) ON DELETE CASCADE;
+
+CREATE INDEX idx_transactions_account_timestamp ON transactions (account_id, timestamp);
+CREATE INDEX idx_transactions_sender_timestamp ON transactions (sender_account_id, timestamp);
+CREATE INDEX idx_transactions_receiver_timestamp ON transactions (receiver_account_id, timestamp);
+
+COMMIT;
@@ -0,0 +1,3 @@
+-- Индекс для постраничного чтения транзакций по курсору (timestamp, transaction_id).
+
+CREATE INDEX IF NOT EXISTS idx_transactions_timestamp_id ON transactions (timestamp, transaction_id);
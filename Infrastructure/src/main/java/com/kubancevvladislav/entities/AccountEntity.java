@@ -1,6 +1,7 @@
 package com.kubancevvladislav.entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -11,13 +12,17 @@ import java.math.BigInteger;
 
 /**
  * Класс представляет счёт пользователя, включающий информацию о балансе и логине пользователя.
+ * <p>Индекс {@code user_login} позволяет получать счета владельца без чтения всей таблицы.</p>
  * @author Кубанцев Владислав
  * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
  * @version 1.0
  * @since 1.0
  */
 @Entity
-@Table(name = "accounts")
+@Table(
+        name = "accounts",
+        indexes = @Index(name = "idx_accounts_user_login", columnList = "user_login")
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -27,7 +32,8 @@ public class AccountEntity {
      * Уникальный идентификатор счёта.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_id_gen")
+    @SequenceGenerator(name = "accounts_id_gen", sequenceName = "accounts_id_seq", allocationSize = 50)
     @Column(name = "id", nullable = false, unique = true)
     private BigInteger id;
     /**
@@ -40,6 +46,13 @@ public class AccountEntity {
      */
     @Column(name = "balance", nullable = false)
     private BigDecimal balance;
+    /**
+     * Версия записи для оптимистичной блокировки.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
     /**
      * Проверка перед вставкой или обновлением записи в БД.
      */
@@ -0,0 +1,77 @@
+package com.kubancevvladislav.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+
+/**
+ * Событие, ожидающее отправки в Kafka.
+ * Записывается в той же транзакции базы данных, что и изменение, которое оно описывает,
+ * и удаляется ретранслятором после подтверждения отправки брокером.
+ * Порядок отправки задаётся возрастанием {@link #id}.
+ * Событие, которое не удалось отправить {@code outbox.relay.max-attempts} раз, откладывается:
+ * получает {@link #parkedAt} и больше не выбирается ретранслятором.
+ * @author Кубанцев Владислав
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ * @version 1.1
+ * @since 1.3
+ */
+@Entity
+@Table(name = "outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEventEntity {
+    /**
+     * Уникальный идентификатор события.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_id_gen")
+    @SequenceGenerator(name = "outbox_id_gen", sequenceName = "outbox_id_seq", allocationSize = 50)
+    @Column(name = "id", nullable = false, unique = true)
+    private BigInteger id;
+    /**
+     * Топик Kafka, в который отправляется событие.
+     */
+    @Column(name = "topic", nullable = false)
+    private String topic;
+    /**
+     * Ключ сообщения Kafka.
+     */
+    @Column(name = "message_key", nullable = false)
+    private String messageKey;
+    /**
+     * Сериализованное тело сообщения.
+     */
+    @Column(name = "payload", nullable = false)
+    private byte[] payload;
+    /**
+     * Время записи события.
+     */
+    @Column(name = "created_at", nullable = false)
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+    /**
+     * Количество неудачных попыток отправки.
+     */
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private int attempts = 0;
+    /**
+     * Текст последней ошибки отправки.
+     */
+    @Column(name = "last_error")
+    private String lastError;
+    /**
+     * Время, когда событие отложено после исчерпания попыток, или {@code null}, если оно ожидает отправки.
+     */
+    @Column(name = "parked_at")
+    private LocalDateTime parkedAt;
+}
@@ -0,0 +1,73 @@
+package com.kubancevvladislav.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+
+/**
+ * Проводка - движение средств по одному счёту в рамках транзакции.
+ * Депозит даёт одну проводку {@link PostingLegEntity#CREDIT}, снятие - {@link PostingLegEntity#DEBIT},
+ * перевод - списание у отправителя, зачисление получателю и списание комиссии у отправителя.
+ * <p>Индекс {@code (account_id, timestamp)} позволяет получать историю счёта одним диапазонным сканированием.</p>
+ * @author Кубанцев Владислав
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ * @version 1.0
+ * @since 1.3
+ */
+@Entity
+@Table(
+        name = "postings",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"transaction_id", "leg"}),
+        indexes = @Index(name = "idx_postings_account_timestamp", columnList = "account_id, timestamp")
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PostingEntity {
+    /**
+     * Уникальный идентификатор проводки.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "postings_id_gen")
+    @SequenceGenerator(name = "postings_id_gen", sequenceName = "postings_id_seq", allocationSize = 50)
+    @Column(name = "id", nullable = false, unique = true)
+    private BigInteger id;
+    /**
+     * Номер транзакции, к которой относится проводка.
+     */
+    @Column(name = "transaction_id", nullable = false)
+    private BigInteger transactionId;
+    /**
+     * Номер счёта, по которому проходит движение средств.
+     */
+    @Column(name = "account_id", nullable = false)
+    private BigInteger accountId;
+    /**
+     * Направление проводки.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "leg", nullable = false, length = 16)
+    private PostingLegEntity leg;
+    /**
+     * Тип транзакции, совпадает со значением {@code transactions.transaction_type}.
+     */
+    @Column(name = "transaction_type", nullable = false, length = 16)
+    private String transactionType;
+    /**
+     * Сумма проводки, всегда неотрицательная, направление задаёт {@link #leg}.
+     */
+    @Column(name = "amount", nullable = false)
+    private BigDecimal amount;
+    /**
+     * Время транзакции.
+     */
+    @Column(name = "timestamp", nullable = false)
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,17 @@
+package com.kubancevvladislav.entities;
+
+/**
+ * <p>{@link PostingLegEntity} определяет направление проводки по счёту.</p>
+ * @author Кубанцев Владислав
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ * @version 1.0
+ * @since 1.3
+ */
+public enum PostingLegEntity {
+    /** Списание со счёта */
+    DEBIT,
+    /** Зачисление на счёт */
+    CREDIT,
+    /** Списание комиссии за перевод со счёта отправителя */
+    COMMISSION
+}
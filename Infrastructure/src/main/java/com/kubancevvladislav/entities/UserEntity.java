@@ -25,7 +25,8 @@ import java.util.Objects;
 public class UserEntity {
     @Id
     @Column(name = "id", nullable = false, unique = true)
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_gen")
+    @SequenceGenerator(name = "users_id_gen", sequenceName = "users_id_seq", allocationSize = 50)
     private BigInteger id;
     /** Уникальный идентификатор пользователя или по другому логин*/
     @Column(name = "login", nullable = false, unique = true)
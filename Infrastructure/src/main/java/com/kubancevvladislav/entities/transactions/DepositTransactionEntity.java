@@ -1,9 +1,8 @@
 package com.kubancevvladislav.entities.transactions;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.DiscriminatorValue;
 import jakarta.persistence.Entity;
-import jakarta.persistence.PrimaryKeyJoinColumn;
-import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -22,15 +21,17 @@ import java.math.BigInteger;
  * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
  */
 @Entity
-@Table(name = "deposit_transactions")
-@PrimaryKeyJoinColumn(name = "transaction_id")
+@DiscriminatorValue(DepositTransactionEntity.TYPE)
 @NoArgsConstructor
 @AllArgsConstructor
 @SuperBuilder
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class DepositTransactionEntity extends TransactionEntity {
+    /** Значение дискриминатора {@code transaction_type} для транзакций депозита. */
+    public static final String TYPE = "DEPOSIT";
+
     /** Номер счёта, на который был произведен депозит. */
-    @Column(name = "account_id", nullable = false)
+    @Column(name = "account_id")
     private BigInteger accountId;
 }
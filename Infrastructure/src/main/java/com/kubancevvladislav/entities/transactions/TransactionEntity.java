@@ -11,6 +11,8 @@ import java.time.LocalDateTime;
 
 /**
  * Абстрактный класс, представляющий общую модель транзакции.
+ * Все типы транзакций хранятся в одной таблице {@code transactions}, тип определяется
+ * столбцом {@code transaction_type}, столбцы отдельных типов допускают {@code NULL}.
  * @see DepositTransactionEntity
  * @see WithdrawTransactionEntity
  * @see TransferTransactionEntity
@@ -21,18 +23,29 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "transactions")
-@Inheritance(strategy = InheritanceType.JOINED)
+@Inheritance(strategy = InheritanceType.SINGLE_TABLE)
+@DiscriminatorColumn(name = "transaction_type", discriminatorType = DiscriminatorType.STRING, length = 16)
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
 @SuperBuilder
 public class TransactionEntity {
+    /**
+     * Количество идентификаторов, резервируемых одним обращением к {@code transactions_id_seq}.
+     * Совпадает с шагом последовательности в базе данных.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     /**
      * Уникальный идентификатор транзакции.
      * Идентификатор транзакции создается автоматически с использованием генератора.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_id_gen")
+    @SequenceGenerator(
+            name = "transactions_id_gen",
+            sequenceName = "transactions_id_seq",
+            allocationSize = TransactionEntity.ID_ALLOCATION_SIZE)
     @Column(name = "transaction_id", nullable = false, unique = true)
     protected BigInteger transactionId;
     /**
@@ -45,4 +58,12 @@ public class TransactionEntity {
     @Column(name = "timestamp", nullable = false)
     @CreationTimestamp
     protected LocalDateTime timestamp;
+    /**
+     * Значение дискриминатора {@code transaction_type}, доступное только для чтения.
+     * Позволяет фильтровать транзакции по типу в запросах без перечисления подклассов;
+     * при сохранении значение выставляет Hibernate по {@link DiscriminatorValue} подкласса.
+     */
+    @Column(name = "transaction_type", insertable = false, updatable = false)
+    @Setter(AccessLevel.NONE)
+    protected String transactionType;
 }
@@ -1,9 +1,8 @@
 package com.kubancevvladislav.entities.transactions;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.DiscriminatorValue;
 import jakarta.persistence.Entity;
-import jakarta.persistence.PrimaryKeyJoinColumn;
-import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -25,21 +24,23 @@ import java.math.BigInteger;
  * @see TransactionEntity
  */
 @Entity
-@Table(name = "transfer_transactions")
-@PrimaryKeyJoinColumn(name = "transaction_id")
+@DiscriminatorValue(TransferTransactionEntity.TYPE)
 @NoArgsConstructor
 @AllArgsConstructor
 @SuperBuilder
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class TransferTransactionEntity extends TransactionEntity {
+    /** Значение дискриминатора {@code transaction_type} для транзакций перевода. */
+    public static final String TYPE = "TRANSFER";
+
     /** Номер счёта отправителя. */
-    @Column(name = "sender_account_id", nullable = false)
+    @Column(name = "sender_account_id")
     private BigInteger senderAccountId;
     /** Номер счёта получателя. */
-    @Column(name = "receiver_account_id", nullable = false)
+    @Column(name = "receiver_account_id")
     private BigInteger receiverAccountId;
     /** Комиссия за выполнение перевода. */
-    @Column(name = "commission", nullable = false)
+    @Column(name = "commission")
     private BigDecimal commission;
 }
@@ -1,9 +1,8 @@
 package com.kubancevvladislav.entities.transactions;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.DiscriminatorValue;
 import jakarta.persistence.Entity;
-import jakarta.persistence.PrimaryKeyJoinColumn;
-import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -23,17 +22,19 @@ import java.math.BigInteger;
  * @see TransactionEntity
  */
 @Entity
-@Table(name = "withdraw_transactions")
-@PrimaryKeyJoinColumn(name = "transaction_id")
+@DiscriminatorValue(WithdrawTransactionEntity.TYPE)
 @NoArgsConstructor
 @AllArgsConstructor
 @SuperBuilder
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class WithdrawTransactionEntity extends TransactionEntity {
+    /** Значение дискриминатора {@code transaction_type} для транзакций снятия. */
+    public static final String TYPE = "WITHDRAW";
+
     /**
     * Идентификатор учетной записи, с которой были сняты средства.
     */
-    @Column(name = "account_id", nullable = false)
+    @Column(name = "account_id")
     private BigInteger accountId;
 }
@@ -1,11 +1,19 @@
 package com.kubancevvladislav.repositories;
 
 import com.kubancevvladislav.entities.AccountEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Интерфейс репозитория для управления счетами.
@@ -24,4 +32,51 @@ public interface AccountRepositoryInterface extends JpaRepository<AccountEntity,
      * @return список счетов, принадлежащих пользователю
      */
     List<AccountEntity> findByUserLogin(String login);
+
+    /**
+     * Ищет счета, принадлежащие любому из пользователей, одним запросом по индексу {@code user_login}.
+     * @param logins логины пользователей
+     * @return счета пользователей, упорядоченные по номеру
+     */
+    List<AccountEntity> findByUserLoginInOrderById(Collection<String> logins);
+
+    /**
+     * Возвращает логин владельца счёта, не загружая сам счёт.
+     * @param id номер счёта
+     * @return логин владельца или пустое значение, если счёт не найден
+     */
+    @Query("SELECT a.userLogin FROM AccountEntity a WHERE a.id = :id")
+    Optional<String> findUserLoginById(@Param("id") BigInteger id);
+
+    /**
+     * Атомарно зачисляет сумму на счёт одним запросом {@code UPDATE}.
+     * @param id номер счёта
+     * @param amount сумма зачисления
+     * @return количество изменённых строк: {@code 0}, если счёт не найден
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE AccountEntity a SET a.balance = a.balance + :amount, a.version = a.version + 1 WHERE a.id = :id")
+    int credit(@Param("id") BigInteger id, @Param("amount") BigDecimal amount);
+
+    /**
+     * Атомарно списывает сумму со счёта, если на нём достаточно средств.
+     * <p>Проверка баланса и списание выполняются одним условным {@code UPDATE},
+     * поэтому параллельные списания не могут увести баланс в минус.</p>
+     * @param id номер счёта
+     * @param amount сумма списания
+     * @return количество изменённых строк: {@code 0}, если счёт не найден или средств недостаточно
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE AccountEntity a SET a.balance = a.balance - :amount, a.version = a.version + 1 WHERE a.id = :id AND a.balance >= :amount")
+    int debitIfSufficient(@Param("id") BigInteger id, @Param("amount") BigDecimal amount);
+
+    /**
+     * Загружает счета и блокирует их строки до конца транзакции.
+     * Строки блокируются в порядке возрастания номеров, поэтому параллельные пакеты не блокируют друг друга взаимно.
+     * @param ids номера счетов
+     * @return найденные счета, упорядоченные по номеру
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM AccountEntity a WHERE a.id IN :ids ORDER BY a.id")
+    List<AccountEntity> findAllByIdForUpdate(@Param("ids") Collection<BigInteger> ids);
 }
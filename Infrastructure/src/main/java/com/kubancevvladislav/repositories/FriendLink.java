@@ -0,0 +1,12 @@
+package com.kubancevvladislav.repositories;
+
+/**
+ * Пара логинов пользователя и его друга.
+ * @param userLogin логин пользователя
+ * @param friendLogin логин друга
+ * @author Кубанцев Владислав
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ * @version 1.0
+ * @since 1.3
+ */
+public record FriendLink(String userLogin, String friendLogin) {}
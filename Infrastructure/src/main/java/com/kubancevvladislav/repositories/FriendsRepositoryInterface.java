@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigInteger;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -36,4 +37,13 @@ public interface FriendsRepositoryInterface extends JpaRepository<UserFriendsEnt
      */
     @Query("select u.friend.login from UserFriendsEntity u where u.user.login = :userLogin")
     List<String> getFriends(@Param("userLogin") String userLogin);
+
+    /**
+     * Находит дружбы сразу нескольких пользователей одним запросом.
+     * @param userLogins логины пользователей
+     * @return пары логинов пользователя и его друга
+     */
+    @Query("select new com.kubancevvladislav.repositories.FriendLink(u.user.login, u.friend.login) " +
+            "from UserFriendsEntity u where u.user.login in :userLogins")
+    List<FriendLink> getFriends(@Param("userLogins") Collection<String> userLogins);
 }
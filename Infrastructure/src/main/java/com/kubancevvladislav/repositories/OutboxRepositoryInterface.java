@@ -0,0 +1,40 @@
+package com.kubancevvladislav.repositories;
+
+import com.kubancevvladislav.entities.OutboxEventEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Интерфейс репозитория исходящих событий.
+ * @author Кубанцев Владислав
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ * @version 1.2
+ * @since 1.3
+ */
+@Repository
+public interface OutboxRepositoryInterface extends JpaRepository<OutboxEventEntity, BigInteger> {
+    /**
+     * Блокирует и возвращает самые старые неотправленные события, кроме отложенных.
+     * Строки, уже заблокированные другим ретранслятором, пропускаются,
+     * поэтому несколько экземпляров приложения не отправляют одно событие дважды.
+     * @param limit максимальное количество событий
+     * @return события в порядке возрастания идентификатора
+     */
+    @Query(value = "SELECT * FROM outbox WHERE parked_at IS NULL ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEventEntity> lockNextBatch(@Param("limit") int limit);
+
+    /**
+     * Возвращает отложенные события в очередь отправки: снимает {@code parked_at} и обнуляет счётчик попыток.
+     * Текст последней ошибки сохраняется. События уходят в исходном порядке, раньше более новых.
+     * @return количество возвращённых событий
+     */
+    @Modifying
+    @Query(value = "UPDATE outbox SET parked_at = NULL, attempts = 0 WHERE parked_at IS NOT NULL", nativeQuery = true)
+    int redriveParked();
+}
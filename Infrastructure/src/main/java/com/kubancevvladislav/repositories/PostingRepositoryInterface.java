@@ -0,0 +1,65 @@
+package com.kubancevvladislav.repositories;
+
+import com.kubancevvladislav.entities.PostingEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Интерфейс репозитория проводок.
+ * @author Кубанцев Владислав
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ * @version 1.0
+ * @since 1.3
+ */
+@Repository
+public interface PostingRepositoryInterface extends JpaRepository<PostingEntity, BigInteger> {
+    /**
+     * Возвращает номера первых транзакций указанного типа, затронувших счёт, в хронологическом порядке.
+     * Запрос выполняется диапазонным сканированием индекса {@code (account_id, timestamp)}.
+     * @param accountId номер счёта
+     * @param transactionType тип транзакции, значение {@code transaction_type}
+     * @param limit максимальное количество номеров
+     * @return номера транзакций без повторов
+     */
+    @Query("""
+    SELECT p.transactionId FROM PostingEntity p
+    WHERE p.accountId = :accountId AND p.transactionType = :transactionType
+    GROUP BY p.timestamp, p.transactionId
+    ORDER BY p.timestamp, p.transactionId
+    """)
+    List<BigInteger> findFirstTransactionIds(
+            @Param("accountId") BigInteger accountId,
+            @Param("transactionType") String transactionType,
+            Limit limit);
+
+    /**
+     * Возвращает номера транзакций указанного типа, затронувших счёт,
+     * следующих за позицией {@code (timestamp, transactionId)}.
+     * @param accountId номер счёта
+     * @param transactionType тип транзакции, значение {@code transaction_type}
+     * @param timestamp время последней транзакции предыдущей страницы
+     * @param transactionId номер последней транзакции предыдущей страницы
+     * @param limit максимальное количество номеров
+     * @return номера транзакций без повторов
+     */
+    @Query("""
+    SELECT p.transactionId FROM PostingEntity p
+    WHERE p.accountId = :accountId AND p.transactionType = :transactionType
+        AND (p.timestamp > :timestamp OR (p.timestamp = :timestamp AND p.transactionId > :transactionId))
+    GROUP BY p.timestamp, p.transactionId
+    ORDER BY p.timestamp, p.transactionId
+    """)
+    List<BigInteger> findTransactionIdsAfter(
+            @Param("accountId") BigInteger accountId,
+            @Param("transactionType") String transactionType,
+            @Param("timestamp") LocalDateTime timestamp,
+            @Param("transactionId") BigInteger transactionId,
+            Limit limit);
+}
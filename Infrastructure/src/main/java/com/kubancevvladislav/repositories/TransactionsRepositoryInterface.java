@@ -1,12 +1,19 @@
 package com.kubancevvladislav.repositories;
 
 import com.kubancevvladislav.entities.transactions.TransactionEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigInteger;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Интерфейс репозитория для работы с транзакциями.
@@ -18,25 +25,62 @@ import java.util.List;
  */
 @Repository
 public interface TransactionsRepositoryInterface extends JpaRepository<TransactionEntity, BigInteger> {
+    /** Количество строк, получаемых драйвером за одно обращение к серверному курсору при выгрузке. */
+    int EXPORT_FETCH_SIZE = 1000;
+
+    /**
+     * Возвращает первую страницу транзакций в порядке {@code (timestamp, transactionId)}.
+     * @param limit максимальный размер страницы
+     * @return список объектов {@link TransactionEntity}
+     */
+    @Query("SELECT t FROM TransactionEntity t ORDER BY t.timestamp, t.transactionId")
+    List<TransactionEntity> findFirstPage(Limit limit);
+
     /**
-     * Возвращает список всех транзакций, хранящихся в репозитории.
+     * Возвращает транзакции, следующие за позицией {@code (timestamp, transactionId)}.
+     * Выполняется сканированием индекса {@code (timestamp, transaction_id)} без {@code OFFSET}.
+     * @param timestamp время последней транзакции предыдущей страницы
+     * @param transactionId номер последней транзакции предыдущей страницы
+     * @param limit максимальный размер страницы
      * @return список объектов {@link TransactionEntity}
      */
-    @Query("SELECT t FROM TransactionEntity t")
-    List<TransactionEntity> getAllTransactions();
+    @Query("""
+    SELECT t FROM TransactionEntity t
+    WHERE t.timestamp > :timestamp OR (t.timestamp = :timestamp AND t.transactionId > :transactionId)
+    ORDER BY t.timestamp, t.transactionId
+    """)
+    List<TransactionEntity> findPageAfter(
+            @Param("timestamp") LocalDateTime timestamp,
+            @Param("transactionId") BigInteger transactionId,
+            Limit limit);
 
+    /**
+     * Открывает серверный курсор по транзакциям для выгрузки.
+     * Строки читаются из базы порциями по {@value #EXPORT_FETCH_SIZE}, поэтому выгрузка
+     * не держит в памяти весь результат. Поток должен быть закрыт и потреблён внутри транзакции.
+     * Любой из фильтров может быть {@code null}.
+     * @param accountId номер счёта, затронутого транзакцией
+     * @param transactionType тип транзакции, значение {@code transaction_type}
+     * @param from начало интервала времени включительно
+     * @param to конец интервала времени не включительно
+     * @return поток объектов {@link TransactionEntity} в порядке {@code (timestamp, transactionId)}
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
     @Query("""
     SELECT t FROM TransactionEntity t
-    WHERE (
-            (:transactionType LIKE "DEPOSIT" AND TREAT(t AS DepositTransactionEntity).accountId = :accountId)
-            OR
-            (:transactionType LIKE "WITHDRAW" AND TREAT(t AS WithdrawTransactionEntity).accountId = :accountId)
-            OR
-            (:transactionType LIKE "TRANSFER" AND 
-                (:accountId = TREAT(t AS TransferTransactionEntity).senderAccountId 
-                OR :accountId = TREAT(t AS TransferTransactionEntity).receiverAccountId)
-            )
-        )
+    WHERE (:transactionType IS NULL OR t.transactionType = :transactionType)
+        AND (:from IS NULL OR t.timestamp >= :from)
+        AND (:to IS NULL OR t.timestamp < :to)
+        AND (:accountId IS NULL OR t.transactionId IN (
+            SELECT p.transactionId FROM PostingEntity p WHERE p.accountId = :accountId))
+    ORDER BY t.timestamp, t.transactionId
     """)
-    List<TransactionEntity> findByAccountIdAndTransactionType(BigInteger accountId, String transactionType);
+    Stream<TransactionEntity> streamForExport(
+            @Param("accountId") BigInteger accountId,
+            @Param("transactionType") String transactionType,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
 }
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigInteger;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,6 +37,13 @@ public interface UserRepositoryInterface extends JpaRepository<UserEntity, Strin
      */
     boolean existsByLogin(String login);
 
+    /**
+     * Возвращает пользователей с указанными логинами одним запросом.
+     * @param logins логины пользователей
+     * @return найденные пользователи; логины, которых нет в базе, пропускаются
+     */
+    List<UserEntity> findByLoginIn(Collection<String> logins);
+
     Optional<UserEntity> findUserEntityById(BigInteger id);
 
     List<UserEntity> findByHairColorAndGender(HairColorEntity hairColor, GenderEntity gender);
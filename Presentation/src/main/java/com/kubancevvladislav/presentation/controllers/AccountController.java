@@ -1,9 +1,13 @@
 package com.kubancevvladislav.presentation.controllers;
 
 import com.kubancevvladislav.domain.Account;
+import com.kubancevvladislav.domain.TransferInstruction;
 import com.kubancevvladislav.presentation.controllers.dto.CheckAccountDTO;
 import com.kubancevvladislav.presentation.controllers.dto.OperationResponseDTO;
-import com.kubancevvladislav.services.AccountService;
+import com.kubancevvladislav.presentation.controllers.dto.TransferBatchResultDTO;
+import com.kubancevvladislav.presentation.controllers.dto.TransferInstructionDTO;
+import com.kubancevvladislav.domainServices.AccountServiceInterface;
+import com.kubancevvladislav.domainServices.UserServiceInterface;
 import com.kubancevvladislav.services.result.types.AccountDepositResultType;
 import com.kubancevvladislav.services.result.types.AccountTransferResultType;
 import com.kubancevvladislav.services.result.types.AccountWithdrawResultType;
@@ -23,13 +27,14 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @RestController
 @RequestMapping("/accounts")
 @AllArgsConstructor
 @Tag(name = "Аккаунты", description = "Операции с банковскими счетами")
 public class AccountController {
-    AccountService accountService;
+    AccountServiceInterface accountService;
 
     @PostMapping()
     @Operation(
@@ -91,7 +96,10 @@ public class AccountController {
     }
 
     @GetMapping()
-    @Operation(summary = "Получить список всех счетов")
+    @Operation(
+            summary = "Получить список счетов",
+            description = "Без параметра возвращает все счета, с userLogin - только счета указанного пользователя"
+    )
     @ApiResponse(
             responseCode = "200", 
             description = "Список счетов успешно получен",
@@ -104,8 +112,10 @@ public class AccountController {
                     )
             )
     )
-    public ResponseEntity<List<CheckAccountDTO>> getAllAccounts() {
-        List<Account> accounts = accountService.getAllAccounts();
+    public ResponseEntity<List<CheckAccountDTO>> getAllAccounts(@RequestParam(required = false) String userLogin) {
+        List<Account> accounts = userLogin == null
+                ? accountService.getAllAccounts()
+                : accountService.getAccountsByUserLogin(userLogin);
 
         List<CheckAccountDTO> accountDTOList = accounts.stream()
                 .map(account -> new CheckAccountDTO(
@@ -118,6 +128,37 @@ public class AccountController {
         return ResponseEntity.ok(accountDTOList);
     }
 
+    @PostMapping("/by-owners")
+    @Operation(
+            summary = "Получить счета нескольких пользователей",
+            description = "Возвращает счета всех пользователей из списка логинов одним запросом к базе. "
+                    + "В списке не больше " + UserServiceInterface.MAX_LOGINS_PER_REQUEST + " логинов, "
+                    + "более длинный список отклоняется с кодом 400."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Список счетов успешно получен",
+            content = @Content(
+                    mediaType = "application/json",
+                    array = @ArraySchema(
+                            schema = @Schema(
+                                    implementation = CheckAccountDTO.class
+                            )
+                    )
+            )
+    )
+    public ResponseEntity<List<CheckAccountDTO>> getAccountsByOwners(@RequestBody List<String> userLogins) {
+        List<CheckAccountDTO> accounts = accountService.getAccountsByUserLogins(userLogins).stream()
+                .map(account -> new CheckAccountDTO(
+                        account.getId(),
+                        account.getUserLogin(),
+                        account.getBalance()
+                ))
+                .toList();
+
+        return ResponseEntity.ok(accounts);
+    }
+
     @GetMapping("/{accountId}")
     @Operation(summary = "Получить счёт по ID")
     @ApiResponses(value = {
@@ -177,6 +218,15 @@ public class AccountController {
                             )
                     )
             ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Счёт изменялся параллельно, попытки повтора исчерпаны",
+                    content = @Content(
+                            schema = @Schema(
+                                    implementation = OperationResponseDTO.class
+                            )
+                    )
+            ),
             @ApiResponse(
                     responseCode = "500", 
                     description = "Ошибка при пополнении счёта",
@@ -209,6 +259,12 @@ public class AccountController {
                                     "Сумма депозита не может быть отрицательной."
                             )
                     );
+            case AccountDepositResultType.ConcurrentModification conflict ->
+                    ResponseEntity.status(409).body(
+                            OperationResponseDTO.operationFailed(
+                                    "Счёт изменяется параллельно, повторите операцию пополнения позже."
+                            )
+                    );
             case null, default ->
                     ResponseEntity.status(500).body(
                             OperationResponseDTO.operationFailed(
@@ -242,6 +298,15 @@ public class AccountController {
                             )
                     )
             ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Счёт изменялся параллельно, попытки повтора исчерпаны",
+                    content = @Content(
+                            schema = @Schema(
+                                    implementation = OperationResponseDTO.class
+                            )
+                    )
+            ),
             @ApiResponse(
                     responseCode = "500",
                     description = "Ошибка при снятии средств",
@@ -282,6 +347,12 @@ public class AccountController {
                                             + fundsError.getRequestedFunds()
                             )
                     );
+            case AccountWithdrawResultType.ConcurrentModification conflict ->
+                    ResponseEntity.status(409).body(
+                            OperationResponseDTO.operationFailed(
+                                    "Счёт изменяется параллельно, повторите операцию снятия позже."
+                            )
+                    );
             case null, default ->
                     ResponseEntity.status(500).body(
                             OperationResponseDTO.operationFailed(
@@ -315,6 +386,15 @@ public class AccountController {
                             )
                     )
             ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Счёт изменялся параллельно, попытки повтора исчерпаны",
+                    content = @Content(
+                            schema = @Schema(
+                                    implementation = OperationResponseDTO.class
+                            )
+                    )
+            ),
             @ApiResponse(
                     responseCode = "500",
                     description = "Серверная ошибка при переводе",
@@ -330,54 +410,123 @@ public class AccountController {
             @PathVariable BigInteger toAccountId,
             @RequestBody BigDecimal amount) {
         var result = accountService.transfer(fromAccountId, toAccountId, amount);
+        OperationResponseDTO response = toTransferResponse(result);
 
         return switch (result) {
-            case AccountTransferResultType.Success success ->
-                    ResponseEntity.ok(
-                            OperationResponseDTO.operationSuccess(
-                                    "Перевод успешно выполнен."
+            case AccountTransferResultType.Success success -> ResponseEntity.ok(response);
+            case AccountTransferResultType.AccountDoesNotExists err -> ResponseEntity.badRequest().body(response);
+            case AccountTransferResultType.NegativeBalance negativeBalance -> ResponseEntity.badRequest().body(response);
+            case AccountTransferResultType.InvalidAmount err -> ResponseEntity.badRequest().body(response);
+            case AccountTransferResultType.InsufficientFunds err -> ResponseEntity.badRequest().body(response);
+            case AccountTransferResultType.CanNotFindAccountOwner err -> ResponseEntity.badRequest().body(response);
+            case AccountTransferResultType.ConcurrentModification conflict -> ResponseEntity.status(409).body(response);
+            case null, default -> ResponseEntity.status(500).body(response);
+        };
+    }
+
+    @PostMapping("/transfer/batch")
+    @Operation(
+            summary = "Пакетный перевод средств",
+            description = "Выполняет список переводов за одну или несколько транзакций. "
+                    + "Результат возвращается для каждого перевода в порядке запроса вместе с его номером в запросе "
+                    + "и номером транзакции успешного перевода. В пакете не больше "
+                    + AccountServiceInterface.MAX_TRANSFERS_PER_REQUEST + " переводов, "
+                    + "более длинный пакет отклоняется с кодом 400."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Пакет обработан, результат каждого перевода указан отдельно",
+                    content = @Content(
+                            array = @ArraySchema(
+                                    schema = @Schema(
+                                            implementation = TransferBatchResultDTO.class
+                                    )
                             )
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Слишком много переводов в пакете",
+                    content = @Content(
+                            schema = @Schema(
+                                    implementation = OperationResponseDTO.class
+                            )
+                    )
+            )
+    })
+    public ResponseEntity<List<TransferBatchResultDTO>> transferBatch(
+            @RequestBody List<TransferInstructionDTO> instructions) {
+        List<TransferInstruction> batch = instructions.stream()
+                .map(instruction -> new TransferInstruction(
+                        instruction.fromAccountId(),
+                        instruction.toAccountId(),
+                        instruction.amount()))
+                .toList();
+
+        List<AccountTransferResultType> results = accountService.transferBatch(batch);
+        List<TransferBatchResultDTO> response = IntStream.range(0, results.size())
+                .mapToObj(index -> {
+                    AccountTransferResultType result = results.get(index);
+                    OperationResponseDTO operation = toTransferResponse(result);
+                    return new TransferBatchResultDTO(
+                            index,
+                            operation.isSuccess(),
+                            operation.getMessage(),
+                            result instanceof AccountTransferResultType.Success success
+                                    ? success.getTransactionId()
+                                    : null);
+                })
+                .toList();
+        return ResponseEntity.ok(response);
+    }
+
+    private OperationResponseDTO toTransferResponse(AccountTransferResultType result) {
+        return switch (result) {
+            case AccountTransferResultType.Success success ->
+                    OperationResponseDTO.operationSuccess(
+                            "Перевод успешно выполнен."
                     );
             case AccountTransferResultType.AccountDoesNotExists err ->
-                    ResponseEntity.badRequest().body(
-                            OperationResponseDTO.operationFailed(
-                                    "Счёт с ID " + err.getId() + " не найден."
-                            )
+                    OperationResponseDTO.operationFailed(
+                            "Счёт с ID " + err.getId() + " не найден."
                     );
             case AccountTransferResultType.NegativeBalance negativeBalance ->
-                    ResponseEntity.badRequest().body(
-                            OperationResponseDTO.operationFailed(
-                                    "Сумма перевода не может быть отрицательной."
-                            )
+                    OperationResponseDTO.operationFailed(
+                            "Сумма перевода не может быть отрицательной."
+                    );
+            case AccountTransferResultType.InvalidAmount err ->
+                    OperationResponseDTO.operationFailed(
+                            "Некорректная сумма перевода: " + err.getAmount() + "."
                     );
             case AccountTransferResultType.InsufficientFunds err ->
-                    ResponseEntity.badRequest().body(
-                            OperationResponseDTO.operationFailed(
-                                    "Недостаточно средств: баланс "
-                                            + err.getAccountFunds()
-                                            + ", запрошено "
-                                            + err.getRequestedFunds()
-                            )
+                    OperationResponseDTO.operationFailed(
+                            "Недостаточно средств: баланс "
+                                    + err.getAccountFunds()
+                                    + ", запрошено "
+                                    + err.getRequestedFunds()
                     );
             case AccountTransferResultType.CanNotFindAccountOwner err ->
-                    ResponseEntity.badRequest().body(
-                            OperationResponseDTO.operationFailed(
-                                    "Владелец счёта "
-                                            + err.getAccountId()
-                                            + " не найден."
-                            )
+                    OperationResponseDTO.operationFailed(
+                            "Владелец счёта "
+                                    + err.getAccountId()
+                                    + " не найден."
                     );
             case AccountTransferResultType.Failed failed ->
-                    ResponseEntity.status(500).body(
-                            OperationResponseDTO.operationFailed(
-                                    "Перевод завершился неудачей."
-                            )
+                    OperationResponseDTO.operationFailed(
+                            "Перевод завершился неудачей."
+                    );
+            case AccountTransferResultType.ConcurrentModification conflict ->
+                    OperationResponseDTO.operationFailed(
+                            "Счёт изменяется параллельно, повторите операцию перевода позже."
+                    );
+            case AccountTransferResultType.RolledBack rolledBack ->
+                    OperationResponseDTO.operationFailed(
+                            "Перевод не выполнен: часть пакета отменена из-за ошибки, повторите перевод."
                     );
             case null, default ->
-                    ResponseEntity.status(500).body(
-                            OperationResponseDTO.operationFailed(
-                                    "Ошибка при переводе средств."
-                            )
+                    OperationResponseDTO.operationFailed(
+                            "Ошибка при переводе средств."
                     );
         };
     }
@@ -1,13 +1,19 @@
 package com.kubancevvladislav.presentation.controllers;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kubancevvladislav.domain.TransactionType;
-import com.kubancevvladislav.domain.transactions.Transaction;
+import com.kubancevvladislav.domain.TransactionExportFilter;
+import com.kubancevvladislav.domain.TransactionPage;
 import com.kubancevvladislav.presentation.controllers.dto.CheckTransactionsDTO;
 import com.kubancevvladislav.presentation.controllers.dto.OperationResponseDTO;
+import com.kubancevvladislav.presentation.controllers.dto.TransactionExportFormatDTO;
 import com.kubancevvladislav.presentation.controllers.dto.TransactionTypeDTO;
 import com.kubancevvladislav.presentation.controllers.dto.transactionsDTO.TransactionDTO;
 import com.kubancevvladislav.presentation.controllers.dto.TransactionDTOMapperInterface;
+import com.kubancevvladislav.presentation.export.CsvTransactionExportWriter;
+import com.kubancevvladislav.presentation.export.NdjsonTransactionExportWriter;
+import com.kubancevvladislav.presentation.export.TransactionExportWriter;
 import com.kubancevvladislav.services.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -18,11 +24,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigInteger;
-import java.util.ArrayList;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -35,10 +44,13 @@ public class TransactionController {
     @Qualifier("transactionDTOMapperInterfaceImpl")
     TransactionDTOMapperInterface transactionMapper;
 
+    ObjectMapper objectMapper;
+
     @GetMapping("/check")
     @Operation(
             summary = "Получить все транзакции",
-            description = "Возвращает все транзакции в системе."
+            description = "Возвращает страницу транзакций в системе. Для следующей страницы " +
+                    "передайте значение nextCursor из предыдущего ответа."
     )
     @ApiResponses(value = {
             @ApiResponse(
@@ -62,13 +74,12 @@ public class TransactionController {
                     )
             )
     })
-    public ResponseEntity<CheckTransactionsDTO> checkAllTransaction() {
-        List<Transaction> transaction = transactionService.getAllTransactions();
-        CheckTransactionsDTO transactionsDTO = new CheckTransactionsDTO(new ArrayList<TransactionDTO>());
-        for (Transaction transaction_index : transaction) {
-            transactionsDTO.transactions().add(transactionMapper.toDto(transaction_index));
-        }
-        return ResponseEntity.ok().body(transactionsDTO);
+    public ResponseEntity<CheckTransactionsDTO> checkAllTransaction(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        TransactionPage page = transactionService.getTransactions(cursor, limit);
+        return ResponseEntity.ok().body(toDto(page));
     }
 
     @GetMapping("/account/{id}")
@@ -76,7 +87,8 @@ public class TransactionController {
             summary = "Получить транзакции по аккаунту и типу \n(\"deposit\" \n" +
                     "\"withdraw\"\n" +
                     "\"transfer\")",
-            description = "Возвращает транзакции для указанного аккаунта и типа."
+            description = "Возвращает транзакции для указанного аккаунта и типа. " +
+                    "Для постраничного чтения используйте /transactions/account/{id}/page."
     )
     @ApiResponses(value = {
             @ApiResponse(
@@ -115,15 +127,112 @@ public class TransactionController {
             @PathVariable BigInteger id,
             @RequestParam TransactionTypeDTO type
     ) {
+        List<TransactionDTO> result = transactionService.getAccountTransactionsByType(
+                        id,
+                        TransactionType.valueOf(type.name())
+                ).stream()
+                .map(transactionMapper::toDto)
+                .toList();
+
+        return ResponseEntity.ok(result);
+    }
 
-        List<Transaction> transactions = transactionService.getAccountTransactionsByType(
+    @GetMapping("/account/{id}/page")
+    @Operation(
+            summary = "Получить страницу транзакций по аккаунту и типу",
+            description = "Возвращает страницу транзакций для указанного аккаунта и типа. " +
+                    "Для следующей страницы передайте значение nextCursor из предыдущего ответа."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Транзакции успешно получены",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(
+                                    implementation = CheckTransactionsDTO.class
+                            )
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Ошибка: неизвестный тип транзакции или некорректный курсор",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(
+                                    implementation = OperationResponseDTO.class
+                            )
+                    )
+            )
+    })
+    public ResponseEntity<CheckTransactionsDTO> getPageByAccountAndType(
+            @PathVariable BigInteger id,
+            @RequestParam TransactionTypeDTO type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        TransactionPage page = transactionService.getAccountTransactionsByType(
                 id,
-                TransactionType.valueOf(type.name())
+                TransactionType.valueOf(type.name()),
+                cursor,
+                limit
+        );
+        return ResponseEntity.ok(toDto(page));
+    }
+
+    @GetMapping("/export")
+    @Operation(
+            summary = "Выгрузить транзакции",
+            description = "Потоково выгружает все транзакции, подходящие под фильтры, в формате NDJSON или CSV. " +
+                    "Фильтр по времени задаётся полуинтервалом [from, to)."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Выгрузка начата"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Ошибка: некорректные параметры фильтра",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(
+                                    implementation = OperationResponseDTO.class
+                            )
+                    )
+            )
+    })
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(defaultValue = "NDJSON") TransactionExportFormatDTO format,
+            @RequestParam(required = false) BigInteger accountId,
+            @RequestParam(required = false) TransactionTypeDTO type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        TransactionExportFilter filter = new TransactionExportFilter(
+                accountId,
+                type == null ? null : TransactionType.valueOf(type.name()),
+                from,
+                to
         );
-        List<TransactionDTO> result = transactions.stream()
+        StreamingResponseBody body = out -> {
+            TransactionExportWriter writer = switch (format) {
+                case NDJSON -> new NdjsonTransactionExportWriter(out, objectMapper.getFactory());
+                case CSV -> new CsvTransactionExportWriter(out);
+            };
+            transactionService.exportTransactions(filter, writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + format.fileName() + "\"")
+                .body(body);
+    }
+
+    private CheckTransactionsDTO toDto(TransactionPage page) {
+        List<TransactionDTO> transactions = page.transactions().stream()
                 .map(transactionMapper::toDto)
                 .toList();
-
-        return ResponseEntity.ok(result);
+        return new CheckTransactionsDTO(transactions, page.nextCursor());
     }
 }
@@ -24,6 +24,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.math.BigInteger;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -167,6 +168,44 @@ public class UserController {
         );
     }
 
+    @PostMapping("/by-logins")
+    @Operation(
+            summary = "Получение пользователей по списку логинов",
+            description = "Возвращает пользователей и их друзей двумя запросами к базе. "
+                    + "Логины, которых нет в системе, пропускаются. "
+                    + "В списке не больше " + UserService.MAX_LOGINS_PER_REQUEST + " логинов, "
+                    + "более длинный список отклоняется с кодом 400.")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Найденные пользователи",
+            content = @Content(
+                    mediaType = "application/json",
+                    array = @ArraySchema(
+                            schema = @Schema(
+                                    implementation = CheckUserDTO.class
+                            )
+                    )
+            )
+    )
+    public ResponseEntity<List<CheckUserDTO>> getUsersByLogins(@RequestBody List<String> logins) {
+        List<User> users = userService.getUsersByLogins(logins);
+        Map<String, List<String>> friends = userService.getUserFriendsByLogins(
+                users.stream().map(User::getLogin).toList());
+
+        List<CheckUserDTO> userDTOList = users.stream()
+                .map(user -> new CheckUserDTO(
+                        user.getLogin(),
+                        user.getName(),
+                        user.getAge(),
+                        user.getGender(),
+                        user.getHairColor(),
+                        friends.getOrDefault(user.getLogin(), List.of())
+                ))
+                .toList();
+
+        return ResponseEntity.ok(userDTOList);
+    }
+
     @GetMapping("/id/{id}")
     @Operation(
             summary = "Получение пользователя по ID",
@@ -5,5 +5,9 @@ import io.swagger.v3.oas.annotations.media.Schema;
 
 import java.util.List;
 
-@Schema(description = "DTO для возврата списка транзакций")
-public record CheckTransactionsDTO (List<TransactionDTO> transactions) {}
+@Schema(description = "DTO для возврата страницы транзакций")
+public record CheckTransactionsDTO (
+        List<TransactionDTO> transactions,
+        @Schema(description = "Курсор следующей страницы; отсутствует на последней странице")
+        String nextCursor
+) {}
@@ -0,0 +1,14 @@
+package com.kubancevvladislav.presentation.controllers.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigInteger;
+
+@Schema(description = "Результат перевода в составе пакета")
+public record TransferBatchResultDTO(
+        @Schema(description = "Номер перевода в запросе, начиная с нуля")
+        int index,
+        boolean success,
+        String message,
+        @Schema(description = "Номер транзакции успешного перевода")
+        BigInteger transactionId) {}
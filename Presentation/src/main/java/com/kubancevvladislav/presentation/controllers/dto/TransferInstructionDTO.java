@@ -0,0 +1,12 @@
+package com.kubancevvladislav.presentation.controllers.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+@Schema(description = "Перевод в составе пакета")
+public record TransferInstructionDTO(
+        BigInteger fromAccountId,
+        BigInteger toAccountId,
+        BigDecimal amount) {}
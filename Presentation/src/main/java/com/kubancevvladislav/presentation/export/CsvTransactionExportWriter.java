@@ -0,0 +1,96 @@
+package com.kubancevvladislav.presentation.export;
+
+import com.kubancevvladislav.domain.TransactionType;
+import com.kubancevvladislav.domain.transactions.DepositTransaction;
+import com.kubancevvladislav.domain.transactions.Transaction;
+import com.kubancevvladislav.domain.transactions.TransferTransaction;
+import com.kubancevvladislav.domain.transactions.WithdrawTransaction;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Выгрузка транзакций в формате CSV с заголовком.
+ * Все столбцы числовые, перечислимые или ISO-даты, поэтому экранирование не требуется;
+ * неприменимые к типу транзакции столбцы остаются пустыми.
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+public class CsvTransactionExportWriter implements TransactionExportWriter {
+    /** Строка заголовка */
+    private static final String HEADER =
+            "transaction_id,type,amount,timestamp,account_id,sender_account_id,receiver_account_id,commission\n";
+    /** Размер буфера перед потоком ответа */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Буферизованный поток ответа */
+    private final Writer writer;
+    /** Признак того, что заголовок уже записан */
+    private boolean headerWritten;
+
+    public CsvTransactionExportWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    @Override
+    public void accept(Transaction transaction) {
+        try {
+            writeHeaderIfNeeded();
+            switch (transaction) {
+                case DepositTransaction deposit ->
+                        writeRow(transaction, TransactionType.DEPOSIT, deposit.getAccountId(), null, null, null);
+                case WithdrawTransaction withdraw ->
+                        writeRow(transaction, TransactionType.WITHDRAWAL, withdraw.getAccountId(), null, null, null);
+                case TransferTransaction transfer -> writeRow(
+                        transaction,
+                        TransactionType.TRANSFER,
+                        null,
+                        transfer.getSenderAccountId(),
+                        transfer.getReceiverAccountId(),
+                        transfer.getCommission());
+                default -> throw new IllegalArgumentException("Unknown type: " + transaction.getClass());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeHeaderIfNeeded();
+        writer.flush();
+    }
+
+    private void writeHeaderIfNeeded() throws IOException {
+        if (!headerWritten) {
+            writer.write(HEADER);
+            headerWritten = true;
+        }
+    }
+
+    private void writeRow(Transaction transaction, TransactionType type, Object... columns) throws IOException {
+        writer.write(valueOf(transaction.getTransactionId()));
+        writer.write(',');
+        writer.write(type.name());
+        writer.write(',');
+        writer.write(valueOf(transaction.getAmount()));
+        writer.write(',');
+        writer.write(valueOf(transaction.getTimestamp()));
+        for (Object column : columns) {
+            writer.write(',');
+            writer.write(valueOf(column));
+        }
+        writer.write('\n');
+    }
+
+    private static String valueOf(Object value) {
+        return value == null ? "" : value.toString();
+    }
+}
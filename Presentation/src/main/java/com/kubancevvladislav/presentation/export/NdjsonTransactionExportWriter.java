@@ -0,0 +1,86 @@
+package com.kubancevvladislav.presentation.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.kubancevvladislav.domain.TransactionType;
+import com.kubancevvladislav.domain.transactions.DepositTransaction;
+import com.kubancevvladislav.domain.transactions.Transaction;
+import com.kubancevvladislav.domain.transactions.TransferTransaction;
+import com.kubancevvladislav.domain.transactions.WithdrawTransaction;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Выгрузка транзакций в формате NDJSON: один JSON-объект на строку.
+ * Объекты пишутся напрямую в {@link JsonGenerator} без промежуточных DTO.
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+public class NdjsonTransactionExportWriter implements TransactionExportWriter {
+    /** Генератор, пишущий в поток ответа */
+    private final JsonGenerator generator;
+
+    public NdjsonTransactionExportWriter(OutputStream out, JsonFactory jsonFactory) {
+        try {
+            this.generator = jsonFactory.createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .setRootValueSeparator(null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void accept(Transaction transaction) {
+        try {
+            generator.writeStartObject();
+            writeNumber("transactionId", transaction.getTransactionId());
+            switch (transaction) {
+                case DepositTransaction deposit -> {
+                    generator.writeStringField("type", TransactionType.DEPOSIT.name());
+                    writeNumber("accountId", deposit.getAccountId());
+                }
+                case WithdrawTransaction withdraw -> {
+                    generator.writeStringField("type", TransactionType.WITHDRAWAL.name());
+                    writeNumber("accountId", withdraw.getAccountId());
+                }
+                case TransferTransaction transfer -> {
+                    generator.writeStringField("type", TransactionType.TRANSFER.name());
+                    writeNumber("senderAccountId", transfer.getSenderAccountId());
+                    writeNumber("receiverAccountId", transfer.getReceiverAccountId());
+                    writeNumber("commission", transfer.getCommission());
+                }
+                default -> throw new IllegalArgumentException("Unknown type: " + transaction.getClass());
+            }
+            writeNumber("amount", transaction.getAmount());
+            generator.writeStringField(
+                    "timestamp",
+                    transaction.getTimestamp() == null ? null : transaction.getTimestamp().toString());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    private void writeNumber(String field, BigInteger value) throws IOException {
+        generator.writeFieldName(field);
+        generator.writeNumber(value);
+    }
+
+    private void writeNumber(String field, BigDecimal value) throws IOException {
+        generator.writeFieldName(field);
+        generator.writeNumber(value);
+    }
+}
@@ -0,0 +1,17 @@
+package com.kubancevvladislav.presentation.export;
+
+import com.kubancevvladislav.domain.transactions.Transaction;
+
+import java.io.Flushable;
+import java.util.function.Consumer;
+
+/**
+ * Записывает транзакции в поток ответа по одной по мере их чтения из базы данных.
+ * Ошибки ввода-вывода передаются как {@link java.io.UncheckedIOException}, чтобы прервать выгрузку.
+ * @author Кубанцев Владислав
+ * @version 1.0
+ * @since 1.3
+ * @see <a href="https://github.com/Mangust1333">GitHub: Mangust1333</a>
+ */
+public interface TransactionExportWriter extends Consumer<Transaction>, Flushable {
+}
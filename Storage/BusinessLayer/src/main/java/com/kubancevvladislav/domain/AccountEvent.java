@@ -4,6 +4,7 @@ import com.kubancevvladislav.entities.AccountEventEntity;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+import java.math.BigDecimal;
 import java.math.BigInteger;
 
 @Data
@@ -11,18 +12,49 @@ import java.math.BigInteger;
 public class AccountEvent {
     private BigInteger accountId;
     private Object payload;
+    /** Запись Kafka, из которой получено событие, или {@code null} */
+    private EventSource source;
+
+    public AccountEvent(BigInteger accountId, Object payload) {
+        this(accountId, payload, null);
+    }
+
+    /**
+     * @return тип события, по которому строится выборка, или {@code null}
+     */
+    public String getEventType() {
+        return EventAttributes.eventType(payload);
+    }
+
+    /**
+     * @return сумма операции или {@code null}, если событие её не содержит
+     */
+    public BigDecimal getAmount() {
+        return EventAttributes.amount(payload);
+    }
 
     public AccountEventEntity toAccountEventEntity() {
         AccountEventEntity accountEventEntity = new AccountEventEntity();
         accountEventEntity.setAccountId(accountId);
+        accountEventEntity.setEventType(getEventType());
+        accountEventEntity.setAmount(getAmount());
         accountEventEntity.setPayload(payload);
+        if (source != null) {
+            accountEventEntity.setSourceTopic(source.topic());
+            accountEventEntity.setSourcePartition(source.partition());
+            accountEventEntity.setSourceOffset(source.offset());
+        }
         return accountEventEntity;
     }
 
     public static AccountEvent fromAccountEventEntity(AccountEventEntity accountEventEntity) {
         return new AccountEvent(
                 accountEventEntity.getAccountId(),
-                accountEventEntity.getPayload()
+                accountEventEntity.getPayload(),
+                accountEventEntity.getSourceTopic() == null ? null : new EventSource(
+                        accountEventEntity.getSourceTopic(),
+                        accountEventEntity.getSourcePartition(),
+                        accountEventEntity.getSourceOffset())
         );
     }
 }
\ No newline at end of file
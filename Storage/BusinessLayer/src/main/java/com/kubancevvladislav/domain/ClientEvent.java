@@ -9,18 +9,41 @@ import lombok.Data;
 public class ClientEvent {
     private String clientLogin;
     private Object payload;
+    /** Запись Kafka, из которой получено событие, или {@code null} */
+    private EventSource source;
+
+    public ClientEvent(String clientLogin, Object payload) {
+        this(clientLogin, payload, null);
+    }
+
+    /**
+     * @return тип события, по которому строится выборка, или {@code null}
+     */
+    public String getEventType() {
+        return EventAttributes.eventType(payload);
+    }
 
     public ClientEventEntity toClientEventEntity() {
         ClientEventEntity clientEventEntity = new ClientEventEntity();
         clientEventEntity.setClientLogin(clientLogin);
+        clientEventEntity.setEventType(getEventType());
         clientEventEntity.setPayload(payload);
+        if (source != null) {
+            clientEventEntity.setSourceTopic(source.topic());
+            clientEventEntity.setSourcePartition(source.partition());
+            clientEventEntity.setSourceOffset(source.offset());
+        }
         return clientEventEntity;
     }
 
     public static ClientEvent fromClientEventEntity(ClientEventEntity clientEventEntity) {
         return new ClientEvent(
                 clientEventEntity.getClientLogin(),
-                clientEventEntity.getPayload()
+                clientEventEntity.getPayload(),
+                clientEventEntity.getSourceTopic() == null ? null : new EventSource(
+                        clientEventEntity.getSourceTopic(),
+                        clientEventEntity.getSourcePartition(),
+                        clientEventEntity.getSourceOffset())
         );
     }
 }
\ No newline at end of file
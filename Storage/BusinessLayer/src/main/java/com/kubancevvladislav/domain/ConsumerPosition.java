@@ -0,0 +1,12 @@
+package com.kubancevvladislav.domain;
+
+import com.kubancevvladislav.repositories.ConsumerOffset;
+
+import java.util.List;
+
+/**
+ * Позиция группы потребителей после пачки событий.
+ * Сохраняется тем же действием хранилища, что и пачка, чтобы события и позиция не расходились.
+ */
+public record ConsumerPosition(String groupId, List<ConsumerOffset> offsets) {
+}
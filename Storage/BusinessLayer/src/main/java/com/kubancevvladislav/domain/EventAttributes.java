@@ -0,0 +1,39 @@
+package com.kubancevvladislav.domain;
+
+import com.kubancevvladislav.events.Deposited;
+import com.kubancevvladislav.events.DomainEvent;
+import com.kubancevvladislav.events.Transferred;
+import com.kubancevvladislav.events.Withdrawn;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Поля тела события, которые хранятся в отдельных индексируемых столбцах.
+ */
+final class EventAttributes {
+    /** Поле с типом события в прежнем JSON-формате */
+    private static final String LEGACY_TYPE_FIELD = "eventName";
+
+    private EventAttributes() {
+    }
+
+    static String eventType(Object payload) {
+        if (payload instanceof DomainEvent event) {
+            return event.getClass().getSimpleName();
+        }
+        if (payload instanceof Map<?, ?> map && map.get(LEGACY_TYPE_FIELD) instanceof String name) {
+            return name;
+        }
+        return null;
+    }
+
+    static BigDecimal amount(Object payload) {
+        return switch (payload) {
+            case Deposited event -> event.amount();
+            case Withdrawn event -> event.amount();
+            case Transferred event -> event.amount();
+            case null, default -> null;
+        };
+    }
+}
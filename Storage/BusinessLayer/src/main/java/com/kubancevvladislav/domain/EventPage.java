@@ -0,0 +1,10 @@
+package com.kubancevvladislav.domain;
+
+import java.util.List;
+
+/**
+ * Страница истории событий, упорядоченная от новых к старым.
+ * {@code nextCursor} равен {@code null}, если страница последняя.
+ */
+public record EventPage<T>(List<T> events, String nextCursor) {
+}
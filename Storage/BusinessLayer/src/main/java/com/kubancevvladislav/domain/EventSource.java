@@ -0,0 +1,8 @@
+package com.kubancevvladislav.domain;
+
+/**
+ * Запись Kafka, из которой получено событие.
+ * Хранится вместе с событием под уникальным ограничением, так что повторная доставка той же записи не создаёт дубль.
+ */
+public record EventSource(String topic, int partition, long offset) {
+}
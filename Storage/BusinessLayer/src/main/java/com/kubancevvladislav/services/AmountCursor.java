@@ -0,0 +1,30 @@
+package com.kubancevvladislav.services;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Позиция последнего события страницы в порядке {@code (amount, id)}.
+ * Клиенту передаётся в виде непрозрачного токена Base64.
+ */
+record AmountCursor(BigDecimal amount, Long id) {
+    private static final char SEPARATOR = '|';
+
+    String encode() {
+        String raw = amount.toPlainString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static AmountCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return new AmountCursor(
+                    new BigDecimal(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Некорректный курсор страницы: " + token);
+        }
+    }
+}
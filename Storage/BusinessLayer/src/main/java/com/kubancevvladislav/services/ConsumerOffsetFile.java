@@ -0,0 +1,106 @@
+package com.kubancevvladislav.services;
+
+import com.kubancevvladislav.domain.ConsumerPosition;
+import com.kubancevvladislav.repositories.ConsumerOffset;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Позиции групп потребителей журнала событий в файле рядом с сегментами.
+ * Файл переписывается целиком через временный и атомарное переименование, поэтому после сбоя
+ * в нём остаётся прежнее или новое содержимое, но не их смесь. Позиция никогда не возвращается назад.
+ */
+final class ConsumerOffsetFile {
+    private static final char SEPARATOR = '/';
+
+    private final Path file;
+    private final Path temporary;
+    private final Map<Key, Long> offsets = new HashMap<>();
+
+    /**
+     * Читает сохранённые позиции, если файл уже есть.
+     */
+    ConsumerOffsetFile(Path file) throws IOException {
+        this.file = file;
+        this.temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        if (Files.exists(file)) {
+            Properties stored = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                stored.load(reader);
+            }
+            for (String name : stored.stringPropertyNames()) {
+                offsets.put(Key.parse(name), Long.parseLong(stored.getProperty(name)));
+            }
+        }
+    }
+
+    /**
+     * Сдвигает позиции вперёд и переписывает файл.
+     * @param force сбросить файл на диск до переименования
+     */
+    synchronized void save(ConsumerPosition position, boolean force) throws IOException {
+        Map<Key, Long> updated = new HashMap<>(offsets);
+        for (ConsumerOffset offset : position.offsets()) {
+            Key key = new Key(position.groupId(), offset.topic(), offset.partition());
+            updated.merge(key, offset.nextOffset(), Math::max);
+        }
+        if (!updated.equals(offsets)) {
+            write(updated, force);
+            offsets.putAll(updated);
+        }
+    }
+
+    synchronized List<ConsumerOffset> find(String groupId, String topic) {
+        List<ConsumerOffset> found = new ArrayList<>();
+        offsets.forEach((key, nextOffset) -> {
+            if (key.groupId().equals(groupId) && key.topic().equals(topic)) {
+                found.add(new ConsumerOffset(topic, key.partition(), nextOffset));
+            }
+        });
+        return found;
+    }
+
+    private void write(Map<Key, Long> content, boolean force) throws IOException {
+        Properties stored = new Properties();
+        content.forEach((key, nextOffset) -> stored.setProperty(key.format(), Long.toString(nextOffset)));
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            stored.store(out, null);
+            out.flush();
+            if (force) {
+                channel.force(true);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Раздел топика в группе. В имени свойства группа идёт последней:
+     * в имени топика и номере раздела разделителя быть не может, а в имени группы - может.
+     */
+    private record Key(String groupId, String topic, int partition) {
+        String format() {
+            return topic + SEPARATOR + partition + SEPARATOR + groupId;
+        }
+
+        static Key parse(String name) {
+            String[] parts = name.split(String.valueOf(SEPARATOR), 3);
+            return new Key(parts[2], parts[0], Integer.parseInt(parts[1]));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.kubancevvladislav.services;
+
+import com.kubancevvladislav.domain.EventPage;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Общие правила постраничного чтения истории в порядке {@code (timestamp DESC, id DESC)}.
+ */
+final class EventPages {
+    /** Границы интервала, если клиент их не указал */
+    static final Instant UNBOUNDED_FROM = Instant.EPOCH;
+    static final Instant UNBOUNDED_TO = Instant.parse("9999-12-31T23:59:59Z");
+
+    private EventPages() {
+    }
+
+    static Instant from(Instant from) {
+        return from == null ? UNBOUNDED_FROM : from;
+    }
+
+    /**
+     * Первая страница начинается строго до {@code to}, следующие - строго после последнего
+     * события предыдущей страницы.
+     */
+    static EventCursor startPosition(Instant to, String cursor) {
+        if (cursor != null && !cursor.isBlank()) {
+            return EventCursor.decode(cursor);
+        }
+        return new EventCursor(to == null ? UNBOUNDED_TO : to, Long.MIN_VALUE);
+    }
+
+    /**
+     * Собирает страницу из {@code size + 1} прочитанных записей:
+     * лишняя запись означает, что следующая страница существует.
+     */
+    static <E, T> EventPage<T> toPage(
+            List<E> entities,
+            int size,
+            Function<E, T> mapper,
+            Function<E, Instant> timestamp,
+            Function<E, Long> id) {
+        boolean hasNext = entities.size() > size;
+        List<E> page = hasNext ? entities.subList(0, size) : entities;
+        String nextCursor = null;
+        if (hasNext) {
+            E last = page.getLast();
+            nextCursor = new EventCursor(timestamp.apply(last), id.apply(last)).encode();
+        }
+        return new EventPage<>(page.stream().map(mapper).toList(), nextCursor);
+    }
+}
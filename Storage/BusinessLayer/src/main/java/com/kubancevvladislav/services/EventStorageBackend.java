@@ -0,0 +1,80 @@
+package com.kubancevvladislav.services;
+
+import com.kubancevvladislav.domain.AccountEvent;
+import com.kubancevvladislav.domain.ClientEvent;
+import com.kubancevvladislav.domain.ConsumerPosition;
+import com.kubancevvladislav.domain.EventPage;
+import com.kubancevvladislav.repositories.ConsumerOffset;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Хранилище событий, за которым стоит {@link EventStorageService}.
+ * Реализация выбирается свойством {@code storage.backend}: {@code jpa} - таблицы PostgreSQL,
+ * {@code segment-log} - журнал на локальном диске без базы данных.
+ * Размер страницы приходит уже ограниченным сервисом.
+ */
+public interface EventStorageBackend {
+    /**
+     * Сохраняет пачку событий. Если передана позиция потребителя, она сохраняется вместе с пачкой
+     * и атомарно с ней, а события, уже сохранённые из тех же записей Kafka, пропускаются.
+     * @param position позиция группы после пачки или {@code null}
+     */
+    void saveAccountEvents(List<AccountEvent> accountEvents, ConsumerPosition position);
+
+    /**
+     * @see #saveAccountEvents(List, ConsumerPosition)
+     */
+    void saveClientEvents(List<ClientEvent> clientEvents, ConsumerPosition position);
+
+    /**
+     * Массовая загрузка пачки; по умолчанию то же, что {@link #saveAccountEvents(List, ConsumerPosition)}.
+     */
+    default void copyAccountEvents(List<AccountEvent> accountEvents, ConsumerPosition position) {
+        saveAccountEvents(accountEvents, position);
+    }
+
+    /**
+     * Массовая загрузка пачки; по умолчанию то же, что {@link #saveClientEvents(List, ConsumerPosition)}.
+     */
+    default void copyClientEvents(List<ClientEvent> clientEvents, ConsumerPosition position) {
+        saveClientEvents(clientEvents, position);
+    }
+
+    /**
+     * Позиции группы в разделах топика, сохранённые вместе с событиями.
+     * Пустой список означает, что хранилище позиций не ведёт и чтение продолжается с позиций, зафиксированных в Kafka.
+     */
+    List<ConsumerOffset> findConsumerOffsets(String groupId, String topic);
+
+    AccountEvent getAccountEventById(Long id);
+
+    ClientEvent getClientEventById(Long id);
+
+    EventPage<AccountEvent> getAccountEventsByAccountId(
+            BigInteger accountId, Instant from, Instant to, String cursor, int pageSize);
+
+    EventPage<ClientEvent> getClientEventsByLogin(
+            String login, Instant from, Instant to, String cursor, int pageSize);
+
+    EventPage<AccountEvent> getAccountEventsByTypeAndAmount(
+            String eventType, BigDecimal minAmount, BigDecimal maxAmount, String cursor, int pageSize);
+
+    EventPage<ClientEvent> getClientEventsByType(String eventType, String cursor, int pageSize);
+
+    /**
+     * @return курсор следующей страницы или {@code null}, если страница последняя
+     */
+    String writeRawAccountEvents(
+            BigInteger accountId, Instant from, Instant to, String cursor, int pageSize, OutputStream out);
+
+    /**
+     * @return курсор следующей страницы или {@code null}, если страница последняя
+     */
+    String writeRawClientEvents(
+            String login, Instant from, Instant to, String cursor, int pageSize, OutputStream out);
+}
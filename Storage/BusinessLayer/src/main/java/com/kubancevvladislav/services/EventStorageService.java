@@ -2,22 +2,28 @@ package com.kubancevvladislav.services;
 
 import com.kubancevvladislav.domain.AccountEvent;
 import com.kubancevvladislav.domain.ClientEvent;
-import com.kubancevvladislav.entities.AccountEventEntity;
-import com.kubancevvladislav.entities.ClientEventEntity;
-import com.kubancevvladislav.repositories.AccountEventRepository;
-import com.kubancevvladislav.repositories.ClientEventRepository;
-import jakarta.persistence.EntityNotFoundException;
+import com.kubancevvladislav.domain.ConsumerPosition;
+import com.kubancevvladislav.domain.EventPage;
+import com.kubancevvladislav.repositories.ConsumerOffset;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.time.Instant;
 import java.util.List;
 
+/**
+ * Приём и чтение событий. Хранение делегируется {@link EventStorageBackend}.
+ */
 @Service
 @AllArgsConstructor
 public class EventStorageService {
-    private final AccountEventRepository accountEventRepository;
-    private final ClientEventRepository clientEventRepository;
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final EventStorageBackend backend;
 
     public void handleClientEvent(String key, Object payload) {
         saveClientEvent(new ClientEvent(key, payload));
@@ -27,39 +33,137 @@ public class EventStorageService {
         saveAccountEvent(new AccountEvent(new BigInteger(key), payload));
     }
 
+    /**
+     * Сохраняет пачку событий счетов одной операцией хранилища.
+     */
+    public void saveAccountEvents(List<AccountEvent> accountEvents) {
+        backend.saveAccountEvents(accountEvents, null);
+    }
+
+    /**
+     * Сохраняет пачку событий счетов вместе с позицией потребителя, прочитавшего их из Kafka.
+     */
+    public void saveAccountEvents(List<AccountEvent> accountEvents, ConsumerPosition position) {
+        backend.saveAccountEvents(accountEvents, position);
+    }
+
+    /**
+     * Сохраняет пачку событий клиентов одной операцией хранилища.
+     */
+    public void saveClientEvents(List<ClientEvent> clientEvents) {
+        backend.saveClientEvents(clientEvents, null);
+    }
+
+    /**
+     * Сохраняет пачку событий клиентов вместе с позицией потребителя, прочитавшего их из Kafka.
+     */
+    public void saveClientEvents(List<ClientEvent> clientEvents, ConsumerPosition position) {
+        backend.saveClientEvents(clientEvents, position);
+    }
+
+    /**
+     * Загружает пачку событий счетов массовой загрузкой хранилища вместе с позицией потребителя.
+     */
+    public void copyAccountEvents(List<AccountEvent> accountEvents, ConsumerPosition position) {
+        backend.copyAccountEvents(accountEvents, position);
+    }
+
+    /**
+     * Загружает пачку событий клиентов массовой загрузкой хранилища вместе с позицией потребителя.
+     */
+    public void copyClientEvents(List<ClientEvent> clientEvents, ConsumerPosition position) {
+        backend.copyClientEvents(clientEvents, position);
+    }
+
+    /**
+     * Позиции группы в разделах топика, сохранённые вместе с событиями.
+     */
+    public List<ConsumerOffset> findConsumerOffsets(String groupId, String topic) {
+        return backend.findConsumerOffsets(groupId, topic);
+    }
+
     public void saveClientEvent(ClientEvent clientEvent) {
-        clientEventRepository.save(clientEvent.toClientEventEntity());
+        saveClientEvents(List.of(clientEvent));
     }
 
 
     public void saveAccountEvent(AccountEvent accountEvent) {
-        accountEventRepository.save(accountEvent.toAccountEventEntity());
+        saveAccountEvents(List.of(accountEvent));
     }
 
     public ClientEvent getClientEventById(Long id) {
-        ClientEventEntity entity = clientEventRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("ClientEvent с id " + id + " не найден"));
+        return backend.getClientEventById(id);
+    }
+
+    public AccountEvent getAccountEventById(Long id) {
+        return backend.getAccountEventById(id);
+    }
 
+    /**
+     * Возвращает историю счёта от новых событий к старым.
+     * @param from начало интервала времени включительно или {@code null}
+     * @param to конец интервала времени не включительно или {@code null}
+     * @param cursor токен из {@link EventPage#nextCursor()} или {@code null} для первой страницы
+     */
+    public EventPage<AccountEvent> getAccountEventsByAccountId(
+            BigInteger accountId, Instant from, Instant to, String cursor, int pageSize) {
+        return backend.getAccountEventsByAccountId(accountId, from, to, cursor, pageSize(pageSize));
+    }
 
-        return ClientEvent.fromClientEventEntity(entity);
+    /**
+     * Возвращает историю клиента от новых событий к старым.
+     * @see #getAccountEventsByAccountId(BigInteger, Instant, Instant, String, int)
+     */
+    public EventPage<ClientEvent> getClientEventsByLogin(
+            String login, Instant from, Instant to, String cursor, int pageSize) {
+        return backend.getClientEventsByLogin(login, from, to, cursor, pageSize(pageSize));
     }
 
-    public AccountEvent getAccountEventById(Long id) {
-        AccountEventEntity entity = accountEventRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("AccountEvent с id " + id + " не найден"));
+    /**
+     * Возвращает события счетов указанного типа с суммой из интервала в порядке возрастания суммы.
+     * @param minAmount нижняя граница суммы включительно или {@code null}
+     * @param maxAmount верхняя граница суммы включительно или {@code null}
+     * @param cursor токен из {@link EventPage#nextCursor()} или {@code null} для первой страницы
+     */
+    public EventPage<AccountEvent> getAccountEventsByTypeAndAmount(
+            String eventType, BigDecimal minAmount, BigDecimal maxAmount, String cursor, int pageSize) {
+        return backend.getAccountEventsByTypeAndAmount(eventType, minAmount, maxAmount, cursor, pageSize(pageSize));
+    }
+
+    /**
+     * Возвращает события клиентов указанного типа от новых к старым.
+     * @param cursor токен из {@link EventPage#nextCursor()} или {@code null} для первой страницы
+     */
+    public EventPage<ClientEvent> getClientEventsByType(String eventType, String cursor, int pageSize) {
+        return backend.getClientEventsByType(eventType, cursor, pageSize(pageSize));
+    }
 
-        return AccountEvent.fromAccountEventEntity(entity);
+    /**
+     * Записывает страницу истории счёта в поток JSON-объектом {@code {"events":[...],"nextCursor":...}},
+     * копируя сохранённые тела событий без разбора.
+     * Порядок и курсор те же, что у {@link #getAccountEventsByAccountId}.
+     * @return курсор следующей страницы или {@code null}, если страница последняя
+     */
+    public String writeRawAccountEvents(
+            BigInteger accountId, Instant from, Instant to, String cursor, int pageSize, OutputStream out) {
+        return backend.writeRawAccountEvents(accountId, from, to, cursor, pageSize(pageSize), out);
     }
 
-    public List<AccountEvent> getAccountEventsByAccountId(BigInteger accountId) {
-        return accountEventRepository.findAccountEventEntitiesByAccountId(accountId).stream()
-                .map(AccountEvent::fromAccountEventEntity)
-                .toList();
+    /**
+     * Записывает страницу истории клиента в поток JSON-объектом {@code {"events":[...],"nextCursor":...}},
+     * копируя сохранённые тела событий без разбора.
+     * @return курсор следующей страницы или {@code null}, если страница последняя
+     * @see #writeRawAccountEvents(BigInteger, Instant, Instant, String, int, OutputStream)
+     */
+    public String writeRawClientEvents(
+            String login, Instant from, Instant to, String cursor, int pageSize, OutputStream out) {
+        return backend.writeRawClientEvents(login, from, to, cursor, pageSize(pageSize), out);
     }
 
-    public List<ClientEvent> getClientEventsByLogin(String login) {
-        return clientEventRepository.findClientEventEntitiesByClientLogin(login).stream()
-                .map(ClientEvent::fromClientEventEntity)
-                .toList();
+    private static int pageSize(int requested) {
+        if (requested <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
     }
 }
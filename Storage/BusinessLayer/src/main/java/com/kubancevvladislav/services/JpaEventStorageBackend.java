@@ -0,0 +1,219 @@
+package com.kubancevvladislav.services;
+
+import com.kubancevvladislav.domain.AccountEvent;
+import com.kubancevvladislav.domain.ClientEvent;
+import com.kubancevvladislav.domain.ConsumerPosition;
+import com.kubancevvladislav.domain.EventPage;
+import com.kubancevvladislav.entities.AccountEventEntity;
+import com.kubancevvladislav.entities.ClientEventEntity;
+import com.kubancevvladislav.repositories.AccountEventRepository;
+import com.kubancevvladislav.repositories.ClientEventRepository;
+import com.kubancevvladislav.repositories.ConsumerOffset;
+import com.kubancevvladislav.repositories.ConsumerOffsetRepository;
+import com.kubancevvladislav.repositories.EventBatchRepository;
+import com.kubancevvladislav.repositories.EventCopyRepository;
+import com.kubancevvladislav.repositories.EventRawRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Хранилище событий в таблицах PostgreSQL.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "jpa", matchIfMissing = true)
+@AllArgsConstructor
+public class JpaEventStorageBackend implements EventStorageBackend {
+    private static final BigDecimal UNBOUNDED_MIN_AMOUNT = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal UNBOUNDED_MAX_AMOUNT = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    private final AccountEventRepository accountEventRepository;
+    private final ClientEventRepository clientEventRepository;
+    private final EventBatchRepository eventBatchRepository;
+    private final EventCopyRepository eventCopyRepository;
+    private final EventRawRepository eventRawRepository;
+    private final ConsumerOffsetRepository consumerOffsetRepository;
+
+    /**
+     * Сохраняет пачку событий счетов и позицию потребителя одной транзакцией и одним пакетным {@code INSERT}.
+     */
+    @Override
+    @Transactional
+    public void saveAccountEvents(List<AccountEvent> accountEvents, ConsumerPosition position) {
+        eventBatchRepository.insertAccountEvents(accountEvents.stream()
+                .map(AccountEvent::toAccountEventEntity)
+                .toList());
+        savePosition(position);
+    }
+
+    /**
+     * Сохраняет пачку событий клиентов и позицию потребителя одной транзакцией и одним пакетным {@code INSERT}.
+     */
+    @Override
+    @Transactional
+    public void saveClientEvents(List<ClientEvent> clientEvents, ConsumerPosition position) {
+        eventBatchRepository.insertClientEvents(clientEvents.stream()
+                .map(ClientEvent::toClientEventEntity)
+                .toList());
+        savePosition(position);
+    }
+
+    /**
+     * Загружает пачку событий счетов командой {@code COPY} и сохраняет позицию потребителя одной транзакцией.
+     */
+    @Override
+    @Transactional
+    public void copyAccountEvents(List<AccountEvent> accountEvents, ConsumerPosition position) {
+        eventCopyRepository.copyAccountEvents(accountEvents.stream()
+                .map(AccountEvent::toAccountEventEntity)
+                .toList());
+        savePosition(position);
+    }
+
+    /**
+     * Загружает пачку событий клиентов командой {@code COPY} и сохраняет позицию потребителя одной транзакцией.
+     */
+    @Override
+    @Transactional
+    public void copyClientEvents(List<ClientEvent> clientEvents, ConsumerPosition position) {
+        eventCopyRepository.copyClientEvents(clientEvents.stream()
+                .map(ClientEvent::toClientEventEntity)
+                .toList());
+        savePosition(position);
+    }
+
+    @Override
+    public List<ConsumerOffset> findConsumerOffsets(String groupId, String topic) {
+        return consumerOffsetRepository.findByTopic(groupId, topic);
+    }
+
+    @Override
+    public AccountEvent getAccountEventById(Long id) {
+        AccountEventEntity entity = accountEventRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("AccountEvent с id " + id + " не найден"));
+
+        return AccountEvent.fromAccountEventEntity(entity);
+    }
+
+    @Override
+    public ClientEvent getClientEventById(Long id) {
+        ClientEventEntity entity = clientEventRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("ClientEvent с id " + id + " не найден"));
+
+        return ClientEvent.fromClientEventEntity(entity);
+    }
+
+    /**
+     * Каждая страница читается по курсору {@code (timestamp, id)} из индекса, поэтому время запроса
+     * не зависит от числа событий счёта.
+     */
+    @Override
+    public EventPage<AccountEvent> getAccountEventsByAccountId(
+            BigInteger accountId, Instant from, Instant to, String cursor, int pageSize) {
+        EventCursor position = EventPages.startPosition(to, cursor);
+        List<AccountEventEntity> entities = accountEventRepository.findPageBefore(
+                accountId,
+                EventPages.from(from),
+                position.timestamp(),
+                position.id(),
+                Limit.of(pageSize + 1));
+        return EventPages.toPage(entities, pageSize, AccountEvent::fromAccountEventEntity,
+                AccountEventEntity::getTimestamp, AccountEventEntity::getId);
+    }
+
+    @Override
+    public EventPage<ClientEvent> getClientEventsByLogin(
+            String login, Instant from, Instant to, String cursor, int pageSize) {
+        EventCursor position = EventPages.startPosition(to, cursor);
+        List<ClientEventEntity> entities = clientEventRepository.findPageBefore(
+                login,
+                EventPages.from(from),
+                position.timestamp(),
+                position.id(),
+                Limit.of(pageSize + 1));
+        return EventPages.toPage(entities, pageSize, ClientEvent::fromClientEventEntity,
+                ClientEventEntity::getTimestamp, ClientEventEntity::getId);
+    }
+
+    /**
+     * Страница читается по курсору {@code (amount, id)} из индекса {@code (event_type, amount, id)}.
+     */
+    @Override
+    public EventPage<AccountEvent> getAccountEventsByTypeAndAmount(
+            String eventType, BigDecimal minAmount, BigDecimal maxAmount, String cursor, int pageSize) {
+        AmountCursor position = cursor == null || cursor.isBlank()
+                ? new AmountCursor(minAmount == null ? UNBOUNDED_MIN_AMOUNT : minAmount, Long.MIN_VALUE)
+                : AmountCursor.decode(cursor);
+        List<AccountEventEntity> entities = accountEventRepository.findByTypeAndAmountAfter(
+                eventType,
+                maxAmount == null ? UNBOUNDED_MAX_AMOUNT : maxAmount,
+                position.amount(),
+                position.id(),
+                Limit.of(pageSize + 1));
+        boolean hasNext = entities.size() > pageSize;
+        List<AccountEventEntity> page = hasNext ? entities.subList(0, pageSize) : entities;
+        String nextCursor = null;
+        if (hasNext) {
+            AccountEventEntity last = page.getLast();
+            nextCursor = new AmountCursor(last.getAmount(), last.getId()).encode();
+        }
+        return new EventPage<>(page.stream().map(AccountEvent::fromAccountEventEntity).toList(), nextCursor);
+    }
+
+    @Override
+    public EventPage<ClientEvent> getClientEventsByType(String eventType, String cursor, int pageSize) {
+        EventCursor position = EventPages.startPosition(null, cursor);
+        List<ClientEventEntity> entities = clientEventRepository.findByTypeBefore(
+                eventType,
+                position.timestamp(),
+                position.id(),
+                Limit.of(pageSize + 1));
+        return EventPages.toPage(entities, pageSize, ClientEvent::fromClientEventEntity,
+                ClientEventEntity::getTimestamp, ClientEventEntity::getId);
+    }
+
+    @Override
+    public String writeRawAccountEvents(
+            BigInteger accountId, Instant from, Instant to, String cursor, int pageSize, OutputStream out) {
+        EventCursor position = EventPages.startPosition(to, cursor);
+        RawPageWriter writer = new RawPageWriter(out, pageSize);
+        eventRawRepository.findAccountPayloadsBefore(
+                accountId,
+                EventPages.from(from),
+                position.timestamp(),
+                position.id(),
+                pageSize + 1,
+                writer);
+        return writer.finish();
+    }
+
+    @Override
+    public String writeRawClientEvents(
+            String login, Instant from, Instant to, String cursor, int pageSize, OutputStream out) {
+        EventCursor position = EventPages.startPosition(to, cursor);
+        RawPageWriter writer = new RawPageWriter(out, pageSize);
+        eventRawRepository.findClientPayloadsBefore(
+                login,
+                EventPages.from(from),
+                position.timestamp(),
+                position.id(),
+                pageSize + 1,
+                writer);
+        return writer.finish();
+    }
+
+    private void savePosition(ConsumerPosition position) {
+        if (position != null) {
+            consumerOffsetRepository.save(position.groupId(), position.offsets());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.kubancevvladislav.services;
+
+import com.kubancevvladislav.repositories.EventRawRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Записывает страницу в поток как JSON-объект {@code {"events":[...],"nextCursor":...}} той же формы,
+ * что и {@link com.kubancevvladislav.domain.EventPage}, копируя сохранённые тела событий без разбора.
+ * Курсор становится известен только после последней строки, поэтому он записывается в конце объекта,
+ * и ответ можно отдавать клиенту по мере чтения.
+ * Читается на одну строку больше размера страницы: лишняя строка только сообщает,
+ * что следующая страница существует.
+ */
+final class RawPageWriter implements EventRawRepository.RawEventHandler {
+    private static final byte[] NULL_JSON = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PAGE_START = "{\"events\":[".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CURSOR_FIELD = "],\"nextCursor\":".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream out;
+    private final int size;
+    private int written;
+    private EventCursor last;
+    private boolean hasNext;
+    private WritableByteChannel channel;
+
+    RawPageWriter(OutputStream out, int size) {
+        this.out = out;
+        this.size = size;
+    }
+
+    @Override
+    public void handle(long id, Instant timestamp, byte[] payload) {
+        handle(id, timestamp, ByteBuffer.wrap(payload == null ? NULL_JSON : payload));
+    }
+
+    /**
+     * Принимает тело как буфер, например срез отображённого в память файла,
+     * и переписывает его в поток без промежуточного массива.
+     */
+    void handle(long id, Instant timestamp, ByteBuffer payload) {
+        if (written == size) {
+            hasNext = true;
+            return;
+        }
+        try {
+            if (written == 0) {
+                out.write(PAGE_START);
+            } else {
+                out.write(',');
+            }
+            if (payload.hasArray()) {
+                out.write(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+            } else {
+                channel().write(payload);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        written++;
+        last = new EventCursor(timestamp, id);
+    }
+
+    private WritableByteChannel channel() {
+        if (channel == null) {
+            channel = Channels.newChannel(out);
+        }
+        return channel;
+    }
+
+    /**
+     * Закрывает массив событий и дописывает курсор следующей страницы.
+     * @return курсор следующей страницы или {@code null}, если страница последняя
+     */
+    String finish() {
+        String nextCursor = hasNext ? last.encode() : null;
+        try {
+            if (written == 0) {
+                out.write(PAGE_START);
+            }
+            out.write(CURSOR_FIELD);
+            // Курсор - Base64 без заполнения, экранирование в JSON-строке не требуется
+            out.write((nextCursor == null ? "null" : '"' + nextCursor + '"').getBytes(StandardCharsets.US_ASCII));
+            out.write('}');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return nextCursor;
+    }
+}
@@ -0,0 +1,274 @@
+package com.kubancevvladislav.services;
+
+import com.kubancevvladislav.domain.AccountEvent;
+import com.kubancevvladislav.domain.ClientEvent;
+import com.kubancevvladislav.domain.ConsumerPosition;
+import com.kubancevvladislav.domain.EventPage;
+import com.kubancevvladislav.domain.EventSource;
+import com.kubancevvladislav.entities.JsonAttributeConverter;
+import com.kubancevvladislav.repositories.ConsumerOffset;
+import com.kubancevvladislav.segmentlog.LogEntry;
+import com.kubancevvladislav.segmentlog.SegmentLog;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Хранилище событий в журналах {@link SegmentLog} на локальном диске: отдельный журнал для счетов и для клиентов.
+ * Идентификатор события - его позиция в журнале. История ключа читается по индексу позиций
+ * последовательно из отображённых в память сегментов. Вторичного индекса по типу и сумме нет:
+ * такие выборки проходят журнал целиком и отбирают страницу в порядке {@link JpaEventStorageBackend},
+ * поэтому их стоимость растёт с объёмом журнала.
+ * <p>
+ * Позиции потребителя хранятся в {@value #OFFSETS_FILE} и переписываются после того, как пачка дописана
+ * и сброшена на диск. Сбой между записью пачки и записью позиций приводит к повторной доставке этой пачки,
+ * но журнал хранит координаты исходной записи Kafka при каждом событии и пропускает уже записанные,
+ * так же как уникальное ограничение на источник в {@link JpaEventStorageBackend}.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "segment-log")
+public class SegmentLogEventStorageBackend implements EventStorageBackend {
+    static final String OFFSETS_FILE = "consumer-offsets.properties";
+    private static final Comparator<AmountMatch> AMOUNT_ORDER =
+            Comparator.comparing(AmountMatch::amount).thenComparingLong(AmountMatch::position);
+
+    private final JsonAttributeConverter jsonConverter;
+    private final boolean fsync;
+    private final SegmentLog accountLog;
+    private final SegmentLog clientLog;
+    private final ConsumerOffsetFile offsets;
+
+    public SegmentLogEventStorageBackend(
+            JsonAttributeConverter jsonConverter,
+            @Value("${storage.segment-log.directory:data/events}") String directory,
+            @Value("${storage.segment-log.segment-size-bytes:67108864}") int segmentSize,
+            @Value("${storage.segment-log.fsync:true}") boolean fsync) throws IOException {
+        this.jsonConverter = jsonConverter;
+        this.fsync = fsync;
+        this.accountLog = new SegmentLog(Path.of(directory), "account", segmentSize);
+        try {
+            this.clientLog = new SegmentLog(Path.of(directory), "client", segmentSize);
+        } catch (IOException | RuntimeException e) {
+            accountLog.close();
+            throw e;
+        }
+        try {
+            this.offsets = new ConsumerOffsetFile(Path.of(directory).resolve(OFFSETS_FILE));
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        try {
+            accountLog.close();
+        } finally {
+            clientLog.close();
+        }
+    }
+
+    @Override
+    public void saveAccountEvents(List<AccountEvent> accountEvents, ConsumerPosition position) {
+        append(accountLog, accountEvents.stream()
+                .map(event -> record(event.getAccountId().toString(), event.getPayload(), event.getSource()))
+                .toList());
+        savePosition(position);
+    }
+
+    @Override
+    public void saveClientEvents(List<ClientEvent> clientEvents, ConsumerPosition position) {
+        append(clientLog, clientEvents.stream()
+                .map(event -> record(event.getClientLogin(), event.getPayload(), event.getSource()))
+                .toList());
+        savePosition(position);
+    }
+
+    @Override
+    public List<ConsumerOffset> findConsumerOffsets(String groupId, String topic) {
+        return offsets.find(groupId, topic);
+    }
+
+    @Override
+    public AccountEvent getAccountEventById(Long id) {
+        return accountLog.read(id)
+                .map(this::toAccountEvent)
+                .orElseThrow(() -> new EntityNotFoundException("AccountEvent с id " + id + " не найден"));
+    }
+
+    @Override
+    public ClientEvent getClientEventById(Long id) {
+        return clientLog.read(id)
+                .map(this::toClientEvent)
+                .orElseThrow(() -> new EntityNotFoundException("ClientEvent с id " + id + " не найден"));
+    }
+
+    @Override
+    public EventPage<AccountEvent> getAccountEventsByAccountId(
+            BigInteger accountId, Instant from, Instant to, String cursor, int pageSize) {
+        return EventPages.toPage(
+                readBefore(accountLog, accountId.toString(), from, to, cursor, pageSize),
+                pageSize,
+                this::toAccountEvent,
+                LogEntry::timestamp,
+                LogEntry::position);
+    }
+
+    @Override
+    public EventPage<ClientEvent> getClientEventsByLogin(
+            String login, Instant from, Instant to, String cursor, int pageSize) {
+        return EventPages.toPage(
+                readBefore(clientLog, login, from, to, cursor, pageSize),
+                pageSize,
+                this::toClientEvent,
+                LogEntry::timestamp,
+                LogEntry::position);
+    }
+
+    @Override
+    public EventPage<AccountEvent> getAccountEventsByTypeAndAmount(
+            String eventType, BigDecimal minAmount, BigDecimal maxAmount, String cursor, int pageSize) {
+        AmountMatch after = cursor == null || cursor.isBlank() ? null : AmountMatch.at(AmountCursor.decode(cursor));
+        PriorityQueue<AmountMatch> smallest = new PriorityQueue<>(pageSize + 1, AMOUNT_ORDER.reversed());
+        accountLog.forEach(Long.MAX_VALUE, entry -> {
+            AccountEvent event = toAccountEvent(entry);
+            BigDecimal amount = event.getAmount();
+            if (!eventType.equals(event.getEventType()) || amount == null
+                    || (after == null && minAmount != null && amount.compareTo(minAmount) < 0)
+                    || (maxAmount != null && amount.compareTo(maxAmount) > 0)) {
+                return;
+            }
+            AmountMatch match = new AmountMatch(amount, entry.position(), event);
+            if (after != null && AMOUNT_ORDER.compare(match, after) <= 0) {
+                return;
+            }
+            smallest.add(match);
+            if (smallest.size() > pageSize + 1) {
+                smallest.poll();
+            }
+        });
+        List<AmountMatch> matches = smallest.stream().sorted(AMOUNT_ORDER).toList();
+        boolean hasNext = matches.size() > pageSize;
+        List<AmountMatch> page = hasNext ? matches.subList(0, pageSize) : matches;
+        String nextCursor = null;
+        if (hasNext) {
+            AmountMatch last = page.getLast();
+            nextCursor = new AmountCursor(last.amount(), last.position()).encode();
+        }
+        return new EventPage<>(page.stream().map(AmountMatch::event).toList(), nextCursor);
+    }
+
+    @Override
+    public EventPage<ClientEvent> getClientEventsByType(String eventType, String cursor, int pageSize) {
+        EventCursor before = EventPages.startPosition(null, cursor);
+        // Время и позиция растут вместе, поэтому всё, что раньше курсора, лежит до его позиции
+        long beforePosition = before.id() == Long.MIN_VALUE ? Long.MAX_VALUE : before.id();
+        ArrayDeque<LogEntry> newest = new ArrayDeque<>(pageSize + 1);
+        clientLog.forEach(beforePosition, entry -> {
+            if (entry.timestamp().isAfter(before.timestamp())
+                    || !eventType.equals(toClientEvent(entry).getEventType())) {
+                return;
+            }
+            newest.addLast(entry);
+            if (newest.size() > pageSize + 1) {
+                newest.removeFirst();
+            }
+        });
+        return EventPages.toPage(
+                newest.reversed().stream().toList(),
+                pageSize,
+                this::toClientEvent,
+                LogEntry::timestamp,
+                LogEntry::position);
+    }
+
+    @Override
+    public String writeRawAccountEvents(
+            BigInteger accountId, Instant from, Instant to, String cursor, int pageSize, OutputStream out) {
+        return writeRaw(readBefore(accountLog, accountId.toString(), from, to, cursor, pageSize), pageSize, out);
+    }
+
+    @Override
+    public String writeRawClientEvents(
+            String login, Instant from, Instant to, String cursor, int pageSize, OutputStream out) {
+        return writeRaw(readBefore(clientLog, login, from, to, cursor, pageSize), pageSize, out);
+    }
+
+    private void append(SegmentLog log, List<SegmentLog.LogRecord> records) {
+        try {
+            log.append(records, fsync);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void savePosition(ConsumerPosition position) {
+        if (position == null) {
+            return;
+        }
+        try {
+            offsets.save(position, fsync);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<LogEntry> readBefore(
+            SegmentLog log, String key, Instant from, Instant to, String cursor, int pageSize) {
+        EventCursor position = EventPages.startPosition(to, cursor);
+        return log.readBefore(key, EventPages.from(from), position.timestamp(), position.id(), pageSize + 1);
+    }
+
+    private static String writeRaw(List<LogEntry> entries, int pageSize, OutputStream out) {
+        RawPageWriter writer = new RawPageWriter(out, pageSize);
+        for (LogEntry entry : entries) {
+            writer.handle(entry.position(), entry.timestamp(), entry.payload());
+        }
+        return writer.finish();
+    }
+
+    private SegmentLog.LogRecord record(String key, Object payload, EventSource source) {
+        byte[] json = jsonConverter.convertToDatabaseColumn(payload).getBytes(StandardCharsets.UTF_8);
+        if (source == null) {
+            return new SegmentLog.LogRecord(key, json);
+        }
+        return new SegmentLog.LogRecord(key, json, source.topic() + '/' + source.partition(), source.offset());
+    }
+
+    private AccountEvent toAccountEvent(LogEntry entry) {
+        return new AccountEvent(new BigInteger(entry.key()), payload(entry));
+    }
+
+    private ClientEvent toClientEvent(LogEntry entry) {
+        return new ClientEvent(entry.key(), payload(entry));
+    }
+
+    private Object payload(LogEntry entry) {
+        return jsonConverter.convertToEntityAttribute(StandardCharsets.UTF_8.decode(entry.payload().duplicate()).toString());
+    }
+
+    /**
+     * Событие, отобранное выборкой по сумме, с ключом порядка {@code (amount, id)}.
+     */
+    private record AmountMatch(BigDecimal amount, long position, AccountEvent event) {
+        static AmountMatch at(AmountCursor cursor) {
+            return new AmountMatch(cursor.amount(), cursor.id(), null);
+        }
+    }
+}
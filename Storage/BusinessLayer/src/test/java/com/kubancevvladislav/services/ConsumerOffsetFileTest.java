@@ -0,0 +1,57 @@
+package com.kubancevvladislav.services;
+
+import com.kubancevvladislav.domain.ConsumerPosition;
+import com.kubancevvladislav.repositories.ConsumerOffset;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsumerOffsetFileTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void returnsSavedOffsetsAfterReopen() throws IOException {
+        Path file = directory.resolve("offsets.properties");
+        new ConsumerOffsetFile(file).save(new ConsumerPosition("group/a", List.of(
+                new ConsumerOffset("accounts", 0, 10),
+                new ConsumerOffset("accounts", 1, 20),
+                new ConsumerOffset("clients", 0, 5))), true);
+
+        ConsumerOffsetFile reopened = new ConsumerOffsetFile(file);
+        assertEquals(
+                List.of(new ConsumerOffset("accounts", 0, 10), new ConsumerOffset("accounts", 1, 20)),
+                sorted(reopened.find("group/a", "accounts")));
+        assertEquals(List.of(), reopened.find("other", "accounts"));
+        assertFalse(Files.exists(directory.resolve("offsets.properties.tmp")));
+    }
+
+    @Test
+    void neverMovesOffsetBack() throws IOException {
+        ConsumerOffsetFile offsets = new ConsumerOffsetFile(directory.resolve("offsets.properties"));
+        offsets.save(new ConsumerPosition("group", List.of(new ConsumerOffset("accounts", 0, 10))), false);
+        offsets.save(new ConsumerPosition("group", List.of(new ConsumerOffset("accounts", 0, 7))), false);
+
+        assertEquals(List.of(new ConsumerOffset("accounts", 0, 10)), offsets.find("group", "accounts"));
+    }
+
+    @Test
+    void startsEmptyWithoutFile() throws IOException {
+        ConsumerOffsetFile offsets = new ConsumerOffsetFile(directory.resolve("offsets.properties"));
+
+        assertTrue(offsets.find("group", "accounts").isEmpty());
+    }
+
+    private static List<ConsumerOffset> sorted(List<ConsumerOffset> offsets) {
+        return offsets.stream().sorted(Comparator.comparingInt(ConsumerOffset::partition)).toList();
+    }
+}
@@ -0,0 +1,123 @@
+package com.kubancevvladislav.services;
+
+import com.kubancevvladislav.domain.EventPage;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EventPagesTest {
+    private static final Comparator<Row> NEWEST_FIRST =
+            Comparator.comparing(Row::timestamp).thenComparing(Row::id).reversed();
+
+    private record Row(Instant timestamp, Long id) {
+    }
+
+    @Test
+    void eventCursorRoundTrips() {
+        EventCursor cursor = new EventCursor(Instant.parse("2025-03-15T10:15:30.123456789Z"), -42L);
+
+        assertEquals(cursor, EventCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void amountCursorRoundTripsValue() {
+        AmountCursor cursor = new AmountCursor(new BigDecimal("1E+3"), 7L);
+
+        AmountCursor decoded = AmountCursor.decode(cursor.encode());
+
+        assertEquals(0, cursor.amount().compareTo(decoded.amount()));
+        assertEquals(7L, decoded.id());
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        for (String token : List.of("not base64!", "", "MjAyNQ", encodeRaw("2025-03-15T10:15:30Z"), encodeRaw("x|1"))) {
+            assertThrows(IllegalArgumentException.class, () -> EventCursor.decode(token), token);
+        }
+        assertThrows(IllegalArgumentException.class, () -> AmountCursor.decode(encodeRaw("abc|1")));
+    }
+
+    @Test
+    void firstPageStartsBeforeUpperBound() {
+        Instant to = Instant.parse("2025-01-01T00:00:00Z");
+
+        assertEquals(new EventCursor(to, Long.MIN_VALUE), EventPages.startPosition(to, null));
+        assertEquals(new EventCursor(EventPages.UNBOUNDED_TO, Long.MIN_VALUE), EventPages.startPosition(null, " "));
+    }
+
+    @Test
+    void cursorOverridesUpperBound() {
+        EventCursor cursor = new EventCursor(Instant.parse("2024-06-01T00:00:00Z"), 5L);
+
+        assertEquals(cursor, EventPages.startPosition(Instant.now(), cursor.encode()));
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        List<Row> rows = rows(3);
+
+        EventPage<Long> page = EventPages.toPage(rows, 3, Row::id, Row::timestamp, Row::id);
+
+        assertEquals(3, page.events().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void pagesVisitEveryRowOnceWithEqualTimestamps() {
+        List<Row> rows = rows(23);
+
+        List<Long> visited = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            EventCursor position = EventPages.startPosition(null, cursor);
+            EventPage<Long> page = EventPages.toPage(query(rows, position, 5), 5, Row::id, Row::timestamp, Row::id);
+            visited.addAll(page.events());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(5, pages);
+        assertEquals(rows.stream().sorted(NEWEST_FIRST).map(Row::id).toList(), visited);
+    }
+
+    /**
+     * События с одинаковым временем группами по три, чтобы граница страницы проходила внутри группы.
+     */
+    private static List<Row> rows(int count) {
+        List<Row> rows = new ArrayList<>();
+        Instant base = Instant.parse("2025-03-01T00:00:00Z");
+        for (long id = 1; id <= count; id++) {
+            rows.add(new Row(base.plusSeconds(id / 3), id));
+        }
+        return rows;
+    }
+
+    /**
+     * Повторяет запрос хранилища: записи строго до позиции, от новых к старым, не больше {@code size + 1}.
+     */
+    private static List<Row> query(List<Row> rows, EventCursor position, int size) {
+        Predicate<Row> before = row -> row.timestamp().isBefore(position.timestamp())
+                || row.timestamp().equals(position.timestamp()) && row.id() < position.id();
+        return rows.stream()
+                .filter(before)
+                .sorted(NEWEST_FIRST)
+                .limit(size + 1L)
+                .toList();
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,126 @@
+package com.kubancevvladislav.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kubancevvladislav.domain.AccountEvent;
+import com.kubancevvladislav.domain.ClientEvent;
+import com.kubancevvladislav.domain.EventPage;
+import com.kubancevvladislav.domain.EventSource;
+import com.kubancevvladislav.entities.JsonAttributeConverter;
+import com.kubancevvladislav.events.Deposited;
+import com.kubancevvladislav.events.UserCreated;
+import com.kubancevvladislav.events.Withdrawn;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SegmentLogEventStorageBackendTest {
+    private static final BigInteger ACCOUNT = BigInteger.TEN;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsDepositByTypeAndAmount() throws IOException {
+        Deposited deposited = deposited("100.00");
+        SegmentLogEventStorageBackend storage = open();
+        try {
+            storage.saveAccountEvents(List.of(
+                    new AccountEvent(ACCOUNT, deposited),
+                    new AccountEvent(ACCOUNT, new Withdrawn(2L, BigInteger.TWO, ACCOUNT, new BigDecimal("100.00"))),
+                    new AccountEvent(ACCOUNT, deposited("20.00"))), null);
+
+            EventPage<AccountEvent> page = storage.getAccountEventsByTypeAndAmount(
+                    "Deposited", new BigDecimal("50"), new BigDecimal("150"), null, 10);
+
+            assertEquals(List.of(new AccountEvent(ACCOUNT, deposited)), page.events());
+            assertNull(page.nextCursor());
+        } finally {
+            storage.close();
+        }
+    }
+
+    @Test
+    void pagesMatchesByAmount() throws IOException {
+        SegmentLogEventStorageBackend storage = open();
+        try {
+            storage.saveAccountEvents(List.of(
+                    new AccountEvent(ACCOUNT, deposited("30.00")),
+                    new AccountEvent(ACCOUNT, deposited("10.00")),
+                    new AccountEvent(ACCOUNT, deposited("20.00"))), null);
+
+            EventPage<AccountEvent> first = storage.getAccountEventsByTypeAndAmount(
+                    "Deposited", null, null, null, 2);
+            EventPage<AccountEvent> second = storage.getAccountEventsByTypeAndAmount(
+                    "Deposited", null, null, first.nextCursor(), 2);
+
+            assertEquals(List.of(new BigDecimal("10.00"), new BigDecimal("20.00")), amounts(first));
+            assertEquals(List.of(new BigDecimal("30.00")), amounts(second));
+            assertNull(second.nextCursor());
+        } finally {
+            storage.close();
+        }
+    }
+
+    @Test
+    void findsClientEventsByType() throws IOException {
+        UserCreated created = new UserCreated(1L, "alice", "Alice", (short) 30, null, null);
+        SegmentLogEventStorageBackend storage = open();
+        try {
+            storage.saveClientEvents(List.of(new ClientEvent("alice", created)), null);
+
+            EventPage<ClientEvent> page = storage.getClientEventsByType("UserCreated", null, 10);
+
+            assertEquals(List.of(new ClientEvent("alice", created)), page.events());
+            assertEquals(List.of(), storage.getClientEventsByType("FriendAdded", null, 10).events());
+        } finally {
+            storage.close();
+        }
+    }
+
+    @Test
+    void ignoresReplayedBatchAfterReopen() throws IOException {
+        List<AccountEvent> batch = List.of(
+                new AccountEvent(ACCOUNT, deposited("1.00"), new EventSource("accounts", 0, 7)),
+                new AccountEvent(ACCOUNT, deposited("2.00"), new EventSource("accounts", 0, 8)));
+        SegmentLogEventStorageBackend storage = open();
+        try {
+            storage.saveAccountEvents(batch, null);
+        } finally {
+            storage.close();
+        }
+
+        storage = open();
+        try {
+            // Позиция потребителя не успела сохраниться, и Kafka доставляет пачку ещё раз
+            storage.saveAccountEvents(batch, null);
+
+            EventPage<AccountEvent> page = storage.getAccountEventsByAccountId(
+                    ACCOUNT, Instant.EPOCH, Instant.now().plusSeconds(60), null, 10);
+            assertEquals(List.of(new BigDecimal("2.00"), new BigDecimal("1.00")), amounts(page));
+        } finally {
+            storage.close();
+        }
+    }
+
+    private SegmentLogEventStorageBackend open() throws IOException {
+        return new SegmentLogEventStorageBackend(
+                new JsonAttributeConverter(new ObjectMapper()), directory.toString(), 4096, false);
+    }
+
+    private static Deposited deposited(String amount) {
+        return new Deposited(1L, BigInteger.ONE, ACCOUNT, new BigDecimal(amount));
+    }
+
+    private static List<BigDecimal> amounts(EventPage<AccountEvent> page) {
+        return page.events().stream().map(AccountEvent::getAmount).toList();
+    }
+}
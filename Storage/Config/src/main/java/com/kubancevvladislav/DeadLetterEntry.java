@@ -0,0 +1,23 @@
+package com.kubancevvladislav;
+
+import java.time.Instant;
+
+/**
+ * Запись топика недоставленных событий вместе с причиной последней неудачи.
+ * @param sourceTopic топик, раздел и смещение исходной записи основного топика
+ * @param exception класс исключения последней неудачи
+ * @param payload тело события, {@code null}, если его не удалось прочитать
+ */
+public record DeadLetterEntry(
+        String topic,
+        int partition,
+        long offset,
+        String key,
+        String sourceTopic,
+        Integer sourcePartition,
+        Long sourceOffset,
+        String exception,
+        String message,
+        Instant failedAt,
+        Object payload
+) {}
@@ -0,0 +1,138 @@
+package com.kubancevvladislav;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Просмотр топиков недоставленных событий и возврат записей в основной топик.
+ * Записи читаются из {@code <topic>-dlt} потребителем с вручную назначенным разделом,
+ * поэтому просмотр не сдвигает ничьих смещений и не зависит от хранилища событий.
+ */
+@Component
+@RequiredArgsConstructor
+public class DeadLetterQueue {
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+    private static final int MAX_EMPTY_POLLS = 2;
+    private static final int MAX_LIMIT = 500;
+
+    private final RetryTopics retryTopics;
+    private final ConsumerFactory<String, byte[]> consumerFactory;
+    private final KafkaTemplate<String, byte[]> redriveTemplate;
+
+    /**
+     * @param topic основной топик
+     * @return не более {@code limit} (до {@value #MAX_LIMIT}) записей раздела, начиная со смещения {@code fromOffset}
+     */
+    public List<DeadLetterEntry> list(String topic, int partition, long fromOffset, int limit) {
+        TopicPartition dlt = new TopicPartition(retryTopics.dltTopic(topic), partition);
+        int size = Math.clamp(limit, 1, MAX_LIMIT);
+        List<DeadLetterEntry> entries = new ArrayList<>();
+        try (Consumer<String, byte[]> consumer = consumerFactory.createConsumer();
+             EventPayloadDeserializer deserializer = new EventPayloadDeserializer()) {
+            consumer.assign(List.of(dlt));
+            consumer.seek(dlt, fromOffset);
+            int emptyPolls = 0;
+            while (entries.size() < size && emptyPolls < MAX_EMPTY_POLLS) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
+                if (records.isEmpty()) {
+                    emptyPolls++;
+                    continue;
+                }
+                for (ConsumerRecord<String, byte[]> record : records.records(dlt)) {
+                    if (entries.size() == size) {
+                        break;
+                    }
+                    entries.add(entry(record, deserializer));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Публикует запись топика недоставленных событий в основной топик с тем же ключом, телом
+     * и координатами исходной записи, так что событие, уже сохранённое ранее, повторно не сохранится.
+     * @return координаты опубликованной записи
+     * @throws NoSuchElementException если записи с таким смещением нет
+     */
+    public RedriveResult redrive(String topic, int partition, long offset) {
+        ConsumerRecord<String, byte[]> record = read(new TopicPartition(retryTopics.dltTopic(topic), partition), offset);
+        Headers headers = new RecordHeaders();
+        for (Header header : record.headers()) {
+            if (!header.key().startsWith(KafkaHeaders.PREFIX)) {
+                headers.add(header);
+            }
+        }
+        ProducerRecord<String, byte[]> republished =
+                new ProducerRecord<>(topic, null, record.key(), record.value(), headers);
+        try {
+            RecordMetadata metadata = redriveTemplate.send(republished).get().getRecordMetadata();
+            return new RedriveResult(metadata.topic(), metadata.partition(), metadata.offset());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Возврат записи прерван", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Не удалось вернуть запись в " + topic, e.getCause());
+        }
+    }
+
+    private ConsumerRecord<String, byte[]> read(TopicPartition partition, long offset) {
+        try (Consumer<String, byte[]> consumer = consumerFactory.createConsumer()) {
+            consumer.assign(List.of(partition));
+            consumer.seek(partition, offset);
+            for (int poll = 0; poll < MAX_EMPTY_POLLS; poll++) {
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(POLL_TIMEOUT).records(partition)) {
+                    if (record.offset() == offset) {
+                        return record;
+                    }
+                    if (record.offset() > offset) {
+                        break;
+                    }
+                }
+            }
+        }
+        throw new NoSuchElementException("Запись " + partition + "@" + offset + " не найдена");
+    }
+
+    private static DeadLetterEntry entry(ConsumerRecord<String, byte[]> record, EventPayloadDeserializer deserializer) {
+        String sourcePartition = RetryTopics.header(record, RetryTopics.SOURCE_PARTITION_HEADER);
+        String sourceOffset = RetryTopics.header(record, RetryTopics.SOURCE_OFFSET_HEADER);
+        Object payload;
+        try {
+            payload = deserializer.deserialize(record.topic(), record.value());
+        } catch (RuntimeException e) {
+            payload = null;
+        }
+        return new DeadLetterEntry(
+                record.topic(),
+                record.partition(),
+                record.offset(),
+                record.key(),
+                RetryTopics.header(record, RetryTopics.SOURCE_TOPIC_HEADER),
+                sourcePartition == null ? null : Integer.valueOf(sourcePartition),
+                sourceOffset == null ? null : Long.valueOf(sourceOffset),
+                RetryTopics.header(record, KafkaHeaders.DLT_EXCEPTION_FQCN),
+                RetryTopics.header(record, KafkaHeaders.DLT_EXCEPTION_MESSAGE),
+                Instant.ofEpochMilli(record.timestamp()),
+                payload);
+    }
+}
@@ -0,0 +1,37 @@
+package com.kubancevvladislav;
+
+import com.kubancevvladislav.events.DomainEventCodec;
+import com.kubancevvladislav.events.DomainEventDeserializer;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Десериализатор тел событий.
+ * Сообщения в двоичном формате {@link DomainEventCodec} превращаются в типизированные события,
+ * сообщения в прежнем JSON-формате, отправленные до перехода на двоичную схему, читаются как JSON.
+ */
+public class EventPayloadDeserializer implements Deserializer<Object> {
+    private final DomainEventDeserializer binary = new DomainEventDeserializer();
+    private final JsonDeserializer<Object> json = new JsonDeserializer<>(Object.class, false);
+
+    public EventPayloadDeserializer() {
+        json.addTrustedPackages("*");
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (DomainEventCodec.isBinary(data)) {
+            return binary.deserialize(topic, data);
+        }
+        return json.deserialize(topic, data);
+    }
+
+    @Override
+    public void close() {
+        binary.close();
+        json.close();
+    }
+}
@@ -0,0 +1,37 @@
+package com.kubancevvladislav;
+
+import com.kubancevvladislav.events.DomainEvent;
+import com.kubancevvladislav.events.DomainEventSerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+/**
+ * Сериализатор тел событий, обратный {@link EventPayloadDeserializer}.
+ * Используется для публикации необработанных записей в топики повторов: типизированные события
+ * снова кодируются в двоичный формат, события прежнего JSON-формата - в JSON.
+ * Байты записи, которую не удалось прочитать, публикуются без изменений.
+ */
+public class EventPayloadSerializer implements Serializer<Object> {
+    private final DomainEventSerializer binary = new DomainEventSerializer();
+    private final JsonSerializer<Object> json = new JsonSerializer<>();
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (data instanceof byte[] raw) {
+            return raw;
+        }
+        if (data instanceof DomainEvent event) {
+            return binary.serialize(topic, event);
+        }
+        return json.serialize(topic, data);
+    }
+
+    @Override
+    public void close() {
+        binary.close();
+        json.close();
+    }
+}
@@ -0,0 +1,74 @@
+package com.kubancevvladislav;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Общие настройки клиентов Kafka сервиса Storage.
+ * Адрес брокеров берётся из {@code spring.kafka.bootstrap-servers}, группа потребителей -
+ * из {@code spring.kafka.consumer.group-id}. Если в контексте есть {@link MeterRegistry},
+ * метрики каждого потребителя, в том числе отставание разделов ({@code kafka.consumer.fetch.manager.records.lag}),
+ * публикуются в него.
+ * <p>Ключ и тело записи читаются через {@link ErrorHandlingDeserializer}: запись, которую не удалось прочитать,
+ * не останавливает раздел, а передаётся обработчику ошибок с исключением в заголовке.</p>
+ */
+@Component
+public class KafkaClients {
+    private final String bootstrapServers;
+    private final String groupId;
+    private final MeterRegistry meterRegistry;
+
+    public KafkaClients(
+            @Value("${spring.kafka.bootstrap-servers:localhost:9092}") String bootstrapServers,
+            @Value("${spring.kafka.consumer.group-id:storage-group}") String groupId,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.bootstrapServers = bootstrapServers;
+        this.groupId = groupId;
+        this.meterRegistry = meterRegistry.getIfAvailable();
+    }
+
+    public String groupId() {
+        return groupId;
+    }
+
+    public Map<String, Object> consumerProperties() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return config;
+    }
+
+    public Map<String, Object> producerProperties() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        return config;
+    }
+
+    public <V> DefaultKafkaConsumerFactory<String, V> consumerFactory(
+            Map<String, Object> config,
+            Deserializer<V> valueDeserializer) {
+        DefaultKafkaConsumerFactory<String, V> factory = new DefaultKafkaConsumerFactory<>(
+                config,
+                new ErrorHandlingDeserializer<>(new StringDeserializer()),
+                new ErrorHandlingDeserializer<>(valueDeserializer));
+        if (meterRegistry != null) {
+            factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        }
+        return factory;
+    }
+}
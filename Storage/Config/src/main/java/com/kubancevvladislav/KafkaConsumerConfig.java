@@ -2,16 +2,16 @@ package com.kubancevvladislav;
 
 import lombok.AllArgsConstructor;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
-import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
-import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ContainerProperties;
 
-import java.util.HashMap;
 import java.util.Map;
 
 
@@ -20,22 +20,11 @@ import java.util.Map;
 @AllArgsConstructor
 public class KafkaConsumerConfig {
     private final KafkaGlobalErrorHandler errorHandler;
+    private final KafkaClients kafkaClients;
 
     @Bean
     public ConsumerFactory<String, Object> consumerFactory() {
-        Map<String, Object> config = new HashMap<>();
-        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
-        config.put(ConsumerConfig.GROUP_ID_CONFIG, "storage-group");
-        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        config.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
-        config.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
-
-        return new DefaultKafkaConsumerFactory<>(
-                config,
-                new StringDeserializer(),
-                new JsonDeserializer<>(Object.class)
-        );
+        return kafkaClients.consumerFactory(kafkaClients.consumerProperties(), new EventPayloadDeserializer());
     }
 
     @Bean
@@ -46,4 +35,59 @@ public class KafkaConsumerConfig {
         factory.setCommonErrorHandler(errorHandler);
         return factory;
     }
+
+    /**
+     * Фабрика контейнеров для пакетных слушателей.
+     * Каждый опрос брокера отдаётся слушателю целиком, смещения фиксируются
+     * после того, как слушатель вернул управление, то есть после фиксации транзакции с пачкой.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> batchKafkaListenerContainerFactory(
+            @Value("${storage.kafka.batch.max-poll-records:2000}") int maxPollRecords,
+            @Value("${storage.kafka.batch.fetch-min-bytes:65536}") int fetchMinBytes,
+            @Value("${storage.kafka.batch.fetch-max-wait-ms:100}") int fetchMaxWaitMs) {
+        Map<String, Object> config = kafkaClients.consumerProperties();
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        config.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, fetchMinBytes);
+        config.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, fetchMaxWaitMs);
+
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(kafkaClients.consumerFactory(config, new EventPayloadDeserializer()));
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.setCommonErrorHandler(errorHandler);
+        return factory;
+    }
+
+    /**
+     * Фабрика контейнеров для загрузки через {@code COPY}.
+     * Слушатель сам решает, когда подтвердить пачки ({@link ContainerProperties.AckMode#MANUAL}),
+     * и подтверждает их только после записи буфера в базу. Если записей нет дольше
+     * {@code storage.kafka.copy.flush-interval-ms}, контейнер публикует событие простоя,
+     * по которому буфер сбрасывается по времени. Каждый топик читается одним потоком,
+     * поскольку буфер слушателя не разделяется между потоками.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> copyKafkaListenerContainerFactory(
+            @Value("${storage.kafka.copy.max-poll-records:5000}") int maxPollRecords,
+            @Value("${storage.kafka.copy.flush-interval-ms:1000}") long flushIntervalMs,
+            ObjectProvider<ConsumerAwareRebalanceListener> rebalanceListener) {
+        Map<String, Object> config = kafkaClients.consumerProperties();
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        config.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 1 << 20);
+        config.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 200);
+
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(kafkaClients.consumerFactory(config, new EventPayloadDeserializer()));
+        factory.setBatchListener(true);
+        factory.setConcurrency(1);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setIdleEventInterval(flushIntervalMs);
+        rebalanceListener.ifAvailable(factory.getContainerProperties()::setConsumerRebalanceListener);
+        factory.setCommonErrorHandler(errorHandler);
+        return factory;
+    }
+
 }
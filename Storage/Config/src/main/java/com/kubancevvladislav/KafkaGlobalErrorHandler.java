@@ -4,17 +4,37 @@ import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.serializer.DeserializationException;
 import org.springframework.stereotype.Component;
+import org.springframework.util.backoff.FixedBackOff;
 
 import java.util.List;
 
+/**
+ * Обработчик ошибок слушателей Storage.
+ * Запись не повторяется на месте: она сразу публикуется на следующую ступень {@link RetryTopics},
+ * смещение фиксируется, и раздел продолжает читаться. Для пакетных слушателей так обрабатывается запись,
+ * указанная в {@link org.springframework.kafka.listener.BatchListenerFailedException}.
+ * <p>Запись, которую не удалось десериализовать, повтор не исправит: она публикуется прямо
+ * в {@code <topic>-dlt} в исходных байтах.</p>
+ */
 @Component
 public class KafkaGlobalErrorHandler extends DefaultErrorHandler {
 
     private static final Logger log = LoggerFactory.getLogger(KafkaGlobalErrorHandler.class);
 
+    public KafkaGlobalErrorHandler(
+            @Qualifier("retryRecoverer") DeadLetterPublishingRecoverer retryRecoverer,
+            @Qualifier("deadLetterRecoverer") DeadLetterPublishingRecoverer deadLetterRecoverer) {
+        super((record, ex) -> (isUnreadable(ex) ? deadLetterRecoverer : retryRecoverer).accept(record, ex),
+                new FixedBackOff(0L, 0L));
+        addNotRetryableExceptions(DeserializationException.class);
+    }
+
     @Override
     public void handleRemaining(Exception ex,
                                 List<ConsumerRecord<?, ?>> records,
@@ -27,5 +47,16 @@ public class KafkaGlobalErrorHandler extends DefaultErrorHandler {
 
         super.handleRemaining(ex, records, consumer, container);
     }
-}
 
+    /**
+     * Контейнер и пакетные слушатели оборачивают исключение десериализации, поэтому оно ищется по цепочке причин.
+     */
+    static boolean isUnreadable(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DeserializationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
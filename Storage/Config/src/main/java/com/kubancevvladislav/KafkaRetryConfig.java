@@ -0,0 +1,130 @@
+package com.kubancevvladislav;
+
+import lombok.AllArgsConstructor;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Топики повторов и недоставленных записей, публикация в них и слушатели ступеней повтора.
+ * @see RetryTopics
+ */
+@Configuration
+@AllArgsConstructor
+public class KafkaRetryConfig {
+    private final KafkaClients kafkaClients;
+
+    /**
+     * Шаблон для публикации необработанных записей на следующую ступень.
+     */
+    @Bean
+    public KafkaTemplate<String, Object> retryKafkaTemplate() {
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+                kafkaClients.producerProperties(),
+                new StringSerializer(),
+                new EventPayloadSerializer()
+        ));
+    }
+
+    /**
+     * Шаблон для возврата записей из топика недоставленных записей в основной топик без изменения байтов.
+     */
+    @Bean
+    public KafkaTemplate<String, byte[]> redriveKafkaTemplate() {
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+                kafkaClients.producerProperties(),
+                new StringSerializer(),
+                new ByteArraySerializer()
+        ));
+    }
+
+    /**
+     * Публикует запись на следующую ступень. Метаданные ошибки (класс, сообщение, исходные топик,
+     * раздел и смещение) добавляются в стандартные заголовки {@code kafka_dlt-*}.
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer retryRecoverer(
+            @Lazy KafkaTemplate<String, Object> retryKafkaTemplate,
+            RetryTopics retryTopics) {
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(
+                retryKafkaTemplate,
+                (record, ex) -> new TopicPartition(retryTopics.nextDestination(record.topic()), -1));
+        recoverer.setHeadersFunction((record, ex) -> retryTopics.headers(record));
+        return recoverer;
+    }
+
+    /**
+     * Публикует запись сразу в топик недоставленных записей, минуя ступени повтора.
+     * Используется для записей, которые невозможно обработать повторно, например с некорректным ключом.
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer deadLetterRecoverer(
+            @Lazy KafkaTemplate<String, Object> retryKafkaTemplate,
+            RetryTopics retryTopics) {
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(
+                retryKafkaTemplate,
+                (record, ex) -> new TopicPartition(retryTopics.dltTopic(retryTopics.mainTopic(record.topic())), -1));
+        recoverer.setHeadersFunction((record, ex) -> retryTopics.sourceHeaders(record));
+        return recoverer;
+    }
+
+    /**
+     * Фабрика контейнеров для ступеней повтора.
+     * Запись, время которой ещё не наступило, возвращается через {@code nack} с паузой:
+     * контейнер приостанавливает все свои разделы, продолжая опрашивать брокер. Основной топик
+     * читается другими контейнерами, а каждой ступени слушатель выделяет собственный контейнер,
+     * поэтому пауза одной ступени не задерживает остальные.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> retryKafkaListenerContainerFactory(
+            KafkaGlobalErrorHandler errorHandler) {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(kafkaClients.consumerFactory(
+                kafkaClients.consumerProperties(),
+                new EventPayloadDeserializer()));
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setCommonErrorHandler(errorHandler);
+        return factory;
+    }
+
+    /**
+     * Потребитель для просмотра топиков недоставленных записей: разделы назначаются вручную,
+     * смещения группы не фиксируются.
+     */
+    @Bean
+    public ConsumerFactory<String, byte[]> deadLetterConsumerFactory() {
+        return kafkaClients.consumerFactory(kafkaClients.consumerProperties(), new ByteArrayDeserializer());
+    }
+
+    @Bean
+    public KafkaAdmin.NewTopics retryTopicsDeclaration(
+            RetryTopics retryTopics,
+            @Value("${storage.kafka.retry.partitions:1}") int partitions) {
+        List<NewTopic> topics = new ArrayList<>();
+        for (String topic : RetryTopics.MAIN_TOPICS) {
+            for (String retryTopic : retryTopics.retryTopics(topic)) {
+                topics.add(TopicBuilder.name(retryTopic).partitions(partitions).build());
+            }
+            topics.add(TopicBuilder.name(retryTopics.dltTopic(topic)).partitions(partitions).build());
+        }
+        return new KafkaAdmin.NewTopics(topics.toArray(NewTopic[]::new));
+    }
+}
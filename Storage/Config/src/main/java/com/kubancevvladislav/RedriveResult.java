@@ -0,0 +1,6 @@
+package com.kubancevvladislav;
+
+/**
+ * Координаты записи, возвращённой из топика недоставленных событий в основной топик.
+ */
+public record RedriveResult(String topic, int partition, long offset) {}
@@ -0,0 +1,141 @@
+package com.kubancevvladislav;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Ступени повторной обработки событий.
+ * Запись, которую не удалось сохранить из основного топика, сразу публикуется в {@code <topic>-retry-0},
+ * а основной раздел продолжает читаться. Каждая ступень {@code <topic>-retry-N} выдерживает свою задержку
+ * из {@code storage.kafka.retry.delays-ms}; после последней ступени запись попадает в {@code <topic>-dlt}.
+ * <p>В заголовках записи переносятся координаты исходной записи основного топика, по которым
+ * сохранённое событие остаётся уникальным, и время, раньше которого ступень не обрабатывает запись.</p>
+ */
+@Component
+public class RetryTopics {
+    /** Топики событий, для которых ведутся повторы */
+    public static final List<String> MAIN_TOPICS = List.of("account-topic", "client-topic");
+    public static final String SOURCE_TOPIC_HEADER = "storage-source-topic";
+    public static final String SOURCE_PARTITION_HEADER = "storage-source-partition";
+    public static final String SOURCE_OFFSET_HEADER = "storage-source-offset";
+    public static final String DUE_AT_HEADER = "storage-retry-due-at";
+
+    private static final String RETRY_SUFFIX = "-retry-";
+    private static final String DLT_SUFFIX = "-dlt";
+
+    private final List<Long> delaysMs;
+
+    public RetryTopics(@Value("${storage.kafka.retry.delays-ms:1000,10000,60000}") List<Long> delaysMs) {
+        if (delaysMs.isEmpty()) {
+            throw new IllegalArgumentException("storage.kafka.retry.delays-ms должен содержать хотя бы одну задержку");
+        }
+        this.delaysMs = List.copyOf(delaysMs);
+    }
+
+    /**
+     * @return топики всех ступеней повтора основного топика
+     */
+    public String[] retryTopics(String topic) {
+        return IntStream.range(0, delaysMs.size())
+                .mapToObj(stage -> retryTopic(topic, stage))
+                .toArray(String[]::new);
+    }
+
+    public String dltTopic(String topic) {
+        return requireMainTopic(topic) + DLT_SUFFIX;
+    }
+
+    /**
+     * @return топик, в который публикуется запись, не обработанная в {@code failedTopic}
+     */
+    public String nextDestination(String failedTopic) {
+        int stage = stage(failedTopic);
+        String topic = mainTopic(failedTopic);
+        return stage + 1 < delaysMs.size() ? retryTopic(topic, stage + 1) : dltTopic(topic);
+    }
+
+    /**
+     * @return основной топик, к которому относится топик повтора или недоставленных записей
+     */
+    public String mainTopic(String topic) {
+        int suffix = topic.indexOf(RETRY_SUFFIX);
+        if (suffix < 0 && topic.endsWith(DLT_SUFFIX)) {
+            suffix = topic.length() - DLT_SUFFIX.length();
+        }
+        return requireMainTopic(suffix < 0 ? topic : topic.substring(0, suffix));
+    }
+
+    public String requireMainTopic(String topic) {
+        if (!MAIN_TOPICS.contains(topic)) {
+            throw new IllegalArgumentException("Неизвестный топик событий: " + topic);
+        }
+        return topic;
+    }
+
+    /**
+     * Заголовки, добавляемые к записи при публикации на следующую ступень.
+     * Координаты исходной записи добавляются только при первой неудаче, дальше они копируются вместе с записью.
+     */
+    public Headers headers(ConsumerRecord<?, ?> failed) {
+        Headers headers = sourceHeaders(failed);
+        int nextStage = stage(failed.topic()) + 1;
+        if (nextStage < delaysMs.size()) {
+            long dueAt = System.currentTimeMillis() + delaysMs.get(nextStage);
+            headers.add(DUE_AT_HEADER, bytes(Long.toString(dueAt)));
+        }
+        return headers;
+    }
+
+    /**
+     * Координаты исходной записи основного топика, если их ещё нет в заголовках записи.
+     */
+    public Headers sourceHeaders(ConsumerRecord<?, ?> failed) {
+        Headers headers = new RecordHeaders();
+        if (failed.headers().lastHeader(SOURCE_TOPIC_HEADER) == null) {
+            headers.add(SOURCE_TOPIC_HEADER, bytes(failed.topic()));
+            headers.add(SOURCE_PARTITION_HEADER, bytes(Integer.toString(failed.partition())));
+            headers.add(SOURCE_OFFSET_HEADER, bytes(Long.toString(failed.offset())));
+        }
+        return headers;
+    }
+
+    /**
+     * @return время в миллисекундах, раньше которого запись ступени повтора не обрабатывается
+     */
+    public long dueAt(ConsumerRecord<?, ?> record) {
+        String dueAt = header(record, DUE_AT_HEADER);
+        if (dueAt == null) {
+            return record.timestamp() + delaysMs.get(Math.max(0, stage(record.topic())));
+        }
+        return Long.parseLong(dueAt);
+    }
+
+    public static String header(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return номер ступени повтора или {@code -1} для основного топика
+     */
+    private int stage(String topic) {
+        int suffix = topic.indexOf(RETRY_SUFFIX);
+        return suffix < 0 ? -1 : Integer.parseInt(topic.substring(suffix + RETRY_SUFFIX.length()));
+    }
+
+    private static String retryTopic(String topic, int stage) {
+        return topic + RETRY_SUFFIX + stage;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,124 @@
+package com.kubancevvladislav;
+
+import com.kubancevvladislav.events.Deposited;
+import com.kubancevvladislav.events.DomainEventSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@EmbeddedKafka(partitions = 1, topics = {"account-topic", "account-topic-retry-0", "account-topic-dlt"})
+class DeadLetterRoutingTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final AtomicInteger delivered = new AtomicInteger();
+    private ConcurrentMessageListenerContainer<String, Object> container;
+
+    @BeforeEach
+    void startListener(EmbeddedKafkaBroker broker) {
+        KafkaClients kafkaClients = new KafkaClients(
+                broker.getBrokersAsString(),
+                "dead-letter-routing-test",
+                new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        RetryTopics retryTopics = new RetryTopics(List.of(1000L));
+        KafkaRetryConfig retryConfig = new KafkaRetryConfig(kafkaClients);
+        KafkaGlobalErrorHandler errorHandler = new KafkaGlobalErrorHandler(
+                retryConfig.retryRecoverer(retryConfig.retryKafkaTemplate(), retryTopics),
+                retryConfig.deadLetterRecoverer(retryConfig.retryKafkaTemplate(), retryTopics));
+
+        container = new KafkaConsumerConfig(errorHandler, kafkaClients)
+                .kafkaListenerContainerFactory()
+                .createContainer("account-topic");
+        Properties earliest = new Properties();
+        earliest.setProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        container.getContainerProperties().setKafkaConsumerProperties(earliest);
+        container.setupMessageListener((MessageListener<String, Object>) record -> {
+            delivered.incrementAndGet();
+            throw new IllegalStateException("Хранилище недоступно");
+        });
+        container.start();
+        ContainerTestUtils.waitForAssignment(container, 1);
+    }
+
+    @AfterEach
+    void stopListener() {
+        container.stop();
+    }
+
+    @Test
+    void sendsCorruptRecordStraightToDeadLetterTopicAndFailedRecordToRetry(EmbeddedKafkaBroker broker) {
+        byte[] corrupt = "{\"eventName\":".getBytes(StandardCharsets.UTF_8);
+        byte[] event = new DomainEventSerializer().serialize("account-topic",
+                new Deposited(1L, BigInteger.ONE, BigInteger.ONE, BigDecimal.TEN));
+        send(broker, corrupt);
+        send(broker, event);
+
+        try (Consumer<String, byte[]> consumer = rawConsumer(broker)) {
+            broker.consumeFromAnEmbeddedTopic(consumer, "account-topic-dlt");
+            ConsumerRecord<String, byte[]> dead = KafkaTestUtils.getSingleRecord(consumer, "account-topic-dlt", TIMEOUT);
+
+            assertArrayEquals(corrupt, dead.value());
+            assertEquals("1", dead.key());
+            assertEquals("0", RetryTopics.header(dead, RetryTopics.SOURCE_OFFSET_HEADER));
+            String exception = RetryTopics.header(dead, KafkaHeaders.DLT_EXCEPTION_FQCN)
+                    + " " + RetryTopics.header(dead, KafkaHeaders.DLT_EXCEPTION_CAUSE_FQCN);
+            assertTrue(exception.contains("DeserializationException"), exception);
+        }
+        try (Consumer<String, byte[]> consumer = rawConsumer(broker)) {
+            broker.consumeFromAnEmbeddedTopic(consumer, "account-topic-retry-0");
+            ConsumerRecord<String, byte[]> retried =
+                    KafkaTestUtils.getSingleRecord(consumer, "account-topic-retry-0", TIMEOUT);
+
+            assertArrayEquals(event, retried.value());
+            assertEquals("1", RetryTopics.header(retried, RetryTopics.SOURCE_OFFSET_HEADER));
+        }
+        // Повреждённая запись до слушателя не доходит
+        assertEquals(1, delivered.get());
+    }
+
+    private static void send(EmbeddedKafkaBroker broker, byte[] value) {
+        Map<String, Object> props = KafkaTestUtils.producerProps(broker);
+        try (KafkaProducer<String, byte[]> producer =
+                     new KafkaProducer<>(props, new StringSerializer(), new ByteArraySerializer())) {
+            producer.send(new ProducerRecord<>("account-topic", "1", value));
+        }
+    }
+
+    private static Consumer<String, byte[]> rawConsumer(EmbeddedKafkaBroker broker) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("dead-letter-reader", "false", broker);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new ByteArrayDeserializer())
+                .createConsumer();
+    }
+}
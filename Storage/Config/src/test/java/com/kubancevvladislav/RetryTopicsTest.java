@@ -0,0 +1,75 @@
+package com.kubancevvladislav;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryTopicsTest {
+    private final RetryTopics retryTopics = new RetryTopics(List.of(1000L, 10000L));
+
+    @Test
+    void passesFailedRecordThroughStagesToDeadLetterTopic() {
+        assertArrayEquals(new String[] {"account-topic-retry-0", "account-topic-retry-1"},
+                retryTopics.retryTopics("account-topic"));
+        assertEquals("account-topic-retry-0", retryTopics.nextDestination("account-topic"));
+        assertEquals("account-topic-retry-1", retryTopics.nextDestination("account-topic-retry-0"));
+        assertEquals("account-topic-dlt", retryTopics.nextDestination("account-topic-retry-1"));
+    }
+
+    @Test
+    void findsMainTopicOfRetryAndDeadLetterTopics() {
+        assertEquals("client-topic", retryTopics.mainTopic("client-topic-retry-1"));
+        assertEquals("client-topic", retryTopics.mainTopic("client-topic-dlt"));
+        assertEquals("client-topic", retryTopics.mainTopic("client-topic"));
+        assertThrows(IllegalArgumentException.class, () -> retryTopics.mainTopic("payments-topic-dlt"));
+        assertThrows(IllegalArgumentException.class, () -> new RetryTopics(List.of()));
+    }
+
+    @Test
+    void marksSourceAndDueTimeOnFirstFailure() {
+        long before = System.currentTimeMillis();
+
+        Headers headers = retryTopics.headers(record("account-topic", 0L, new RecordHeaders()));
+
+        ConsumerRecord<String, Object> retried = record("account-topic-retry-0", 0L, headers);
+        assertEquals("account-topic", RetryTopics.header(retried, RetryTopics.SOURCE_TOPIC_HEADER));
+        assertEquals("3", RetryTopics.header(retried, RetryTopics.SOURCE_PARTITION_HEADER));
+        assertEquals("42", RetryTopics.header(retried, RetryTopics.SOURCE_OFFSET_HEADER));
+        // Первая ступень выдерживает первую задержку
+        long dueAt = retryTopics.dueAt(retried);
+        assertTrue(dueAt >= before + 1000 && dueAt <= System.currentTimeMillis() + 1000, Long.toString(dueAt));
+    }
+
+    @Test
+    void keepsOriginalSourceAndDropsDueTimeBeforeDeadLetterTopic() {
+        RecordHeaders copied = new RecordHeaders();
+        copied.add(RetryTopics.SOURCE_TOPIC_HEADER, "account-topic".getBytes(StandardCharsets.UTF_8));
+
+        Headers headers = retryTopics.headers(record("account-topic-retry-1", 0L, copied));
+
+        assertNull(headers.lastHeader(RetryTopics.SOURCE_TOPIC_HEADER));
+        assertNull(headers.lastHeader(RetryTopics.DUE_AT_HEADER));
+    }
+
+    @Test
+    void delaysRecordWithoutDueTimeFromItsTimestamp() {
+        assertEquals(15000L, retryTopics.dueAt(record("account-topic-retry-1", 5000L, new RecordHeaders())));
+    }
+
+    private static ConsumerRecord<String, Object> record(String topic, long timestamp, Headers headers) {
+        return new ConsumerRecord<>(topic, 3, 42L, timestamp, TimestampType.CREATE_TIME, 0, 0,
+                "1", "событие", headers, Optional.empty());
+    }
+}
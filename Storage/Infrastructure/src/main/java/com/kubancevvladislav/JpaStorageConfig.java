@@ -0,0 +1,15 @@
+package com.kubancevvladislav;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Репозитории Spring Data создаются только для хранилища в PostgreSQL,
+ * чтобы журнал на диске запускался без источника данных.
+ */
+@Configuration
+@ConditionalOnProperty(name = "storage.backend", havingValue = "jpa", matchIfMissing = true)
+@EnableJpaRepositories(basePackages = "com.kubancevvladislav.repositories")
+public class JpaStorageConfig {
+}
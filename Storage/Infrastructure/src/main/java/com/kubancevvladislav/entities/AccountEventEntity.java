@@ -2,11 +2,21 @@ package com.kubancevvladislav.entities;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnTransformer;
 
+import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.time.Instant;
 
 @Entity
+@Table(
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_account_event_source",
+                columnNames = {"source_topic", "source_partition", "source_offset"}),
+        indexes = {
+                @Index(name = "idx_account_event_account_ts_id", columnList = "account_id, timestamp DESC, id DESC"),
+                @Index(name = "idx_account_event_type_amount_id", columnList = "event_type, amount, id")
+        })
 @Data
 public class AccountEventEntity {
     @Id
@@ -14,8 +24,18 @@ public class AccountEventEntity {
     private Long id;
 
     private BigInteger accountId;
-    @Lob
+    /** Тип события, извлечённый из тела при записи */
+    @Column(length = 64)
+    private String eventType;
+    /** Сумма операции, если событие денежное */
+    private BigDecimal amount;
+    @Column(columnDefinition = "jsonb")
+    @ColumnTransformer(write = "?::jsonb")
     @Convert(converter = JsonAttributeConverter.class)
     private Object payload;
     private Instant timestamp = Instant.now();
-}
\ No newline at end of file
+    /** Координаты записи Kafka, из которой получено событие; повторная доставка отбрасывается по ним */
+    private String sourceTopic;
+    private Integer sourcePartition;
+    private Long sourceOffset;
+}
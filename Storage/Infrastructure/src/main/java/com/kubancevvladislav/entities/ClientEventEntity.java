@@ -2,10 +2,19 @@ package com.kubancevvladislav.entities;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnTransformer;
 
 import java.time.Instant;
 
 @Entity
+@Table(
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_client_event_source",
+                columnNames = {"source_topic", "source_partition", "source_offset"}),
+        indexes = {
+                @Index(name = "idx_client_event_login_ts_id", columnList = "client_login, timestamp DESC, id DESC"),
+                @Index(name = "idx_client_event_type_ts_id", columnList = "event_type, timestamp DESC, id DESC")
+        })
 @Data
 public class ClientEventEntity {
     @Id
@@ -13,8 +22,16 @@ public class ClientEventEntity {
     private Long id;
 
     private String clientLogin;
-    @Lob
+    /** Тип события, извлечённый из тела при записи */
+    @Column(length = 64)
+    private String eventType;
+    @Column(columnDefinition = "jsonb")
+    @ColumnTransformer(write = "?::jsonb")
     @Convert(converter = JsonAttributeConverter.class)
     private Object payload;
     private Instant timestamp = Instant.now();
-}
\ No newline at end of file
+    /** Координаты записи Kafka, из которой получено событие; повторная доставка отбрасывается по ним */
+    private String sourceTopic;
+    private Integer sourcePartition;
+    private Long sourceOffset;
+}
@@ -0,0 +1,31 @@
+package com.kubancevvladislav.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Следующее смещение раздела Kafka, которое должна прочитать группа потребителей.
+ * Обновляется в той же транзакции, что и сохранённые события.
+ */
+@Entity
+@Table(name = "consumer_offsets")
+@Data
+public class ConsumerOffsetEntity {
+    @EmbeddedId
+    private Key key;
+    private long nextOffset;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String groupId;
+        private String topic;
+        private int partitionNumber;
+    }
+}
@@ -1,7 +1,11 @@
 package com.kubancevvladislav.entities;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.JsonNodeFeature;
+import com.kubancevvladislav.events.DomainEvent;
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
 import lombok.AllArgsConstructor;
@@ -9,6 +13,11 @@ import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 
+/**
+ * Тело события в JSON. Типизированные события пишутся с полем {@value DomainEvent#TYPE_PROPERTY}
+ * и по нему читаются обратно в свой класс; тела в прежнем формате читаются как обычный JSON.
+ * Дробные числа читаются в {@link java.math.BigDecimal} без потери масштаба, чтобы суммы не проходили через double.
+ */
 @Component
 @Converter
 @AllArgsConstructor
@@ -27,7 +36,14 @@ public class JsonAttributeConverter implements AttributeConverter<Object, String
     @Override
     public Object convertToEntityAttribute(String dbData) {
         try {
-            return objectMapper.readValue(dbData, Object.class);
+            JsonNode node = objectMapper.reader()
+                    .with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                    .without(JsonNodeFeature.STRIP_TRAILING_BIGDECIMAL_ZEROES)
+                    .readTree(dbData);
+            if (node.has(DomainEvent.TYPE_PROPERTY)) {
+                return objectMapper.treeToValue(node, DomainEvent.class);
+            }
+            return objectMapper.treeToValue(node, Object.class);
         } catch (IOException e) {
             throw new IllegalArgumentException("Ошибка десериализации", e);
         }
@@ -0,0 +1,5 @@
+CREATE INDEX IF NOT EXISTS idx_account_event_account_ts_id
+    ON account_event_entity (account_id, timestamp DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_client_event_login_ts_id
+    ON client_event_entity (client_login, timestamp DESC, id DESC);
@@ -0,0 +1,20 @@
+ALTER TABLE account_event_entity
+    ALTER COLUMN payload TYPE jsonb USING payload::jsonb,
+    ADD COLUMN IF NOT EXISTS event_type VARCHAR(64),
+    ADD COLUMN IF NOT EXISTS amount NUMERIC(38, 2);
+
+ALTER TABLE client_event_entity
+    ALTER COLUMN payload TYPE jsonb USING payload::jsonb,
+    ADD COLUMN IF NOT EXISTS event_type VARCHAR(64);
+
+-- События в прежнем JSON-формате хранят тип в поле eventName
+UPDATE account_event_entity SET event_type = payload ->> 'eventName'
+WHERE event_type IS NULL AND payload ? 'eventName';
+UPDATE client_event_entity SET event_type = payload ->> 'eventName'
+WHERE event_type IS NULL AND payload ? 'eventName';
+
+CREATE INDEX IF NOT EXISTS idx_account_event_type_amount_id
+    ON account_event_entity (event_type, amount, id);
+
+CREATE INDEX IF NOT EXISTS idx_client_event_type_ts_id
+    ON client_event_entity (event_type, timestamp DESC, id DESC);
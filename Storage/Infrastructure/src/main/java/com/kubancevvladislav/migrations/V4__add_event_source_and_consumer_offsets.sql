@@ -0,0 +1,19 @@
+ALTER TABLE account_event_entity
+    ADD COLUMN IF NOT EXISTS source_topic VARCHAR(255),
+    ADD COLUMN IF NOT EXISTS source_partition INT,
+    ADD COLUMN IF NOT EXISTS source_offset BIGINT,
+    ADD CONSTRAINT uk_account_event_source UNIQUE (source_topic, source_partition, source_offset);
+
+ALTER TABLE client_event_entity
+    ADD COLUMN IF NOT EXISTS source_topic VARCHAR(255),
+    ADD COLUMN IF NOT EXISTS source_partition INT,
+    ADD COLUMN IF NOT EXISTS source_offset BIGINT,
+    ADD CONSTRAINT uk_client_event_source UNIQUE (source_topic, source_partition, source_offset);
+
+CREATE TABLE IF NOT EXISTS consumer_offsets (
+    group_id VARCHAR(255) NOT NULL,
+    topic VARCHAR(255) NOT NULL,
+    partition_number INT NOT NULL,
+    next_offset BIGINT NOT NULL,
+    PRIMARY KEY (group_id, topic, partition_number)
+);
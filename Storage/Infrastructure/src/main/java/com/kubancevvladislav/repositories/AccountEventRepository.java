@@ -1,13 +1,53 @@
 package com.kubancevvladislav.repositories;
 
 import com.kubancevvladislav.entities.AccountEventEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.time.Instant;
 import java.util.List;
 
 @Repository
 public interface AccountEventRepository extends JpaRepository<AccountEventEntity, Long> {
-    List<AccountEventEntity> findAccountEventEntitiesByAccountId(BigInteger accountId);
+    /**
+     * Страница истории счёта от новых событий к старым, строго до позиции {@code (beforeTimestamp, beforeId)}.
+     * Читается диапазонным сканированием индекса {@code (account_id, timestamp DESC, id DESC)}.
+     */
+    @Query("""
+    SELECT e FROM AccountEventEntity e
+    WHERE e.accountId = :accountId
+      AND e.timestamp >= :from
+      AND (e.timestamp < :beforeTimestamp OR (e.timestamp = :beforeTimestamp AND e.id < :beforeId))
+    ORDER BY e.timestamp DESC, e.id DESC
+    """)
+    List<AccountEventEntity> findPageBefore(
+            @Param("accountId") BigInteger accountId,
+            @Param("from") Instant from,
+            @Param("beforeTimestamp") Instant beforeTimestamp,
+            @Param("beforeId") Long beforeId,
+            Limit limit);
+
+    /**
+     * Страница событий указанного типа с суммой не больше {@code maxAmount} в порядке {@code (amount, id)},
+     * строго после позиции {@code (afterAmount, afterId)}.
+     * Читается диапазонным сканированием индекса {@code (event_type, amount, id)}.
+     */
+    @Query("""
+    SELECT e FROM AccountEventEntity e
+    WHERE e.eventType = :eventType
+      AND e.amount <= :maxAmount
+      AND (e.amount > :afterAmount OR (e.amount = :afterAmount AND e.id > :afterId))
+    ORDER BY e.amount, e.id
+    """)
+    List<AccountEventEntity> findByTypeAndAmountAfter(
+            @Param("eventType") String eventType,
+            @Param("maxAmount") BigDecimal maxAmount,
+            @Param("afterAmount") BigDecimal afterAmount,
+            @Param("afterId") Long afterId,
+            Limit limit);
 }
@@ -1,13 +1,48 @@
 package com.kubancevvladislav.repositories;
 
 import com.kubancevvladislav.entities.ClientEventEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 
 @Repository
 public interface ClientEventRepository extends JpaRepository<ClientEventEntity, Long> {
-    List<ClientEventEntity> findClientEventEntitiesByClientLogin(String clientLogin);
-}
+    /**
+     * Страница истории клиента от новых событий к старым, строго до позиции {@code (beforeTimestamp, beforeId)}.
+     * Читается диапазонным сканированием индекса {@code (client_login, timestamp DESC, id DESC)}.
+     */
+    @Query("""
+    SELECT e FROM ClientEventEntity e
+    WHERE e.clientLogin = :clientLogin
+      AND e.timestamp >= :from
+      AND (e.timestamp < :beforeTimestamp OR (e.timestamp = :beforeTimestamp AND e.id < :beforeId))
+    ORDER BY e.timestamp DESC, e.id DESC
+    """)
+    List<ClientEventEntity> findPageBefore(
+            @Param("clientLogin") String clientLogin,
+            @Param("from") Instant from,
+            @Param("beforeTimestamp") Instant beforeTimestamp,
+            @Param("beforeId") Long beforeId,
+            Limit limit);
 
+    /**
+     * Страница событий указанного типа от новых к старым, строго до позиции {@code (beforeTimestamp, beforeId)}.
+     * Читается диапазонным сканированием индекса {@code (event_type, timestamp DESC, id DESC)}.
+     */
+    @Query("""
+    SELECT e FROM ClientEventEntity e
+    WHERE e.eventType = :eventType
+      AND (e.timestamp < :beforeTimestamp OR (e.timestamp = :beforeTimestamp AND e.id < :beforeId))
+    ORDER BY e.timestamp DESC, e.id DESC
+    """)
+    List<ClientEventEntity> findByTypeBefore(
+            @Param("eventType") String eventType,
+            @Param("beforeTimestamp") Instant beforeTimestamp,
+            @Param("beforeId") Long beforeId,
+            Limit limit);
+}
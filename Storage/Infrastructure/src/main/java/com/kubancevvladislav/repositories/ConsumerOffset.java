@@ -0,0 +1,8 @@
+package com.kubancevvladislav.repositories;
+
+/**
+ * Позиция группы потребителей в разделе Kafka.
+ * @param nextOffset смещение следующей непрочитанной записи
+ */
+public record ConsumerOffset(String topic, int partition, long nextOffset) {
+}
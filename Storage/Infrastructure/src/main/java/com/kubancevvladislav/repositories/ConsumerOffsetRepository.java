@@ -0,0 +1,50 @@
+package com.kubancevvladislav.repositories;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Позиции потребителей, хранящиеся в базе рядом с событиями.
+ * Запись позиции должна выполняться в транзакции пачки событий, тогда события
+ * и позиция фиксируются вместе и после сбоя чтение продолжается ровно с первого несохранённого события.
+ */
+@Repository
+@ConditionalOnProperty(name = "storage.backend", havingValue = "jpa", matchIfMissing = true)
+@AllArgsConstructor
+public class ConsumerOffsetRepository {
+    private static final String UPSERT_SQL = """
+            INSERT INTO consumer_offsets (group_id, topic, partition_number, next_offset) VALUES (?, ?, ?, ?)
+            ON CONFLICT (group_id, topic, partition_number)
+            DO UPDATE SET next_offset = GREATEST(consumer_offsets.next_offset, EXCLUDED.next_offset)
+            """;
+    private static final String SELECT_SQL =
+            "SELECT topic, partition_number, next_offset FROM consumer_offsets WHERE group_id = ? AND topic = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Сдвигает позиции вперёд; позиция никогда не возвращается назад.
+     */
+    public void save(String groupId, List<ConsumerOffset> offsets) {
+        if (offsets.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, offsets, offsets.size(), (ps, offset) -> {
+            ps.setString(1, groupId);
+            ps.setString(2, offset.topic());
+            ps.setInt(3, offset.partition());
+            ps.setLong(4, offset.nextOffset());
+        });
+    }
+
+    public List<ConsumerOffset> findByTopic(String groupId, String topic) {
+        return jdbcTemplate.query(
+                SELECT_SQL,
+                (rs, rowNum) -> new ConsumerOffset(rs.getString(1), rs.getInt(2), rs.getLong(3)),
+                groupId, topic);
+    }
+}
@@ -0,0 +1,73 @@
+package com.kubancevvladislav.repositories;
+
+import com.kubancevvladislav.entities.AccountEventEntity;
+import com.kubancevvladislav.entities.ClientEventEntity;
+import com.kubancevvladislav.entities.JsonAttributeConverter;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Пакетная запись событий через JDBC.
+ * Вся пачка отправляется одним {@code executeBatch}; при {@code reWriteBatchedInserts=true}
+ * драйвер PostgreSQL переписывает её в многострочные {@code INSERT}.
+ * Методы должны вызываться внутри транзакции, иначе каждая строка фиксируется отдельно.
+ * Событие, уже сохранённое из той же записи Kafka, пропускается по уникальному ограничению
+ * {@code (source_topic, source_partition, source_offset)}, поэтому повторная доставка не создаёт дублей.
+ */
+@Repository
+@ConditionalOnProperty(name = "storage.backend", havingValue = "jpa", matchIfMissing = true)
+@AllArgsConstructor
+public class EventBatchRepository {
+    private static final String INSERT_ACCOUNT_EVENT_SQL = """
+            INSERT INTO account_event_entity
+                (account_id, event_type, amount, payload, timestamp, source_topic, source_partition, source_offset)
+            VALUES (?, ?, ?, ?::jsonb, ?, ?, ?, ?)
+            ON CONFLICT (source_topic, source_partition, source_offset) DO NOTHING
+            """;
+    private static final String INSERT_CLIENT_EVENT_SQL = """
+            INSERT INTO client_event_entity
+                (client_login, event_type, payload, timestamp, source_topic, source_partition, source_offset)
+            VALUES (?, ?, ?::jsonb, ?, ?, ?, ?)
+            ON CONFLICT (source_topic, source_partition, source_offset) DO NOTHING
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonAttributeConverter jsonConverter;
+
+    public void insertAccountEvents(List<AccountEventEntity> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_ACCOUNT_EVENT_SQL, events, events.size(), (ps, event) -> {
+            ps.setLong(1, event.getAccountId().longValueExact());
+            ps.setString(2, event.getEventType());
+            ps.setBigDecimal(3, event.getAmount());
+            ps.setString(4, jsonConverter.convertToDatabaseColumn(event.getPayload()));
+            ps.setTimestamp(5, Timestamp.from(event.getTimestamp()));
+            ps.setString(6, event.getSourceTopic());
+            ps.setObject(7, event.getSourcePartition(), Types.INTEGER);
+            ps.setObject(8, event.getSourceOffset(), Types.BIGINT);
+        });
+    }
+
+    public void insertClientEvents(List<ClientEventEntity> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_CLIENT_EVENT_SQL, events, events.size(), (ps, event) -> {
+            ps.setString(1, event.getClientLogin());
+            ps.setString(2, event.getEventType());
+            ps.setString(3, jsonConverter.convertToDatabaseColumn(event.getPayload()));
+            ps.setTimestamp(4, Timestamp.from(event.getTimestamp()));
+            ps.setString(5, event.getSourceTopic());
+            ps.setObject(6, event.getSourcePartition(), Types.INTEGER);
+            ps.setObject(7, event.getSourceOffset(), Types.BIGINT);
+        });
+    }
+}
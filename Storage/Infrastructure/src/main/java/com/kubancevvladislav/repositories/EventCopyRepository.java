@@ -0,0 +1,186 @@
+package com.kubancevvladislav.repositories;
+
+import com.kubancevvladislav.entities.AccountEventEntity;
+import com.kubancevvladislav.entities.ClientEventEntity;
+import com.kubancevvladislav.entities.JsonAttributeConverter;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Массовая загрузка событий командой PostgreSQL {@code COPY ... FROM STDIN} в текстовом формате.
+ * Строки кодируются по одной и сразу уходят в поток {@code COPY} через буфер фиксированного размера,
+ * поэтому память не растёт с размером пачки, а сервер не разбирает отдельные {@code INSERT}.
+ * Соединение берётся из текущей транзакции Spring, поэтому загрузка фиксируется вместе с ней.
+ * <p>{@code COPY} не умеет пропускать конфликтующие строки, поэтому пачка загружается во временную таблицу
+ * сеанса, а из неё переносится в основную одним {@code INSERT ... ON CONFLICT DO NOTHING}: события,
+ * уже сохранённые из тех же записей Kafka, пропускаются. Временная таблица очищается при фиксации.</p>
+ */
+@Repository
+@ConditionalOnProperty(name = "storage.backend", havingValue = "jpa", matchIfMissing = true)
+@AllArgsConstructor
+public class EventCopyRepository {
+    private static final String ACCOUNT_COLUMNS =
+            "account_id, event_type, amount, payload, timestamp, source_topic, source_partition, source_offset";
+    private static final String CLIENT_COLUMNS =
+            "client_login, event_type, payload, timestamp, source_topic, source_partition, source_offset";
+    private static final String CREATE_ACCOUNT_STAGING_SQL = """
+            CREATE TEMP TABLE IF NOT EXISTS account_event_staging (
+                account_id BIGINT, event_type VARCHAR(64), amount NUMERIC(38, 2), payload jsonb, timestamp TIMESTAMP,
+                source_topic VARCHAR(255), source_partition INT, source_offset BIGINT
+            ) ON COMMIT DELETE ROWS
+            """;
+    private static final String CREATE_CLIENT_STAGING_SQL = """
+            CREATE TEMP TABLE IF NOT EXISTS client_event_staging (
+                client_login VARCHAR(255), event_type VARCHAR(64), payload jsonb, timestamp TIMESTAMP,
+                source_topic VARCHAR(255), source_partition INT, source_offset BIGINT
+            ) ON COMMIT DELETE ROWS
+            """;
+    private static final String COPY_ACCOUNT_EVENTS_SQL =
+            "COPY account_event_staging (" + ACCOUNT_COLUMNS + ") FROM STDIN";
+    private static final String COPY_CLIENT_EVENTS_SQL =
+            "COPY client_event_staging (" + CLIENT_COLUMNS + ") FROM STDIN";
+    private static final String MERGE_ACCOUNT_EVENTS_SQL =
+            "INSERT INTO account_event_entity (" + ACCOUNT_COLUMNS + ") SELECT " + ACCOUNT_COLUMNS
+                    + " FROM account_event_staging ON CONFLICT (source_topic, source_partition, source_offset) DO NOTHING";
+    private static final String MERGE_CLIENT_EVENTS_SQL =
+            "INSERT INTO client_event_entity (" + CLIENT_COLUMNS + ") SELECT " + CLIENT_COLUMNS
+                    + " FROM client_event_staging ON CONFLICT (source_topic, source_partition, source_offset) DO NOTHING";
+
+    /** Размер буфера потока {@code COPY}: столько байт уходит серверу за одну отправку */
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    private final DataSource dataSource;
+    private final JsonAttributeConverter jsonConverter;
+
+    /**
+     * @return количество добавленных строк без учёта пропущенных повторов
+     */
+    public long copyAccountEvents(List<AccountEventEntity> events) {
+        return copy(CREATE_ACCOUNT_STAGING_SQL, COPY_ACCOUNT_EVENTS_SQL, MERGE_ACCOUNT_EVENTS_SQL, events, (row, event) -> {
+            appendField(row, event.getAccountId() == null ? null : event.getAccountId().toString());
+            row.append('\t');
+            appendField(row, event.getEventType());
+            row.append('\t');
+            appendField(row, event.getAmount() == null ? null : event.getAmount().toPlainString());
+            row.append('\t');
+            appendField(row, jsonConverter.convertToDatabaseColumn(event.getPayload()));
+            row.append('\t');
+            appendField(row, timestamp(event.getTimestamp()));
+            row.append('\t');
+            appendSource(row, event.getSourceTopic(), event.getSourcePartition(), event.getSourceOffset());
+        });
+    }
+
+    /**
+     * @return количество добавленных строк без учёта пропущенных повторов
+     */
+    public long copyClientEvents(List<ClientEventEntity> events) {
+        return copy(CREATE_CLIENT_STAGING_SQL, COPY_CLIENT_EVENTS_SQL, MERGE_CLIENT_EVENTS_SQL, events, (row, event) -> {
+            appendField(row, event.getClientLogin());
+            row.append('\t');
+            appendField(row, event.getEventType());
+            row.append('\t');
+            appendField(row, jsonConverter.convertToDatabaseColumn(event.getPayload()));
+            row.append('\t');
+            appendField(row, timestamp(event.getTimestamp()));
+            row.append('\t');
+            appendSource(row, event.getSourceTopic(), event.getSourcePartition(), event.getSourceOffset());
+        });
+    }
+
+    /**
+     * Передаёт строки в {@code COPY} по мере форматирования: каждая строка собирается в одном переиспользуемом
+     * буфере и дописывается в поток, который отправляет данные серверу частями по {@value #COPY_BUFFER_BYTES} байт.
+     * @param format дописывает поля события в строку без завершающего перевода строки
+     * @return количество строк, добавленных в основную таблицу
+     */
+    private <E> long copy(
+            String createStagingSql, String copySql, String mergeSql, List<E> events, BiConsumer<StringBuilder, E> format) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        String sql = createStagingSql;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(createStagingSql);
+            sql = copySql;
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+            try {
+                PGCopyOutputStream copyOut = new PGCopyOutputStream(copyIn, COPY_BUFFER_BYTES);
+                Writer out = new OutputStreamWriter(copyOut, StandardCharsets.UTF_8);
+                StringBuilder row = new StringBuilder(256);
+                for (E event : events) {
+                    row.setLength(0);
+                    format.accept(row, event);
+                    out.append(row).append('\n');
+                }
+                out.flush();
+                copyOut.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+            sql = mergeSql;
+            return statement.executeUpdate(mergeSql);
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("COPY", sql, e);
+        } catch (IOException e) {
+            throw new UncategorizedSQLException("COPY", sql, new SQLException(e.getMessage(), e));
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private static void appendSource(StringBuilder row, String topic, Integer partition, Long offset) {
+        appendField(row, topic);
+        row.append('\t');
+        appendField(row, partition == null ? null : partition.toString());
+        row.append('\t');
+        appendField(row, offset == null ? null : offset.toString());
+    }
+
+    private static String timestamp(Instant instant) {
+        return instant == null ? null : LocalDateTime.ofInstant(instant, ZoneId.systemDefault()).toString();
+    }
+
+    /**
+     * Дописывает значение с экранированием текстового формата {@code COPY}.
+     */
+    private static void appendField(StringBuilder row, String value) {
+        if (value == null) {
+            row.append("\\N");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> row.append("\\\\");
+                case '\t' -> row.append("\\t");
+                case '\n' -> row.append("\\n");
+                case '\r' -> row.append("\\r");
+                default -> row.append(c);
+            }
+        }
+    }
+}
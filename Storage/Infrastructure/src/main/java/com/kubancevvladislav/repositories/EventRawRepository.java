@@ -0,0 +1,90 @@
+package com.kubancevvladislav.repositories;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Чтение тел событий без разбора JSON.
+ * Драйвер PostgreSQL получает {@code jsonb} в текстовом виде, и {@code getBytes} возвращает
+ * эти байты UTF-8 как есть, не создавая ни строки, ни дерева объектов.
+ */
+@Repository
+@ConditionalOnProperty(name = "storage.backend", havingValue = "jpa", matchIfMissing = true)
+@AllArgsConstructor
+public class EventRawRepository {
+    private static final String SELECT_ACCOUNT_PAYLOADS_SQL = """
+            SELECT id, timestamp, payload FROM account_event_entity
+            WHERE account_id = ?
+              AND timestamp >= ?
+              AND (timestamp < ? OR (timestamp = ? AND id < ?))
+            ORDER BY timestamp DESC, id DESC
+            LIMIT ?
+            """;
+    private static final String SELECT_CLIENT_PAYLOADS_SQL = """
+            SELECT id, timestamp, payload FROM client_event_entity
+            WHERE client_login = ?
+              AND timestamp >= ?
+              AND (timestamp < ? OR (timestamp = ? AND id < ?))
+            ORDER BY timestamp DESC, id DESC
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Получатель строк в порядке чтения.
+     */
+    @FunctionalInterface
+    public interface RawEventHandler {
+        void handle(long id, Instant timestamp, byte[] payload);
+    }
+
+    /**
+     * Передаёт тела событий счёта от новых к старым, строго до позиции {@code (beforeTimestamp, beforeId)}.
+     */
+    public void findAccountPayloadsBefore(
+            BigInteger accountId,
+            Instant from,
+            Instant beforeTimestamp,
+            Long beforeId,
+            int limit,
+            RawEventHandler handler) {
+        query(SELECT_ACCOUNT_PAYLOADS_SQL, accountId.longValueExact(), from, beforeTimestamp, beforeId, limit, handler);
+    }
+
+    /**
+     * Передаёт тела событий клиента от новых к старым, строго до позиции {@code (beforeTimestamp, beforeId)}.
+     */
+    public void findClientPayloadsBefore(
+            String clientLogin,
+            Instant from,
+            Instant beforeTimestamp,
+            Long beforeId,
+            int limit,
+            RawEventHandler handler) {
+        query(SELECT_CLIENT_PAYLOADS_SQL, clientLogin, from, beforeTimestamp, beforeId, limit, handler);
+    }
+
+    private void query(
+            String sql,
+            Object key,
+            Instant from,
+            Instant beforeTimestamp,
+            Long beforeId,
+            int limit,
+            RawEventHandler handler) {
+        Timestamp before = Timestamp.from(beforeTimestamp);
+        jdbcTemplate.query(
+                sql,
+                (RowCallbackHandler) rs ->
+                        handler.handle(rs.getLong(1), rs.getTimestamp(2).toInstant(), rs.getBytes(3)),
+                key, Timestamp.from(from), before, before, beforeId, limit);
+    }
+}
@@ -0,0 +1,14 @@
+package com.kubancevvladislav.segmentlog;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+/**
+ * Прочитанная запись журнала.
+ * @param position позиция записи, уникальная в пределах журнала и возрастающая в порядке записи
+ * @param key ключ записи
+ * @param timestamp время записи
+ * @param payload тело записи - срез отображённого в память сегмента, доступный только для чтения
+ */
+public record LogEntry(long position, String key, Instant timestamp, ByteBuffer payload) {
+}
@@ -0,0 +1,78 @@
+package com.kubancevvladislav.segmentlog;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Индекс позиций записей по ключу.
+ * Для каждого ключа хранятся позиции и время записей в порядке записи, поэтому оба массива
+ * отсортированы и граница страницы находится двоичным поиском. Не потокобезопасен.
+ */
+final class PositionIndex {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final Map<String, Positions> positions = new HashMap<>();
+
+    void add(String key, long position, long timestampMicros) {
+        positions.computeIfAbsent(key, k -> new Positions()).add(position, timestampMicros);
+    }
+
+    /**
+     * Возвращает до {@code limit} позиций ключа от новых к старым: строго до {@code (beforeMicros, beforePosition)}
+     * и не раньше {@code fromMicros}.
+     */
+    long[] before(String key, long fromMicros, long beforeMicros, long beforePosition, int limit) {
+        Positions list = positions.get(key);
+        if (list == null) {
+            return new long[0];
+        }
+        int end = list.countBefore(beforeMicros, beforePosition);
+        int start = Math.max(list.countEarlierThan(fromMicros), end - limit);
+        long[] result = new long[Math.max(0, end - start)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = list.positions[end - 1 - i];
+        }
+        return result;
+    }
+
+    private static final class Positions {
+        private long[] positions = new long[INITIAL_CAPACITY];
+        private long[] timestamps = new long[INITIAL_CAPACITY];
+        private int size;
+
+        void add(long position, long timestampMicros) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+            }
+            positions[size] = position;
+            timestamps[size] = timestampMicros;
+            size++;
+        }
+
+        /**
+         * @return число записей, предшествующих {@code (micros, position)}
+         */
+        int countBefore(long micros, long position) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestamps[mid] < micros || (timestamps[mid] == micros && positions[mid] < position)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return число записей со временем меньше {@code micros}
+         */
+        int countEarlierThan(long micros) {
+            return countBefore(micros, Long.MIN_VALUE);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.kubancevvladislav.segmentlog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Файл сегмента фиксированного размера, целиком отображённый в память.
+ * Формат записи:
+ * {@code int length | int crc32c | short keyLength | key | long timestampMicros
+ * | short sourceLength | source | long sourceOffset | payload},
+ * где {@code length} - длина всего, что следует за заголовком, а контрольная сумма считается по тем же байтам.
+ * Источник записи пуст, если он не задан.
+ * Неиспользованный хвост файла заполнен нулями, нулевая длина означает конец данных.
+ */
+final class Segment implements Closeable {
+    static final int HEADER_BYTES = 8;
+    private static final int FIXED_BODY_BYTES = Short.BYTES + Long.BYTES + Short.BYTES + Long.BYTES;
+
+    private final int index;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int writePosition;
+
+    private Segment(int index, FileChannel channel, MappedByteBuffer buffer) {
+        this.index = index;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Открывает сегмент, создавая файл нужного размера, если его нет.
+     * Существующий файл отображается в своём размере.
+     */
+    static Segment open(Path path, int index, int size) throws IOException {
+        FileChannel channel = FileChannel.open(
+                path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long mappedSize = channel.size() > 0 ? channel.size() : size;
+            return new Segment(index, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static int recordBytes(int keyLength, int sourceLength, int payloadLength) {
+        return HEADER_BYTES + FIXED_BODY_BYTES + keyLength + sourceLength + payloadLength;
+    }
+
+    int index() {
+        return index;
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Получатель уцелевших записей при восстановлении.
+     */
+    @FunctionalInterface
+    interface RecordVisitor {
+        /**
+         * @param source источник записи или {@code null}, если он не задан
+         */
+        void visit(int offset, String key, long timestampMicros, String source, long sourceOffset);
+    }
+
+    /**
+     * Проходит записи от начала файла до первой пустой или повреждённой.
+     * Всё после неё - недописанный при аварии хвост; он обнуляется, и запись продолжится с этого места.
+     */
+    void recover(RecordVisitor visitor) {
+        int position = 0;
+        CRC32C crc = new CRC32C();
+        while (position + HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length < FIXED_BODY_BYTES || position + HEADER_BYTES + length > buffer.capacity()) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.slice(position + HEADER_BYTES, length));
+            if ((int) crc.getValue() != buffer.getInt(position + Integer.BYTES)) {
+                break;
+            }
+            visitor.visit(position, key(position), timestampMicros(position), source(position), sourceOffset(position));
+            position += HEADER_BYTES + length;
+        }
+        writePosition = position;
+        for (int i = position; i < buffer.capacity(); i++) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+    }
+
+    /**
+     * Дописывает запись в конец сегмента.
+     * @param source источник записи, пустой, если он не задан
+     * @return смещение записи или {@code -1}, если она не помещается
+     */
+    int append(byte[] key, long timestampMicros, byte[] source, long sourceOffset, byte[] payload) {
+        int size = recordBytes(key.length, source.length, payload.length);
+        if (writePosition + size > buffer.capacity()) {
+            return -1;
+        }
+        int offset = writePosition;
+        int body = offset + HEADER_BYTES;
+        buffer.putShort(body, (short) key.length);
+        buffer.put(body + Short.BYTES, key);
+        int sourceAt = body + Short.BYTES + key.length + Long.BYTES;
+        buffer.putLong(sourceAt - Long.BYTES, timestampMicros);
+        buffer.putShort(sourceAt, (short) source.length);
+        buffer.put(sourceAt + Short.BYTES, source);
+        buffer.putLong(sourceAt + Short.BYTES + source.length, sourceOffset);
+        buffer.put(sourceAt + Short.BYTES + source.length + Long.BYTES, payload);
+
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(body, size - HEADER_BYTES));
+        buffer.putInt(offset + Integer.BYTES, (int) crc.getValue());
+        buffer.putInt(offset, size - HEADER_BYTES);
+        writePosition += size;
+        return offset;
+    }
+
+    /**
+     * Сбрасывает на диск записи, дописанные начиная с {@code fromOffset}.
+     */
+    void force(int fromOffset) {
+        if (writePosition > fromOffset) {
+            buffer.force(fromOffset, writePosition - fromOffset);
+        }
+    }
+
+    /**
+     * Передаёт смещения записей в порядке записи, начиная с начала сегмента и строго до {@code end}.
+     */
+    void forEachOffset(int end, IntConsumer action) {
+        int offset = 0;
+        while (offset < end) {
+            action.accept(offset);
+            offset += HEADER_BYTES + buffer.getInt(offset);
+        }
+    }
+
+    int writePosition() {
+        return writePosition;
+    }
+
+    /**
+     * Проверяет, что по смещению начинается целая запись: позиция приходит извне,
+     * и смещение внутри чужой записи не должно читаться как запись.
+     */
+    boolean contains(int offset) {
+        if (offset < 0 || offset + HEADER_BYTES > writePosition) {
+            return false;
+        }
+        int length = buffer.getInt(offset);
+        if (length < FIXED_BODY_BYTES || offset + HEADER_BYTES + length > writePosition) {
+            return false;
+        }
+        int keyLength = Short.toUnsignedInt(buffer.getShort(offset + HEADER_BYTES));
+        if (keyLength > length - FIXED_BODY_BYTES
+                || Short.toUnsignedInt(buffer.getShort(sourceAt(offset))) > length - FIXED_BODY_BYTES - keyLength) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset + HEADER_BYTES, length));
+        return (int) crc.getValue() == buffer.getInt(offset + Integer.BYTES);
+    }
+
+    String key(int offset) {
+        int body = offset + HEADER_BYTES;
+        int keyLength = buffer.getShort(body);
+        byte[] key = new byte[keyLength];
+        buffer.get(body + Short.BYTES, key);
+        return new String(key, StandardCharsets.UTF_8);
+    }
+
+    long timestampMicros(int offset) {
+        int body = offset + HEADER_BYTES;
+        return buffer.getLong(body + Short.BYTES + buffer.getShort(body));
+    }
+
+    /**
+     * @return источник записи или {@code null}, если он не задан
+     */
+    String source(int offset) {
+        int sourceAt = sourceAt(offset);
+        int sourceLength = buffer.getShort(sourceAt);
+        if (sourceLength == 0) {
+            return null;
+        }
+        byte[] source = new byte[sourceLength];
+        buffer.get(sourceAt + Short.BYTES, source);
+        return new String(source, StandardCharsets.UTF_8);
+    }
+
+    long sourceOffset(int offset) {
+        int sourceAt = sourceAt(offset);
+        return buffer.getLong(sourceAt + Short.BYTES + buffer.getShort(sourceAt));
+    }
+
+    /**
+     * @return тело записи - срез отображённого файла без копирования
+     */
+    ByteBuffer payload(int offset) {
+        int length = buffer.getInt(offset);
+        int keyLength = buffer.getShort(offset + HEADER_BYTES);
+        int sourceAt = sourceAt(offset);
+        int sourceLength = buffer.getShort(sourceAt);
+        int payloadOffset = sourceAt + Short.BYTES + sourceLength + Long.BYTES;
+        return buffer.slice(payloadOffset, length - FIXED_BODY_BYTES - keyLength - sourceLength).asReadOnlyBuffer();
+    }
+
+    /**
+     * @return смещение длины источника: она следует за ключом и временем записи
+     */
+    private int sourceAt(int offset) {
+        int body = offset + HEADER_BYTES;
+        return body + Short.BYTES + buffer.getShort(body) + Long.BYTES;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
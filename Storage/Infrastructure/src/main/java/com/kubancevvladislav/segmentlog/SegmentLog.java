@@ -0,0 +1,266 @@
+package com.kubancevvladislav.segmentlog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Журнал записей, дописываемых в конец последовательности сегментов фиксированного размера,
+ * отображённых в память. Записи не изменяются и не удаляются.
+ * <p>
+ * Позиция записи - номер сегмента в старших 32 битах и смещение в младших, поэтому позиции
+ * возрастают в порядке записи. Время записи назначает журнал, и оно тоже не убывает,
+ * так что страница по ключу находится двоичным поиском в {@link PositionIndex} без обращения к файлам.
+ * Индекс строится при открытии проходом по всем сегментам; этот же проход отбрасывает недописанный
+ * при аварии хвост последнего сегмента.
+ * <p>
+ * Запись может нести источник и смещение в нём, например раздел топика Kafka и смещение сообщения.
+ * Смещения источников, уже записанные в журнал, хранятся отрезками в {@link SourceOffsets}
+ * и восстанавливаются тем же проходом, поэтому повторно доставленная запись не дописывается даже после сбоя.
+ * <p>
+ * Запись сериализуется, чтение выполняется параллельно с записью: тела записей возвращаются
+ * срезами отображённых сегментов без копирования.
+ */
+public class SegmentLog implements Closeable {
+    /** Позиция записи, пропущенной как уже записанная из того же источника */
+    public static final long SKIPPED = -1;
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final String name;
+    private final int segmentSize;
+    private final Pattern segmentFile;
+    private final List<Segment> segments = new ArrayList<>();
+    private final PositionIndex index = new PositionIndex();
+    private final SourceOffsets sources = new SourceOffsets();
+    private long lastTimestampMicros;
+
+    /**
+     * Открывает журнал в каталоге, восстанавливая индекс по существующим сегментам.
+     * @param name префикс имён файлов сегментов
+     * @param segmentSize размер нового сегмента в байтах
+     */
+    public SegmentLog(Path directory, String name, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.name = name;
+        this.segmentSize = segmentSize;
+        this.segmentFile = Pattern.compile(Pattern.quote(name) + "-(\\d{10})" + Pattern.quote(SEGMENT_SUFFIX));
+        Files.createDirectories(directory);
+        try {
+            for (int segmentIndex : existingSegments()) {
+                Segment segment = Segment.open(segmentPath(segmentIndex), segmentIndex, segmentSize);
+                segments.add(segment);
+                segment.recover((offset, key, timestampMicros, source, sourceOffset) -> {
+                    index.add(key, position(segmentIndex, offset), timestampMicros);
+                    lastTimestampMicros = Math.max(lastTimestampMicros, timestampMicros);
+                    if (source != null) {
+                        sources.add(source, sourceOffset);
+                    }
+                });
+            }
+            if (segments.isEmpty()) {
+                segments.add(Segment.open(segmentPath(0), 0, segmentSize));
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Запись для добавления в журнал.
+     * @param source источник записи или {@code null}, если повторы не отслеживаются
+     * @param sourceOffset смещение записи в источнике
+     */
+    public record LogRecord(String key, byte[] payload, String source, long sourceOffset) {
+        public LogRecord(String key, byte[] payload) {
+            this(key, payload, null, 0);
+        }
+    }
+
+    /**
+     * Дописывает записи в порядке списка. Запись, смещение которой в её источнике уже есть в журнале,
+     * пропускается.
+     * @param force сбросить дописанные страницы на диск до возврата
+     * @return позиции записей в порядке списка, {@link #SKIPPED} для пропущенных
+     * @throws IllegalArgumentException если запись не помещается в пустой сегмент
+     */
+    public synchronized long[] append(List<LogRecord> records, boolean force) throws IOException {
+        long[] result = new long[records.size()];
+        Segment segment = active();
+        int forceFrom = segment.writePosition();
+        for (int i = 0; i < records.size(); i++) {
+            LogRecord record = records.get(i);
+            byte[] key = record.key().getBytes(StandardCharsets.UTF_8);
+            byte[] source = record.source() == null ? new byte[0] : record.source().getBytes(StandardCharsets.UTF_8);
+            if (key.length > Short.MAX_VALUE || source.length > Short.MAX_VALUE
+                    || Segment.recordBytes(key.length, source.length, record.payload().length) > segmentSize) {
+                throw new IllegalArgumentException("Запись с ключом " + record.key() + " больше размера сегмента");
+            }
+            if (record.source() != null && sources.contains(record.source(), record.sourceOffset())) {
+                result[i] = SKIPPED;
+                continue;
+            }
+            long timestampMicros = Math.max(toMicros(Instant.now()), lastTimestampMicros);
+            int offset = segment.append(key, timestampMicros, source, record.sourceOffset(), record.payload());
+            if (offset < 0) {
+                if (force) {
+                    segment.force(forceFrom);
+                }
+                segment = roll();
+                forceFrom = 0;
+                offset = segment.append(key, timestampMicros, source, record.sourceOffset(), record.payload());
+            }
+            lastTimestampMicros = timestampMicros;
+            result[i] = position(segment.index(), offset);
+            index.add(record.key(), result[i], timestampMicros);
+            if (record.source() != null) {
+                sources.add(record.source(), record.sourceOffset());
+            }
+        }
+        if (force) {
+            segment.force(forceFrom);
+        }
+        return result;
+    }
+
+    /**
+     * Читает до {@code limit} записей ключа от новых к старым: строго до {@code (before, beforePosition)}
+     * и не раньше {@code from}.
+     */
+    public List<LogEntry> readBefore(String key, Instant from, Instant before, long beforePosition, int limit) {
+        long[] positions;
+        synchronized (this) {
+            positions = index.before(key, toMicros(from), toMicros(before), beforePosition, limit);
+        }
+        List<LogEntry> entries = new ArrayList<>(positions.length);
+        for (long position : positions) {
+            entries.add(entry(segment(position), offset(position), position));
+        }
+        return entries;
+    }
+
+    /**
+     * Проходит записи всех ключей в порядке записи строго до позиции {@code beforePosition}.
+     * Индекса по содержимому у журнала нет, поэтому выборки по телу записи строятся этим проходом.
+     * Записи, дописанные после начала прохода, не просматриваются.
+     */
+    public void forEach(long beforePosition, Consumer<LogEntry> action) {
+        Segment[] snapshot;
+        int[] ends;
+        synchronized (this) {
+            snapshot = segments.toArray(Segment[]::new);
+            ends = new int[snapshot.length];
+            for (int i = 0; i < snapshot.length; i++) {
+                ends[i] = snapshot[i].writePosition();
+            }
+        }
+        for (int i = 0; i < snapshot.length && position(i, 0) < beforePosition; i++) {
+            Segment segment = snapshot[i];
+            int end = (int) Math.min(ends[i], beforePosition - position(i, 0));
+            segment.forEachOffset(end, offset ->
+                    action.accept(entry(segment, offset, position(segment.index(), offset))));
+        }
+    }
+
+    /**
+     * Читает запись по позиции.
+     */
+    public Optional<LogEntry> read(long position) {
+        Segment segment;
+        synchronized (this) {
+            int segmentIndex = (int) (position >>> 32);
+            if (position < 0 || segmentIndex >= segments.size()
+                    || !segments.get(segmentIndex).contains(offset(position))) {
+                return Optional.empty();
+            }
+            segment = segments.get(segmentIndex);
+        }
+        return Optional.of(entry(segment, offset(position), position));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        IOException failure = null;
+        for (Segment segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        segments.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static LogEntry entry(Segment segment, int offset, long position) {
+        return new LogEntry(
+                position,
+                segment.key(offset),
+                fromMicros(segment.timestampMicros(offset)),
+                segment.payload(offset));
+    }
+
+    private synchronized Segment segment(long position) {
+        return segments.get((int) (position >>> 32));
+    }
+
+    private Segment active() {
+        return segments.getLast();
+    }
+
+    private Segment roll() throws IOException {
+        Segment segment = Segment.open(segmentPath(segments.size()), segments.size(), segmentSize);
+        segments.add(segment);
+        return segment;
+    }
+
+    private List<Integer> existingSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Integer> found = files
+                    .map(path -> segmentFile.matcher(path.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Integer.parseInt(matcher.group(1)))
+                    .sorted()
+                    .toList();
+            for (int i = 0; i < found.size(); i++) {
+                if (found.get(i) != i) {
+                    throw new IOException("В журнале " + name + " отсутствует сегмент " + i);
+                }
+            }
+            return found;
+        }
+    }
+
+    private Path segmentPath(int segmentIndex) {
+        return directory.resolve(String.format("%s-%010d%s", name, segmentIndex, SEGMENT_SUFFIX));
+    }
+
+    private static long position(int segmentIndex, int offset) {
+        return ((long) segmentIndex << 32) | offset;
+    }
+
+    private static int offset(long position) {
+        return (int) position;
+    }
+
+    private static long toMicros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    private static Instant fromMicros(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+}
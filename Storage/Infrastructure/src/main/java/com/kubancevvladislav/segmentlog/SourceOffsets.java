@@ -0,0 +1,47 @@
+package com.kubancevvladislav.segmentlog;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Смещения источников, записи из которых уже есть в журнале.
+ * Для каждого источника хранятся непересекающиеся отрезки смещений: записи раздела приходят почти подряд,
+ * а пропуски остаются только на месте записей, ушедших на повторную обработку, поэтому отрезков немного.
+ * Не потокобезопасен.
+ */
+final class SourceOffsets {
+    private final Map<String, TreeMap<Long, Long>> ranges = new HashMap<>();
+
+    boolean contains(String source, long offset) {
+        TreeMap<Long, Long> sourceRanges = ranges.get(source);
+        if (sourceRanges == null) {
+            return false;
+        }
+        Map.Entry<Long, Long> floor = sourceRanges.floorEntry(offset);
+        return floor != null && floor.getValue() >= offset;
+    }
+
+    /**
+     * Отмечает смещение, сливая его с соседними отрезками.
+     * @return {@code false}, если смещение уже было отмечено
+     */
+    boolean add(String source, long offset) {
+        TreeMap<Long, Long> sourceRanges = ranges.computeIfAbsent(source, s -> new TreeMap<>());
+        Map.Entry<Long, Long> floor = sourceRanges.floorEntry(offset);
+        if (floor != null && floor.getValue() >= offset) {
+            return false;
+        }
+        long start = offset;
+        long end = offset;
+        if (floor != null && floor.getValue() == offset - 1) {
+            start = floor.getKey();
+        }
+        Long next = offset == Long.MAX_VALUE ? null : sourceRanges.remove(offset + 1);
+        if (next != null) {
+            end = next;
+        }
+        sourceRanges.put(start, end);
+        return true;
+    }
+}
@@ -0,0 +1,46 @@
+package com.kubancevvladislav.entities;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kubancevvladislav.events.Deposited;
+import com.kubancevvladislav.events.Transferred;
+import com.kubancevvladislav.events.Withdrawn;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonAttributeConverterTest {
+    private final JsonAttributeConverter converter = new JsonAttributeConverter(new ObjectMapper());
+
+    @Test
+    void keepsDepositAndWithdrawalApart() {
+        Deposited deposited = new Deposited(1L, BigInteger.ONE, BigInteger.TEN, new BigDecimal("12.50"));
+        Withdrawn withdrawn = new Withdrawn(1L, BigInteger.ONE, BigInteger.TEN, new BigDecimal("12.50"));
+
+        String depositedJson = converter.convertToDatabaseColumn(deposited);
+        String withdrawnJson = converter.convertToDatabaseColumn(withdrawn);
+
+        assertTrue(depositedJson.contains("\"eventType\":\"Deposited\""));
+        assertEquals(deposited, converter.convertToEntityAttribute(depositedJson));
+        assertEquals(withdrawn, converter.convertToEntityAttribute(withdrawnJson));
+    }
+
+    @Test
+    void readsTransferBack() {
+        Transferred transferred = new Transferred(5L, BigInteger.TWO, BigInteger.ONE, BigInteger.TEN,
+                new BigDecimal("100.00"), new BigDecimal("3.00"));
+
+        assertEquals(transferred, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(transferred)));
+    }
+
+    @Test
+    void readsLegacyPayloadAsMap() {
+        Object payload = converter.convertToEntityAttribute("{\"eventName\":\"Deposit\",\"amount\":5}");
+
+        assertEquals(Map.of("eventName", "Deposit", "amount", 5), payload);
+    }
+}
@@ -0,0 +1,250 @@
+package com.kubancevvladislav.segmentlog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentLogTest {
+    private static final int SEGMENT_SIZE = 4096;
+    private static final Instant FROM = Instant.EPOCH;
+    private static final Instant TO = Instant.parse("9999-12-31T23:59:59Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsAppendedRecordsByPosition() throws IOException {
+        try (SegmentLog log = open()) {
+            long[] positions = log.append(List.of(record("a", "first"), record("b", "second")), true);
+
+            LogEntry entry = log.read(positions[1]).orElseThrow();
+            assertEquals("b", entry.key());
+            assertEquals("second", text(entry));
+            assertTrue(positions[0] < positions[1]);
+            assertTrue(log.read(positions[1] + 1).isEmpty());
+        }
+    }
+
+    @Test
+    void pagesKeyHistoryFromNewestToOldest() throws IOException {
+        try (SegmentLog log = open()) {
+            for (int i = 0; i < 5; i++) {
+                log.append(List.of(record("a", "a" + i), record("b", "b" + i)), false);
+            }
+
+            List<LogEntry> first = log.readBefore("a", FROM, TO, Long.MIN_VALUE, 3);
+            assertEquals(List.of("a4", "a3", "a2"), texts(first));
+
+            LogEntry last = first.getLast();
+            List<LogEntry> second = log.readBefore("a", FROM, last.timestamp(), last.position(), 3);
+            assertEquals(List.of("a1", "a0"), texts(second));
+        }
+    }
+
+    @Test
+    void rebuildsIndexOnReopen() throws IOException {
+        long[] positions;
+        try (SegmentLog log = open()) {
+            positions = log.append(List.of(record("a", "x"), record("a", "y")), true);
+        }
+
+        try (SegmentLog log = open()) {
+            List<LogEntry> entries = log.readBefore("a", FROM, TO, Long.MIN_VALUE, 10);
+            assertEquals(List.of("y", "x"), texts(entries));
+            assertEquals(positions[1], entries.getFirst().position());
+
+            long[] next = log.append(List.of(record("a", "z")), true);
+            assertTrue(next[0] > positions[1]);
+        }
+    }
+
+    @Test
+    void dropsRecordWithBrokenChecksumAndEverythingAfterIt() throws IOException {
+        long[] positions;
+        try (SegmentLog log = open()) {
+            positions = log.append(List.of(record("a", "kept"), record("a", "broken"), record("a", "lost")), true);
+        }
+        corrupt(segment(0), (int) positions[1] + Segment.HEADER_BYTES + 3);
+
+        try (SegmentLog log = open()) {
+            assertEquals(List.of("kept"), texts(log.readBefore("a", FROM, TO, Long.MIN_VALUE, 10)));
+            assertTrue(log.read(positions[2]).isEmpty());
+
+            long[] next = log.append(List.of(record("a", "after")), true);
+            assertEquals(positions[1], next[0]);
+        }
+        try (SegmentLog log = open()) {
+            assertEquals(List.of("after", "kept"), texts(log.readBefore("a", FROM, TO, Long.MIN_VALUE, 10)));
+        }
+    }
+
+    @Test
+    void dropsTornWriteAtTheTail() throws IOException {
+        long[] positions;
+        try (SegmentLog log = open()) {
+            positions = log.append(List.of(record("a", "kept"), record("a", "torn")), true);
+        }
+        // Заголовок дописан, а тело записи на диск не попало
+        try (FileChannel channel = FileChannel.open(segment(0), StandardOpenOption.WRITE)) {
+            int body = (int) positions[1] + Segment.HEADER_BYTES;
+            channel.write(ByteBuffer.allocate(16), body);
+        }
+
+        try (SegmentLog log = open()) {
+            assertEquals(List.of("kept"), texts(log.readBefore("a", FROM, TO, Long.MIN_VALUE, 10)));
+            assertEquals(positions[1], log.append(List.of(record("a", "again")), true)[0]);
+        }
+    }
+
+    @Test
+    void rollsToNextSegmentWhenFull() throws IOException {
+        byte[] payload = new byte[1500];
+        try (SegmentLog log = open()) {
+            long[] positions = log.append(List.of(
+                    new SegmentLog.LogRecord("a", payload),
+                    new SegmentLog.LogRecord("a", payload),
+                    new SegmentLog.LogRecord("a", payload)), true);
+
+            assertEquals(0, (int) (positions[1] >>> 32));
+            assertEquals(1, (int) (positions[2] >>> 32));
+            assertEquals(0, (int) positions[2]);
+        }
+
+        try (SegmentLog log = open()) {
+            assertEquals(3, log.readBefore("a", FROM, TO, Long.MIN_VALUE, 10).size());
+        }
+    }
+
+    @Test
+    void rejectsRecordLargerThanSegment() throws IOException {
+        try (SegmentLog log = open()) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> log.append(List.of(new SegmentLog.LogRecord("a", new byte[SEGMENT_SIZE])), true));
+        }
+    }
+
+    @Test
+    void scansAllKeysInWriteOrderBeforePosition() throws IOException {
+        byte[] payload = new byte[1500];
+        try (SegmentLog log = open()) {
+            long[] positions = log.append(List.of(
+                    new SegmentLog.LogRecord("a", payload),
+                    new SegmentLog.LogRecord("b", payload),
+                    new SegmentLog.LogRecord("c", payload),
+                    new SegmentLog.LogRecord("d", payload)), true);
+
+            List<Long> all = new ArrayList<>();
+            log.forEach(Long.MAX_VALUE, entry -> all.add(entry.position()));
+            assertEquals(List.of(positions[0], positions[1], positions[2], positions[3]), all);
+
+            List<String> keys = new ArrayList<>();
+            log.forEach(positions[3], entry -> keys.add(entry.key()));
+            assertEquals(List.of("a", "b", "c"), keys);
+        }
+    }
+
+    @Test
+    void returnsPayloadWithoutCopyingAsReadOnlySlice() throws IOException {
+        try (SegmentLog log = open()) {
+            long position = log.append(List.of(record("a", "payload")), false)[0];
+
+            ByteBuffer payload = log.read(position).orElseThrow().payload();
+            byte[] bytes = new byte[payload.remaining()];
+            payload.get(bytes);
+            assertArrayEquals("payload".getBytes(StandardCharsets.UTF_8), bytes);
+            assertTrue(payload.isReadOnly());
+        }
+    }
+
+    @Test
+    void skipsRecordsAlreadyWrittenFromSameSource() throws IOException {
+        try (SegmentLog log = open()) {
+            long[] first = log.append(List.of(sourced("t/0", 5, "five"), sourced("t/0", 6, "six")), true);
+            long[] second = log.append(List.of(
+                    sourced("t/0", 5, "five again"),
+                    sourced("t/1", 5, "other partition"),
+                    sourced("t/0", 3, "three"),
+                    sourced("t/0", 3, "three again")), true);
+
+            assertTrue(first[0] >= 0 && first[1] >= 0);
+            assertEquals(SegmentLog.SKIPPED, second[0]);
+            assertTrue(second[1] > first[1] && second[2] > second[1]);
+            assertEquals(SegmentLog.SKIPPED, second[3]);
+        }
+
+        try (SegmentLog log = open()) {
+            long[] replayed = log.append(List.of(
+                    sourced("t/0", 3, "three"),
+                    sourced("t/0", 4, "four"),
+                    sourced("t/0", 6, "six"),
+                    record("a", "no source"),
+                    record("a", "no source")), true);
+
+            assertEquals(SegmentLog.SKIPPED, replayed[0]);
+            assertTrue(replayed[1] >= 0);
+            assertEquals(SegmentLog.SKIPPED, replayed[2]);
+            assertTrue(replayed[3] >= 0 && replayed[4] > replayed[3]);
+            assertEquals(List.of("four", "three", "other partition", "six", "five"),
+                    texts(log.readBefore("k", FROM, TO, Long.MIN_VALUE, 10)));
+        }
+    }
+
+    @Test
+    void keepsSourceOutOfPayload() throws IOException {
+        try (SegmentLog log = open()) {
+            long position = log.append(List.of(sourced("topic/12", 42, "body")), true)[0];
+
+            LogEntry entry = log.read(position).orElseThrow();
+            assertEquals("k", entry.key());
+            assertEquals("body", text(entry));
+        }
+    }
+
+    private SegmentLog open() throws IOException {
+        return new SegmentLog(directory, "test", SEGMENT_SIZE);
+    }
+
+    private Path segment(int index) {
+        return directory.resolve(String.format("test-%010d.seg", index));
+    }
+
+    private static void corrupt(Path file, long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, offset);
+            value.put(0, (byte) (value.get(0) ^ 0xFF));
+            value.rewind();
+            channel.write(value, offset);
+        }
+    }
+
+    private static SegmentLog.LogRecord record(String key, String payload) {
+        return new SegmentLog.LogRecord(key, payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static SegmentLog.LogRecord sourced(String source, long offset, String payload) {
+        return new SegmentLog.LogRecord("k", payload.getBytes(StandardCharsets.UTF_8), source, offset);
+    }
+
+    private static List<String> texts(List<LogEntry> entries) {
+        return entries.stream().map(SegmentLogTest::text).toList();
+    }
+
+    private static String text(LogEntry entry) {
+        return StandardCharsets.UTF_8.decode(entry.payload()).toString();
+    }
+}
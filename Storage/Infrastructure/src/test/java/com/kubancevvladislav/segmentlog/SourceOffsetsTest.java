@@ -0,0 +1,49 @@
+package com.kubancevvladislav.segmentlog;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SourceOffsetsTest {
+    @Test
+    void mergesAdjacentOffsetsAndKeepsGaps() {
+        SourceOffsets offsets = new SourceOffsets();
+        assertTrue(offsets.add("t/0", 1));
+        assertTrue(offsets.add("t/0", 3));
+        assertTrue(offsets.add("t/0", 5));
+
+        assertFalse(offsets.contains("t/0", 2));
+        assertFalse(offsets.contains("t/0", 4));
+
+        assertTrue(offsets.add("t/0", 2));
+        assertTrue(offsets.add("t/0", 4));
+
+        for (long offset = 1; offset <= 5; offset++) {
+            assertTrue(offsets.contains("t/0", offset));
+        }
+        assertFalse(offsets.contains("t/0", 0));
+        assertFalse(offsets.contains("t/0", 6));
+    }
+
+    @Test
+    void rejectsOffsetAlreadyAdded() {
+        SourceOffsets offsets = new SourceOffsets();
+        offsets.add("t/0", 10);
+        offsets.add("t/0", 11);
+
+        assertFalse(offsets.add("t/0", 10));
+        assertFalse(offsets.add("t/0", 11));
+        assertTrue(offsets.add("t/1", 10));
+    }
+
+    @Test
+    void acceptsExtremeOffsets() {
+        SourceOffsets offsets = new SourceOffsets();
+        assertTrue(offsets.add("t/0", Long.MAX_VALUE));
+        assertTrue(offsets.add("t/0", Long.MAX_VALUE - 1));
+
+        assertTrue(offsets.contains("t/0", Long.MAX_VALUE - 1));
+        assertFalse(offsets.contains("t/0", Long.MAX_VALUE - 2));
+    }
+}
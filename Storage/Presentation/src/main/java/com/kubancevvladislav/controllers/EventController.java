@@ -1,21 +1,29 @@
 package com.kubancevvladislav.controllers;
 
+import com.kubancevvladislav.DeadLetterEntry;
+import com.kubancevvladislav.DeadLetterQueue;
+import com.kubancevvladislav.RedriveResult;
 import com.kubancevvladislav.domain.AccountEvent;
 import com.kubancevvladislav.domain.ClientEvent;
+import com.kubancevvladislav.domain.EventPage;
 import com.kubancevvladislav.services.EventStorageService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.time.Instant;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/events")
 @RequiredArgsConstructor
 public class EventController {
-
     private final EventStorageService eventStorageService;
+    private final DeadLetterQueue deadLetterQueue;
 
     @GetMapping("/account/{id}")
     public ResponseEntity<AccountEvent> getAccountEventById(@PathVariable Long id) {
@@ -28,13 +36,86 @@ public class EventController {
     }
 
     @GetMapping("/account/key/{accountId}")
-    public ResponseEntity<List<AccountEvent>> getAccountEventsByAccountId(@PathVariable BigInteger accountId) {
-        return ResponseEntity.ok(eventStorageService.getAccountEventsByAccountId(accountId));
+    public ResponseEntity<EventPage<AccountEvent>> getAccountEventsByAccountId(
+            @PathVariable BigInteger accountId,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(eventStorageService.getAccountEventsByAccountId(accountId, from, to, cursor, limit));
     }
 
     @GetMapping("/client/key/{login}")
-    public ResponseEntity<List<ClientEvent>> getClientEventsByLogin(@PathVariable String login) {
-        return ResponseEntity.ok(eventStorageService.getClientEventsByLogin(login));
+    public ResponseEntity<EventPage<ClientEvent>> getClientEventsByLogin(
+            @PathVariable String login,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(eventStorageService.getClientEventsByLogin(login, from, to, cursor, limit));
+    }
+
+    @GetMapping(value = "/account/key/{accountId}/raw", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getRawAccountEventsByAccountId(
+            @PathVariable BigInteger accountId,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return rawPage(out -> eventStorageService.writeRawAccountEvents(accountId, from, to, cursor, limit, out));
+    }
+
+    @GetMapping(value = "/client/key/{login}/raw", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getRawClientEventsByLogin(
+            @PathVariable String login,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return rawPage(out -> eventStorageService.writeRawClientEvents(login, from, to, cursor, limit, out));
+    }
+
+    @GetMapping("/account/type/{eventType}")
+    public ResponseEntity<EventPage<AccountEvent>> getAccountEventsByTypeAndAmount(
+            @PathVariable String eventType,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(eventStorageService.getAccountEventsByTypeAndAmount(
+                eventType, minAmount, maxAmount, cursor, limit));
     }
 
+    @GetMapping("/client/type/{eventType}")
+    public ResponseEntity<EventPage<ClientEvent>> getClientEventsByType(
+            @PathVariable String eventType,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(eventStorageService.getClientEventsByType(eventType, cursor, limit));
+    }
+
+    @GetMapping("/dlq/{topic}")
+    public ResponseEntity<List<DeadLetterEntry>> getDeadLetters(
+            @PathVariable String topic,
+            @RequestParam(defaultValue = "0") int partition,
+            @RequestParam(defaultValue = "0") long offset,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(deadLetterQueue.list(topic, partition, offset, limit));
+    }
+
+    @PostMapping("/dlq/{topic}/{partition}/{offset}/redrive")
+    public ResponseEntity<RedriveResult> redriveDeadLetter(
+            @PathVariable String topic,
+            @PathVariable int partition,
+            @PathVariable long offset) {
+        return ResponseEntity.ok(deadLetterQueue.redrive(topic, partition, offset));
+    }
+
+    /**
+     * Тело - страница сохранённых событий в форме {@link EventPage}, записывается прямо в ответ
+     * по мере чтения, курсор следующей страницы идёт последним полем.
+     */
+    private static ResponseEntity<StreamingResponseBody> rawPage(StreamingResponseBody body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
 }
@@ -0,0 +1,110 @@
+package com.kubancevvladislav.kafka;
+
+import com.kubancevvladislav.domain.AccountEvent;
+import com.kubancevvladislav.domain.ClientEvent;
+import com.kubancevvladislav.services.EventStorageService;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Слушатель, сохраняющий события пачками: всё, что вернул один опрос брокера,
+ * записывается одной транзакцией вместе с позицией потребителя (см. {@link StoredOffsets}),
+ * после чего контейнер фиксирует смещения и в Kafka.
+ * Работает для топиков в режиме {@code batch}, который используется по умолчанию.
+ * <p>Если запись не удалось прочитать или её ключ не удаётся преобразовать, предшествующие записи сохраняются,
+ * а затем выбрасывается {@link BatchListenerFailedException} с индексом проблемной записи:
+ * обработчик ошибок фиксирует смещения сохранённых записей, отправляет проблемную запись дальше
+ * и продолжает чтение со следующей.</p>
+ * <p>Если задано {@code storage.kafka.key-lanes} больше единицы, пачка сохраняется параллельно
+ * по дорожкам ключей, см. {@link KeyLanes}.</p>
+ * @see ListenerModes
+ * @see ListenerConcurrency
+ */
+@Component
+@RequiredArgsConstructor
+public class BatchEventConsumer implements ConsumerSeekAware {
+    private final EventStorageService storageService;
+    private final StoredOffsets storedOffsets;
+    private final KeyLanes keyLanes;
+
+    @KafkaListener(
+            topics = "client-topic",
+            groupId = StoredOffsets.GROUP_ID,
+            containerFactory = "batchKafkaListenerContainerFactory",
+            concurrency = ListenerConcurrency.CLIENT,
+            autoStartup = ListenerModes.CLIENT_BATCH)
+    public void consumeClient(List<ConsumerRecord<String, Object>> records) {
+        List<ClientEvent> events = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, Object> record = records.get(i);
+            try {
+                UnreadableRecords.requireReadable(record);
+                events.add(new ClientEvent(record.key(), record.value(), StoredOffsets.source(record)));
+            } catch (RuntimeException e) {
+                saveClientEvents(records.subList(0, i), events);
+                throw new BatchListenerFailedException("Invalid client record with key " + record.key(), e, i);
+            }
+        }
+        saveClientEvents(records, events);
+    }
+
+    @KafkaListener(
+            topics = "account-topic",
+            groupId = StoredOffsets.GROUP_ID,
+            containerFactory = "batchKafkaListenerContainerFactory",
+            concurrency = ListenerConcurrency.ACCOUNT,
+            autoStartup = ListenerModes.ACCOUNT_BATCH)
+    public void consumeAccount(List<ConsumerRecord<String, Object>> records) {
+        List<AccountEvent> events = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, Object> record = records.get(i);
+            try {
+                UnreadableRecords.requireReadable(record);
+                events.add(new AccountEvent(new BigInteger(record.key()), record.value(), StoredOffsets.source(record)));
+            } catch (RuntimeException e) {
+                saveAccountEvents(records.subList(0, i), events);
+                throw new BatchListenerFailedException("Invalid account record with key " + record.key(), e, i);
+            }
+        }
+        saveAccountEvents(records, events);
+    }
+
+    private void saveClientEvents(List<ConsumerRecord<String, Object>> records, List<ClientEvent> events) {
+        if (!keyLanes.enabled()) {
+            storageService.saveClientEvents(events, storedOffsets.after(records));
+            return;
+        }
+        keyLanes.save(
+                records,
+                events,
+                storageService::saveClientEvents,
+                saved -> storageService.saveClientEvents(List.of(), storedOffsets.after(saved)));
+    }
+
+    private void saveAccountEvents(List<ConsumerRecord<String, Object>> records, List<AccountEvent> events) {
+        if (!keyLanes.enabled()) {
+            storageService.saveAccountEvents(events, storedOffsets.after(records));
+            return;
+        }
+        keyLanes.save(
+                records,
+                events,
+                storageService::saveAccountEvents,
+                saved -> storageService.saveAccountEvents(List.of(), storedOffsets.after(saved)));
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        storedOffsets.seek(assignments, callback);
+    }
+}
@@ -0,0 +1,147 @@
+package com.kubancevvladislav.kafka;
+
+import com.kubancevvladislav.domain.ConsumerPosition;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Буфер событий одного топика для загрузки через {@code COPY}.
+ * Копит события нескольких опросов вместе с их подтверждениями и сбрасывает их,
+ * когда набрано {@code flushSize} событий или самое старое событие ждёт дольше {@code flushIntervalNanos}.
+ * Позиция потребителя, включая пропущенные записи, записывается вместе с событиями;
+ * подтверждения отправляются только после успешной записи, поэтому смещения не опережают базу.
+ * <p>Записи, которые не удаётся преобразовать в событие, при сбросе публикуются в топик недоставленных
+ * записей до записи событий, поэтому их смещения фиксируются только вместе с публикацией.
+ * Для каждого раздела запоминается последнее опубликованное смещение: если после неудачной записи
+ * те же записи читаются заново, повторно они в топик недоставленных записей не попадают.</p>
+ * <p>Если запись или публикация не удалась, потребитель возвращается к первому несохранённому смещению
+ * каждого раздела, и события читаются заново следующим опросом.</p>
+ * <p>Не потокобезопасен: используется только потоком контейнера своего топика.</p>
+ */
+final class CopyBuffer<T> {
+    private static final Logger log = LoggerFactory.getLogger(CopyBuffer.class);
+
+    private final int flushSize;
+    private final long flushIntervalNanos;
+    private final Function<ConsumerRecord<String, Object>, T> mapper;
+    private final BiConsumer<List<T>, ConsumerPosition> writer;
+    /** Позиция группы по следующим смещениям разделов */
+    private final Function<Map<TopicPartition, Long>, ConsumerPosition> positions;
+    /** Публикация непреобразуемой записи в топик недоставленных записей */
+    private final BiConsumer<ConsumerRecord<String, Object>, Exception> deadLetters;
+    private final List<T> events = new ArrayList<>();
+    /** Непреобразуемые записи и причины ошибок */
+    private final List<ConsumerRecord<String, Object>> rejected = new ArrayList<>();
+    private final List<Exception> rejectionCauses = new ArrayList<>();
+    private final List<Acknowledgment> acknowledgments = new ArrayList<>();
+    /** Первое несохранённое смещение каждого раздела в буфере */
+    private final Map<TopicPartition, Long> firstOffsets = new HashMap<>();
+    /** Смещение, следующее за последней записью каждого раздела в буфере */
+    private final Map<TopicPartition, Long> nextOffsets = new HashMap<>();
+    /** Последнее смещение каждого раздела, уже опубликованное в топик недоставленных записей */
+    private final Map<TopicPartition, Long> deadLettered = new HashMap<>();
+    private long firstEventNanos;
+
+    CopyBuffer(
+            int flushSize,
+            long flushIntervalNanos,
+            Function<ConsumerRecord<String, Object>, T> mapper,
+            BiConsumer<List<T>, ConsumerPosition> writer,
+            Function<Map<TopicPartition, Long>, ConsumerPosition> positions,
+            BiConsumer<ConsumerRecord<String, Object>, Exception> deadLetters) {
+        this.flushSize = Math.max(1, flushSize);
+        this.flushIntervalNanos = Math.max(0, flushIntervalNanos);
+        this.mapper = mapper;
+        this.writer = writer;
+        this.positions = positions;
+        this.deadLetters = deadLetters;
+    }
+
+    /**
+     * Добавляет записи одного опроса и сбрасывает буфер, если достигнут порог.
+     * Записи, которые не удаётся преобразовать, откладываются для публикации в топик недоставленных записей.
+     */
+    void append(List<ConsumerRecord<String, Object>> records, Acknowledgment acknowledgment, Consumer<?, ?> consumer) {
+        if (acknowledgments.isEmpty()) {
+            firstEventNanos = System.nanoTime();
+        }
+        for (ConsumerRecord<String, Object> record : records) {
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            firstOffsets.putIfAbsent(partition, record.offset());
+            nextOffsets.put(partition, record.offset() + 1);
+            try {
+                events.add(mapper.apply(record));
+            } catch (RuntimeException e) {
+                if (record.offset() <= deadLettered.getOrDefault(partition, -1L)) {
+                    log.debug("Событие {}-{}@{} уже отправлено в топик недоставленных записей",
+                            record.topic(), record.partition(), record.offset());
+                    continue;
+                }
+                log.error("Событие {}-{}@{} не преобразуется и будет отправлено в топик недоставленных записей: {}",
+                        record.topic(), record.partition(), record.offset(), e.getMessage());
+                rejected.add(record);
+                rejectionCauses.add(e);
+            }
+        }
+        acknowledgments.add(acknowledgment);
+        if (events.size() >= flushSize || System.nanoTime() - firstEventNanos >= flushIntervalNanos) {
+            flush(consumer);
+        }
+    }
+
+    /**
+     * Сбрасывает буфер, если самое старое событие ждёт дольше интервала.
+     */
+    void flushIfExpired(Consumer<?, ?> consumer) {
+        if (!acknowledgments.isEmpty() && System.nanoTime() - firstEventNanos >= flushIntervalNanos) {
+            flush(consumer);
+        }
+    }
+
+    /**
+     * @return {@code true}, если в буфере есть события разделов указанного топика
+     */
+    boolean holds(String topic) {
+        return firstOffsets.keySet().stream().anyMatch(partition -> partition.topic().equals(topic));
+    }
+
+    /**
+     * Публикует непреобразуемые записи, записывает накопленные события и подтверждает соответствующие им пачки.
+     */
+    void flush(Consumer<?, ?> consumer) {
+        if (acknowledgments.isEmpty()) {
+            return;
+        }
+        try {
+            for (int i = 0; i < rejected.size(); i++) {
+                ConsumerRecord<String, Object> record = rejected.get(i);
+                deadLetters.accept(record, rejectionCauses.get(i));
+                deadLettered.merge(new TopicPartition(record.topic(), record.partition()), record.offset(), Math::max);
+            }
+            writer.accept(events, positions.apply(nextOffsets));
+            acknowledgments.forEach(Acknowledgment::acknowledge);
+        } catch (RuntimeException e) {
+            log.error("Не удалось загрузить {} событий, чтение повторяется с {}: {}",
+                    events.size(), firstOffsets, e.getMessage(), e);
+            firstOffsets.forEach(consumer::seek);
+        } finally {
+            events.clear();
+            rejected.clear();
+            rejectionCauses.clear();
+            acknowledgments.clear();
+            firstOffsets.clear();
+            nextOffsets.clear();
+        }
+    }
+}
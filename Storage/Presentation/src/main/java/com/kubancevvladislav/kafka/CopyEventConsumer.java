@@ -0,0 +1,136 @@
+package com.kubancevvladislav.kafka;
+
+import com.kubancevvladislav.domain.AccountEvent;
+import com.kubancevvladislav.domain.ClientEvent;
+import com.kubancevvladislav.services.EventStorageService;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Слушатель массовой загрузки: события копятся в {@link CopyBuffer} и записываются командой {@code COPY}
+ * при достижении {@code storage.kafka.copy.flush-size} событий или {@code storage.kafka.copy.flush-interval-ms}.
+ * Предназначен для наполнения новой реплики Storage из истории топиков.
+ * Работает для топиков в режиме {@code copy}.
+ * <p>Записи, которые не удалось прочитать или из которых не удаётся получить событие,
+ * публикуются в {@code <topic>-dlt}.</p>
+ * <p>Перед отзывом разделов буфер сбрасывается, чтобы контейнер зафиксировал смещения
+ * уже записанных событий и новый владелец раздела не загрузил их повторно.</p>
+ * @see ListenerModes
+ */
+@Component
+public class CopyEventConsumer implements ConsumerAwareRebalanceListener, ConsumerSeekAware {
+    private static final String ACCOUNT_TOPIC = "account-topic";
+    private static final String CLIENT_TOPIC = "client-topic";
+    private static final String ACCOUNT_LISTENER_ID = "account-copy";
+    private static final String CLIENT_LISTENER_ID = "client-copy";
+
+    private final CopyBuffer<AccountEvent> accountBuffer;
+    private final CopyBuffer<ClientEvent> clientBuffer;
+    private final StoredOffsets storedOffsets;
+
+    public CopyEventConsumer(
+            EventStorageService storageService,
+            StoredOffsets storedOffsets,
+            @Qualifier("deadLetterRecoverer") DeadLetterPublishingRecoverer deadLetterRecoverer,
+            @Value("${storage.kafka.copy.flush-size:50000}") int flushSize,
+            @Value("${storage.kafka.copy.flush-interval-ms:1000}") long flushIntervalMs) {
+        this.storedOffsets = storedOffsets;
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.accountBuffer = new CopyBuffer<>(
+                flushSize,
+                flushIntervalNanos,
+                CopyEventConsumer::accountEvent,
+                storageService::copyAccountEvents,
+                storedOffsets::position,
+                deadLetterRecoverer::accept);
+        this.clientBuffer = new CopyBuffer<>(
+                flushSize,
+                flushIntervalNanos,
+                CopyEventConsumer::clientEvent,
+                storageService::copyClientEvents,
+                storedOffsets::position,
+                deadLetterRecoverer::accept);
+    }
+
+    @KafkaListener(
+            id = CLIENT_LISTENER_ID,
+            topics = CLIENT_TOPIC,
+            groupId = StoredOffsets.GROUP_ID,
+            containerFactory = "copyKafkaListenerContainerFactory",
+            autoStartup = ListenerModes.CLIENT_COPY)
+    public void consumeClient(
+            List<ConsumerRecord<String, Object>> records,
+            Acknowledgment acknowledgment,
+            Consumer<?, ?> consumer) {
+        clientBuffer.append(records, acknowledgment, consumer);
+    }
+
+    @KafkaListener(
+            id = ACCOUNT_LISTENER_ID,
+            topics = ACCOUNT_TOPIC,
+            groupId = StoredOffsets.GROUP_ID,
+            containerFactory = "copyKafkaListenerContainerFactory",
+            autoStartup = ListenerModes.ACCOUNT_COPY)
+    public void consumeAccount(
+            List<ConsumerRecord<String, Object>> records,
+            Acknowledgment acknowledgment,
+            Consumer<?, ?> consumer) {
+        accountBuffer.append(records, acknowledgment, consumer);
+    }
+
+    /**
+     * Сбрасывает буфер по времени, когда новых событий нет.
+     * Событие простоя публикуется в потоке контейнера, которому принадлежит буфер.
+     */
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        if (event.getListenerId().startsWith(ACCOUNT_LISTENER_ID)) {
+            accountBuffer.flushIfExpired(event.getConsumer());
+        } else if (event.getListenerId().startsWith(CLIENT_LISTENER_ID)) {
+            clientBuffer.flushIfExpired(event.getConsumer());
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            if (accountBuffer.holds(partition.topic()) && ACCOUNT_TOPIC.equals(partition.topic())) {
+                accountBuffer.flush(consumer);
+            } else if (clientBuffer.holds(partition.topic()) && CLIENT_TOPIC.equals(partition.topic())) {
+                clientBuffer.flush(consumer);
+            }
+        }
+    }
+
+    private static AccountEvent accountEvent(ConsumerRecord<String, Object> record) {
+        UnreadableRecords.requireReadable(record);
+        return new AccountEvent(new BigInteger(record.key()), record.value(), StoredOffsets.source(record));
+    }
+
+    private static ClientEvent clientEvent(ConsumerRecord<String, Object> record) {
+        UnreadableRecords.requireReadable(record);
+        return new ClientEvent(record.key(), record.value(), StoredOffsets.source(record));
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        storedOffsets.seek(assignments, callback);
+    }
+}
@@ -1,27 +1,55 @@
 package com.kubancevvladislav.kafka;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kubancevvladislav.domain.AccountEvent;
 import com.kubancevvladislav.domain.ClientEvent;
 import com.kubancevvladislav.services.EventStorageService;
 import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
 import org.springframework.stereotype.Component;
 
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Слушатель, сохраняющий события по одному. Работает для топиков в режиме {@code record}.
+ * Каждое событие сохраняется вместе с позицией потребителя, см. {@link StoredOffsets}.
+ * @see ListenerModes
+ * @see ListenerConcurrency
+ */
 @Component
 @RequiredArgsConstructor
-public class EventConsumer {
+public class EventConsumer implements ConsumerSeekAware {
     private final EventStorageService storageService;
+    private final StoredOffsets storedOffsets;
 
-    @KafkaListener(topics = "client-topic", groupId = "storage-group")
+    @KafkaListener(
+            topics = "client-topic",
+            groupId = StoredOffsets.GROUP_ID,
+            concurrency = ListenerConcurrency.CLIENT,
+            autoStartup = ListenerModes.CLIENT_RECORD)
     public void consumeClient(ConsumerRecord<String, Object> record) {
-        storageService.handleClientEvent(record.key(), record.value());
+        storageService.saveClientEvents(
+                List.of(new ClientEvent(record.key(), record.value(), StoredOffsets.source(record))),
+                storedOffsets.after(List.of(record)));
     }
 
-    @KafkaListener(topics = "account-topic", groupId = "storage-group")
+    @KafkaListener(
+            topics = "account-topic",
+            groupId = StoredOffsets.GROUP_ID,
+            concurrency = ListenerConcurrency.ACCOUNT,
+            autoStartup = ListenerModes.ACCOUNT_RECORD)
     public void consumeAccount(ConsumerRecord<String, Object> record) {
-        storageService.handleAccountEvent(record.key(), record.value());
+        storageService.saveAccountEvents(
+                List.of(new AccountEvent(new BigInteger(record.key()), record.value(), StoredOffsets.source(record))),
+                storedOffsets.after(List.of(record)));
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        storedOffsets.seek(assignments, callback);
     }
 }
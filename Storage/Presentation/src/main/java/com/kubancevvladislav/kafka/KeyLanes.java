@@ -0,0 +1,121 @@
+package com.kubancevvladislav.kafka;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Параллельная обработка пачки внутри раздела.
+ * Записи раскладываются по {@code storage.kafka.key-lanes} дорожкам по хешу ключа, и каждая дорожка
+ * сохраняется отдельной транзакцией в своём потоке. События одного ключа попадают в одну дорожку
+ * в порядке смещений, так что порядок по счёту или клиенту сохраняется, а разные ключи пишутся параллельно.
+ * Следующий опрос начинается только после того, как завершились все дорожки пачки.
+ * <p>Дорожки фиксируются независимо, поэтому позиция потребителя сохраняется отдельно после них;
+ * записи, сохранённые до сбоя и прочитанные повторно, отбрасываются уникальным ограничением на источник события.
+ * Каждый контейнер занимает до {@code key-lanes} соединений с базой одновременно, пул соединений
+ * должен быть не меньше {@code concurrency * key-lanes}.</p>
+ * <p>Время сохранения дорожки публикуется как {@code storage.kafka.lane.save}, размер дорожки -
+ * как {@code storage.kafka.lane.records}, оба с тегом {@code topic}.</p>
+ */
+@Component
+class KeyLanes {
+    private final int lanes;
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+
+    KeyLanes(@Value("${storage.kafka.key-lanes:1}") int lanes, MeterRegistry meterRegistry) {
+        this.lanes = Math.max(1, lanes);
+        this.meterRegistry = meterRegistry;
+        this.executor = this.lanes > 1
+                ? Executors.newCachedThreadPool(Thread.ofPlatform().name("storage-lane-", 0).factory())
+                : null;
+    }
+
+    boolean enabled() {
+        return lanes > 1;
+    }
+
+    /**
+     * Сохраняет события пачки по дорожкам.
+     * @param records записи пачки; {@code events.get(i)} получено из {@code records.get(i)}
+     * @param writer сохраняет события одной дорожки
+     * @param positionWriter сохраняет позицию после переданных записей
+     * @throws BatchListenerFailedException с индексом первой записи, оставшейся несохранённой:
+     * все записи до неё сохранены, и позиция после них записана
+     */
+    <T> void save(
+            List<ConsumerRecord<String, Object>> records,
+            List<T> events,
+            Consumer<List<T>> writer,
+            Consumer<List<ConsumerRecord<String, Object>>> positionWriter) {
+        if (records.isEmpty()) {
+            return;
+        }
+        String topic = records.get(0).topic();
+        Timer timer = meterRegistry.timer("storage.kafka.lane.save", "topic", topic);
+        DistributionSummary laneSize = meterRegistry.summary("storage.kafka.lane.records", "topic", topic);
+
+        List<List<Integer>> indexes = new ArrayList<>(lanes);
+        for (int lane = 0; lane < lanes; lane++) {
+            indexes.add(new ArrayList<>());
+        }
+        for (int i = 0; i < records.size(); i++) {
+            indexes.get(Math.floorMod(Objects.hashCode(records.get(i).key()), lanes)).add(i);
+        }
+
+        List<List<Integer>> submitted = new ArrayList<>(lanes);
+        List<Future<?>> futures = new ArrayList<>(lanes);
+        for (List<Integer> lane : indexes) {
+            if (lane.isEmpty()) {
+                continue;
+            }
+            List<T> laneEvents = lane.stream().map(events::get).toList();
+            laneSize.record(laneEvents.size());
+            submitted.add(lane);
+            futures.add(executor.submit(() -> timer.record(() -> writer.accept(laneEvents))));
+        }
+
+        int failedIndex = records.size();
+        Throwable failure = null;
+        for (int lane = 0; lane < futures.size(); lane++) {
+            try {
+                futures.get(lane).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Сохранение пачки прервано", e);
+            } catch (ExecutionException e) {
+                int first = submitted.get(lane).get(0);
+                if (first < failedIndex) {
+                    failedIndex = first;
+                    failure = e.getCause();
+                }
+            }
+        }
+
+        positionWriter.accept(records.subList(0, failedIndex));
+        if (failure != null) {
+            throw new BatchListenerFailedException("Не удалось сохранить дорожку пачки", failure, failedIndex);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.kubancevvladislav.kafka;
+
+/**
+ * Выражения {@code concurrency} слушателей в режимах {@code record} и {@code batch}.
+ * Число потребителей топика задаётся {@code storage.kafka.account-concurrency} и {@code storage.kafka.client-concurrency},
+ * по умолчанию берётся общий {@code storage.kafka.concurrency}. Каждому потребителю достаётся часть разделов,
+ * поэтому больше потребителей, чем разделов в топике, не даёт выигрыша: лишние простаивают.
+ * Режим {@code copy} всегда читает топик одним потоком.
+ */
+final class ListenerConcurrency {
+    static final String ACCOUNT = "${storage.kafka.account-concurrency:${storage.kafka.concurrency:1}}";
+    static final String CLIENT = "${storage.kafka.client-concurrency:${storage.kafka.concurrency:1}}";
+
+    private ListenerConcurrency() {
+    }
+}
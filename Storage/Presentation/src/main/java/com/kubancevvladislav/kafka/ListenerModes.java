@@ -0,0 +1,24 @@
+package com.kubancevvladislav.kafka;
+
+/**
+ * Выражения {@code autoStartup} для выбора режима приёма событий отдельно для каждого топика.
+ * Режим топика задаётся {@code storage.kafka.account-listener-mode} и {@code storage.kafka.client-listener-mode},
+ * по умолчанию берётся общий {@code storage.kafka.listener-mode}: {@code record}, {@code batch} или {@code copy}.
+ * Запускается только контейнер слушателя выбранного режима.
+ */
+final class ListenerModes {
+    private static final String ACCOUNT_MODE =
+            "${storage.kafka.account-listener-mode:${storage.kafka.listener-mode:batch}}";
+    private static final String CLIENT_MODE =
+            "${storage.kafka.client-listener-mode:${storage.kafka.listener-mode:batch}}";
+
+    static final String ACCOUNT_RECORD = "#{'" + ACCOUNT_MODE + "' == 'record'}";
+    static final String ACCOUNT_BATCH = "#{'" + ACCOUNT_MODE + "' == 'batch'}";
+    static final String ACCOUNT_COPY = "#{'" + ACCOUNT_MODE + "' == 'copy'}";
+    static final String CLIENT_RECORD = "#{'" + CLIENT_MODE + "' == 'record'}";
+    static final String CLIENT_BATCH = "#{'" + CLIENT_MODE + "' == 'batch'}";
+    static final String CLIENT_COPY = "#{'" + CLIENT_MODE + "' == 'copy'}";
+
+    private ListenerModes() {
+    }
+}
@@ -0,0 +1,94 @@
+package com.kubancevvladislav.kafka;
+
+import com.kubancevvladislav.KafkaClients;
+import com.kubancevvladislav.RetryTopics;
+import com.kubancevvladislav.domain.AccountEvent;
+import com.kubancevvladislav.domain.ClientEvent;
+import com.kubancevvladislav.services.EventStorageService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.kafka.annotation.KafkaListenerConfigurer;
+import org.springframework.kafka.config.KafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistrar;
+import org.springframework.kafka.config.SimpleKafkaListenerEndpoint;
+import org.springframework.kafka.listener.AcknowledgingMessageListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Слушатели ступеней повтора {@link RetryTopics}.
+ * Запись, время которой ещё не наступило, возвращается в раздел с паузой до этого времени;
+ * остальные сохраняются по одной. Позиция потребителя вместе с событием не сохраняется:
+ * повторная доставка отбрасывается уникальным ограничением на координаты исходной записи.
+ * Неудача публикует запись на следующую ступень, см. {@link com.kubancevvladislav.KafkaGlobalErrorHandler}.
+ * <p>{@code nack} приостанавливает все разделы своего потребителя, поэтому каждая ступень читается
+ * отдельным контейнером с идентификатором, равным имени её топика: ожидание записи одной ступени
+ * не задерживает другие. Число ступеней задаётся {@code storage.kafka.retry.delays-ms},
+ * поэтому контейнеры регистрируются здесь, а не аннотациями.</p>
+ */
+@Component
+public class RetryEventConsumer implements KafkaListenerConfigurer {
+    private final EventStorageService storageService;
+    private final RetryTopics retryTopics;
+    private final KafkaClients kafkaClients;
+    private final KafkaListenerContainerFactory<?> containerFactory;
+
+    public RetryEventConsumer(
+            EventStorageService storageService,
+            RetryTopics retryTopics,
+            KafkaClients kafkaClients,
+            @Qualifier("retryKafkaListenerContainerFactory") KafkaListenerContainerFactory<?> containerFactory) {
+        this.storageService = storageService;
+        this.retryTopics = retryTopics;
+        this.kafkaClients = kafkaClients;
+        this.containerFactory = containerFactory;
+    }
+
+    @Override
+    public void configureKafkaListeners(KafkaListenerEndpointRegistrar registrar) {
+        register(registrar, "client-topic", this::retryClient);
+        register(registrar, "account-topic", this::retryAccount);
+    }
+
+    private void register(
+            KafkaListenerEndpointRegistrar registrar, String topic, Consumer<ConsumerRecord<String, Object>> save) {
+        for (String stageTopic : retryTopics.retryTopics(topic)) {
+            SimpleKafkaListenerEndpoint<String, Object> endpoint = new SimpleKafkaListenerEndpoint<>();
+            endpoint.setId(stageTopic);
+            endpoint.setGroupId(kafkaClients.groupId());
+            endpoint.setTopics(stageTopic);
+            endpoint.setMessageListener((AcknowledgingMessageListener<String, Object>) (record, ack) -> {
+                if (postpone(record, ack)) {
+                    return;
+                }
+                save.accept(record);
+                ack.acknowledge();
+            });
+            registrar.registerEndpoint(endpoint, containerFactory);
+        }
+    }
+
+    private void retryClient(ConsumerRecord<String, Object> record) {
+        storageService.saveClientEvents(
+                List.of(new ClientEvent(record.key(), record.value(), StoredOffsets.source(record))));
+    }
+
+    private void retryAccount(ConsumerRecord<String, Object> record) {
+        storageService.saveAccountEvents(
+                List.of(new AccountEvent(new BigInteger(record.key()), record.value(), StoredOffsets.source(record))));
+    }
+
+    private boolean postpone(ConsumerRecord<String, Object> record, Acknowledgment ack) {
+        long wait = retryTopics.dueAt(record) - System.currentTimeMillis();
+        if (wait <= 0) {
+            return false;
+        }
+        ack.nack(Duration.ofMillis(wait));
+        return true;
+    }
+}
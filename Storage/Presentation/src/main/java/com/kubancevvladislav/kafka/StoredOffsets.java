@@ -0,0 +1,87 @@
+package com.kubancevvladislav.kafka;
+
+import com.kubancevvladislav.KafkaClients;
+import com.kubancevvladislav.RetryTopics;
+import com.kubancevvladislav.domain.ConsumerPosition;
+import com.kubancevvladislav.domain.EventSource;
+import com.kubancevvladislav.repositories.ConsumerOffset;
+import com.kubancevvladislav.services.EventStorageService;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Позиции группы потребителей Storage ({@code spring.kafka.consumer.group-id}), которые хранятся в базе вместе с событиями.
+ * Слушатели передают позицию после пачки в то же действие хранилища, что и саму пачку,
+ * а при назначении разделов переходят к сохранённой позиции. Смещения, зафиксированные в Kafka,
+ * используются, только если хранилище позиций не ведёт; повторно прочитанные записи отбрасываются
+ * уникальным ограничением на источник события.
+ */
+@Component
+@RequiredArgsConstructor
+class StoredOffsets {
+    /** Группа в аннотациях слушателей; вне аннотаций используется {@link KafkaClients#groupId()} */
+    static final String GROUP_ID = "${spring.kafka.consumer.group-id:storage-group}";
+
+    private final EventStorageService storageService;
+    private final KafkaClients kafkaClients;
+
+    /**
+     * @return координаты записи основного топика; для записей, прошедших через ступени повтора
+     * или возвращённых из топика недоставленных событий, - координаты исходной записи
+     */
+    static EventSource source(ConsumerRecord<?, ?> record) {
+        String sourceTopic = RetryTopics.header(record, RetryTopics.SOURCE_TOPIC_HEADER);
+        if (sourceTopic == null) {
+            return new EventSource(record.topic(), record.partition(), record.offset());
+        }
+        return new EventSource(
+                sourceTopic,
+                Integer.parseInt(RetryTopics.header(record, RetryTopics.SOURCE_PARTITION_HEADER)),
+                Long.parseLong(RetryTopics.header(record, RetryTopics.SOURCE_OFFSET_HEADER)));
+    }
+
+    /**
+     * @return позиция группы после указанных записей
+     */
+    ConsumerPosition after(List<? extends ConsumerRecord<?, ?>> records) {
+        Map<TopicPartition, Long> nextOffsets = new HashMap<>();
+        for (ConsumerRecord<?, ?> record : records) {
+            nextOffsets.merge(new TopicPartition(record.topic(), record.partition()), record.offset() + 1, Math::max);
+        }
+        return position(nextOffsets);
+    }
+
+    /**
+     * @param nextOffsets следующее смещение каждого раздела
+     */
+    ConsumerPosition position(Map<TopicPartition, Long> nextOffsets) {
+        return new ConsumerPosition(kafkaClients.groupId(), nextOffsets.entrySet().stream()
+                .map(entry -> new ConsumerOffset(entry.getKey().topic(), entry.getKey().partition(), entry.getValue()))
+                .toList());
+    }
+
+    /**
+     * Переводит назначенные разделы на позиции, сохранённые вместе с событиями.
+     */
+    void seek(Map<TopicPartition, Long> assignments, ConsumerSeekAware.ConsumerSeekCallback callback) {
+        Set<String> topics = assignments.keySet().stream()
+                .map(TopicPartition::topic)
+                .collect(Collectors.toSet());
+        for (String topic : topics) {
+            for (ConsumerOffset offset : storageService.findConsumerOffsets(kafkaClients.groupId(), topic)) {
+                if (assignments.containsKey(new TopicPartition(topic, offset.partition()))) {
+                    callback.seek(topic, offset.partition(), offset.nextOffset());
+                }
+            }
+        }
+    }
+}
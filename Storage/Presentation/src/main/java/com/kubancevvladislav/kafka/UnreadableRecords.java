@@ -0,0 +1,34 @@
+package com.kubancevvladislav.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+
+/**
+ * Записи, ключ или тело которых не удалось десериализовать.
+ * Пакетный слушатель получает такую запись с пустым ключом или телом и исключением в заголовке,
+ * оставленным {@link ErrorHandlingDeserializer}; сохранять её нельзя, её нужно отдать обработчику ошибок.
+ */
+final class UnreadableRecords {
+    private static final LogAccessor LOG = new LogAccessor(UnreadableRecords.class);
+
+    private UnreadableRecords() {
+    }
+
+    /**
+     * @throws DeserializationException если ключ или тело записи не удалось прочитать
+     */
+    static void requireReadable(ConsumerRecord<?, ?> record) {
+        DeserializationException failure = SerializationUtils.getExceptionFromHeader(
+                record, SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG);
+        if (failure == null) {
+            failure = SerializationUtils.getExceptionFromHeader(
+                    record, SerializationUtils.KEY_DESERIALIZER_EXCEPTION_HEADER, LOG);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.kubancevvladislav.kafka;
+
+import com.kubancevvladislav.KafkaClients;
+import com.kubancevvladislav.domain.AccountEvent;
+import com.kubancevvladislav.domain.ConsumerPosition;
+import com.kubancevvladislav.domain.EventSource;
+import com.kubancevvladislav.repositories.ConsumerOffset;
+import com.kubancevvladislav.services.EventStorageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchEventConsumerTest {
+    private static final String TOPIC = "account-topic";
+
+    private final RecordingStorage storage = new RecordingStorage();
+    private KeyLanes keyLanes;
+
+    @AfterEach
+    void stopLanes() {
+        keyLanes.stop();
+    }
+
+    @Test
+    void savesWholePollWithPositionAfterIt() {
+        BatchEventConsumer consumer = consumer(1);
+
+        consumer.consumeAccount(List.of(record(5, "1"), record(6, "2"), record(7, "1")));
+
+        assertEquals(List.of(List.of(
+                event(5, "1"), event(6, "2"), event(7, "1"))), storage.saved);
+        assertEquals(List.of(position(8)), storage.positions);
+    }
+
+    @Test
+    void savesRecordsBeforeUnreadableKeyAndReportsItsIndex() {
+        BatchEventConsumer consumer = consumer(1);
+
+        BatchListenerFailedException e = assertThrows(BatchListenerFailedException.class,
+                () -> consumer.consumeAccount(List.of(record(5, "1"), record(6, "счёт"), record(7, "1"))));
+
+        assertEquals(1, e.getIndex());
+        assertEquals(List.of(List.of(event(5, "1"))), storage.saved);
+        assertEquals(List.of(position(6)), storage.positions);
+    }
+
+    @Test
+    void writesPositionAfterAllKeyLanes() {
+        BatchEventConsumer consumer = consumer(2);
+
+        consumer.consumeAccount(List.of(record(5, "1"), record(6, "2"), record(7, "1")));
+
+        // Дорожки сохраняются без позиции, позиция пишется отдельно после них
+        assertEquals(Set.of(List.of(event(5, "1"), event(7, "1")), List.of(event(6, "2"))),
+                Set.copyOf(storage.saved.subList(0, 2)));
+        assertEquals(List.of(), storage.saved.get(2));
+        assertEquals(Arrays.asList(null, null, position(8)), storage.positions);
+    }
+
+    private BatchEventConsumer consumer(int lanes) {
+        KafkaClients kafkaClients = new KafkaClients(
+                "localhost:9092", "storage-group", new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        keyLanes = new KeyLanes(lanes, new SimpleMeterRegistry());
+        return new BatchEventConsumer(storage, new StoredOffsets(storage, kafkaClients), keyLanes);
+    }
+
+    private static ConsumerRecord<String, Object> record(long offset, String key) {
+        return new ConsumerRecord<>(TOPIC, 0, offset, key, "событие " + offset);
+    }
+
+    private static AccountEvent event(long offset, String key) {
+        return new AccountEvent(new BigInteger(key), "событие " + offset, new EventSource(TOPIC, 0, offset));
+    }
+
+    private static ConsumerPosition position(long nextOffset) {
+        return new ConsumerPosition("storage-group", List.of(new ConsumerOffset(TOPIC, 0, nextOffset)));
+    }
+
+    private static final class RecordingStorage extends EventStorageService {
+        private final List<List<AccountEvent>> saved = Collections.synchronizedList(new ArrayList<>());
+        private final List<ConsumerPosition> positions = Collections.synchronizedList(new ArrayList<>());
+
+        private RecordingStorage() {
+            super(null);
+        }
+
+        @Override
+        public void saveAccountEvents(List<AccountEvent> accountEvents) {
+            saveAccountEvents(accountEvents, null);
+        }
+
+        @Override
+        public void saveAccountEvents(List<AccountEvent> accountEvents, ConsumerPosition position) {
+            saved.add(List.copyOf(accountEvents));
+            positions.add(position);
+        }
+    }
+}
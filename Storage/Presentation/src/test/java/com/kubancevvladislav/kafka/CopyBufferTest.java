@@ -0,0 +1,100 @@
+package com.kubancevvladislav.kafka;
+
+import com.kubancevvladislav.domain.ConsumerPosition;
+import com.kubancevvladislav.repositories.ConsumerOffset;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CopyBufferTest {
+    private static final TopicPartition PARTITION = new TopicPartition("account-topic", 0);
+
+    private final MockConsumer<String, Object> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    private final List<List<String>> written = new ArrayList<>();
+    private final List<List<ConsumerOffset>> positions = new ArrayList<>();
+    private final List<Long> deadLettered = new ArrayList<>();
+    private final AtomicInteger acknowledged = new AtomicInteger();
+    private int failingWrites;
+
+    @BeforeEach
+    void assignPartition() {
+        consumer.assign(List.of(PARTITION));
+    }
+
+    @Test
+    void flushesWhenSizeReached() {
+        CopyBuffer<String> buffer = buffer(2);
+
+        buffer.append(List.of(record(0, "a")), acknowledged::incrementAndGet, consumer);
+        assertTrue(written.isEmpty());
+
+        buffer.append(List.of(record(1, "b")), acknowledged::incrementAndGet, consumer);
+        assertEquals(List.of(List.of("a", "b")), written);
+        assertEquals(List.of(List.of(offset(2))), positions);
+        assertEquals(2, acknowledged.get());
+    }
+
+    @Test
+    void rereadsBatchAfterFailedWriteWithoutRepeatingDeadLetters() {
+        CopyBuffer<String> buffer = buffer(1);
+        List<ConsumerRecord<String, Object>> batch = List.of(record(3, null), record(4, "b"));
+        failingWrites = 1;
+
+        buffer.append(batch, acknowledged::incrementAndGet, consumer);
+
+        assertEquals(List.of(3L), deadLettered);
+        assertTrue(written.isEmpty());
+        assertEquals(0, acknowledged.get());
+        assertEquals(3L, consumer.position(PARTITION));
+
+        // Следующий опрос возвращает те же записи
+        buffer.append(batch, acknowledged::incrementAndGet, consumer);
+
+        assertEquals(List.of(3L), deadLettered);
+        assertEquals(List.of(List.of("b")), written);
+        assertEquals(List.of(List.of(offset(5))), positions);
+        assertEquals(1, acknowledged.get());
+    }
+
+    private CopyBuffer<String> buffer(int flushSize) {
+        return new CopyBuffer<>(
+                flushSize,
+                Long.MAX_VALUE,
+                record -> {
+                    if (record.value() == null) {
+                        throw new IllegalArgumentException("Пустое событие");
+                    }
+                    return record.value().toString();
+                },
+                (events, position) -> {
+                    if (failingWrites > 0) {
+                        failingWrites--;
+                        throw new IllegalStateException("База недоступна");
+                    }
+                    written.add(List.copyOf(events));
+                    positions.add(position.offsets());
+                },
+                nextOffsets -> new ConsumerPosition("storage-group", nextOffsets.entrySet().stream()
+                        .map(e -> new ConsumerOffset(e.getKey().topic(), e.getKey().partition(), e.getValue()))
+                        .toList()),
+                (record, cause) -> deadLettered.add(record.offset()));
+    }
+
+    private static ConsumerOffset offset(long nextOffset) {
+        return new ConsumerOffset(PARTITION.topic(), PARTITION.partition(), nextOffset);
+    }
+
+    private static ConsumerRecord<String, Object> record(long offset, Object value) {
+        return new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset, "1", value);
+    }
+}
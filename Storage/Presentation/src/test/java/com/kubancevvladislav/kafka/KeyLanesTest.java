@@ -0,0 +1,96 @@
+package com.kubancevvladislav.kafka;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyLanesTest {
+    private final KeyLanes keyLanes = new KeyLanes(4, new SimpleMeterRegistry());
+    private final List<List<ConsumerRecord<String, Object>>> lanes = Collections.synchronizedList(new ArrayList<>());
+    private final List<List<ConsumerRecord<String, Object>>> positions = new ArrayList<>();
+
+    @AfterEach
+    void stopLanes() {
+        keyLanes.stop();
+    }
+
+    @Test
+    void keepsOffsetOrderOfEachKey() {
+        List<ConsumerRecord<String, Object>> records = IntStream.range(0, 200)
+                .mapToObj(offset -> record(offset, String.valueOf(offset % 10)))
+                .toList();
+
+        keyLanes.save(records, records, lanes::add, positions::add);
+
+        for (List<ConsumerRecord<String, Object>> lane : lanes) {
+            List<Long> offsets = lane.stream().map(ConsumerRecord::offset).toList();
+            assertEquals(offsets.stream().sorted().toList(), offsets);
+        }
+        List<ConsumerRecord<String, Object>> saved = new ArrayList<>();
+        lanes.forEach(saved::addAll);
+        saved.sort(Comparator.comparingLong(ConsumerRecord::offset));
+        assertEquals(records, saved);
+        assertEquals(List.of(records), positions);
+    }
+
+    @Test
+    void keepsPositionBeforeFirstRecordOfFailedLane() {
+        // Ключи "1" и "2" попадают в разные дорожки
+        List<ConsumerRecord<String, Object>> records = List.of(
+                record(0, "1"), record(1, "2"), record(2, "1"), record(3, "2"));
+        IllegalStateException failure = new IllegalStateException("База недоступна");
+
+        BatchListenerFailedException e = assertThrows(BatchListenerFailedException.class,
+                () -> keyLanes.save(records, records, lane -> {
+                    if (lane.get(0).key().equals("2")) {
+                        throw failure;
+                    }
+                    lanes.add(lane);
+                }, positions::add));
+
+        assertEquals(1, e.getIndex());
+        assertSame(failure, e.getCause());
+        assertEquals(List.of(List.of(records.get(0), records.get(2))), lanes);
+        assertEquals(List.of(records.subList(0, 1)), positions);
+    }
+
+    @Test
+    void reportsEarliestRecordWhenSeveralLanesFail() {
+        List<ConsumerRecord<String, Object>> records = List.of(record(0, "2"), record(1, "1"));
+
+        BatchListenerFailedException e = assertThrows(BatchListenerFailedException.class,
+                () -> keyLanes.save(records, records, lane -> {
+                    throw new IllegalStateException("База недоступна");
+                }, positions::add));
+
+        assertEquals(0, e.getIndex());
+        assertEquals(List.of(List.of()), positions);
+    }
+
+    @Test
+    void skipsEmptyBatch() {
+        List<ConsumerRecord<String, Object>> records = List.of();
+
+        keyLanes.save(records, records, lanes::add, positions::add);
+
+        assertTrue(lanes.isEmpty());
+        assertTrue(positions.isEmpty());
+    }
+
+    private static ConsumerRecord<String, Object> record(long offset, String key) {
+        return new ConsumerRecord<>("account-topic", 0, offset, key, "событие " + offset);
+    }
+}